@@ -34,12 +34,20 @@ import org.jetbrains.org.objectweb.asm.Type;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClassFileFactory implements OutputFileCollection {
     private final GenerationState state;
     private final ClassBuilderFactory builderFactory;
     private final Map<FqName, PackageCodegen> package2codegen = new HashMap<FqName, PackageCodegen>();
-    private final Map<String, ClassBuilderAndSourceFileList> generators = new LinkedHashMap<String, ClassBuilderAndSourceFileList>();
+    private final Map<String, ClassBuilderAndSourceFileList> generators = new ConcurrentHashMap<String, ClassBuilderAndSourceFileList>();
+
+    // Classes are listed in asList() by (slot, index in slot), so that output order does not depend on the order
+    // in which parallel codegen threads register their classes
+    private final AtomicInteger slotCounter = new AtomicInteger();
+    private final ThreadLocal<OutputSlot> currentSlot = new ThreadLocal<OutputSlot>();
+    private volatile OutputSlot defaultSlot = new OutputSlot(slotCounter.getAndIncrement());
 
     private boolean isDone = false;
 
@@ -65,10 +73,49 @@ public class ClassFileFactory implements OutputFileCollection {
         List<File> ioSourceFiles = toIoFilesIgnoringNonPhysical(sourceFiles);
         state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
         ClassBuilder answer = builderFactory.newClassBuilder(origin);
-        generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles));
+        // The same class may be requested from several threads (e.g. a SAM wrapper), so the order is looked up and replaced atomically
+        synchronized (generators) {
+            ClassBuilderAndSourceFileList previous = generators.get(outputFilePath);
+            OutputOrder order = previous != null ? previous.order : nextOutputOrder();
+            generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles, order));
+        }
         return answer;
     }
 
+    @NotNull
+    private OutputOrder nextOutputOrder() {
+        OutputSlot slot = currentSlot.get();
+        if (slot == null) {
+            slot = defaultSlot;
+        }
+        return new OutputOrder(slot.id, slot.counter.getAndIncrement());
+    }
+
+    /**
+     * Reserves {@code count} output slots which are ordered after all classes generated so far.
+     * Classes generated outside of any slot after this call are ordered after all the reserved slots.
+     */
+    @NotNull
+    public synchronized List<OutputSlot> reserveOutputSlots(int count) {
+        List<OutputSlot> result = new ArrayList<OutputSlot>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new OutputSlot(slotCounter.getAndIncrement()));
+        }
+        defaultSlot = new OutputSlot(slotCounter.getAndIncrement());
+        return result;
+    }
+
+    public void runInOutputSlot(@NotNull OutputSlot slot, @NotNull Runnable runnable) {
+        OutputSlot previous = currentSlot.get();
+        currentSlot.set(slot);
+        try {
+            runnable.run();
+        }
+        finally {
+            currentSlot.set(previous);
+        }
+    }
+
     void done() {
         if (!isDone) {
             isDone = true;
@@ -82,10 +129,18 @@ public class ClassFileFactory implements OutputFileCollection {
     @Override
     public List<OutputFile> asList() {
         done();
-        return ContainerUtil.map(generators.keySet(), new Function<String, OutputFile>() {
+        List<Map.Entry<String, ClassBuilderAndSourceFileList>> entries =
+                new ArrayList<Map.Entry<String, ClassBuilderAndSourceFileList>>(generators.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, ClassBuilderAndSourceFileList>>() {
             @Override
-            public OutputFile fun(String relativeClassFilePath) {
-                return new OutputClassFile(relativeClassFilePath);
+            public int compare(Map.Entry<String, ClassBuilderAndSourceFileList> e1, Map.Entry<String, ClassBuilderAndSourceFileList> e2) {
+                return e1.getValue().order.compareTo(e2.getValue().order);
+            }
+        });
+        return ContainerUtil.map(entries, new Function<Map.Entry<String, ClassBuilderAndSourceFileList>, OutputFile>() {
+            @Override
+            public OutputFile fun(Map.Entry<String, ClassBuilderAndSourceFileList> entry) {
+                return new OutputClassFile(entry.getKey());
             }
         });
     }
@@ -110,7 +165,7 @@ public class ClassFileFactory implements OutputFileCollection {
     }
 
     @NotNull
-    public PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<JetFile> files) {
+    public synchronized PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<JetFile> files) {
         assert !isDone : "Already done!";
         PackageCodegen codegen = package2codegen.get(fqName);
         if (codegen == null) {
@@ -181,10 +236,37 @@ public class ClassFileFactory implements OutputFileCollection {
     private static final class ClassBuilderAndSourceFileList {
         private final ClassBuilder classBuilder;
         private final List<File> sourceFiles;
+        private final OutputOrder order;
 
-        private ClassBuilderAndSourceFileList(ClassBuilder classBuilder, List<File> sourceFiles) {
+        private ClassBuilderAndSourceFileList(ClassBuilder classBuilder, List<File> sourceFiles, OutputOrder order) {
             this.classBuilder = classBuilder;
             this.sourceFiles = sourceFiles;
+            this.order = order;
+        }
+    }
+
+    public static final class OutputSlot {
+        private final int id;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private OutputSlot(int id) {
+            this.id = id;
+        }
+    }
+
+    private static final class OutputOrder implements Comparable<OutputOrder> {
+        private final int slot;
+        private final int index;
+
+        private OutputOrder(int slot, int index) {
+            this.slot = slot;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(@NotNull OutputOrder other) {
+            if (slot != other.slot) return slot < other.slot ? -1 : 1;
+            return index < other.index ? -1 : (index == other.index ? 0 : 1);
         }
     }
 
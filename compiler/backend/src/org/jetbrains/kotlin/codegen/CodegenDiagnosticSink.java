@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
+import org.jetbrains.kotlin.diagnostics.DiagnosticSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink for diagnostics reported by codegen, which may run on several threads.
+ * Diagnostics reported while a package is generated in parallel are collected for that package only
+ * and passed to the delegate sink later in the order of packages, so the delegate receives them in the same order as in the serial mode
+ */
+public class CodegenDiagnosticSink implements DiagnosticSink {
+    private final DiagnosticSink delegate;
+    private final ThreadLocal<List<Diagnostic>> collected = new ThreadLocal<List<Diagnostic>>();
+
+    public CodegenDiagnosticSink(@NotNull DiagnosticSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void report(@NotNull Diagnostic diagnostic) {
+        List<Diagnostic> diagnostics = collected.get();
+        if (diagnostics != null) {
+            diagnostics.add(diagnostic);
+            return;
+        }
+
+        synchronized (this) {
+            delegate.report(diagnostic);
+        }
+    }
+
+    /**
+     * Runs the given code and returns the diagnostics reported on this thread while it was running, without passing them to the delegate
+     */
+    @NotNull
+    public List<Diagnostic> collect(@NotNull Runnable runnable) {
+        List<Diagnostic> previous = collected.get();
+        List<Diagnostic> result = new ArrayList<Diagnostic>();
+        collected.set(result);
+        try {
+            runnable.run();
+        }
+        finally {
+            collected.set(previous);
+        }
+        return result;
+    }
+
+    public synchronized void reportAll(@NotNull List<Diagnostic> diagnostics) {
+        for (Diagnostic diagnostic : diagnostics) {
+            delegate.report(diagnostic);
+        }
+    }
+}
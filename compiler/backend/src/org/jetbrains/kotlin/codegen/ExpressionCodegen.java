@@ -2515,10 +2515,10 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
                     return result;
                 }
                 else {
-                    Type currentScriptType = asmTypeForScriptDescriptor(bindingContext, scriptContext.getScriptDescriptor());
-                    Type classType = asmTypeForScriptDescriptor(bindingContext, receiverDeclarationDescriptor);
-                    String fieldName = scriptContext.getScriptFieldName(receiverDeclarationDescriptor);
-                    return StackValue.field(classType, currentScriptType, fieldName, false, result, receiverDeclarationDescriptor);
+                    if (!scriptContext.isReplLine()) {
+                        throw new IllegalStateException("Unregistered script: " + receiverDeclarationDescriptor);
+                    }
+                    return generateEarlierReplLine(scriptContext, receiverDeclarationDescriptor, result);
                 }
             }
 
@@ -2535,6 +2535,30 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
         throw new UnsupportedOperationException();
     }
 
+    // SCRIPT: instance of an earlier line of the REPL, taken from the list of earlier lines by the priority of its script
+    @NotNull
+    private StackValue generateEarlierReplLine(
+            @NotNull ScriptContext scriptContext,
+            @NotNull ScriptDescriptor earlierScript,
+            @NotNull final StackValue currentScript
+    ) {
+        final Type currentScriptType = asmTypeForScriptDescriptor(bindingContext, scriptContext.getScriptDescriptor());
+        final Type classType = asmTypeForScriptDescriptor(bindingContext, earlierScript);
+        final int index = earlierScript.getPriority();
+        return StackValue.operation(classType, new Function1<InstructionAdapter, Unit>() {
+            @Override
+            public Unit invoke(InstructionAdapter v) {
+                currentScript.put(currentScriptType, v);
+                v.getfield(currentScriptType.getInternalName(), ScriptContext.EARLIER_LINES_FIELD_NAME,
+                           ScriptCodegen.EARLIER_LINES_TYPE.getDescriptor());
+                v.iconst(index);
+                v.invokeinterface(ScriptCodegen.EARLIER_LINES_TYPE.getInternalName(), "get", "(I)Ljava/lang/Object;");
+                v.checkcast(classType);
+                return Unit.INSTANCE$;
+            }
+        });
+    }
+
     @NotNull
     public StackValue generateThisOrOuter(@NotNull ClassDescriptor calleeContainingClass, boolean isSuper) {
         boolean isSingleton = calleeContainingClass.getKind().isSingleton();
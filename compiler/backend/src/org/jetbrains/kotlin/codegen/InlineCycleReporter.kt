@@ -25,7 +25,13 @@ import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall
 
 public class InlineCycleReporter(val diagnostics: DiagnosticSink) {
 
-    val processingFunctions = linkedMapOf<PsiElement, CallableDescriptor>()
+    // Packages may be generated on several threads, each of them has its own chain of inlined calls
+    private val processingFunctionsForThread = object : ThreadLocal<LinkedHashMap<PsiElement, CallableDescriptor>>() {
+        override fun initialValue() = linkedMapOf<PsiElement, CallableDescriptor>()
+    }
+
+    val processingFunctions: LinkedHashMap<PsiElement, CallableDescriptor>
+        get() = processingFunctionsForThread.get()
 
     public fun enterIntoInlining(call: ResolvedCall<*>?): Boolean {
         //null call for default method inlining
@@ -17,18 +17,31 @@
 package org.jetbrains.kotlin.codegen;
 
 import com.google.common.collect.Sets;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.util.containers.MultiMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
+import org.jetbrains.kotlin.descriptors.CallableDescriptor;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
 import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.psi.JetDeclaration;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.psi.JetScript;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.DescriptorToSourceUtils;
 import org.jetbrains.kotlin.resolve.ScriptNameUtil;
+import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall;
+import org.jetbrains.kotlin.resolve.inline.InlineUtil;
+import org.jetbrains.kotlin.resolve.lazy.ForceResolveUtil;
+import org.jetbrains.kotlin.utils.PhaseMetrics;
+import org.jetbrains.kotlin.utils.UtilsPackage;
 import org.jetbrains.org.objectweb.asm.Type;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.jetbrains.kotlin.codegen.binding.CodegenBinding.registerClassNameForScript;
 
@@ -53,6 +66,18 @@ public class KotlinCodegenFacade {
     public static void compileCorrectFiles(
             @NotNull GenerationState state,
             @NotNull CompilationErrorHandler errorHandler
+    ) {
+        compileCorrectFiles(state, errorHandler, 1);
+    }
+
+    /**
+     * @param threadCount number of threads to generate packages on; packages are generated serially if it's less than 2.
+     *                    The order of {@link ClassFileFactory#asList()} doesn't depend on the number of threads
+     */
+    public static void compileCorrectFiles(
+            @NotNull GenerationState state,
+            @NotNull CompilationErrorHandler errorHandler,
+            int threadCount
     ) {
         prepareForCompilation(state);
 
@@ -63,21 +88,204 @@ public class KotlinCodegenFacade {
         }
 
         Set<FqName> packagesWithObsoleteParts = new HashSet<FqName>(state.getPackagesWithObsoleteParts());
-        for (FqName fqName : Sets.union(packagesWithObsoleteParts, packageFqNameToFiles.keySet())) {
-            generatePackage(state, fqName, packageFqNameToFiles.get(fqName), errorHandler);
+        Set<FqName> packagesToGenerate = Sets.union(packagesWithObsoleteParts, packageFqNameToFiles.keySet());
+        if (threadCount > 1 && packagesToGenerate.size() > 1) {
+            generatePackagesInParallel(state, packagesToGenerate, packageFqNameToFiles, errorHandler, threadCount);
+        }
+        else {
+            for (FqName fqName : packagesToGenerate) {
+                generatePackage(state, fqName, packageFqNameToFiles.get(fqName), errorHandler);
+            }
         }
 
         state.getFactory().done();
     }
 
+    private static void generatePackagesInParallel(
+            @NotNull GenerationState state,
+            @NotNull Collection<FqName> fqNames,
+            @NotNull MultiMap<FqName, JetFile> packageFqNameToFiles,
+            @NotNull final CompilationErrorHandler errorHandler,
+            int threadCount
+    ) {
+        forceResolveDeclarations(state, state.getFiles());
+
+        final ClassFileFactory factory = state.getFactory();
+        final CodegenDiagnosticSink diagnostics = state.getDiagnostics();
+        List<ClassFileFactory.OutputSlot> slots = factory.reserveOutputSlots(fqNames.size());
+        final PhaseMetrics metrics = PhaseMetrics.current();
+
+        // Package codegens are created on this thread, only their generation is done in parallel
+        List<Callable<List<Diagnostic>>> packageTasks = new ArrayList<Callable<List<Diagnostic>>>(fqNames.size());
+        Map<FqName, Integer> packageIndices = new HashMap<FqName, Integer>();
+        Iterator<ClassFileFactory.OutputSlot> slotIterator = slots.iterator();
+        for (final FqName fqName : fqNames) {
+            packageIndices.put(fqName, packageTasks.size());
+            final PackageCodegen codegen = factory.forPackage(fqName, packageFqNameToFiles.get(fqName));
+            final ClassFileFactory.OutputSlot slot = slotIterator.next();
+            packageTasks.add(new Callable<List<Diagnostic>>() {
+                @Override
+                public List<Diagnostic> call() {
+                    PhaseMetrics.Measurement measurement = PhaseMetrics.enter(metrics, getPackagePhaseName(fqName));
+                    try {
+                        return diagnostics.collect(new Runnable() {
+                            @Override
+                            public void run() {
+                                factory.runInOutputSlot(slot, new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        codegen.generate(errorHandler);
+                                    }
+                                });
+                            }
+                        });
+                    }
+                    finally {
+                        measurement.end();
+                    }
+                }
+            });
+        }
+
+        // Each group of packages is generated on one thread, in the order of packages
+        final AtomicReferenceArray<List<Diagnostic>> diagnosticsByPackage = new AtomicReferenceArray<List<Diagnostic>>(packageTasks.size());
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (List<FqName> group : groupPackagesLinkedByInlining(state.getBindingContext(), fqNames)) {
+            final List<Integer> indices = new ArrayList<Integer>(group.size());
+            final List<Callable<List<Diagnostic>>> groupTasks = new ArrayList<Callable<List<Diagnostic>>>(group.size());
+            for (FqName fqName : group) {
+                int index = packageIndices.get(fqName);
+                indices.add(index);
+                groupTasks.add(packageTasks.get(index));
+            }
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < groupTasks.size(); i++) {
+                        diagnosticsByPackage.set(indices.get(i), groupTasks.get(i).call());
+                    }
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, tasks.size()));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            // Reported in the order of packages, as in the serial mode
+            for (int i = 0; i < diagnosticsByPackage.length(); i++) {
+                diagnostics.reportAll(diagnosticsByPackage.get(i));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UtilsPackage.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            throw UtilsPackage.rethrow(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Inlining a function declared in the compiled sources generates its body, including its lambdas and objects, in the codegen of
+    // the calling package. Their closures and contexts are changed then, so packages linked by such calls are put to the same group
+    @NotNull
+    private static Collection<List<FqName>> groupPackagesLinkedByInlining(
+            @NotNull BindingContext bindingContext,
+            @NotNull Collection<FqName> fqNames
+    ) {
+        List<ResolvedCall<?>> resolvedCalls = new ArrayList<ResolvedCall<?>>();
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.COMPONENT_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.DELEGATED_PROPERTY_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.DELEGATED_PROPERTY_PD_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.LOOP_RANGE_ITERATOR_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.LOOP_RANGE_HAS_NEXT_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.LOOP_RANGE_NEXT_RESOLVED_CALL).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.INDEXED_LVALUE_GET).values());
+        resolvedCalls.addAll(bindingContext.getSliceContents(BindingContext.INDEXED_LVALUE_SET).values());
+
+        Map<FqName, FqName> parents = new HashMap<FqName, FqName>();
+        for (FqName fqName : fqNames) {
+            parents.put(fqName, fqName);
+        }
+
+        for (ResolvedCall<?> resolvedCall : resolvedCalls) {
+            // For a variable called as a function, this is the 'invoke' function
+            CallableDescriptor descriptor = resolvedCall.getResultingDescriptor();
+            if (!InlineUtil.isInline(descriptor)) continue;
+
+            PsiElement declaration = DescriptorToSourceUtils.descriptorToDeclaration(descriptor);
+            PsiFile calleeFile = declaration != null ? declaration.getContainingFile() : null;
+            PsiFile callerFile = resolvedCall.getCall().getCallElement().getContainingFile();
+            if (!(calleeFile instanceof JetFile) || !(callerFile instanceof JetFile)) continue;
+
+            FqName callee = ((JetFile) calleeFile).getPackageFqName();
+            FqName caller = ((JetFile) callerFile).getPackageFqName();
+            if (parents.containsKey(callee) && parents.containsKey(caller)) {
+                parents.put(findGroupRoot(parents, callee), findGroupRoot(parents, caller));
+            }
+        }
+
+        Map<FqName, List<FqName>> groups = new LinkedHashMap<FqName, List<FqName>>();
+        for (FqName fqName : fqNames) {
+            FqName root = findGroupRoot(parents, fqName);
+            List<FqName> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<FqName>();
+                groups.put(root, group);
+            }
+            group.add(fqName);
+        }
+        return groups.values();
+    }
+
+    @NotNull
+    private static FqName findGroupRoot(@NotNull Map<FqName, FqName> parents, @NotNull FqName fqName) {
+        FqName root = fqName;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        return root;
+    }
+
+    // Lazy descriptors record to the binding trace when they are resolved,
+    // so all of them are resolved before the binding context is read from several threads
+    private static void forceResolveDeclarations(@NotNull GenerationState state, @NotNull Collection<JetFile> files) {
+        BindingContext bindingContext = state.getBindingContext();
+        for (JetFile file : files) {
+            for (JetDeclaration declaration : file.getDeclarations()) {
+                DeclarationDescriptor descriptor = bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration);
+                if (descriptor != null) {
+                    ForceResolveUtil.forceResolveAllContents(descriptor);
+                }
+            }
+        }
+    }
+
     public static void generatePackage(
             @NotNull GenerationState state,
             @NotNull FqName fqName,
             @NotNull Collection<JetFile> jetFiles,
             @NotNull CompilationErrorHandler errorHandler
     ) {
-        PackageCodegen codegen = state.getFactory().forPackage(fqName, jetFiles);
-        codegen.generate(errorHandler);
+        PhaseMetrics.Measurement measurement = PhaseMetrics.enter(getPackagePhaseName(fqName));
+        try {
+            PackageCodegen codegen = state.getFactory().forPackage(fqName, jetFiles);
+            codegen.generate(errorHandler);
+        }
+        finally {
+            measurement.end();
+        }
+    }
+
+    @NotNull
+    private static String getPackagePhaseName(@NotNull FqName fqName) {
+        return "package " + (fqName.isRoot() ? "<root>" : fqName.asString());
     }
 
     private KotlinCodegenFacade() {}
@@ -35,12 +35,12 @@ import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Type;
 import org.jetbrains.org.objectweb.asm.commons.InstructionAdapter;
 
-import java.util.Collections;
 import java.util.List;
 
 import static org.jetbrains.kotlin.codegen.AsmUtil.method;
 import static org.jetbrains.kotlin.codegen.binding.CodegenBinding.CLASS_FOR_SCRIPT;
 import static org.jetbrains.kotlin.codegen.binding.CodegenBinding.asmTypeForScriptDescriptor;
+import static org.jetbrains.kotlin.codegen.context.ScriptContext.EARLIER_LINES_FIELD_NAME;
 import static org.jetbrains.kotlin.resolve.jvm.AsmTypes.*;
 import static org.jetbrains.kotlin.resolve.jvm.diagnostics.DiagnosticsPackage.OtherOrigin;
 import static org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin.NO_ORIGIN;
@@ -48,6 +48,7 @@ import static org.jetbrains.org.objectweb.asm.Opcodes.*;
 
 // SCRIPT: script code generator
 public class ScriptCodegen extends MemberCodegen<JetScript> {
+    public static final Type EARLIER_LINES_TYPE = Type.getType(List.class);
 
     public static ScriptCodegen createScriptCodegen(
             @NotNull JetScript declaration,
@@ -65,12 +66,7 @@ public class ScriptCodegen extends MemberCodegen<JetScript> {
 
         ClassBuilder builder = state.getFactory().newVisitor(OtherOrigin(declaration, classDescriptorForScript),
                                                              classType, declaration.getContainingFile());
-        List<ScriptDescriptor> earlierScripts = state.getEarlierScriptsForReplInterpreter();
-        ScriptContext scriptContext = parentContext.intoScript(
-                scriptDescriptor,
-                earlierScripts == null ? Collections.<ScriptDescriptor>emptyList() : earlierScripts,
-                classDescriptorForScript
-        );
+        ScriptContext scriptContext = parentContext.intoScript(scriptDescriptor, state.isReplInterpreter(), classDescriptorForScript);
         return new ScriptCodegen(declaration, state, scriptContext, builder);
     }
 
@@ -133,7 +129,7 @@ public class ScriptCodegen extends MemberCodegen<JetScript> {
                               ACC_PUBLIC | ACC_FINAL, scriptResultProperty.getName().asString(),
                               blockType.getDescriptor(), null, null);
 
-        JvmMethodSignature jvmSignature = typeMapper.mapScriptSignature(scriptDescriptor, context.getEarlierScripts());
+        JvmMethodSignature jvmSignature = typeMapper.mapScriptSignature(scriptDescriptor, context.isReplLine());
 
         MethodVisitor mv = classBuilder.newMethod(
                 OtherOrigin(scriptDeclaration, scriptDescriptor.getClassDescriptor().getUnsubstitutedPrimaryConstructor()),
@@ -155,12 +151,12 @@ public class ScriptCodegen extends MemberCodegen<JetScript> {
             FrameMap frameMap = new FrameMap();
             frameMap.enterTemp(OBJECT_TYPE);
 
-            for (ScriptDescriptor importedScript : context.getEarlierScripts()) {
-                frameMap.enter(importedScript, OBJECT_TYPE);
+            if (context.isReplLine()) {
+                frameMap.enterTemp(EARLIER_LINES_TYPE);
             }
 
             Type[] argTypes = jvmSignature.getAsmMethod().getArgumentTypes();
-            int add = 0;
+            int add = context.isReplLine() ? 1 : 0;
 
             for (int i = 0; i < scriptDescriptor.getScriptCodeDescriptor().getValueParameters().size(); i++) {
                 ValueParameterDescriptor parameter = scriptDescriptor.getScriptCodeDescriptor().getValueParameters().get(i);
@@ -169,12 +165,11 @@ public class ScriptCodegen extends MemberCodegen<JetScript> {
 
             int offset = 1;
 
-            for (ScriptDescriptor earlierScript : context.getEarlierScripts()) {
-                Type earlierClassType = asmTypeForScriptDescriptor(bindingContext, earlierScript);
+            if (context.isReplLine()) {
                 iv.load(0, classType);
-                iv.load(offset, earlierClassType);
-                offset += earlierClassType.getSize();
-                iv.putfield(classType.getInternalName(), context.getScriptFieldName(earlierScript), earlierClassType.getDescriptor());
+                iv.load(offset, EARLIER_LINES_TYPE);
+                offset += EARLIER_LINES_TYPE.getSize();
+                iv.putfield(classType.getInternalName(), EARLIER_LINES_FIELD_NAME, EARLIER_LINES_TYPE.getDescriptor());
             }
 
             for (ValueParameterDescriptor parameter : scriptDescriptor.getScriptCodeDescriptor().getValueParameters()) {
@@ -212,10 +207,9 @@ public class ScriptCodegen extends MemberCodegen<JetScript> {
     }
 
     private void genFieldsForParameters(@NotNull ScriptDescriptor script, @NotNull ClassBuilder classBuilder) {
-        for (ScriptDescriptor earlierScript : context.getEarlierScripts()) {
-            Type earlierClassName = asmTypeForScriptDescriptor(bindingContext, earlierScript);
+        if (context.isReplLine()) {
             int access = ACC_PRIVATE | ACC_FINAL;
-            classBuilder.newField(NO_ORIGIN, access, context.getScriptFieldName(earlierScript), earlierClassName.getDescriptor(), null, null);
+            classBuilder.newField(NO_ORIGIN, access, EARLIER_LINES_FIELD_NAME, EARLIER_LINES_TYPE.getDescriptor(), null, null);
         }
 
         for (ValueParameterDescriptor parameter : script.getScriptCodeDescriptor().getValueParameters()) {
@@ -183,10 +183,10 @@ public abstract class CodegenContext<T extends DeclarationDescriptor> {
     @NotNull
     public ScriptContext intoScript(
             @NotNull ScriptDescriptor script,
-            @NotNull List<ScriptDescriptor> earlierScripts,
+            boolean replLine,
             @NotNull ClassDescriptor classDescriptor
     ) {
-        return new ScriptContext(script, earlierScripts, classDescriptor, OwnerKind.IMPLEMENTATION, this, closure);
+        return new ScriptContext(script, replLine, classDescriptor, OwnerKind.IMPLEMENTATION, this, closure);
     }
 
     @NotNull
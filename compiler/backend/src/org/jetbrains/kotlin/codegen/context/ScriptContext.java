@@ -23,16 +23,20 @@ import org.jetbrains.kotlin.codegen.binding.MutableClosure;
 import org.jetbrains.kotlin.descriptors.ClassDescriptor;
 import org.jetbrains.kotlin.descriptors.ScriptDescriptor;
 
-import java.util.List;
-
 // SCRIPT: script as field owner context
 public class ScriptContext extends FieldOwnerContext<ClassDescriptor> {
+    /**
+     * A line of the REPL receives the instances of all earlier lines in one java.util.List, indexed by the priorities of their scripts,
+     * and keeps it in this field
+     */
+    public static final String EARLIER_LINES_FIELD_NAME = "$earlierLines";
+
     private final ScriptDescriptor scriptDescriptor;
-    private final List<ScriptDescriptor> earlierScripts;
+    private final boolean replLine;
 
     public ScriptContext(
             @NotNull ScriptDescriptor scriptDescriptor,
-            @NotNull List<ScriptDescriptor> earlierScripts,
+            boolean replLine,
             @NotNull ClassDescriptor contextDescriptor,
             @NotNull OwnerKind contextKind,
             @Nullable CodegenContext parentContext,
@@ -40,7 +44,7 @@ public class ScriptContext extends FieldOwnerContext<ClassDescriptor> {
     ) {
         super(contextDescriptor, contextKind, parentContext, closure, contextDescriptor, null);
         this.scriptDescriptor = scriptDescriptor;
-        this.earlierScripts = earlierScripts;
+        this.replLine = replLine;
     }
 
     @NotNull
@@ -48,17 +52,7 @@ public class ScriptContext extends FieldOwnerContext<ClassDescriptor> {
         return scriptDescriptor;
     }
 
-    @NotNull
-    public List<ScriptDescriptor> getEarlierScripts() {
-        return earlierScripts;
-    }
-
-    @NotNull
-    public String getScriptFieldName(@NotNull ScriptDescriptor scriptDescriptor) {
-        int index = earlierScripts.indexOf(scriptDescriptor);
-        if (index < 0) {
-            throw new IllegalStateException("Unregistered script: " + scriptDescriptor);
-        }
-        return "script$" + (index + 1);
+    public boolean isReplLine() {
+        return replLine;
     }
 }
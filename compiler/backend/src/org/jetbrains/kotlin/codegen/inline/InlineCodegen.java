@@ -194,10 +194,10 @@ public class InlineCodegen extends CallGenerator {
                 /*use facade class*/
                 containerClassId = PackageClassUtils.getPackageClassId(containerClassId.getPackageFqName());
             }
-            nodeAndSMAP = InlineCodegenUtil.getMethodNode(file.contentsToByteArray(),
-                                                          asmMethod.getName(),
-                                                          asmMethod.getDescriptor(),
-                                                          containerClassId);
+            nodeAndSMAP = InlineMethodNodeCache.getInstance().getMethodNode(file,
+                                                                            asmMethod.getName(),
+                                                                            asmMethod.getDescriptor(),
+                                                                            containerClassId);
 
             if (nodeAndSMAP == null) {
                 throw new RuntimeException("Couldn't obtain compiled function body for " + descriptorName(functionDescriptor));
@@ -592,10 +592,7 @@ public class InlineCodegen extends CallGenerator {
         else if (descriptor instanceof ScriptDescriptor) {
             ClassDescriptor classDescriptorForScript = state.getBindingContext().get(CLASS_FOR_SCRIPT, (ScriptDescriptor) descriptor);
             assert classDescriptorForScript != null : "Can't find class for script: " + descriptor;
-            List<ScriptDescriptor> earlierScripts = state.getEarlierScriptsForReplInterpreter();
-            return parent.intoScript((ScriptDescriptor) descriptor,
-                                     earlierScripts == null ? Collections.emptyList() : earlierScripts,
-                                     classDescriptorForScript);
+            return parent.intoScript((ScriptDescriptor) descriptor, state.isReplInterpreter(), classDescriptorForScript);
         }
         else if (descriptor instanceof FunctionDescriptor) {
             return parent.intoFunction((FunctionDescriptor) descriptor);
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.io.URLUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.org.objectweb.asm.ClassReader;
+import org.jetbrains.org.objectweb.asm.ClassVisitor;
+import org.jetbrains.org.objectweb.asm.ClassWriter;
+import org.jetbrains.org.objectweb.asm.MethodVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil.API;
+import static org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil.GENERATE_SMAP;
+
+/**
+ * Caches bodies of compiled inline functions, so that the owner class is not read again for each call site.
+ *
+ * For each function a tiny class file containing only this method and the source/SMAP information of the owner class is stored.
+ * Every {@link #getMethodNode} call reads the method from that class file, so callers always get their own copy of the node
+ * which they are free to modify.
+ *
+ * The cache is bounded by the total size of such class files ({@code kotlin.inline.cache.size} system property, in bytes).
+ * If {@code kotlin.inline.cache.dir} system property is set, bodies of functions from jars are also stored there
+ * to be reused by subsequent compiler runs; they are keyed by path, size and timestamp of the jar.
+ */
+public class InlineMethodNodeCache {
+    private static final int DEFAULT_MAX_SIZE_IN_BYTES = 16 * 1024 * 1024;
+
+    private static final InlineMethodNodeCache INSTANCE = new InlineMethodNodeCache(
+            getMaxSizeFromProperty(), getDirectoryFromProperty()
+    );
+
+    @NotNull
+    public static InlineMethodNodeCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSizeInBytes;
+    @Nullable
+    private final File diskCacheDirectory;
+
+    private final Map<String, byte[]> methodClasses = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private int sizeInBytes = 0;
+
+    private int hits = 0;
+    private int misses = 0;
+
+    /* package */ InlineMethodNodeCache(int maxSizeInBytes, @Nullable File diskCacheDirectory) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.diskCacheDirectory = diskCacheDirectory;
+    }
+
+    @Nullable
+    public SMAPAndMethodNode getMethodNode(
+            @NotNull VirtualFile file,
+            @NotNull String methodName,
+            @NotNull String methodDescriptor,
+            @NotNull ClassId classId
+    ) throws IOException, ClassNotFoundException {
+        if (maxSizeInBytes <= 0) {
+            return InlineCodegenUtil.getMethodNode(file.contentsToByteArray(), methodName, methodDescriptor, classId);
+        }
+
+        String key = file.getUrl() + "@" + file.getTimeStamp() + ":" + file.getLength() + "#" + methodName + methodDescriptor;
+
+        byte[] methodClass = get(key);
+        if (methodClass == null) {
+            File diskCacheFile = getDiskCacheFile(file, methodName, methodDescriptor);
+            if (diskCacheFile != null && diskCacheFile.isFile()) {
+                methodClass = FileUtil.loadFileBytes(diskCacheFile);
+            }
+            else {
+                methodClass = extractMethodClass(file.contentsToByteArray(), methodName, methodDescriptor);
+                if (methodClass == null) return null;
+
+                if (diskCacheFile != null) {
+                    writeQuietly(diskCacheFile, methodClass);
+                }
+            }
+            put(key, methodClass);
+        }
+
+        return InlineCodegenUtil.getMethodNode(methodClass, methodName, methodDescriptor, classId);
+    }
+
+    @Nullable
+    private synchronized byte[] get(@NotNull String key) {
+        byte[] result = methodClasses.get(key);
+        if (result != null) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+        return result;
+    }
+
+    private synchronized void put(@NotNull String key, @NotNull byte[] methodClass) {
+        byte[] previous = methodClasses.put(key, methodClass);
+        if (previous != null) {
+            sizeInBytes -= previous.length;
+        }
+        sizeInBytes += methodClass.length;
+
+        Iterator<byte[]> iterator = methodClasses.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            sizeInBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        methodClasses.clear();
+        sizeInBytes = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    @TestOnly
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    @TestOnly
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return class file which consists only of the given method and source information of the original class,
+     * or null if there's no such method in the class
+     */
+    @Nullable
+    /* package */ static byte[] extractMethodClass(
+            @NotNull byte[] classData,
+            @NotNull final String methodName,
+            @NotNull final String methodDescriptor
+    ) {
+        final ClassWriter writer = new ClassWriter(0);
+        final boolean[] found = new boolean[1];
+        new ClassReader(classData).accept(new ClassVisitor(API) {
+            @Override
+            public void visit(int version, int access, @NotNull String name, String signature, String superName, String[] interfaces) {
+                writer.visit(version, access, name, null, "java/lang/Object", null);
+            }
+
+            @Override
+            public void visitSource(String source, String debug) {
+                writer.visitSource(source, debug);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(
+                    int access,
+                    @NotNull String name,
+                    @NotNull String desc,
+                    String signature,
+                    String[] exceptions
+            ) {
+                if (methodName.equals(name) && methodDescriptor.equals(desc)) {
+                    found[0] = true;
+                    return writer.visitMethod(access, name, desc, signature, exceptions);
+                }
+                return null;
+            }
+
+            @Override
+            public void visitEnd() {
+                writer.visitEnd();
+            }
+        }, ClassReader.SKIP_FRAMES | (GENERATE_SMAP ? 0 : ClassReader.SKIP_DEBUG));
+
+        return found[0] ? writer.toByteArray() : null;
+    }
+
+    @Nullable
+    private File getDiskCacheFile(@NotNull VirtualFile file, @NotNull String methodName, @NotNull String methodDescriptor) {
+        if (diskCacheDirectory == null) return null;
+
+        // Only classes from jars are cached on disk: jars of libraries rarely change, unlike output directories
+        String path = file.getPath();
+        int separator = path.indexOf(URLUtil.JAR_SEPARATOR);
+        if (separator < 0) return null;
+
+        File jar = new File(path.substring(0, separator));
+        if (!jar.isFile()) return null;
+
+        String jarKey = md5(jar.getAbsolutePath() + "@" + jar.length() + ":" + jar.lastModified());
+        String entryKey = md5(path.substring(separator + URLUtil.JAR_SEPARATOR.length()) + "#" + methodName + methodDescriptor);
+        return new File(new File(diskCacheDirectory, jarKey), entryKey + ".class");
+    }
+
+    private static void writeQuietly(@NotNull File file, @NotNull byte[] bytes) {
+        try {
+            // Write to a temporary file first, so that concurrent compiler processes never see a partially written entry
+            File temp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+            FileUtil.writeToFile(temp, bytes);
+            if (!temp.renameTo(file)) {
+                FileUtil.delete(temp);
+            }
+        }
+        catch (IOException ignored) {
+            // The on-disk cache is an optimization only
+        }
+    }
+
+    @NotNull
+    private static String md5(@NotNull String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(text.getBytes("UTF-8"));
+            return String.format("%032x", new BigInteger(1, digest));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int getMaxSizeFromProperty() {
+        String size = System.getProperty("kotlin.inline.cache.size");
+        if (size == null) return DEFAULT_MAX_SIZE_IN_BYTES;
+        try {
+            return Integer.parseInt(size);
+        }
+        catch (NumberFormatException e) {
+            return DEFAULT_MAX_SIZE_IN_BYTES;
+        }
+    }
+
+    @Nullable
+    private static File getDirectoryFromProperty() {
+        String directory = System.getProperty("kotlin.inline.cache.dir");
+        return directory == null ? null : new File(directory);
+    }
+}
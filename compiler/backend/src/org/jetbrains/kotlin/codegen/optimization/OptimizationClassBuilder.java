@@ -25,9 +25,11 @@ import org.jetbrains.org.objectweb.asm.MethodVisitor;
 
 public class OptimizationClassBuilder extends DelegatingClassBuilder {
     private final ClassBuilder delegate;
+    private final OptimizationPipeline pipeline;
 
-    public OptimizationClassBuilder(@NotNull ClassBuilder delegate) {
+    public OptimizationClassBuilder(@NotNull ClassBuilder delegate, @NotNull OptimizationPipeline pipeline) {
         this.delegate = delegate;
+        this.pipeline = pipeline;
     }
 
     @NotNull
@@ -47,6 +49,7 @@ public class OptimizationClassBuilder extends DelegatingClassBuilder {
             @Nullable String[] exceptions
     ) {
         return new OptimizationMethodVisitor(
+                pipeline,
                 super.newMethod(origin, access, name, desc, signature, exceptions),
                 access, name, desc, signature, exceptions
         );
@@ -24,9 +24,11 @@ import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin;
 
 public class OptimizationClassBuilderFactory implements ClassBuilderFactory {
     private final ClassBuilderFactory delegate;
+    private final OptimizationPipeline pipeline;
 
-    public OptimizationClassBuilderFactory(ClassBuilderFactory delegate) {
+    public OptimizationClassBuilderFactory(ClassBuilderFactory delegate, @NotNull OptimizationPipeline pipeline) {
         this.delegate = delegate;
+        this.pipeline = pipeline;
     }
 
     @NotNull
@@ -38,7 +40,7 @@ public class OptimizationClassBuilderFactory implements ClassBuilderFactory {
     @NotNull
     @Override
     public ClassBuilder newClassBuilder(@NotNull JvmDeclarationOrigin origin) {
-        return new OptimizationClassBuilder(delegate.newClassBuilder(origin));
+        return new OptimizationClassBuilder(delegate.newClassBuilder(origin), pipeline);
     }
 
     @Override
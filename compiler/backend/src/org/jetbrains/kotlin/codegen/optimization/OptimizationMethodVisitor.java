@@ -19,10 +19,7 @@ package org.jetbrains.kotlin.codegen.optimization;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil;
-import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantBoxingMethodTransformer;
-import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantNullCheckMethodTransformer;
 import org.jetbrains.kotlin.codegen.optimization.common.CommonPackage;
-import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Opcodes;
 import org.jetbrains.org.objectweb.asm.tree.LocalVariableNode;
@@ -34,19 +31,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class OptimizationMethodVisitor extends MethodVisitor {
-    private static final int MEMORY_LIMIT_BY_METHOD_MB = 50;
-    private static final MethodTransformer[] TRANSFORMERS = new MethodTransformer[]{
-            new RedundantNullCheckMethodTransformer(),
-            new RedundantBoxingMethodTransformer(),
-            new DeadCodeEliminationMethodTransformer(),
-            new RedundantGotoMethodTransformer(),
-            new StoreStackBeforeInlineMethodTransformer()
-    };
-
     private final MethodNode methodNode;
     private final MethodVisitor delegate;
+    private final OptimizationPipeline pipeline;
 
     public OptimizationMethodVisitor(
+            @NotNull OptimizationPipeline pipeline,
             @NotNull MethodVisitor delegate,
             int access,
             @NotNull String name,
@@ -56,6 +46,7 @@ public class OptimizationMethodVisitor extends MethodVisitor {
     ) {
         super(Opcodes.ASM5);
         this.delegate = delegate;
+        this.pipeline = pipeline;
         this.methodNode = new MethodNode(access, name, desc, signature, exceptions);
         this.methodNode.localVariables = new ArrayList<LocalVariableNode>(5);
         this.mv = InlineCodegenUtil.wrapWithMaxLocalCalc(methodNode);
@@ -70,10 +61,8 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
         super.visitEnd();
 
-        if (canBeAnalyzed(methodNode)) {
-            for (MethodTransformer transformer : TRANSFORMERS) {
-                transformer.transform("fake", methodNode);
-            }
+        if (pipeline.canBeAnalyzed(methodNode)) {
+            pipeline.optimize("fake", methodNode);
             CommonPackage.prepareForEmitting(methodNode);
         }
 
@@ -120,12 +109,4 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
         return traceMethodVisitor;
     }
-
-    private static boolean canBeAnalyzed(@NotNull MethodNode node) {
-        int totalFramesSizeMb = node.instructions.size() *
-                              (node.maxLocals + node.maxStack) / (1024 * 1024);
-
-        return node.instructions.size() > 0 &&
-               totalFramesSizeMb < MEMORY_LIMIT_BY_METHOD_MB;
-    }
 }
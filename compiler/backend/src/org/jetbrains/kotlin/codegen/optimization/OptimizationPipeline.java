@@ -0,0 +1,222 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantBoxingMethodTransformer;
+import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantNullCheckMethodTransformer;
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer;
+import org.jetbrains.org.objectweb.asm.tree.AbstractInsnNode;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordered list of bytecode optimization passes applied to each generated method, with per-pass statistics.
+ *
+ * The set and the order of passes can be configured by their names (see {@link #getAvailablePassNames()}).
+ * In the fixpoint mode passes are applied repeatedly while some of them keep changing the method.
+ * Inline markers are always removed after all passes, this step can't be selected or disabled.
+ */
+public class OptimizationPipeline {
+    public static final String NULL_CHECK = "null-check";
+    public static final String BOXING = "boxing";
+    public static final String DEAD_CODE = "dead-code";
+    public static final String GOTO = "goto";
+
+    private static final String STORE_STACK = "store-stack";
+
+    public static final int DEFAULT_MEMORY_LIMIT_BY_METHOD_MB = 50;
+
+    private static final int MAX_FIXPOINT_ITERATIONS = 10;
+
+    // Default order of passes
+    private static final Map<String, MethodTransformer> PASSES = new LinkedHashMap<String, MethodTransformer>();
+
+    static {
+        PASSES.put(NULL_CHECK, new RedundantNullCheckMethodTransformer());
+        PASSES.put(BOXING, new RedundantBoxingMethodTransformer());
+        PASSES.put(DEAD_CODE, new DeadCodeEliminationMethodTransformer());
+        PASSES.put(GOTO, new RedundantGotoMethodTransformer());
+    }
+
+    @NotNull
+    public static Set<String> getAvailablePassNames() {
+        return Collections.unmodifiableSet(PASSES.keySet());
+    }
+
+    @NotNull
+    public static OptimizationPipeline createDefault() {
+        return new OptimizationPipeline(new ArrayList<String>(PASSES.keySet()), false, DEFAULT_MEMORY_LIMIT_BY_METHOD_MB);
+    }
+
+    @Nullable
+    public static List<String> parsePassNames(@Nullable String passNames) {
+        if (passNames == null) return null;
+        List<String> result = new ArrayList<String>();
+        for (String name : passNames.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    private final List<Pass> passes;
+    // Passes which change the bytecode shape rather than optimize it and thus are applied exactly once, after all other passes
+    private final List<Pass> finalPasses =
+            Collections.singletonList(new Pass(STORE_STACK, new StoreStackBeforeInlineMethodTransformer()));
+    private final boolean fixpoint;
+    private final int memoryLimitByMethodMb;
+
+    /**
+     * @param passNames names of passes to apply, in this order
+     * @throws IllegalArgumentException if some of the names is unknown
+     */
+    public OptimizationPipeline(@NotNull List<String> passNames, boolean fixpoint, int memoryLimitByMethodMb) {
+        this.fixpoint = fixpoint;
+        this.memoryLimitByMethodMb = memoryLimitByMethodMb;
+        this.passes = new ArrayList<Pass>(passNames.size());
+
+        for (String name : new LinkedHashSet<String>(passNames)) {
+            MethodTransformer transformer = PASSES.get(name);
+            if (transformer == null) {
+                throw new IllegalArgumentException("Unknown optimization pass '" + name + "', available passes are: " + PASSES.keySet());
+            }
+            passes.add(new Pass(name, transformer));
+        }
+    }
+
+    public void optimize(@NotNull String internalClassName, @NotNull MethodNode methodNode) {
+        int iterations = 0;
+        boolean changed;
+        do {
+            changed = false;
+            for (Pass pass : passes) {
+                changed |= pass.run(internalClassName, methodNode, fixpoint);
+            }
+            iterations++;
+        }
+        while (fixpoint && changed && iterations < MAX_FIXPOINT_ITERATIONS);
+
+        for (Pass pass : finalPasses) {
+            pass.run(internalClassName, methodNode, false);
+        }
+    }
+
+    public boolean canBeAnalyzed(@NotNull MethodNode node) {
+        int totalFramesSizeMb = node.instructions.size() *
+                                (node.maxLocals + node.maxStack) / (1024 * 1024);
+
+        return node.instructions.size() > 0 &&
+               totalFramesSizeMb < memoryLimitByMethodMb;
+    }
+
+    @NotNull
+    public List<PassStatistics> getStatistics() {
+        List<PassStatistics> result = new ArrayList<PassStatistics>(passes.size() + finalPasses.size());
+        for (Pass pass : passes) {
+            result.add(pass.statistics);
+        }
+        for (Pass pass : finalPasses) {
+            result.add(pass.statistics);
+        }
+        return result;
+    }
+
+    @NotNull
+    public String renderStatistics() {
+        StringBuilder sb = new StringBuilder("Optimization passes:");
+        for (PassStatistics statistics : getStatistics()) {
+            sb.append("\n  ").append(statistics);
+        }
+        return sb.toString();
+    }
+
+    private static class Pass {
+        private final MethodTransformer transformer;
+        private final PassStatistics statistics;
+
+        private Pass(@NotNull String name, @NotNull MethodTransformer transformer) {
+            this.transformer = transformer;
+            this.statistics = new PassStatistics(name);
+        }
+
+        /**
+         * @param detectChanges whether the instructions should be compared before and after the pass (it's needed only in the fixpoint mode)
+         * @return true if changes were detected and the pass has changed the method: removed, added or replaced some instructions
+         */
+        private boolean run(@NotNull String internalClassName, @NotNull MethodNode methodNode, boolean detectChanges) {
+            AbstractInsnNode[] before = detectChanges ? methodNode.instructions.toArray() : null;
+            int sizeBefore = methodNode.instructions.size();
+            long start = System.nanoTime();
+
+            transformer.transform(internalClassName, methodNode);
+
+            long time = System.nanoTime() - start;
+            statistics.record(time, sizeBefore - methodNode.instructions.size());
+            if (before == null) return false;
+
+            // Instructions are compared by identity, so that a replaced instruction is a change even if it's equal to the old one
+            return !Arrays.equals(before, methodNode.instructions.toArray());
+        }
+    }
+
+    // Pipeline may be used by several codegen threads at once, so statistics are updated atomically
+    public static class PassStatistics {
+        private final String name;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong timeNanos = new AtomicLong();
+        private final AtomicLong instructionsRemoved = new AtomicLong();
+
+        private PassStatistics(@NotNull String name) {
+            this.name = name;
+        }
+
+        private void record(long time, int removed) {
+            invocations.incrementAndGet();
+            timeNanos.addAndGet(time);
+            instructionsRemoved.addAndGet(removed);
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public long getInvocations() {
+            return invocations.get();
+        }
+
+        public long getTimeNanos() {
+            return timeNanos.get();
+        }
+
+        public long getInstructionsRemoved() {
+            return instructionsRemoved.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %8d methods, %8d ms, %8d instructions removed",
+                                 name, getInvocations(), getTimeNanos() / 1000000, getInstructionsRemoved());
+        }
+    }
+}
@@ -25,9 +25,9 @@ import org.jetbrains.kotlin.codegen.binding.CodegenBinding;
 import org.jetbrains.kotlin.codegen.extensions.ClassBuilderInterceptorExtension;
 import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods;
 import org.jetbrains.kotlin.codegen.optimization.OptimizationClassBuilderFactory;
+import org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline;
 import org.jetbrains.kotlin.codegen.when.MappingsClassesForWhenByEnum;
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
-import org.jetbrains.kotlin.descriptors.ScriptDescriptor;
 import org.jetbrains.kotlin.diagnostics.DiagnosticSink;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.psi.JetClassOrObject;
@@ -118,8 +118,7 @@ public class GenerationState {
 
     private final boolean disableInline;
 
-    @Nullable
-    private List<ScriptDescriptor> earlierScriptsForReplInterpreter;
+    private boolean replInterpreter;
 
     private final ReflectionTypes reflectionTypes;
 
@@ -128,7 +127,7 @@ public class GenerationState {
     @NotNull
     private final ModuleDescriptor module;
 
-    private final DiagnosticSink diagnostics;
+    private final CodegenDiagnosticSink diagnostics;
 
     @NotNull
     private final Collection<FqName> packagesWithObsoleteParts;
@@ -142,6 +141,9 @@ public class GenerationState {
     @NotNull
     private final ClassBuilderFactory interceptedBuilderFactory;
 
+    @Nullable
+    private final OptimizationPipeline optimizationPipeline;
+
     public GenerationState(
             @NotNull Project project,
             @NotNull ClassBuilderFactory builderFactory,
@@ -169,6 +171,31 @@ public class GenerationState {
             @Nullable String moduleId,
             @NotNull DiagnosticSink diagnostics,
             @Nullable File outDirectory
+    ) {
+        this(project, builderFactory, progress, module, bindingContext, files, disableCallAssertions, disableParamAssertions,
+             generateClassFilter, disableInline, disableOptimization ? null : OptimizationPipeline.createDefault(),
+             packagesWithObsoleteParts, moduleId, diagnostics, outDirectory);
+    }
+
+    /**
+     * @param optimizationPipeline bytecode optimizations to apply to generated methods, or null if optimizations are disabled
+     */
+    public GenerationState(
+            @NotNull Project project,
+            @NotNull ClassBuilderFactory builderFactory,
+            @NotNull Progress progress,
+            @NotNull ModuleDescriptor module,
+            @NotNull BindingContext bindingContext,
+            @NotNull List<JetFile> files,
+            boolean disableCallAssertions,
+            boolean disableParamAssertions,
+            GenerateClassFilter generateClassFilter,
+            boolean disableInline,
+            @Nullable OptimizationPipeline optimizationPipeline,
+            @Nullable Collection<FqName> packagesWithObsoleteParts,
+            @Nullable String moduleId,
+            @NotNull DiagnosticSink diagnostics,
+            @Nullable File outDirectory
     ) {
         this.project = project;
         this.progress = progress;
@@ -187,23 +214,25 @@ public class GenerationState {
 
         this.intrinsics = new IntrinsicMethods();
 
-        if (!disableOptimization) {
-            builderFactory = new OptimizationClassBuilderFactory(builderFactory);
+        this.optimizationPipeline = optimizationPipeline;
+        if (optimizationPipeline != null) {
+            builderFactory = new OptimizationClassBuilderFactory(builderFactory, optimizationPipeline);
         }
 
+        this.diagnostics = new CodegenDiagnosticSink(diagnostics);
+
         ClassBuilderFactory interceptedBuilderFactory = new BuilderFactoryForDuplicateSignatureDiagnostics(
-                builderFactory, this.bindingContext, diagnostics);
+                builderFactory, this.bindingContext, this.diagnostics);
 
         Collection<ClassBuilderInterceptorExtension> interceptExtensions =
                 ClassBuilderInterceptorExtension.Companion.getInstances(project);
 
         for (ClassBuilderInterceptorExtension extension : interceptExtensions) {
-            interceptedBuilderFactory = extension.interceptClassBuilderFactory(interceptedBuilderFactory, bindingContext, diagnostics);
+            interceptedBuilderFactory = extension.interceptClassBuilderFactory(interceptedBuilderFactory, bindingContext, this.diagnostics);
         }
 
         this.interceptedBuilderFactory = interceptedBuilderFactory;
 
-        this.diagnostics = diagnostics;
         this.classFileFactory = new ClassFileFactory(this, interceptedBuilderFactory);
 
         this.disableCallAssertions = disableCallAssertions;
@@ -213,7 +242,7 @@ public class GenerationState {
         this.reflectionTypes = new ReflectionTypes(module);
         this.runtimeTypes = new JvmRuntimeTypes();
 
-        this.inlineCycleReporter = new InlineCycleReporter(diagnostics);
+        this.inlineCycleReporter = new InlineCycleReporter(this.diagnostics);
     }
 
     @NotNull
@@ -300,7 +329,7 @@ public class GenerationState {
     }
 
     @NotNull
-    public DiagnosticSink getDiagnostics() {
+    public CodegenDiagnosticSink getDiagnostics() {
         return diagnostics;
     }
 
@@ -325,13 +354,12 @@ public class GenerationState {
         interceptedBuilderFactory.close();
     }
 
-    @Nullable
-    public List<ScriptDescriptor> getEarlierScriptsForReplInterpreter() {
-        return earlierScriptsForReplInterpreter;
+    public boolean isReplInterpreter() {
+        return replInterpreter;
     }
 
-    public void setEarlierScriptsForReplInterpreter(@Nullable List<ScriptDescriptor> earlierScriptsForReplInterpreter) {
-        this.earlierScriptsForReplInterpreter = earlierScriptsForReplInterpreter;
+    public void setReplInterpreter(boolean replInterpreter) {
+        this.replInterpreter = replInterpreter;
     }
 
     @NotNull
@@ -353,4 +381,9 @@ public class GenerationState {
     public File getOutDirectory() {
         return outDirectory;
     }
+
+    @Nullable
+    public OptimizationPipeline getOptimizationPipeline() {
+        return optimizationPipeline;
+    }
 }
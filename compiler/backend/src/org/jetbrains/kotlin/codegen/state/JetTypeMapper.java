@@ -1039,15 +1039,13 @@ public class JetTypeMapper {
     }
 
     @NotNull
-    public JvmMethodSignature mapScriptSignature(@NotNull ScriptDescriptor script, @NotNull List<ScriptDescriptor> importedScripts) {
+    public JvmMethodSignature mapScriptSignature(@NotNull ScriptDescriptor script, boolean replLine) {
         BothSignatureWriter sw = new BothSignatureWriter(BothSignatureWriter.Mode.METHOD);
 
         sw.writeParametersStart();
 
-        for (ScriptDescriptor importedScript : importedScripts) {
-            ClassDescriptor descriptor = bindingContext.get(CLASS_FOR_SCRIPT, importedScript);
-            assert descriptor != null : "Script not found: " + importedScript;
-            writeParameter(sw, descriptor.getDefaultType());
+        if (replLine) {
+            writeParameter(sw, JvmMethodParameterKind.VALUE, ScriptCodegen.EARLIER_LINES_TYPE);
         }
 
         for (ValueParameterDescriptor valueParameter : script.getScriptCodeDescriptor().getValueParameters()) {
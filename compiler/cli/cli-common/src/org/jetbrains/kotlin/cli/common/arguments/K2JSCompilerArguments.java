@@ -58,6 +58,9 @@ public class K2JSCompilerArguments extends CommonCompilerArguments {
     @ValueDescription("<path>")
     public String outputPostfix;
 
+    @Argument(value = "Xdce", description = "Remove declarations unreachable from the main function and package initializers, the output can't be used as a library")
+    public boolean deadCodeElimination;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
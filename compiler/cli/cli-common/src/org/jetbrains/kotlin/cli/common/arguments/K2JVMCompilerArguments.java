@@ -66,6 +66,32 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xno-optimize", description = "Disable optimizations")
     public boolean noOptimize;
 
+    @Argument(value = "Xopt-passes", description = "Comma-separated list of bytecode optimization passes to apply, in order")
+    @ValueDescription("<names>")
+    public String optimizationPasses;
+
+    @Argument(value = "Xopt-fixpoint", description = "Apply bytecode optimization passes until they stop changing the code")
+    public boolean optimizationFixpoint;
+
+    @Argument(value = "Xopt-memory-limit", description = "Don't optimize methods whose analysis frames take more memory")
+    @ValueDescription("<MB>")
+    public String optimizationMemoryLimit;
+
+    @Argument(value = "Xopt-statistics", description = "Report time and effect of each bytecode optimization pass")
+    public boolean reportOptimizationStatistics;
+
+    @Argument(value = "Xcodegen-threads", description = "Generate bytecode for different packages on the given number of threads")
+    @ValueDescription("<count>")
+    public String codegenThreads;
+
+    @Argument(value = "Xclasspath-index", description = "Store summaries of packages and classes of classpath jars in the given file between runs")
+    @ValueDescription("<path>")
+    public String classpathIndex;
+
+    @Argument(value = "Xmetrics", description = "Write time and memory spent in each compilation phase to the given file as JSON")
+    @ValueDescription("<path>")
+    public String metrics;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common.daemon;
+
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.sampullara.cli.Argument;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.common.CLICompiler;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.config.Services;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A compiler process which stays alive between compilations, so that the JIT-compiled code, built-ins and the application
+ * environment with already opened jars are reused by subsequent compilations.
+ *
+ * The daemon listens on a loopback port and handles requests one by one, see {@link CompileDaemonClient}. The port and a random
+ * secret are written to the given file, which only the owner can read. Requests without the secret are rejected, so other users
+ * of the machine can't make the daemon compile or write files on the owner's behalf. Relative paths in the compiler arguments
+ * are resolved against the working directory of the client.
+ * It stops on a shutdown request or after being idle for the given number of seconds.
+ *
+ * Usage: CompileDaemon &lt;port file&gt; [idle timeout in seconds]
+ */
+public class CompileDaemon {
+    static final int PROTOCOL_VERSION = 2;
+
+    static final int REQUEST_COMPILE = 1;
+    static final int REQUEST_SHUTDOWN = 2;
+
+    static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 2 * 60 * 60;
+
+    // All options which take a value, as declared by the compiler arguments
+    static final Set<String> OPTIONS_WITH_VALUE = collectOptionsWithValue(K2JVMCompilerArguments.class);
+
+    // Each option with a value should be in one of the following sets, CompileDaemonTest checks that
+    static final Set<String> PATH_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-d", "-module", "-kotlin-home", "-Xclasspath-index", "-Xmetrics"
+    ));
+    static final Set<String> PATH_LIST_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-classpath", "-cp", "-annotations"
+    ));
+    static final Set<String> COMMA_SEPARATED_PATH_LIST_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-Xplugin"
+    ));
+    static final Set<String> NON_PATH_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-Xopt-passes", "-Xopt-memory-limit", "-Xcodegen-threads", "-P"
+    ));
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CompileDaemon <port file> [idle timeout in seconds]");
+            System.exit(1);
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty(KotlinCoreEnvironment.KEEP_ALIVE_PROPERTY, "true");
+
+        File portFile = new File(args[0]);
+        int idleTimeoutSeconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_IDLE_TIMEOUT_SECONDS;
+        String secret = new BigInteger(128, new SecureRandom()).toString(Character.MAX_RADIX);
+
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName(null));
+        try {
+            serverSocket.setSoTimeout(idleTimeoutSeconds * 1000);
+            writePortFile(portFile, serverSocket.getLocalPort(), secret);
+            portFile.deleteOnExit();
+
+            while (true) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                }
+                catch (SocketTimeoutException e) {
+                    return;
+                }
+
+                try {
+                    if (!handle(socket, secret)) return;
+                }
+                catch (IOException e) {
+                    // The client has gone away, wait for the next one
+                    e.printStackTrace();
+                }
+                finally {
+                    socket.close();
+                }
+            }
+        }
+        finally {
+            FileUtil.delete(portFile);
+            serverSocket.close();
+        }
+    }
+
+    // The file is restricted to the owner before the secret is written to it, and renamed when complete so that clients never see
+    // it partially written
+    private static void writePortFile(@NotNull File portFile, int port, @NotNull String secret) throws IOException {
+        File tempFile = new File(portFile.getPath() + ".tmp");
+        FileUtil.delete(tempFile);
+        if (!tempFile.createNewFile()) {
+            throw new IOException("Can't create " + tempFile);
+        }
+        // On Windows files can't be made unreadable to others this way, but they are in a user's own temp directory anyway
+        if (!restrictToOwner(tempFile) && !SystemInfo.isWindows) {
+            FileUtil.delete(tempFile);
+            throw new IOException("Can't make " + tempFile + " readable only by its owner");
+        }
+        FileUtil.writeToFile(tempFile, port + "\n" + secret);
+
+        FileUtil.delete(portFile);
+        if (!tempFile.renameTo(portFile)) {
+            FileUtil.delete(tempFile);
+            throw new IOException("Can't rename " + tempFile + " to " + portFile);
+        }
+    }
+
+    private static boolean restrictToOwner(@NotNull File file) {
+        return file.setReadable(false, false) && file.setReadable(true, true) &&
+               file.setWritable(false, false) && file.setWritable(true, true);
+    }
+
+    // Returns false if the daemon should stop
+    private static boolean handle(@NotNull Socket socket, @NotNull String secret) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        int version = input.readInt();
+        if (version != PROTOCOL_VERSION) {
+            writeResponse(output, ExitCode.INTERNAL_ERROR, "Unsupported compile daemon protocol version: " + version);
+            return true;
+        }
+
+        if (!MessageDigest.isEqual(secret.getBytes("UTF-8"), input.readUTF().getBytes("UTF-8"))) {
+            writeResponse(output, ExitCode.INTERNAL_ERROR, "Compile daemon request is not authorized");
+            return true;
+        }
+
+        int request = input.readInt();
+        if (request == REQUEST_SHUTDOWN) {
+            writeResponse(output, ExitCode.OK, "");
+            return false;
+        }
+
+        boolean xml = input.readBoolean();
+        File workingDirectory = new File(input.readUTF());
+        String[] arguments = new String[input.readInt()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = input.readUTF();
+        }
+
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(messages, true, "UTF-8");
+        ExitCode exitCode;
+        try {
+            String[] resolvedArguments = resolvePaths(arguments, workingDirectory);
+            CLICompiler<?> compiler = new K2JVMCompiler();
+            exitCode = xml ? compiler.execAndOutputXml(out, Services.EMPTY, resolvedArguments) : compiler.exec(out, resolvedArguments);
+        }
+        catch (Throwable e) {
+            e.printStackTrace(out);
+            exitCode = ExitCode.INTERNAL_ERROR;
+        }
+        out.flush();
+
+        writeResponse(output, exitCode, messages.toString("UTF-8"));
+        return true;
+    }
+
+    // The daemon's own working directory is where it was started, so relative paths to sources and in path options are made
+    // absolute against the working directory of the client
+    @NotNull
+    static String[] resolvePaths(@NotNull String[] arguments, @NotNull File workingDirectory) {
+        String[] result = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            String argument = arguments[i];
+            result[i] = argument;
+            if (!argument.startsWith("-")) {
+                result[i] = resolvePath(argument, workingDirectory);
+                continue;
+            }
+            if (i + 1 >= arguments.length) continue;
+
+            String value = arguments[i + 1];
+            if (PATH_OPTIONS.contains(argument)) {
+                value = resolvePath(value, workingDirectory);
+            }
+            else if (PATH_LIST_OPTIONS.contains(argument)) {
+                value = resolvePathList(value, File.pathSeparator, workingDirectory);
+            }
+            else if (COMMA_SEPARATED_PATH_LIST_OPTIONS.contains(argument)) {
+                value = resolvePathList(value, ",", workingDirectory);
+            }
+            else if (!OPTIONS_WITH_VALUE.contains(argument)) {
+                continue;
+            }
+            result[++i] = value;
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Set<String> collectOptionsWithValue(@NotNull Class<?> argumentsClass) {
+        Set<String> result = new HashSet<String>();
+        for (Class<?> clazz = argumentsClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                Argument argument = field.getAnnotation(Argument.class);
+                if (argument == null || field.getType() == boolean.class) continue;
+
+                result.add(argument.prefix() + argument.value());
+                if (!argument.alias().isEmpty()) {
+                    result.add(argument.prefix() + argument.alias());
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String resolvePathList(@NotNull String paths, @NotNull String separator, @NotNull File workingDirectory) {
+        String[] result = paths.split(Pattern.quote(separator), -1);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = resolvePath(result[i], workingDirectory);
+        }
+        return StringUtil.join(result, separator);
+    }
+
+    @NotNull
+    private static String resolvePath(@NotNull String path, @NotNull File workingDirectory) {
+        if (path.isEmpty() || new File(path).isAbsolute()) return path;
+        return new File(workingDirectory, path).getPath();
+    }
+
+    private static void writeResponse(@NotNull DataOutputStream output, @NotNull ExitCode exitCode, @NotNull String messages)
+            throws IOException {
+        byte[] bytes = messages.getBytes("UTF-8");
+        output.writeInt(exitCode.getCode());
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        output.flush();
+    }
+
+    private CompileDaemon() {}
+}
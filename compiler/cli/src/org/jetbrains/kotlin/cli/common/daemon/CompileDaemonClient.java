@@ -0,0 +1,240 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common.daemon;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends compilation requests to a {@link CompileDaemon}, starting it if it isn't running yet.
+ *
+ * Usage: CompileDaemonClient &lt;port file&gt; &lt;compiler arguments&gt;
+ */
+public class CompileDaemonClient {
+    private static final int DAEMON_START_TIMEOUT_MS = 30000;
+
+    @NotNull
+    public static ExitCode compile(@NotNull File portFile, @NotNull String[] arguments, boolean xml, @NotNull PrintStream out)
+            throws IOException {
+        return compile(portFile, new File(System.getProperty("user.dir")), arguments, xml, out);
+    }
+
+    /**
+     * Relative paths in the arguments are resolved by the daemon against the given working directory
+     */
+    @NotNull
+    public static ExitCode compile(
+            @NotNull File portFile,
+            @NotNull File workingDirectory,
+            @NotNull String[] arguments,
+            boolean xml,
+            @NotNull PrintStream out
+    ) throws IOException {
+        DaemonAddress address = readPortFile(portFile);
+        if (address == null) {
+            throw new IOException("Compile daemon is not running: " + portFile);
+        }
+
+        Socket socket = new Socket(InetAddress.getByName(null), address.port);
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeInt(CompileDaemon.PROTOCOL_VERSION);
+            output.writeUTF(address.secret);
+            output.writeInt(CompileDaemon.REQUEST_COMPILE);
+            output.writeBoolean(xml);
+            output.writeUTF(workingDirectory.getAbsolutePath());
+            output.writeInt(arguments.length);
+            for (String argument : arguments) {
+                output.writeUTF(argument);
+            }
+            output.flush();
+
+            return readResponse(socket, out);
+        }
+        finally {
+            socket.close();
+        }
+    }
+
+    public static void shutdown(@NotNull File portFile) throws IOException {
+        DaemonAddress address = readPortFile(portFile);
+        if (address == null) return;
+
+        Socket socket = new Socket(InetAddress.getByName(null), address.port);
+        try {
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            output.writeInt(CompileDaemon.PROTOCOL_VERSION);
+            output.writeUTF(address.secret);
+            output.writeInt(CompileDaemon.REQUEST_SHUTDOWN);
+            output.flush();
+            readResponse(socket, new PrintStream(new ByteArrayOutputStream()));
+        }
+        finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Starts a daemon in a new process with the given classpath (which should contain kotlin-compiler.jar) and JVM options
+     * and waits until it writes its port and secret to the given file
+     */
+    @NotNull
+    public static Process startDaemon(@NotNull File portFile, @NotNull String classpath, @NotNull List<String> jvmOptions)
+            throws IOException {
+        FileUtil.delete(portFile);
+
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classpath);
+        command.add(CompileDaemon.class.getName());
+        command.add(portFile.getPath());
+
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // The daemon doesn't write anything unless something goes wrong, but its output must be consumed anyway
+        Thread outputReader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    InputStream stream = process.getInputStream();
+                    byte[] buffer = new byte[1024];
+                    while (stream.read(buffer) >= 0) {
+                        // Discard
+                    }
+                }
+                catch (IOException ignored) {
+                }
+            }
+        }, "Compile daemon output reader");
+        outputReader.setDaemon(true);
+        outputReader.start();
+
+        long deadline = System.currentTimeMillis() + DAEMON_START_TIMEOUT_MS;
+        while (readPortFile(portFile) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                process.destroy();
+                throw new IOException("Compile daemon hasn't started in " + DAEMON_START_TIMEOUT_MS + " ms");
+            }
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                process.destroy();
+                throw new IOException(e);
+            }
+        }
+        return process;
+    }
+
+    /**
+     * Compiles with the daemon which has written the given port file. A new daemon is started if there's no such file
+     * or nobody listens on its port: the daemon was killed, so it hasn't deleted the file
+     */
+    @NotNull
+    static ExitCode compileStartingDaemon(
+            @NotNull File portFile,
+            @NotNull String classpath,
+            @NotNull List<String> jvmOptions,
+            @NotNull File workingDirectory,
+            @NotNull String[] arguments,
+            @NotNull PrintStream out
+    ) throws IOException {
+        if (readPortFile(portFile) == null) {
+            startDaemon(portFile, classpath, jvmOptions);
+        }
+        else {
+            try {
+                return compile(portFile, workingDirectory, arguments, false, out);
+            }
+            catch (ConnectException e) {
+                // The stale file is deleted by startDaemon()
+                startDaemon(portFile, classpath, jvmOptions);
+            }
+        }
+        return compile(portFile, workingDirectory, arguments, false, out);
+    }
+
+    @NotNull
+    private static ExitCode readResponse(@NotNull Socket socket, @NotNull PrintStream out) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        int code = input.readInt();
+        byte[] messages = new byte[input.readInt()];
+        input.readFully(messages);
+        out.print(new String(messages, "UTF-8"));
+        out.flush();
+
+        for (ExitCode exitCode : ExitCode.values()) {
+            if (exitCode.getCode() == code) return exitCode;
+        }
+        return ExitCode.INTERNAL_ERROR;
+    }
+
+    // The port file contains the port on the first line and the secret on the second one
+    @Nullable
+    static DaemonAddress readPortFile(@NotNull File portFile) {
+        if (!portFile.isFile()) return null;
+        try {
+            String[] lines = FileUtil.loadFile(portFile).trim().split("\n");
+            if (lines.length != 2) return null;
+            return new DaemonAddress(Integer.parseInt(lines[0].trim()), lines[1].trim());
+        }
+        catch (IOException e) {
+            return null;
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static class DaemonAddress {
+        final int port;
+        final String secret;
+
+        DaemonAddress(int port, @NotNull String secret) {
+            this.port = port;
+            this.secret = secret;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CompileDaemonClient <port file> <compiler arguments>");
+            System.exit(1);
+        }
+
+        ExitCode exitCode = compileStartingDaemon(
+                new File(args[0]), System.getProperty("java.class.path"), Arrays.asList("-Xmx1g", "-XX:+UseCodeCacheFlushing"),
+                new File(System.getProperty("user.dir")), Arrays.copyOfRange(args, 1, args.length), System.err
+        );
+        if (exitCode != ExitCode.OK) {
+            System.exit(exitCode.getCode());
+        }
+    }
+
+    private CompileDaemonClient() {}
+}
@@ -30,7 +30,6 @@ import kotlin.jvm.functions.Function1;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.analyzer.AnalysisResult;
-import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.ExitCode;
@@ -40,7 +39,7 @@ import org.jetbrains.kotlin.cli.common.messages.AnalyzerWithCompilerReport;
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
-import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsPackage;
+import org.jetbrains.kotlin.cli.common.messages.OutputMessageUtil;
 import org.jetbrains.kotlin.cli.jvm.compiler.CompilerJarLocator;
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
@@ -55,6 +54,7 @@ import org.jetbrains.kotlin.js.config.LibrarySourcesConfig;
 import org.jetbrains.kotlin.js.facade.K2JSTranslator;
 import org.jetbrains.kotlin.js.facade.MainCallParameters;
 import org.jetbrains.kotlin.js.facade.TranslationResult;
+import org.jetbrains.kotlin.js.inline.clean.UnreachableDeclarationsStatistics;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.utils.PathUtil;
 
@@ -65,6 +65,7 @@ import static org.jetbrains.kotlin.cli.common.ExitCode.COMPILATION_ERROR;
 import static org.jetbrains.kotlin.cli.common.ExitCode.OK;
 import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
 import static org.jetbrains.kotlin.config.ConfigPackage.addKotlinSourceRoots;
+import static org.jetbrains.kotlin.js.inline.clean.CleanPackage.removeUnreachableDeclarations;
 
 public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
 
@@ -176,7 +177,6 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         if (!(translationResult instanceof TranslationResult.Success)) return ExitCode.COMPILATION_ERROR;
 
         TranslationResult.Success successResult = (TranslationResult.Success) translationResult;
-        OutputFileCollection outputFiles = successResult.getOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
 
         if (outputFile.isDirectory()) {
             messageCollector.report(CompilerMessageSeverity.ERROR,
@@ -185,11 +185,22 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return ExitCode.COMPILATION_ERROR;
         }
 
-        File outputDir = outputFile.getParentFile();
-        if (outputDir == null) {
-            outputDir = outputFile.getAbsoluteFile().getParentFile();
+        if (arguments.deadCodeElimination) {
+            UnreachableDeclarationsStatistics statistics = removeUnreachableDeclarations(successResult.getProgram());
+            messageCollector.report(CompilerMessageSeverity.INFO,
+                                    "Dead code elimination removed " + statistics.getRemovedDeclarations() + " declarations (" +
+                                    statistics.getRemovedBytes() + " bytes)",
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+
+        // The code is written while it's generated, so that the whole output of a big module is never kept in memory
+        List<File> writtenFiles = successResult.writeOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
+        List<File> sourceFiles = successResult.getSourceFiles();
+        for (File writtenFile : writtenFiles) {
+            messageCollector.report(CompilerMessageSeverity.OUTPUT,
+                                    OutputMessageUtil.formatOutputMessage(sourceFiles, writtenFile),
+                                    CompilerMessageLocation.NO_LOCATION);
         }
-        OutputUtilsPackage.writeAll(outputFiles, outputDir, messageCollector);
 
         return OK;
     }
@@ -19,7 +19,9 @@ package org.jetbrains.kotlin.cli.jvm;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.io.FileUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.ExitCode;
@@ -30,18 +32,22 @@ import org.jetbrains.kotlin.cli.jvm.compiler.*;
 import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys;
 import org.jetbrains.kotlin.cli.jvm.repl.ReplFromTerminal;
 import org.jetbrains.kotlin.codegen.CompilationException;
+import org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline;
 import org.jetbrains.kotlin.compiler.plugin.CliOptionProcessingException;
 import org.jetbrains.kotlin.compiler.plugin.PluginCliOptionProcessingException;
 import org.jetbrains.kotlin.compiler.plugin.PluginPackage;
 import org.jetbrains.kotlin.config.CompilerConfiguration;
 import org.jetbrains.kotlin.config.Services;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
 import org.jetbrains.kotlin.resolve.AnalyzerScriptParameter;
 import org.jetbrains.kotlin.utils.KotlinPaths;
 import org.jetbrains.kotlin.utils.KotlinPathsFromHomeDir;
 import org.jetbrains.kotlin.utils.PathUtil;
+import org.jetbrains.kotlin.utils.PhaseMetrics;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -80,6 +86,11 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
             configuration.put(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER, incrementalCacheProvider);
         }
 
+        LookupTracker lookupTracker = services.get(LookupTracker.class);
+        if (lookupTracker != null) {
+            configuration.put(JVMConfigurationKeys.LOOKUP_TRACKER, lookupTracker);
+        }
+
         CompilerJarLocator locator = services.get(CompilerJarLocator.class);
         if (locator != null) {
             configuration.put(JVMConfigurationKeys.COMPILER_JAR_LOCATOR, locator);
@@ -131,6 +142,9 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
         }
 
         addJvmClasspathRoots(configuration, getClasspath(paths, arguments));
+        if (arguments.classpathIndex != null) {
+            configuration.put(JVMConfigurationKeys.CLASSPATH_INDEX_FILE, new File(arguments.classpathIndex));
+        }
 
         configuration.addAll(JVMConfigurationKeys.ANNOTATIONS_PATH_KEY, getAnnotationsPath(paths, arguments));
 
@@ -145,8 +159,14 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
 
         putAdvancedOptions(configuration, arguments);
 
+        if (!putCodegenOptions(configuration, arguments, messageCollector)) {
+            return COMPILATION_ERROR;
+        }
+
         messageCollector.report(CompilerMessageSeverity.LOGGING, "Configuring the compilation environment",
                                 CompilerMessageLocation.NO_LOCATION);
+        PhaseMetrics metrics = arguments.metrics != null ? new PhaseMetrics("compilation") : null;
+        PhaseMetrics.Measurement compilation = PhaseMetrics.start(metrics);
         try {
             configureEnvironment(configuration, arguments);
 
@@ -197,6 +217,22 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
                                     MessageUtil.psiElementToMessageLocation(e.getElement()));
             return INTERNAL_ERROR;
         }
+        finally {
+            compilation.end();
+            if (metrics != null) {
+                writeMetrics(metrics, new File(arguments.metrics), messageCollector);
+            }
+        }
+    }
+
+    private static void writeMetrics(@NotNull PhaseMetrics metrics, @NotNull File file, @NotNull MessageCollector messageCollector) {
+        try {
+            FileUtil.writeToFile(file, metrics.toJson());
+        }
+        catch (IOException e) {
+            messageCollector.report(CompilerMessageSeverity.WARNING, "Could not write compilation metrics to " + file + ": " + e,
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
     }
 
     private static void putAdvancedOptions(@NotNull CompilerConfiguration configuration, @NotNull K2JVMCompilerArguments arguments) {
@@ -206,6 +242,60 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
         configuration.put(JVMConfigurationKeys.DISABLE_OPTIMIZATION, arguments.noOptimize);
     }
 
+    private static boolean putCodegenOptions(
+            @NotNull CompilerConfiguration configuration,
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull MessageCollector messageCollector
+    ) {
+        if (arguments.codegenThreads != null) {
+            Integer codegenThreads = parsePositiveInt(arguments.codegenThreads, "Number of codegen threads", messageCollector);
+            if (codegenThreads == null) return false;
+            configuration.put(JVMConfigurationKeys.CODEGEN_THREADS, codegenThreads);
+        }
+
+        if (arguments.optimizationPasses != null) {
+            List<String> passes = OptimizationPipeline.parsePassNames(arguments.optimizationPasses);
+            assert passes != null : "Pass names should be parsed for non-null argument";
+            for (String pass : passes) {
+                if (!OptimizationPipeline.getAvailablePassNames().contains(pass)) {
+                    messageCollector.report(CompilerMessageSeverity.ERROR,
+                                            "Unknown optimization pass '" + pass + "', available passes are: " +
+                                            OptimizationPipeline.getAvailablePassNames(),
+                                            CompilerMessageLocation.NO_LOCATION);
+                    return false;
+                }
+            }
+            configuration.put(JVMConfigurationKeys.OPTIMIZATION_PASSES, passes);
+        }
+
+        if (arguments.optimizationMemoryLimit != null) {
+            Integer limit = parsePositiveInt(arguments.optimizationMemoryLimit, "Optimization memory limit", messageCollector);
+            if (limit == null) return false;
+            configuration.put(JVMConfigurationKeys.OPTIMIZATION_MEMORY_LIMIT, limit);
+        }
+
+        configuration.put(JVMConfigurationKeys.OPTIMIZATION_FIXPOINT, arguments.optimizationFixpoint);
+        configuration.put(JVMConfigurationKeys.REPORT_OPTIMIZATION_STATISTICS, arguments.reportOptimizationStatistics);
+        return true;
+    }
+
+    @Nullable
+    private static Integer parsePositiveInt(@NotNull String value, @NotNull String description, @NotNull MessageCollector messageCollector) {
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            result = 0;
+        }
+        if (result < 1) {
+            messageCollector.report(CompilerMessageSeverity.ERROR, description + " should be a positive integer: " + value,
+                                    CompilerMessageLocation.NO_LOCATION);
+            return null;
+        }
+        return result;
+    }
+
     /**
      * Allow derived classes to add additional command line arguments
      */
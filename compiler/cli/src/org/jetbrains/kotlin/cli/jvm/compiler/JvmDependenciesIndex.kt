@@ -38,13 +38,19 @@ public data class JavaRoot(public val file: VirtualFile, public val type: JavaRo
 }
 
 // speeds up finding files/classes in classpath/java source roots
-// NOT THREADSAFE, needs to be adapted/removed if we want compiler to be multithreaded
+// searches are serialized, so that the index can be used by packages generated in parallel (see KotlinCodegenFacade)
 // the main idea of this class is for each package to store roots which contains it to avoid excessive file system traversal
-public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
+// if a persistent cache is given, jar roots which are known not to contain a package or a class are not traversed at all
+public class JvmDependenciesIndex(_roots: List<JavaRoot>, private val persistentCache: JvmDependenciesIndexCache? = null) {
 
     //these fields are computed based on _roots passed to constructor which are filled in later
     private val roots: List<JavaRoot> by Delegates.lazy { _roots.toList() }
 
+    // summaries of packages and classes of roots, null for roots which are not summarized
+    private val summaries: List<JvmDependenciesIndexCache.JarSummary?> by Delegates.lazy {
+        persistentCache?.getSummaries(roots) ?: listOf<JvmDependenciesIndexCache.JarSummary?>()
+    }
+
     private val maxIndex: Int
         get() = roots.size()
 
@@ -72,6 +78,9 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
         }
     }
 
+    // guards the caches and the last class search below, as well as the lazily computed roots and summaries
+    private val lock = Any()
+
     // holds the request and the result last time we searched for class
     // helps improve several scenarios, LazyJavaResolverContext.findClassInJava being the most important
     private var lastClassSearch: Pair<FindClassRequest, SearchResult>? = null
@@ -104,6 +113,11 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
     private fun <T : Any> search(
             request: SearchRequest,
             handler: (VirtualFile, JavaRoot.RootType) -> HandleResult<T>
+    ): T? = synchronized(lock) { searchWithLock(request, handler) }
+
+    private fun <T : Any> searchWithLock(
+            request: SearchRequest,
+            handler: (VirtualFile, JavaRoot.RootType) -> HandleResult<T>
     ): T? {
 
         // default to searching with given parameters
@@ -167,6 +181,8 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
 
         // a list of package sub names, ["org", "jb", "kotlin"]
         val packagesPath = request.packageFqName.pathSegments().map { it.getIdentifier() }
+        // name of the top level class being searched for, used to skip summarized roots which don't contain it
+        val topLevelClassName = findClassRequest?.classId?.getRelativeClassName()?.pathSegments()?.first()?.asString()
         // a list of caches corresponding to packages, [default, "org", "org.jb", "org.jb.kotlin"]
         val caches = cachesPath(packagesPath)
 
@@ -178,7 +194,7 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
                 val rootIndex = cache.rootIndices[i]
                 if (rootIndex <= processedRootsUpTo) continue // roots with those indices have been processed by now
 
-                val directoryInRoot = travelPath(rootIndex, packagesPath, cacheIndex, caches) ?: continue
+                val directoryInRoot = travelPath(rootIndex, packagesPath, topLevelClassName, cacheIndex, caches) ?: continue
                 val root = roots[rootIndex]
                 val result = handle(root, directoryInRoot)
                 if (result != null) {
@@ -192,7 +208,13 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
 
     // try to find a target directory corresponding to package represented by packagesPath in a given root reprenting by index
     // possibly filling "Cache" objects with new information
-    private fun travelPath(rootIndex: Int, packagesPath: List<String>, fillCachesAfter: Int, cachesPath: List<Cache>): VirtualFile? {
+    private fun travelPath(
+            rootIndex: Int,
+            packagesPath: List<String>,
+            topLevelClassName: String?,
+            fillCachesAfter: Int,
+            cachesPath: List<Cache>
+    ): VirtualFile? {
         if (rootIndex >= maxIndex) {
             for (i in (fillCachesAfter + 1)..cachesPath.size() - 1) {
                 // we all know roots that contain this package by now
@@ -202,9 +224,17 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
             return null
         }
 
+        val summary = if (rootIndex < summaries.size()) summaries[rootIndex] else null
+        val packagePath = StringBuilder()
+
         var currentFile = roots[rootIndex].file
         for (pathIndex in packagesPath.indices) {
             val subPackageName = packagesPath[pathIndex]
+            if (summary != null) {
+                if (pathIndex > 0) packagePath.append('/')
+                packagePath.append(subPackageName)
+                if (!summary.containsPackage(packagePath.toString())) return null
+            }
             currentFile = currentFile.findChild(subPackageName) ?: return null
             val correspondingCacheIndex = pathIndex + 1
             if (correspondingCacheIndex > fillCachesAfter) {
@@ -212,6 +242,11 @@ public class JvmDependenciesIndex(_roots: List<JavaRoot>) {
                 cachesPath[correspondingCacheIndex].rootIndices.add(rootIndex)
             }
         }
+
+        if (summary != null && topLevelClassName != null && !summary.mayContainClass(packagePath.toString(), topLevelClassName)) {
+            // the package exists in this root, but the class definitely does not
+            return null
+        }
         return currentFile
     }
 
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.io.URLUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Summaries of packages and classes of binary jar roots, persisted between compiler runs.
+ *
+ * For each jar the set of its packages and, for each package, a bloom filter of names of classes in it are stored,
+ * keyed by the path, size and timestamp of the jar. {@link JvmDependenciesIndex} uses the summaries to skip walking
+ * directories of jars which don't contain the requested package or class.
+ */
+public class JvmDependenciesIndexCache {
+    private static final int VERSION = 1;
+
+    private final File file;
+
+    // Keyed by the path of the jar
+    private Map<String, JarSummary> summaries = null;
+
+    public JvmDependenciesIndexCache(@NotNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return a summary for each root, or null for roots which are not binary jars.
+     * Summaries of jars which are not in the cache file yet are computed by traversing the jars, and the file is rewritten
+     */
+    @NotNull
+    public List<JarSummary> getSummaries(@NotNull List<JavaRoot> roots) {
+        if (summaries == null) {
+            summaries = load(file);
+        }
+
+        boolean changed = false;
+        List<JarSummary> result = new ArrayList<JarSummary>(roots.size());
+        for (JavaRoot root : roots) {
+            File jar = root.getType() == JavaRoot.RootType.BINARY ? getJarFile(root.getFile()) : null;
+            if (jar == null) {
+                result.add(null);
+                continue;
+            }
+
+            String path = jar.getAbsolutePath();
+            JarSummary summary = summaries.get(path);
+            if (summary == null || summary.length != jar.length() || summary.timestamp != jar.lastModified()) {
+                summary = JarSummary.compute(root.getFile(), jar);
+                summaries.put(path, summary);
+                changed = true;
+            }
+            result.add(summary);
+        }
+
+        if (changed) {
+            save();
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private static File getJarFile(@NotNull VirtualFile root) {
+        String path = root.getPath();
+        // Only roots of jars are summarized, not directories in them
+        if (!path.endsWith(URLUtil.JAR_SEPARATOR)) return null;
+
+        File jar = new File(path.substring(0, path.length() - URLUtil.JAR_SEPARATOR.length()));
+        return jar.isFile() ? jar : null;
+    }
+
+    @NotNull
+    private static Map<String, JarSummary> load(@NotNull File file) {
+        Map<String, JarSummary> result = new HashMap<String, JarSummary>();
+        if (!file.isFile()) return result;
+
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (input.readInt() != VERSION) return result;
+
+                int jarCount = input.readInt();
+                for (int i = 0; i < jarCount; i++) {
+                    JarSummary summary = JarSummary.read(input);
+                    result.put(summary.path, summary);
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            // The cache is an optimization only, summaries will be recomputed
+            result.clear();
+        }
+        return result;
+    }
+
+    private void save() {
+        try {
+            // Write to a temporary file first, so that concurrent compiler processes never see a partially written cache
+            File temp = new File(file.getPath() + "." + System.nanoTime() + ".tmp");
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                output.writeInt(VERSION);
+
+                List<JarSummary> existing = new ArrayList<JarSummary>();
+                for (JarSummary summary : summaries.values()) {
+                    // Forget jars which don't exist anymore
+                    if (new File(summary.path).isFile()) {
+                        existing.add(summary);
+                    }
+                }
+
+                output.writeInt(existing.size());
+                for (JarSummary summary : existing) {
+                    summary.write(output);
+                }
+            }
+            finally {
+                output.close();
+            }
+
+            if (!temp.renameTo(file)) {
+                FileUtil.delete(file);
+                if (!temp.renameTo(file)) {
+                    FileUtil.delete(temp);
+                }
+            }
+        }
+        catch (IOException ignored) {
+            // The cache is an optimization only
+        }
+    }
+
+    public static class JarSummary {
+        private final String path;
+        private final long length;
+        private final long timestamp;
+
+        // Package path ("org/jetbrains/kotlin", empty for the default package) to the filter of names of classes in it
+        private final Map<String, BloomFilter> packages;
+
+        private JarSummary(@NotNull String path, long length, long timestamp, @NotNull Map<String, BloomFilter> packages) {
+            this.path = path;
+            this.length = length;
+            this.timestamp = timestamp;
+            this.packages = packages;
+        }
+
+        public boolean containsPackage(@NotNull String packagePath) {
+            return packages.containsKey(packagePath);
+        }
+
+        /**
+         * @param topLevelClassName name of the top level class, i.e. for "a.b.Outer.Inner" it's "Outer"
+         * @return false if there's definitely no such class in the package, true if there may be one
+         */
+        public boolean mayContainClass(@NotNull String packagePath, @NotNull String topLevelClassName) {
+            BloomFilter filter = packages.get(packagePath);
+            return filter != null && filter.mayContain(topLevelClassName);
+        }
+
+        @NotNull
+        private static JarSummary compute(@NotNull VirtualFile root, @NotNull File jar) {
+            Map<String, BloomFilter> packages = new HashMap<String, BloomFilter>();
+            collectPackages(root, "", packages);
+            return new JarSummary(jar.getAbsolutePath(), jar.length(), jar.lastModified(), packages);
+        }
+
+        private static void collectPackages(@NotNull VirtualFile directory, @NotNull String packagePath, @NotNull Map<String, BloomFilter> packages) {
+            List<String> classNames = new ArrayList<String>();
+            for (VirtualFile child : directory.getChildren()) {
+                String name = child.getName();
+                if (child.isDirectory()) {
+                    collectPackages(child, packagePath.isEmpty() ? name : packagePath + "/" + name, packages);
+                }
+                else if (name.endsWith(".class")) {
+                    String className = name.substring(0, name.length() - ".class".length());
+                    classNames.add(className);
+                    // Nested classes are looked up by the name of their outermost class
+                    int dollar = className.indexOf('$');
+                    if (dollar > 0) {
+                        classNames.add(className.substring(0, dollar));
+                    }
+                }
+            }
+            packages.put(packagePath, BloomFilter.create(classNames));
+        }
+
+        private void write(@NotNull DataOutput output) throws IOException {
+            output.writeUTF(path);
+            output.writeLong(length);
+            output.writeLong(timestamp);
+            output.writeInt(packages.size());
+            for (Map.Entry<String, BloomFilter> entry : packages.entrySet()) {
+                output.writeUTF(entry.getKey());
+                entry.getValue().write(output);
+            }
+        }
+
+        @NotNull
+        private static JarSummary read(@NotNull DataInput input) throws IOException {
+            String path = input.readUTF();
+            long length = input.readLong();
+            long timestamp = input.readLong();
+            int packageCount = input.readInt();
+            Map<String, BloomFilter> packages = new HashMap<String, BloomFilter>(packageCount * 4 / 3 + 1);
+            for (int i = 0; i < packageCount; i++) {
+                packages.put(input.readUTF(), BloomFilter.read(input));
+            }
+            return new JarSummary(path, length, timestamp, packages);
+        }
+    }
+
+    private static class BloomFilter {
+        private static final int BITS_PER_ELEMENT = 10;
+        private static final int HASH_FUNCTIONS = 3;
+
+        private final long[] bits;
+
+        private BloomFilter(@NotNull long[] bits) {
+            this.bits = bits;
+        }
+
+        @NotNull
+        public static BloomFilter create(@NotNull Collection<String> elements) {
+            if (elements.isEmpty()) return new BloomFilter(new long[0]);
+
+            // The number of bits is a power of two, so that a bit index is computed with a mask
+            int bitCount = Integer.highestOneBit(Math.max(64, elements.size() * BITS_PER_ELEMENT) - 1) << 1;
+            BloomFilter filter = new BloomFilter(new long[bitCount / 64]);
+            for (String element : elements) {
+                filter.add(element);
+            }
+            return filter;
+        }
+
+        private void add(@NotNull String element) {
+            int mask = bits.length * 64 - 1;
+            int h1 = element.hashCode();
+            int h2 = secondHash(element);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = (h1 + i * h2) & mask;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        public boolean mayContain(@NotNull String element) {
+            if (bits.length == 0) return false;
+
+            int mask = bits.length * 64 - 1;
+            int h1 = element.hashCode();
+            int h2 = secondHash(element);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private static int secondHash(@NotNull String element) {
+            // FNV-1a, forced to be odd so that all the probes are different
+            int hash = 0x811C9DC5;
+            for (int i = 0; i < element.length(); i++) {
+                hash ^= element.charAt(i);
+                hash *= 0x01000193;
+            }
+            return hash | 1;
+        }
+
+        private void write(@NotNull DataOutput output) throws IOException {
+            output.writeInt(bits.length);
+            for (long word : bits) {
+                output.writeLong(word);
+            }
+        }
+
+        @NotNull
+        private static BloomFilter read(@NotNull DataInput input) throws IOException {
+            long[] bits = new long[input.readInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = input.readLong();
+            }
+            return new BloomFilter(bits);
+        }
+    }
+}
@@ -81,10 +81,13 @@ import org.jetbrains.kotlin.resolve.CodeAnalyzerInitializer
 import org.jetbrains.kotlin.resolve.jvm.KotlinJavaPsiFacade
 import org.jetbrains.kotlin.resolve.lazy.declarations.CliDeclarationProviderFactoryService
 import org.jetbrains.kotlin.resolve.lazy.declarations.DeclarationProviderFactoryService
+import org.jetbrains.kotlin.utils.MemoryPressureMonitor
 import org.jetbrains.kotlin.utils.PathUtil
+import org.jetbrains.kotlin.utils.PhaseMetrics
 import java.io.File
 import java.util.ArrayList
 import java.util.Comparator
+import java.util.HashMap
 import kotlin.platform.platformStatic
 
 public class KotlinCoreEnvironment private(
@@ -119,7 +122,8 @@ public class KotlinCoreEnvironment private(
 
         fillClasspath(configuration)
         val fileManager = ServiceManager.getService(project, javaClass<CoreJavaFileManager>())
-        val index = JvmDependenciesIndex(javaRoots)
+        val indexFile = configuration.get(JVMConfigurationKeys.CLASSPATH_INDEX_FILE)
+        val index = JvmDependenciesIndex(javaRoots, indexFile?.let { JvmDependenciesIndexCache(it) })
         (fileManager as KotlinCliJavaFileManagerImpl).initIndex(index)
 
         for (path in configuration.getList(JVMConfigurationKeys.ANNOTATIONS_PATH_KEY)) {
@@ -236,8 +240,33 @@ public class KotlinCoreEnvironment private(
 
         private val APPLICATION_LOCK = Object()
         private var ourApplicationEnvironment: JavaCoreApplicationEnvironment? = null
+        private var ourApplicationConfigFilePaths: List<String>? = null
         private var ourProjectCount = 0
 
+        // In long-lived processes (the compile daemon, build tools running the compiler in-process) the application environment
+        // is kept after the last project is disposed, so that jars of the JDK and libraries opened by it are reused by the next
+        // compilation. It's disposed anyway when the heap is low on memory
+        public val KEEP_ALIVE_PROPERTY: String = "kotlin.environment.keepalive"
+        private var memoryPressureListenerAdded = false
+        private var disposeWhenUnused = false
+
+        // Length and timestamp of each jar on the classpath of the compilations which used the kept alive environment,
+        // at the time it was first used
+        private val usedJarStamps = HashMap<String, Pair<Long, Long>>()
+
+        private val memoryPressureListener = Runnable {
+            synchronized (APPLICATION_LOCK) {
+                if (ourProjectCount <= 0) {
+                    disposeApplicationEnvironment()
+                }
+                else {
+                    disposeWhenUnused = true
+                }
+            }
+        }
+
+        private fun isKeepAlive(): Boolean = "true" == System.getProperty(KEEP_ALIVE_PROPERTY)
+
         platformStatic public fun createForProduction(
                 parentDisposable: Disposable, configuration: CompilerConfiguration, configFilePaths: List<String>
         ): KotlinCoreEnvironment {
@@ -246,13 +275,21 @@ public class KotlinCoreEnvironment private(
             Disposer.register(parentDisposable, object : Disposable {
                 override fun dispose() {
                     synchronized (APPLICATION_LOCK) {
-                        if (--ourProjectCount <= 0) {
+                        if (--ourProjectCount <= 0 && (!isKeepAlive() || disposeWhenUnused)) {
                             disposeApplicationEnvironment()
                         }
                     }
                 }
             })
-            val environment = KotlinCoreEnvironment(parentDisposable, getOrCreateApplicationEnvironmentForProduction(configuration, configFilePaths), configuration)
+            val setup = PhaseMetrics.enter("environment")
+            val environment = try {
+                val environment = KotlinCoreEnvironment(parentDisposable, getOrCreateApplicationEnvironmentForProduction(configuration, configFilePaths), configuration)
+                setup.count("source files", environment.getSourceFiles().size().toLong())
+                environment
+            }
+            finally {
+                setup.end()
+            }
 
             synchronized (APPLICATION_LOCK) {
                 ourProjectCount++
@@ -269,22 +306,62 @@ public class KotlinCoreEnvironment private(
 
         private fun getOrCreateApplicationEnvironmentForProduction(configuration: CompilerConfiguration, configFilePaths: List<String>): JavaCoreApplicationEnvironment {
             synchronized (APPLICATION_LOCK) {
-                if (ourApplicationEnvironment != null) return ourApplicationEnvironment!!
+                if (ourApplicationEnvironment != null) {
+                    // An environment kept alive after the previous compilation can't be reused if extensions are configured differently
+                    // or some of the jars it has read have changed
+                    if (ourProjectCount > 0 || (ourApplicationConfigFilePaths == configFilePaths && !usedJarsChanged())) {
+                        rememberUsedJars(configuration)
+                        return ourApplicationEnvironment!!
+                    }
+                    disposeApplicationEnvironment()
+                }
+
+                if (isKeepAlive() && !memoryPressureListenerAdded) {
+                    memoryPressureListenerAdded = true
+                    MemoryPressureMonitor.addListener(memoryPressureListener)
+                }
 
                 val parentDisposable = Disposer.newDisposable()
                 ourApplicationEnvironment = createApplicationEnvironment(parentDisposable, configuration, configFilePaths)
+                ourApplicationConfigFilePaths = ArrayList(configFilePaths)
                 ourProjectCount = 0
+                disposeWhenUnused = false
                 Disposer.register(parentDisposable, object : Disposable {
                     override fun dispose() {
                         synchronized (APPLICATION_LOCK) {
                             ourApplicationEnvironment = null
+                            ourApplicationConfigFilePaths = null
+                            usedJarStamps.clear()
                         }
                     }
                 })
+                rememberUsedJars(configuration)
                 return ourApplicationEnvironment!!
             }
         }
 
+        // CoreJarFileSystem caches the entries of each jar it has opened, and there's no API to reset them.
+        // So an environment is not reused once a jar used by some of the previous compilations has changed
+        private fun usedJarsChanged(): Boolean = usedJarStamps.any { jarStamp(it.getKey()) != it.getValue() }
+
+        private fun rememberUsedJars(configuration: CompilerConfiguration) {
+            if (!isKeepAlive()) return
+
+            val classpath = configuration.getList(CommonConfigurationKeys.CONTENT_ROOTS).filterIsInstance<JvmClasspathRoot>().map { it.file }
+            for (file in classpath + configuration.getList(JVMConfigurationKeys.ANNOTATIONS_PATH_KEY)) {
+                if (!file.isFile()) continue
+                val path = file.getAbsolutePath()
+                if (path !in usedJarStamps) {
+                    usedJarStamps[path] = jarStamp(path)
+                }
+            }
+        }
+
+        private fun jarStamp(path: String): Pair<Long, Long> {
+            val file = File(path)
+            return Pair(file.length(), file.lastModified())
+        }
+
         public fun disposeApplicationEnvironment() {
             synchronized (APPLICATION_LOCK) {
                 if (ourApplicationEnvironment == null) return
@@ -32,16 +32,20 @@ import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.CompilerPlugin;
 import org.jetbrains.kotlin.cli.common.CompilerPluginContext;
 import org.jetbrains.kotlin.cli.common.messages.AnalyzerWithCompilerReport;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
 import org.jetbrains.kotlin.cli.common.modules.Module;
 import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsPackage;
 import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys;
 import org.jetbrains.kotlin.codegen.*;
+import org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
 import org.jetbrains.kotlin.codegen.state.Progress;
 import org.jetbrains.kotlin.config.CompilerConfiguration;
 import org.jetbrains.kotlin.context.ModuleContext;
 import org.jetbrains.kotlin.idea.MainFunctionDetector;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCache;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
@@ -56,10 +60,12 @@ import org.jetbrains.kotlin.resolve.ScriptNameUtil;
 import org.jetbrains.kotlin.resolve.jvm.JvmClassName;
 import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
 import org.jetbrains.kotlin.utils.KotlinPaths;
+import org.jetbrains.kotlin.utils.PhaseMetrics;
 
 import java.io.File;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -100,12 +106,19 @@ public class KotlinToJVMBytecodeCompiler {
             boolean jarRuntime,
             @Nullable FqName mainClass
     ) {
-        if (jarPath != null) {
-            CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles);
+        PhaseMetrics.Measurement output = PhaseMetrics.enter("output");
+        try {
+            if (jarPath != null) {
+                CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles);
+            }
+            else {
+                MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
+                OutputUtilsPackage.writeAll(outputFiles, outputDir == null ? new File(".") : outputDir, messageCollector);
+            }
+            output.count("files", outputFiles.asList().size());
         }
-        else {
-            MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
-            OutputUtilsPackage.writeAll(outputFiles, outputDir == null ? new File(".") : outputDir, messageCollector);
+        finally {
+            output.end();
         }
     }
 
@@ -309,6 +322,18 @@ public class KotlinToJVMBytecodeCompiler {
         MessageCollector collector = environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
         assert collector != null;
 
+        PhaseMetrics.Measurement analysis = PhaseMetrics.enter("analysis");
+        analysis.count("source files", environment.getSourceFiles().size());
+        try {
+            return doAnalyze(environment, collector);
+        }
+        finally {
+            analysis.end();
+        }
+    }
+
+    @Nullable
+    private static AnalysisResult doAnalyze(@NotNull final KotlinCoreEnvironment environment, @NotNull MessageCollector collector) {
         AnalyzerWithCompilerReport analyzerWithCompilerReport = new AnalyzerWithCompilerReport(collector);
         analyzerWithCompilerReport.analyzeAndReport(
                 environment.getSourceFiles(), new Function0<AnalysisResult>() {
@@ -323,7 +348,8 @@ public class KotlinToJVMBytecodeCompiler {
                                 environment.getSourceFiles(),
                                 sharedTrace,
                                 environment.getConfiguration().get(JVMConfigurationKeys.MODULE_IDS),
-                                environment.getConfiguration().get(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER)
+                                environment.getConfiguration().get(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER),
+                                environment.getConfiguration().get(JVMConfigurationKeys.LOOKUP_TRACKER, LookupTracker.DO_NOTHING)
                         );
                     }
                 }
@@ -334,8 +360,14 @@ public class KotlinToJVMBytecodeCompiler {
 
         CompilerPluginContext context = new CompilerPluginContext(environment.getProject(), result.getBindingContext(),
                                                                   environment.getSourceFiles());
-        for (CompilerPlugin plugin : environment.getConfiguration().getList(CLIConfigurationKeys.COMPILER_PLUGINS)) {
-            plugin.processFiles(context);
+        PhaseMetrics.Measurement plugins = PhaseMetrics.enter("plugins");
+        try {
+            for (CompilerPlugin plugin : environment.getConfiguration().getList(CLIConfigurationKeys.COMPILER_PLUGINS)) {
+                plugin.processFiles(context);
+            }
+        }
+        finally {
+            plugins.end();
         }
 
         return analyzerWithCompilerReport.hasErrors() ? null : result;
@@ -363,6 +395,7 @@ public class KotlinToJVMBytecodeCompiler {
                 packagesWithObsoleteParts.add(JvmClassName.byInternalName(internalName).getPackageFqName());
             }
         }
+        OptimizationPipeline optimizationPipeline = createOptimizationPipeline(configuration);
         BindingTraceContext diagnosticHolder = new BindingTraceContext();
         GenerationState generationState = new GenerationState(
                 environment.getProject(),
@@ -375,13 +408,24 @@ public class KotlinToJVMBytecodeCompiler {
                 configuration.get(JVMConfigurationKeys.DISABLE_PARAM_ASSERTIONS, false),
                 GenerationState.GenerateClassFilter.GENERATE_ALL,
                 configuration.get(JVMConfigurationKeys.DISABLE_INLINE, false),
-                configuration.get(JVMConfigurationKeys.DISABLE_OPTIMIZATION, false),
+                optimizationPipeline,
                 packagesWithObsoleteParts,
                 moduleId,
                 diagnosticHolder,
                 outputDirectory
         );
-        KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION);
+        PhaseMetrics.Measurement codegen = PhaseMetrics.enter("codegen");
+        try {
+            KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION,
+                                                    configuration.get(JVMConfigurationKeys.CODEGEN_THREADS, 1));
+            codegen.count("classes", generationState.getFactory().asList().size());
+            if (optimizationPipeline != null) {
+                recordOptimizationMetrics(optimizationPipeline);
+            }
+        }
+        finally {
+            codegen.end();
+        }
         AnalyzerWithCompilerReport.reportDiagnostics(
                 new FilteredJvmDiagnostics(
                         diagnosticHolder.getBindingContext().getDiagnostics(),
@@ -389,6 +433,37 @@ public class KotlinToJVMBytecodeCompiler {
                 ),
                 environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY)
         );
+        if (optimizationPipeline != null && configuration.get(JVMConfigurationKeys.REPORT_OPTIMIZATION_STATISTICS, false)) {
+            configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY).report(
+                    CompilerMessageSeverity.INFO, optimizationPipeline.renderStatistics(), CompilerMessageLocation.NO_LOCATION
+            );
+        }
         return generationState;
     }
+
+    private static void recordOptimizationMetrics(@NotNull OptimizationPipeline optimizationPipeline) {
+        PhaseMetrics codegen = PhaseMetrics.current();
+        if (codegen == null) return;
+
+        // Passes are run for each method, measuring them one by one would cost more than the passes themselves
+        PhaseMetrics optimization = codegen.child("optimization");
+        for (OptimizationPipeline.PassStatistics statistics : optimizationPipeline.getStatistics()) {
+            PhaseMetrics pass = optimization.child(statistics.getName());
+            pass.record(statistics.getInvocations(), statistics.getTimeNanos());
+            pass.count("instructions removed", statistics.getInstructionsRemoved());
+            optimization.record(0, statistics.getTimeNanos());
+        }
+    }
+
+    @Nullable
+    private static OptimizationPipeline createOptimizationPipeline(@NotNull CompilerConfiguration configuration) {
+        if (configuration.get(JVMConfigurationKeys.DISABLE_OPTIMIZATION, false)) return null;
+
+        List<String> passes = configuration.get(JVMConfigurationKeys.OPTIMIZATION_PASSES);
+        return new OptimizationPipeline(
+                passes != null ? passes : new ArrayList<String>(OptimizationPipeline.getAvailablePassNames()),
+                configuration.get(JVMConfigurationKeys.OPTIMIZATION_FIXPOINT, false),
+                configuration.get(JVMConfigurationKeys.OPTIMIZATION_MEMORY_LIMIT, OptimizationPipeline.DEFAULT_MEMORY_LIMIT_BY_METHOD_MB)
+        );
+    }
 }
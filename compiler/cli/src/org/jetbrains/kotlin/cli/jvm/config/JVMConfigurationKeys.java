@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.cli.jvm.config;
 
 import org.jetbrains.kotlin.cli.jvm.compiler.CompilerJarLocator;
 import org.jetbrains.kotlin.config.CompilerConfigurationKey;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
 import org.jetbrains.kotlin.resolve.AnalyzerScriptParameter;
 
@@ -41,9 +42,24 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("disable inline");
     public static final CompilerConfigurationKey<Boolean> DISABLE_OPTIMIZATION =
             CompilerConfigurationKey.create("disable optimization");
+    public static final CompilerConfigurationKey<List<String>> OPTIMIZATION_PASSES =
+            CompilerConfigurationKey.create("optimization passes");
+    public static final CompilerConfigurationKey<Boolean> OPTIMIZATION_FIXPOINT =
+            CompilerConfigurationKey.create("apply optimization passes until fixpoint");
+    public static final CompilerConfigurationKey<Integer> OPTIMIZATION_MEMORY_LIMIT =
+            CompilerConfigurationKey.create("optimization memory limit by method in megabytes");
+    public static final CompilerConfigurationKey<Boolean> REPORT_OPTIMIZATION_STATISTICS =
+            CompilerConfigurationKey.create("report optimization statistics");
+    public static final CompilerConfigurationKey<Integer> CODEGEN_THREADS =
+            CompilerConfigurationKey.create("number of codegen threads");
+
+    public static final CompilerConfigurationKey<File> CLASSPATH_INDEX_FILE =
+            CompilerConfigurationKey.create("classpath index file");
 
     public static final CompilerConfigurationKey<IncrementalCacheProvider> INCREMENTAL_CACHE_PROVIDER =
             CompilerConfigurationKey.create("incremental cache provider");
+    public static final CompilerConfigurationKey<LookupTracker> LOOKUP_TRACKER =
+            CompilerConfigurationKey.create("lookup tracker");
 
     public static final CompilerConfigurationKey<CompilerJarLocator> COMPILER_JAR_LOCATOR =
             CompilerConfigurationKey.create("Compiler jar locator");
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.repl
+
+import com.google.common.collect.ArrayListMultimap
+import org.jetbrains.kotlin.descriptors.*
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.psi.JetNamedFunction
+import org.jetbrains.kotlin.psi.JetScript
+import org.jetbrains.kotlin.resolve.BindingContext
+import org.jetbrains.kotlin.resolve.scopes.DescriptorKindFilter
+import org.jetbrains.kotlin.resolve.scopes.JetScope
+import org.jetbrains.kotlin.resolve.scopes.JetScopeImpl
+import org.jetbrains.kotlin.utils.Printer
+import java.util.ArrayList
+import java.util.HashMap
+
+/**
+ * Declarations and imports of all lines evaluated so far, in one flat scope. Every line is added once, after it's analyzed,
+ * so a name in the next line is looked up in a few maps, however many lines were evaluated before it
+ * (the scope of every line used to be chained to the scope of the line before it).
+ *
+ * Variables and classifiers are looked up line by line, the latest line first: a name declared in or imported by a later line
+ * shadows the ones of earlier lines, and declarations of a line shadow its own imports. Functions of all lines are visible:
+ * overloads declared in later lines win by the priorities of their scripts
+ */
+class EarlierLinesScope(private val containingDeclaration: DeclarationDescriptor) : JetScopeImpl() {
+    private class Declared<D>(val descriptor: D, val line: Int)
+
+    private class LineImports(val scope: JetScope, val line: Int)
+
+    private val variables = HashMap<Name, Declared<VariableDescriptor>>()
+    private val classifiers = HashMap<Name, Declared<ClassifierDescriptor>>()
+    private val functions = ArrayListMultimap.create<Name, FunctionDescriptor>()
+    // Only the lines with import directives, the latest line first
+    private val importScopes = ArrayList<LineImports>()
+    private var lineCount = 0
+
+    /**
+     * @param lineScope the scope the top-level statements of the line were resolved in (BindingContext.SCRIPT_SCOPE)
+     * @param importsScope the import directives of the line, if it has any
+     */
+    fun addLine(script: JetScript, lineScope: JetScope, importsScope: JetScope?, bindingContext: BindingContext) {
+        val line = ++lineCount
+        for (descriptor in lineScope.getOwnDeclaredDescriptors()) {
+            when (descriptor) {
+                is VariableDescriptor -> if (descriptor.getExtensionReceiverParameter() == null) {
+                    variables[descriptor.getName()] = Declared(descriptor, line)
+                }
+                is ClassifierDescriptor -> classifiers[descriptor.getName()] = Declared(descriptor, line)
+            }
+        }
+
+        for (function in script.getDeclarations().filterIsInstance<JetNamedFunction>()) {
+            val descriptor = bindingContext.get(BindingContext.FUNCTION, function) ?: continue
+            functions.put(descriptor.getName(), descriptor)
+        }
+
+        if (importsScope != null) {
+            importScopes.add(0, LineImports(importsScope, line))
+        }
+    }
+
+    override fun getContainingDeclaration() = containingDeclaration
+
+    override fun getLocalVariable(name: Name): VariableDescriptor? = lookUp(variables[name]) { it.getLocalVariable(name) }
+
+    override fun getClassifier(name: Name): ClassifierDescriptor? = lookUp(classifiers[name]) { it.getClassifier(name) }
+
+    override fun getPackage(name: Name): PackageViewDescriptor? = lookUp(null) { it.getPackage(name) }
+
+    override fun getProperties(name: Name): Collection<VariableDescriptor> {
+        if (importScopes.isEmpty()) return setOf()
+        return importScopes.flatMapTo(linkedSetOf()) { it.scope.getProperties(name) }
+    }
+
+    override fun getFunctions(name: Name): Collection<FunctionDescriptor> {
+        val declared = functions[name]
+        if (importScopes.isEmpty()) return declared
+
+        val result = linkedSetOf<FunctionDescriptor>()
+        result.addAll(declared)
+        importScopes.flatMapTo(result) { it.scope.getFunctions(name) }
+        return result
+    }
+
+    override fun getDescriptors(kindFilter: DescriptorKindFilter, nameFilter: (Name) -> Boolean): Collection<DeclarationDescriptor> {
+        val result = linkedSetOf<DeclarationDescriptor>()
+        variables.values().mapTo(result) { it.descriptor }
+        classifiers.values().mapTo(result) { it.descriptor }
+        result.addAll(functions.values())
+        importScopes.flatMapTo(result) { it.scope.getDescriptors(kindFilter, nameFilter) }
+        return result
+    }
+
+    override fun printScopeStructure(p: Printer) {
+        p.println(javaClass.getSimpleName(), ": ", lineCount, " lines, ", importScopes.size(), " with imports")
+    }
+
+    /**
+     * Returns the first of the imported descriptors of the lines after the one where [declared] is declared, or [declared] itself
+     */
+    private inline fun <D : Any> lookUp(declared: Declared<D>?, lookupInImports: (JetScope) -> D?): D? {
+        for (imports in importScopes) {
+            if (declared != null && imports.line <= declared.line) return declared.descriptor
+            val result = lookupInImports(imports.scope)
+            if (result != null) return result
+        }
+        return declared?.descriptor
+    }
+}
@@ -20,14 +20,11 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.CharsetToolkit;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFileFactory;
 import com.intellij.psi.impl.PsiFileFactoryImpl;
 import com.intellij.psi.search.ProjectScope;
 import com.intellij.testFramework.LightVirtualFile;
-import com.intellij.util.SmartList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.backend.common.output.OutputFile;
@@ -81,14 +78,17 @@ import java.util.List;
 import static org.jetbrains.kotlin.cli.jvm.config.ConfigPackage.getJvmClasspathRoots;
 import static org.jetbrains.kotlin.codegen.AsmUtil.asmTypeByFqNameWithoutInnerClasses;
 import static org.jetbrains.kotlin.codegen.binding.CodegenBinding.registerClassNameForScript;
-import static org.jetbrains.kotlin.resolve.DescriptorToSourceUtils.descriptorToDeclaration;
 
 public class ReplInterpreter {
     private int lineNumber = 0;
 
-    @Nullable
-    private JetScope lastLineScope;
+    private final EarlierLinesScope earlierLinesScope;
     private final List<EarlierLine> earlierLines = Lists.newArrayList();
+    /**
+     * Instances of the evaluated lines, indexed by the line numbers (which are the priorities of their scripts).
+     * The same list is passed to the constructor of every line, which takes the instances of earlier lines from it
+     */
+    private final List<Object> lineInstances = Lists.newArrayList();
     private final List<String> previousIncompleteLines = Lists.newArrayList();
     private final ReplClassLoader classLoader;
 
@@ -116,7 +116,7 @@ public class ReplInterpreter {
             @NotNull
             @Override
             public List<JetScope> scopes(@NotNull JetFile file) {
-                return lastLineScope != null ? new SmartList<JetScope>(lastLineScope) : Collections.<JetScope>emptyList();
+                return Collections.<JetScope>singletonList(earlierLinesScope);
             }
         };
 
@@ -139,6 +139,8 @@ public class ReplInterpreter {
                 )
         ));
 
+        this.earlierLinesScope = new EarlierLinesScope(resolveSession.getPackageFragment(FqName.ROOT));
+
         List<URL> classpath = Lists.newArrayList();
         for (File file : getJvmClasspathRoots(configuration)) {
             try {
@@ -265,16 +267,13 @@ public class ReplInterpreter {
             return LineResult.error(errorCollector.getString());
         }
 
-        List<Pair<ScriptDescriptor, Type>> earlierScripts = Lists.newArrayList();
-
-        for (EarlierLine earlierLine : earlierLines) {
-            earlierScripts.add(Pair.create(earlierLine.getScriptDescriptor(), earlierLine.getClassType()));
-        }
+        // The class name stays registered in the trace, so that the next lines can refer to this one
+        registerClassNameForScript(trace, psiFile.getScript(), scriptClassType);
 
         GenerationState state = new GenerationState(psiFile.getProject(), ClassBuilderFactories.BINARIES,
                                                     module, trace.getBindingContext(), Collections.singletonList(psiFile));
 
-        compileScript(psiFile.getScript(), scriptClassType, earlierScripts, state, CompilationErrorHandler.THROW_EXCEPTION);
+        compileScript(psiFile.getScript(), state, CompilationErrorHandler.THROW_EXCEPTION);
 
         for (OutputFile outputFile : state.getFactory().asList()) {
             classLoader.addClass(JvmClassName.byInternalName(outputFile.getRelativePath().replaceFirst("\\.class$", "")), outputFile.asByteArray());
@@ -283,18 +282,10 @@ public class ReplInterpreter {
         try {
             Class<?> scriptClass = classLoader.loadClass(scriptFqName.asString());
 
-            Class<?>[] constructorParams = new Class<?>[earlierLines.size()];
-            Object[] constructorArgs = new Object[earlierLines.size()];
-
-            for (int i = 0; i < earlierLines.size(); ++i) {
-                constructorParams[i] = earlierLines.get(i).getScriptClass();
-                constructorArgs[i] = earlierLines.get(i).getScriptInstance();
-            }
-
-            Constructor<?> scriptInstanceConstructor = scriptClass.getConstructor(constructorParams);
+            Constructor<?> scriptInstanceConstructor = scriptClass.getConstructor(List.class);
             Object scriptInstance;
             try {
-                scriptInstance = scriptInstanceConstructor.newInstance(constructorArgs);
+                scriptInstance = scriptInstanceConstructor.newInstance(lineInstances);
             }
             catch (Throwable e) {
                 return LineResult.error(renderStackTrace(e.getCause()));
@@ -303,7 +294,13 @@ public class ReplInterpreter {
             rvField.setAccessible(true);
             Object rv = rvField.get(scriptInstance);
 
+            // Only the lines which were evaluated successfully are visible to the next ones: they need the instance of the line
+            addToEarlierLines(psiFile, scriptDescriptor);
             earlierLines.add(new EarlierLine(line, scriptDescriptor, scriptClass, scriptInstance, scriptClassType));
+            while (lineInstances.size() <= lineNumber) {
+                lineInstances.add(null);
+            }
+            lineInstances.set(lineNumber, scriptInstance);
 
             JetType returnType = scriptDescriptor.getScriptCodeDescriptor().getReturnType();
             return LineResult.successful(rv, returnType != null && KotlinBuiltIns.isUnit(returnType));
@@ -358,45 +355,34 @@ public class ReplInterpreter {
         }
 
         ScriptDescriptor scriptDescriptor = context.getScripts().get(psiFile.getScript());
-        lastLineScope = trace.get(BindingContext.SCRIPT_SCOPE, scriptDescriptor);
-        if (lastLineScope == null) {
+        if (trace.get(BindingContext.SCRIPT_SCOPE, scriptDescriptor) == null) {
             throw new IllegalStateException("last line scope is not initialized");
         }
 
         return scriptDescriptor;
     }
 
-    public void dumpClasses(@NotNull PrintWriter out) {
-        classLoader.dumpClasses(out);
+    private void addToEarlierLines(@NotNull JetFile psiFile, @NotNull ScriptDescriptor scriptDescriptor) {
+        JetScope lineScope = trace.get(BindingContext.SCRIPT_SCOPE, scriptDescriptor);
+        assert lineScope != null : "Scope of an analyzed line is not recorded: " + scriptDescriptor;
+
+        JetScope importsScope = psiFile.getImportDirectives().isEmpty()
+                                ? null
+                                : resolveSession.getScopeProvider().getFileScope(psiFile).createExplicitImportsScope("Imports of line " + lineNumber);
+        //noinspection ConstantConditions
+        earlierLinesScope.addLine(psiFile.getScript(), lineScope, importsScope, trace.getBindingContext());
     }
 
-    private static void registerEarlierScripts(
-            @NotNull GenerationState state,
-            @NotNull List<Pair<ScriptDescriptor, Type>> earlierScripts
-    ) {
-        List<ScriptDescriptor> earlierScriptDescriptors = new ArrayList<ScriptDescriptor>(earlierScripts.size());
-        for (Pair<ScriptDescriptor, Type> pair : earlierScripts) {
-            ScriptDescriptor earlierDescriptor = pair.first;
-            Type earlierClassType = pair.second;
-
-            PsiElement jetScript = descriptorToDeclaration(earlierDescriptor);
-            if (jetScript != null) {
-                registerClassNameForScript(state.getBindingTrace(), (JetScript) jetScript, earlierClassType);
-                earlierScriptDescriptors.add(earlierDescriptor);
-            }
-        }
-        state.setEarlierScriptsForReplInterpreter(earlierScriptDescriptors);
+    public void dumpClasses(@NotNull PrintWriter out) {
+        classLoader.dumpClasses(out);
     }
 
     public static void compileScript(
             @NotNull JetScript script,
-            @NotNull Type classType,
-            @NotNull List<Pair<ScriptDescriptor, Type>> earlierScripts,
             @NotNull GenerationState state,
             @NotNull CompilationErrorHandler errorHandler
     ) {
-        registerEarlierScripts(state, earlierScripts);
-        registerClassNameForScript(state.getBindingTrace(), script, classType);
+        state.setReplInterpreter(true);
 
         state.beforeCompile();
         KotlinCodegenFacade.generatePackage(
@@ -409,19 +395,14 @@ public class ReplInterpreter {
 
     private static class ScriptMutableDeclarationProviderFactory implements DeclarationProviderFactory {
         private DeclarationProviderFactory delegateFactory;
-        private AdaptablePackageMemberDeclarationProvider rootPackageProvider;
+        private final ReplPackageMemberDeclarationProvider rootPackageProvider = new ReplPackageMemberDeclarationProvider();
 
         public void setDelegateFactory(DeclarationProviderFactory delegateFactory) {
             this.delegateFactory = delegateFactory;
 
             PackageMemberDeclarationProvider provider = delegateFactory.getPackageMemberDeclarationProvider(FqName.ROOT);
-            if (rootPackageProvider == null) {
-                assert provider != null;
-                rootPackageProvider = new AdaptablePackageMemberDeclarationProvider(provider);
-            }
-            else {
-                rootPackageProvider.addDelegateProvider(provider);
-            }
+            assert provider != null;
+            rootPackageProvider.addLine(provider);
         }
 
         @NotNull
@@ -439,21 +420,5 @@ public class ReplInterpreter {
 
             return this.delegateFactory.getPackageMemberDeclarationProvider(packageFqName);
         }
-
-        public static class AdaptablePackageMemberDeclarationProvider extends DelegatePackageMemberDeclarationProvider {
-            @NotNull
-            private PackageMemberDeclarationProvider delegateProvider;
-
-            public AdaptablePackageMemberDeclarationProvider(@NotNull PackageMemberDeclarationProvider delegateProvider) {
-                super(delegateProvider);
-                this.delegateProvider = delegateProvider;
-            }
-
-            public void addDelegateProvider(PackageMemberDeclarationProvider provider) {
-                delegateProvider = new CombinedPackageMemberDeclarationProvider(Lists.newArrayList(provider, delegateProvider));
-
-                setDelegate(delegateProvider);
-            }
-        }
     }
 }
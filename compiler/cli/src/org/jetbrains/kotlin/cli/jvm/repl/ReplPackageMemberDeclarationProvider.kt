@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.repl
+
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.psi.JetFile
+import org.jetbrains.kotlin.psi.JetNamedDeclaration
+import org.jetbrains.kotlin.psi.JetScript
+import org.jetbrains.kotlin.resolve.lazy.ResolveSessionUtils
+import org.jetbrains.kotlin.resolve.lazy.data.JetScriptInfo
+import org.jetbrains.kotlin.resolve.lazy.declarations.PackageMemberDeclarationProvider
+import org.jetbrains.kotlin.resolve.scopes.DescriptorKindFilter
+import org.jetbrains.kotlin.resolve.scopes.JetScope
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.LinkedHashSet
+
+/**
+ * Declarations of the root package in all lines evaluated so far. The names declared in a line are indexed when the line is added,
+ * so a name is looked up only in the lines which declare it (the providers of all lines used to be combined one into another).
+ * Later lines come first, as they did in the combined providers
+ */
+class ReplPackageMemberDeclarationProvider : PackageMemberDeclarationProvider {
+    private val lines = ArrayList<PackageMemberDeclarationProvider>()
+    private val linesByName = HashMap<Name, MutableList<PackageMemberDeclarationProvider>>()
+    private val packageFiles = ArrayList<JetFile>()
+    private val subPackages = LinkedHashSet<FqName>()
+
+    fun addLine(provider: PackageMemberDeclarationProvider) {
+        lines.add(provider)
+        packageFiles.addAll(provider.getPackageFiles())
+        subPackages.addAll(provider.getAllDeclaredSubPackages())
+
+        val names = provider.getDeclarations(DescriptorKindFilter.ALL, JetScope.ALL_NAME_FILTER).map {
+            when (it) {
+                is JetScript -> JetScriptInfo(it).fqName.shortName()
+                is JetNamedDeclaration -> ResolveSessionUtils.safeNameForLazyResolve(it)
+                else -> null
+            }
+        }
+        for (name in names.filterNotNull().toSet()) {
+            linesByName.getOrPut(name) { ArrayList<PackageMemberDeclarationProvider>(1) }.add(0, provider)
+        }
+    }
+
+    override fun getAllDeclaredSubPackages(): Collection<FqName> = subPackages
+
+    override fun getPackageFiles(): Collection<JetFile> = packageFiles
+
+    override fun getDeclarations(kindFilter: DescriptorKindFilter, nameFilter: (Name) -> Boolean)
+            = lines.reverse().flatMap { it.getDeclarations(kindFilter, nameFilter) }
+
+    override fun getFunctionDeclarations(name: Name) = linesDeclaring(name).flatMap { it.getFunctionDeclarations(name) }
+
+    override fun getPropertyDeclarations(name: Name) = linesDeclaring(name).flatMap { it.getPropertyDeclarations(name) }
+
+    override fun getClassOrObjectDeclarations(name: Name) = linesDeclaring(name).flatMap { it.getClassOrObjectDeclarations(name) }
+
+    private fun linesDeclaring(name: Name): List<PackageMemberDeclarationProvider>
+            = linesByName[ResolveSessionUtils.safeNameForLazyResolve(name)] ?: listOf()
+}
@@ -54,6 +54,7 @@ import org.jetbrains.kotlin.types.expressions.ControlStructureTypingUtils;
 import org.jetbrains.kotlin.resolve.DescriptorResolver;
 import org.jetbrains.kotlin.resolve.DelegatedPropertyResolver;
 import org.jetbrains.kotlin.resolve.TypeResolver;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.resolve.QualifiedExpressionResolver;
 import org.jetbrains.kotlin.types.DynamicTypesSettings;
 import org.jetbrains.kotlin.types.expressions.ForLoopConventionsChecker;
@@ -123,6 +124,7 @@ public class InjectorForLazyResolveWithJava {
     private final DescriptorResolver descriptorResolver;
     private final DelegatedPropertyResolver delegatedPropertyResolver;
     private final TypeResolver typeResolver;
+    private final LookupTracker lookupTracker;
     private final QualifiedExpressionResolver qualifiedExpressionResolver;
     private final DynamicTypesSettings dynamicTypesSettings;
     private final ForLoopConventionsChecker forLoopConventionsChecker;
@@ -196,19 +198,20 @@ public class InjectorForLazyResolveWithJava {
         this.controlStructureTypingUtils = new ControlStructureTypingUtils(callResolver);
         this.descriptorResolver = new DescriptorResolver();
         this.delegatedPropertyResolver = new DelegatedPropertyResolver();
+        this.lookupTracker = LookupTracker.DO_NOTHING;
         this.qualifiedExpressionResolver = new QualifiedExpressionResolver();
         this.dynamicTypesSettings = new DynamicTypesSettings();
         this.typeResolver = new TypeResolver(annotationResolver, qualifiedExpressionResolver, moduleDescriptor, javaFlexibleTypeCapabilitiesProvider, storageManager, lazyResolveToken, dynamicTypesSettings);
         this.forLoopConventionsChecker = new ForLoopConventionsChecker();
         this.fakeCallResolver = new FakeCallResolver(project, callResolver);
         this.functionDescriptorResolver = new FunctionDescriptorResolver(typeResolver, descriptorResolver, annotationResolver, storageManager, expressionTypingServices, kotlinBuiltIns);
-        this.localClassifierAnalyzer = new LocalClassifierAnalyzer(descriptorResolver, functionDescriptorResolver, typeResolver, annotationResolver);
+        this.localClassifierAnalyzer = new LocalClassifierAnalyzer(descriptorResolver, functionDescriptorResolver, typeResolver, annotationResolver, lookupTracker);
         this.multiDeclarationResolver = new MultiDeclarationResolver(fakeCallResolver, descriptorResolver, typeResolver, symbolUsageValidator);
         this.valueParameterResolver = new ValueParameterResolver(kotlinJvmCheckerProvider, expressionTypingServices);
         this.statementFilter = new StatementFilter();
         this.candidateResolver = new CandidateResolver();
         this.callCompleter = new CallCompleter(argumentTypeResolver, candidateResolver);
-        this.taskPrioritizer = new TaskPrioritizer(storageManager);
+        this.taskPrioritizer = new TaskPrioritizer(storageManager, lookupTracker);
         this.jetImportsFactory = new JetImportsFactory();
         this.lazyDeclarationResolver = new LazyDeclarationResolver(getModuleContext(), bindingTrace);
         this.declarationScopeProvider = new DeclarationScopeProviderImpl(lazyDeclarationResolver);
@@ -303,6 +306,7 @@ public class InjectorForLazyResolveWithJava {
         delegatedPropertyResolver.setExpressionTypingServices(expressionTypingServices);
 
         qualifiedExpressionResolver.setSymbolUsageValidator(symbolUsageValidator);
+        qualifiedExpressionResolver.setLookupTracker(lookupTracker);
 
         forLoopConventionsChecker.setBuiltIns(kotlinBuiltIns);
         forLoopConventionsChecker.setFakeCallResolver(fakeCallResolver);
@@ -27,6 +27,7 @@ import org.jetbrains.kotlin.resolve.lazy.declarations.DeclarationProviderFactory
 import org.jetbrains.kotlin.resolve.lazy.ResolveSession;
 import org.jetbrains.kotlin.resolve.lazy.ScopeProvider;
 import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.resolve.LazyTopDownAnalyzer;
 import org.jetbrains.kotlin.resolve.LazyTopDownAnalyzerForTopLevel;
 import org.jetbrains.kotlin.resolve.jvm.JavaDescriptorResolver;
@@ -107,6 +108,7 @@ public class InjectorForTopDownAnalyzerForJvm {
     private final ResolveSession resolveSession;
     private final ScopeProvider scopeProvider;
     private final GlobalSearchScope moduleContentScope;
+    private final LookupTracker lookupTracker;
     private final LazyTopDownAnalyzer lazyTopDownAnalyzer;
     private final LazyTopDownAnalyzerForTopLevel lazyTopDownAnalyzerForTopLevel;
     private final JavaDescriptorResolver javaDescriptorResolver;
@@ -174,7 +176,8 @@ public class InjectorForTopDownAnalyzerForJvm {
         @NotNull ModuleContext moduleContext,
         @NotNull BindingTrace bindingTrace,
         @NotNull DeclarationProviderFactory declarationProviderFactory,
-        @NotNull GlobalSearchScope moduleContentScope
+        @NotNull GlobalSearchScope moduleContentScope,
+        @NotNull LookupTracker lookupTracker
     ) {
         this.moduleContext = moduleContext;
         this.kotlinBuiltIns = moduleContext.getBuiltIns();
@@ -187,6 +190,7 @@ public class InjectorForTopDownAnalyzerForJvm {
         this.resolveSession = new ResolveSession(project, getModuleContext(), moduleDescriptor, declarationProviderFactory, bindingTrace);
         this.scopeProvider = new ScopeProvider(getResolveSession());
         this.moduleContentScope = moduleContentScope;
+        this.lookupTracker = lookupTracker;
         this.lazyTopDownAnalyzer = new LazyTopDownAnalyzer();
         this.lazyTopDownAnalyzerForTopLevel = new LazyTopDownAnalyzerForTopLevel();
         this.javaClassFinder = new JavaClassFinderImpl();
@@ -228,13 +232,13 @@ public class InjectorForTopDownAnalyzerForJvm {
         this.forLoopConventionsChecker = new ForLoopConventionsChecker();
         this.fakeCallResolver = new FakeCallResolver(project, callResolver);
         this.functionDescriptorResolver = new FunctionDescriptorResolver(typeResolver, descriptorResolver, annotationResolver, storageManager, expressionTypingServices, kotlinBuiltIns);
-        this.localClassifierAnalyzer = new LocalClassifierAnalyzer(descriptorResolver, functionDescriptorResolver, typeResolver, annotationResolver);
+        this.localClassifierAnalyzer = new LocalClassifierAnalyzer(descriptorResolver, functionDescriptorResolver, typeResolver, annotationResolver, lookupTracker);
         this.multiDeclarationResolver = new MultiDeclarationResolver(fakeCallResolver, descriptorResolver, typeResolver, symbolUsageValidator);
         this.valueParameterResolver = new ValueParameterResolver(kotlinJvmCheckerProvider, expressionTypingServices);
         this.statementFilter = new StatementFilter();
         this.candidateResolver = new CandidateResolver();
         this.callCompleter = new CallCompleter(argumentTypeResolver, candidateResolver);
-        this.taskPrioritizer = new TaskPrioritizer(storageManager);
+        this.taskPrioritizer = new TaskPrioritizer(storageManager, lookupTracker);
         this.jetImportsFactory = new JetImportsFactory();
         this.lazyDeclarationResolver = new LazyDeclarationResolver(getModuleContext(), bindingTrace);
         this.declarationScopeProvider = new DeclarationScopeProviderImpl(lazyDeclarationResolver);
@@ -352,6 +356,7 @@ public class InjectorForTopDownAnalyzerForJvm {
         delegatedPropertyResolver.setExpressionTypingServices(expressionTypingServices);
 
         qualifiedExpressionResolver.setSymbolUsageValidator(symbolUsageValidator);
+        qualifiedExpressionResolver.setLookupTracker(lookupTracker);
 
         forLoopConventionsChecker.setBuiltIns(kotlinBuiltIns);
         forLoopConventionsChecker.setFakeCallResolver(fakeCallResolver);
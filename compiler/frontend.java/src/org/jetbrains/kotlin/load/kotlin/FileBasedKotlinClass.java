@@ -17,6 +17,7 @@
 package org.jetbrains.kotlin.load.kotlin;
 
 import com.intellij.openapi.util.Ref;
+import kotlin.jvm.functions.Function1;
 import kotlin.jvm.functions.Function3;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -82,11 +83,40 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     public static <T extends FileBasedKotlinClass> T create(
             @NotNull byte[] fileContents,
             @NotNull Function3<ClassId, KotlinClassHeader, InnerClassesInfo, T> factory
+    ) {
+        return create(fileContents, null, factory);
+    }
+
+    /**
+     * Reads the header and, in the same pass, fields and methods of the class with the visitor created by contentsVisitorFactory.
+     * The factory is called with the header (null if the class has no valid header) once all class annotations are read;
+     * if it returns null, fields and methods are skipped without parsing their code.
+     */
+    @Nullable
+    public static <T extends FileBasedKotlinClass> T create(
+            @NotNull byte[] fileContents,
+            @Nullable final Function1<KotlinClassHeader, ClassVisitor> contentsVisitorFactory,
+            @NotNull Function3<ClassId, KotlinClassHeader, InnerClassesInfo, T> factory
     ) {
         final ReadKotlinClassHeaderAnnotationVisitor readHeaderVisitor = new ReadKotlinClassHeaderAnnotationVisitor();
         final Ref<String> classNameRef = Ref.create();
         final InnerClassesInfo innerClasses = new InnerClassesInfo();
         new ClassReader(fileContents).accept(new ClassVisitor(ASM5) {
+            private boolean contentsVisitorCreated = false;
+            private ClassVisitor contentsVisitor = null;
+
+            // Class annotations are always visited before fields and methods
+            @Nullable
+            private ClassVisitor getContentsVisitor() {
+                if (!contentsVisitorCreated) {
+                    contentsVisitorCreated = true;
+                    if (contentsVisitorFactory != null) {
+                        contentsVisitor = contentsVisitorFactory.invoke(readHeaderVisitor.createHeader());
+                    }
+                }
+                return contentsVisitor;
+            }
+
             @Override
             public void visit(int version, int access, @NotNull String name, String signature, String superName, String[] interfaces) {
                 classNameRef.set(name);
@@ -102,11 +132,28 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
                 return convertAnnotationVisitor(readHeaderVisitor, desc, innerClasses);
             }
 
+            @Override
+            public FieldVisitor visitField(int access, @NotNull String name, @NotNull String desc, String signature, Object value) {
+                ClassVisitor visitor = getContentsVisitor();
+                return visitor != null ? visitor.visitField(access, name, desc, signature, value) : null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, @NotNull String name, @NotNull String desc, String signature, String[] exceptions) {
+                ClassVisitor visitor = getContentsVisitor();
+                return visitor != null ? visitor.visitMethod(access, name, desc, signature, exceptions) : null;
+            }
+
             @Override
             public void visitEnd() {
                 readHeaderVisitor.visitEnd();
+
+                ClassVisitor visitor = getContentsVisitor();
+                if (visitor != null) {
+                    visitor.visitEnd();
+                }
             }
-        }, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+        }, contentsVisitorFactory != null ? 0 : SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
 
         String className = classNameRef.get();
         if (className == null) return null;
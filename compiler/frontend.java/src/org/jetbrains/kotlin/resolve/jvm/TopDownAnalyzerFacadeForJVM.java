@@ -28,6 +28,7 @@ import org.jetbrains.kotlin.descriptors.ClassDescriptor;
 import org.jetbrains.kotlin.descriptors.ModuleParameters;
 import org.jetbrains.kotlin.descriptors.PackageFragmentProvider;
 import org.jetbrains.kotlin.di.InjectorForTopDownAnalyzerForJvm;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.load.kotlin.incremental.IncrementalPackageFragmentProvider;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCache;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
@@ -91,7 +92,7 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull BindingTrace trace,
             @NotNull TopDownAnalysisMode topDownAnalysisMode
     ) {
-        return analyzeFilesWithJavaIntegration(moduleContext, files, trace, topDownAnalysisMode, null, null);
+        return analyzeFilesWithJavaIntegration(moduleContext, files, trace, topDownAnalysisMode, null, null, LookupTracker.DO_NOTHING);
     }
 
     @NotNull
@@ -101,9 +102,23 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull BindingTrace trace,
             @Nullable List<String> moduleIds,
             @Nullable IncrementalCacheProvider incrementalCacheProvider
+    ) {
+        return analyzeFilesWithJavaIntegrationWithCustomContext(
+                moduleContext, files, trace, moduleIds, incrementalCacheProvider, LookupTracker.DO_NOTHING
+        );
+    }
+
+    @NotNull
+    public static AnalysisResult analyzeFilesWithJavaIntegrationWithCustomContext(
+            @NotNull ModuleContext moduleContext,
+            @NotNull Collection<JetFile> files,
+            @NotNull BindingTrace trace,
+            @Nullable List<String> moduleIds,
+            @Nullable IncrementalCacheProvider incrementalCacheProvider,
+            @NotNull LookupTracker lookupTracker
     ) {
         return analyzeFilesWithJavaIntegration(
-                moduleContext, files, trace, TopDownAnalysisMode.TopLevelDeclarations, moduleIds, incrementalCacheProvider
+                moduleContext, files, trace, TopDownAnalysisMode.TopLevelDeclarations, moduleIds, incrementalCacheProvider, lookupTracker
         );
     }
 
@@ -114,7 +129,8 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull BindingTrace trace,
             @NotNull TopDownAnalysisMode topDownAnalysisMode,
             @Nullable List<String> moduleIds,
-            @Nullable IncrementalCacheProvider incrementalCacheProvider
+            @Nullable IncrementalCacheProvider incrementalCacheProvider,
+            @NotNull LookupTracker lookupTracker
     ) {
         Project project = moduleContext.getProject();
         List<JetFile> allFiles = JvmAnalyzerFacade.getAllFilesToAnalyze(project, null, files);
@@ -126,7 +142,8 @@ public enum TopDownAnalyzerFacadeForJVM {
                 moduleContext,
                 trace,
                 providerFactory,
-                GlobalSearchScope.allScope(project)
+                GlobalSearchScope.allScope(project),
+                lookupTracker
         );
 
         try {
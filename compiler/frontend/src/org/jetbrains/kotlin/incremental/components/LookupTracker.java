@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental.components;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives names which source files refer to, together with the scope (package or class) in which each name was looked up.
+ * Used by incremental compilation to find files affected by a change of some declarations.
+ * Implementations may be provided by the build tool, so this interface should only use JDK types.
+ */
+public interface LookupTracker {
+    LookupTracker DO_NOTHING = new LookupTracker() {
+        @Override
+        public void record(@NotNull String lookupContainingFile, @NotNull String scopeFqName, @NotNull String name) {
+        }
+    };
+
+    /**
+     * @param lookupContainingFile path to the source file containing the reference
+     * @param scopeFqName fully qualified name of the package or the class where the name was looked up
+     * @param name the referenced name
+     */
+    void record(@NotNull String lookupContainingFile, @NotNull String scopeFqName, @NotNull String name);
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental
+
+import com.intellij.psi.PsiElement
+import org.jetbrains.kotlin.descriptors.*
+import org.jetbrains.kotlin.incremental.components.LookupTracker
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.psi.JetFile
+import org.jetbrains.kotlin.resolve.DescriptorUtils
+import org.jetbrains.kotlin.resolve.scopes.JetScope
+import org.jetbrains.kotlin.types.JetType
+import org.jetbrains.kotlin.types.TypeUtils
+import java.util.LinkedHashSet
+
+// Lookups are recorded by the resolution where a name is searched in a scope, whether something is found there or not:
+// a declaration added to any of the searched scopes later may change what the name refers to
+
+public fun LookupTracker.recordLookupInPackage(from: PsiElement, packageFqName: FqName, name: Name) {
+    val filePath = getLookupFilePath(from, name) ?: return
+    record(filePath, packageFqName.asString(), name.asString())
+}
+
+// A class is searched along with its supertypes, where inherited members come from, and its companion object
+public fun LookupTracker.recordLookupInClass(from: PsiElement, classDescriptor: ClassDescriptor, name: Name) {
+    val filePath = getLookupFilePath(from, name) ?: return
+    val scopes = LinkedHashSet<String>()
+    addClassScopes(classDescriptor, scopes)
+    recordInScopes(filePath, scopes, name)
+}
+
+public fun LookupTracker.recordLookupInMembers(from: PsiElement, type: JetType, name: Name) {
+    val classDescriptor = type.getConstructor().getDeclarationDescriptor() as? ClassDescriptor
+    if (classDescriptor != null) {
+        recordLookupInClass(from, classDescriptor, name)
+    }
+    else {
+        // A type parameter: its members come from the upper bounds
+        val filePath = getLookupFilePath(from, name) ?: return
+        val scopes = LinkedHashSet<String>()
+        for (supertype in TypeUtils.getAllSupertypes(type)) {
+            addClassScopes(supertype.getConstructor().getDeclarationDescriptor() as? ClassDescriptor ?: continue, scopes)
+        }
+        recordInScopes(filePath, scopes, name)
+    }
+}
+
+// Records the scopes searched for a name without a receiver, or for an extension: the enclosing classes with their supertypes and
+// companion objects, the classes of the implicit receivers, the package of the file, and the packages and classes it imports from
+public fun LookupTracker.recordLookupInLexicalScope(from: PsiElement, scope: JetScope, name: Name) {
+    val filePath = getLookupFilePath(from, name) ?: return
+    val scopes = LinkedHashSet<String>()
+
+    var container: DeclarationDescriptor? = scope.getContainingDeclaration()
+    while (container != null) {
+        when (container) {
+            is ClassDescriptor -> addClassScopes(container, scopes)
+            is PackageFragmentDescriptor -> scopes.add(container.fqName.asString())
+            is PackageViewDescriptor -> scopes.add(container.getFqName().asString())
+        }
+        container = container.getContainingDeclaration()
+    }
+
+    for (receiver in scope.getImplicitReceiversHierarchy()) {
+        addClassScopes(receiver.getType().getConstructor().getDeclarationDescriptor() as? ClassDescriptor ?: continue, scopes)
+    }
+
+    val file = from.getContainingFile() as? JetFile
+    if (file != null) {
+        scopes.add(file.getPackageFqName().asString())
+
+        val importPaths = file.getImportDirectives().map { it.getImportPath() }.filterNotNull() +
+                          DescriptorUtils.getContainingModuleOrNull(scope.getContainingDeclaration())?.defaultImports.orEmpty()
+        for (importPath in importPaths) {
+            if (importPath.isAllUnder()) {
+                scopes.add(importPath.fqnPart().asString())
+            }
+            else if (importPath.getImportedName() == name && !importPath.fqnPart().isRoot()) {
+                // The imported declaration is looked up by its own name, which differs from the referenced one for an alias
+                record(filePath, importPath.fqnPart().parent().asString(), importPath.fqnPart().shortName().asString())
+            }
+        }
+    }
+
+    recordInScopes(filePath, scopes, name)
+}
+
+private fun LookupTracker.getLookupFilePath(from: PsiElement, name: Name): String? {
+    if (this == LookupTracker.DO_NOTHING || name.isSpecial()) return null
+    return from.getContainingFile()?.getVirtualFile()?.getPath()
+}
+
+private fun LookupTracker.recordInScopes(filePath: String, scopes: Collection<String>, name: Name) {
+    for (scope in scopes) {
+        record(filePath, scope, name.asString())
+    }
+}
+
+private fun addClassScopes(classDescriptor: ClassDescriptor, scopes: MutableSet<String>) {
+    addClassScope(classDescriptor, scopes)
+    classDescriptor.getCompanionObjectDescriptor()?.let { addClassScope(it, scopes) }
+    for (supertype in TypeUtils.getAllSupertypes(classDescriptor.getDefaultType())) {
+        addClassScope(supertype.getConstructor().getDeclarationDescriptor() as? ClassDescriptor ?: continue, scopes)
+    }
+}
+
+private fun addClassScope(classDescriptor: ClassDescriptor, scopes: MutableSet<String>) {
+    // Local classes can't be changed without changing the file that declares them
+    if (!DescriptorUtils.isLocal(classDescriptor)) {
+        scopes.add(DescriptorUtils.getFqName(classDescriptor).asString())
+    }
+}
@@ -74,7 +74,7 @@ public class BindingTraceContext implements BindingTrace {
 
     public BindingTraceContext() {
         //noinspection ConstantConditions
-        this(TRACK_REWRITES ? new TrackingSlicedMap(TRACK_WITH_STACK_TRACES) : SlicedMapImpl.create());
+        this(TRACK_REWRITES ? new TrackingSlicedMap(TRACK_WITH_STACK_TRACES) : CompactSlicedMap.create());
     }
 
 
@@ -88,6 +88,11 @@ public class BindingTraceContext implements BindingTrace {
         return new BindingTraceContext(new TrackingSlicedMap(TRACK_WITH_STACK_TRACES));
     }
 
+    @TestOnly
+    public static BindingTraceContext createWithSlicedMap(@NotNull MutableSlicedMap map) {
+        return new BindingTraceContext(map);
+    }
+
     @Override
     public void report(@NotNull Diagnostic diagnostic) {
         mutableDiagnostics.report(diagnostic);
@@ -32,6 +32,7 @@ import org.jetbrains.kotlin.resolve.lazy.*
 import org.jetbrains.kotlin.resolve.lazy.descriptors.LazyClassDescriptor
 import org.jetbrains.kotlin.resolve.resolveUtil.checkTraitRequirements
 import org.jetbrains.kotlin.resolve.varianceChecker.VarianceChecker
+import org.jetbrains.kotlin.utils.PhaseMetrics
 import java.util.ArrayList
 import javax.inject.Inject
 
@@ -106,6 +107,29 @@ public class LazyTopDownAnalyzer {
     public fun analyzeDeclarations(topDownAnalysisMode: TopDownAnalysisMode, declarations: Collection<PsiElement>, outerDataFlowInfo: DataFlowInfo): TopDownAnalysisContext {
         val c = TopDownAnalysisContext(topDownAnalysisMode, outerDataFlowInfo)
 
+        val declarationsPhase = PhaseMetrics.enter("declarations")
+        try {
+            resolveDeclarations(c, declarations)
+
+            declarationsPhase.count("classes", c.getDeclaredClasses().size().toLong())
+            declarationsPhase.count("functions", c.getFunctions().size().toLong())
+        }
+        finally {
+            declarationsPhase.end()
+        }
+
+        val bodiesPhase = PhaseMetrics.enter("bodies")
+        try {
+            bodyResolver!!.resolveBodies(c)
+        }
+        finally {
+            bodiesPhase.end()
+        }
+
+        return c
+    }
+
+    private fun resolveDeclarations(c: TopDownAnalysisContext, declarations: Collection<PsiElement>) {
         val topLevelFqNames = HashMultimap.create<FqName, JetElement>()
 
         val properties = ArrayList<JetProperty>()
@@ -253,10 +277,6 @@ public class LazyTopDownAnalyzer {
         declarationResolver!!.resolveAnnotationsOnFiles(c, fileScopeProvider!!)
 
         overloadResolver!!.process(c)
-
-        bodyResolver!!.resolveBodies(c)
-
-        return c
     }
 
     private fun resolveAllHeadersInClasses(c: TopDownAnalysisContext) {
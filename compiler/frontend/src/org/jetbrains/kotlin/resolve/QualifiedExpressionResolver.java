@@ -27,6 +27,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.*;
 import org.jetbrains.kotlin.diagnostics.Errors;
+import org.jetbrains.kotlin.incremental.IncrementalPackage;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.psi.*;
 import org.jetbrains.kotlin.resolve.scopes.AbstractScopeAdapter;
@@ -43,6 +45,7 @@ import static org.jetbrains.kotlin.diagnostics.Errors.*;
 
 public class QualifiedExpressionResolver {
     private SymbolUsageValidator symbolUsageValidator;
+    private LookupTracker lookupTracker = LookupTracker.DO_NOTHING;
 
     /**
      * @deprecated Instance of this class should be obtained from the Injector
@@ -56,6 +59,11 @@ public class QualifiedExpressionResolver {
         this.symbolUsageValidator = symbolUsageValidator;
     }
 
+    @Inject
+    public void setLookupTracker(@NotNull LookupTracker lookupTracker) {
+        this.lookupTracker = lookupTracker;
+    }
+
     private static final Predicate<DeclarationDescriptor> CLASSIFIERS_AND_PACKAGE_VIEWS = new Predicate<DeclarationDescriptor>() {
         @Override
         public boolean apply(@Nullable DeclarationDescriptor descriptor) {
@@ -284,10 +292,14 @@ public class QualifiedExpressionResolver {
         Set<LookupResult> results = Sets.newLinkedHashSet();
         for (DeclarationDescriptor declarationDescriptor : declarationDescriptors) {
             if (declarationDescriptor instanceof PackageViewDescriptor) {
+                IncrementalPackage.recordLookupInPackage(lookupTracker, selector, ((PackageViewDescriptor) declarationDescriptor).getFqName(),
+                                                         selector.getReferencedNameAsName());
                 results.add(lookupSimpleNameReference(selector, ((PackageViewDescriptor) declarationDescriptor).getMemberScope(),
                                                       lookupMode, true));
             }
             if (declarationDescriptor instanceof ClassDescriptor) {
+                IncrementalPackage.recordLookupInClass(lookupTracker, selector, (ClassDescriptor) declarationDescriptor,
+                                                       selector.getReferencedNameAsName());
                 addResultsForClass(results, selector, lookupMode, (ClassDescriptor) declarationDescriptor);
             }
         }
@@ -310,7 +322,6 @@ public class QualifiedExpressionResolver {
 
 
     @NotNull
-    @SuppressWarnings("MethodMayBeStatic")
     public Collection<DeclarationDescriptor> lookupDescriptorsForSimpleNameReference(
             @NotNull JetSimpleNameExpression referenceExpression,
             @NotNull JetScope outerScope,
@@ -320,6 +331,8 @@ public class QualifiedExpressionResolver {
             boolean packageLevel,
             boolean storeResult
     ) {
+        IncrementalPackage.recordLookupInLexicalScope(lookupTracker, referenceExpression, outerScope,
+                                                      referenceExpression.getReferencedNameAsName());
         LookupResult lookupResult = lookupSimpleNameReference(referenceExpression, outerScope, lookupMode, packageLevel);
         return filterAndStoreResolutionResult(Collections.singletonList(lookupResult), referenceExpression, trace, scopeToCheckVisibility,
                                               lookupMode, storeResult);
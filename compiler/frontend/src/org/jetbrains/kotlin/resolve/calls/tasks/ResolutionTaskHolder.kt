@@ -30,6 +30,7 @@ public class ResolutionTaskHolder<D : CallableDescriptor, F : D>(
         private val tracing: TracingStrategy
 ) {
     private val candidatesList = ArrayList<() -> Collection<ResolutionCandidate<D>>>()
+    private val candidatesWithWrongReceiverList = ArrayList<() -> Collection<ResolutionCandidate<D>>>()
     private var internalTasks: List<ResolutionTask<D, F>>? = null
 
     public fun addCandidates(lazyCandidates: () -> Collection<ResolutionCandidate<D>>) {
@@ -46,6 +47,15 @@ public class ResolutionTaskHolder<D : CallableDescriptor, F : D>(
         }
     }
 
+    /**
+     * Adds candidates which are known not to fit the receiver. They go after all other candidates of the same priority,
+     * so they're resolved only if no other candidate fits, to report them as candidates with a wrong receiver
+     */
+    public fun addCandidatesWithWrongReceiver(lazyCandidates: () -> Collection<ResolutionCandidate<D>>) {
+        assertNotFinished()
+        candidatesWithWrongReceiverList.add(storageManager.createLazyValue { lazyCandidates().toReadOnlyList() })
+    }
+
     private fun assertNotFinished() {
         assert(internalTasks == null, "Can't add candidates after the resulting tasks were computed.")
     }
@@ -54,9 +64,9 @@ public class ResolutionTaskHolder<D : CallableDescriptor, F : D>(
         if (internalTasks == null) {
             val tasks = ArrayList<ResolutionTask<D, F>>()
             for (priority in (0..priorityProvider.getMaxPriority()).reversed()) {
-                for (candidateIndex in candidatesList.indices) {
+                for (candidates in candidatesList + candidatesWithWrongReceiverList) {
                     val lazyCandidates = {
-                        candidatesList[candidateIndex]().filter { priorityProvider.getPriority(it) == priority }.toReadOnlyList()
+                        candidates().filter { priorityProvider.getPriority(it) == priority }.toReadOnlyList()
                     }
                     tasks.add(ResolutionTask(basicCallResolutionContext, tracing, lazyCandidates))
                 }
@@ -20,6 +20,11 @@ import com.google.common.collect.Lists
 import com.google.common.collect.Sets
 import com.intellij.openapi.progress.ProgressIndicatorProvider
 import org.jetbrains.kotlin.descriptors.*
+import org.jetbrains.kotlin.incremental.components.LookupTracker
+import org.jetbrains.kotlin.incremental.recordLookupInClass
+import org.jetbrains.kotlin.incremental.recordLookupInLexicalScope
+import org.jetbrains.kotlin.incremental.recordLookupInMembers
+import org.jetbrains.kotlin.incremental.recordLookupInPackage
 import org.jetbrains.kotlin.psi.Call
 import org.jetbrains.kotlin.resolve.calls.context.BasicCallResolutionContext
 import org.jetbrains.kotlin.resolve.calls.smartcasts.SmartCastUtils
@@ -31,6 +36,7 @@ import org.jetbrains.kotlin.resolve.scopes.receivers.ReceiverValue
 import org.jetbrains.kotlin.types.*
 import org.jetbrains.kotlin.types.checker.JetTypeChecker
 import org.jetbrains.kotlin.types.expressions.ExpressionTypingUtils
+import org.jetbrains.kotlin.types.expressions.OperatorConventions
 import org.jetbrains.kotlin.storage.StorageManager
 import org.jetbrains.kotlin.resolve.calls.context.ResolutionContext
 
@@ -41,7 +47,10 @@ import org.jetbrains.kotlin.resolve.*
 import org.jetbrains.kotlin.resolve.calls.util.*
 import org.jetbrains.kotlin.resolve.calls.tasks.collectors.*
 
-public class TaskPrioritizer(private val storageManager: StorageManager) {
+public class TaskPrioritizer(
+        private val storageManager: StorageManager,
+        private val lookupTracker: LookupTracker
+) {
 
     public fun <D : CallableDescriptor> splitLexicallyLocalDescriptors(
             allDescriptors: Collection<ResolutionCandidate<D>>,
@@ -71,16 +80,31 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
 
         if (explicitReceiver is QualifierReceiver) {
             val qualifierReceiver: QualifierReceiver = explicitReceiver
+            recordLookupInQualifier(qualifierReceiver, context, name)
             doComputeTasks(NO_RECEIVER, taskPrioritizerContext.replaceScope(qualifierReceiver.getNestedClassesAndPackageMembersScope()))
             computeTasksForClassObjectReceiver(qualifierReceiver, taskPrioritizerContext)
         }
         else {
+            // Extensions, as well as members of implicit receivers, are searched in the scope chain
+            lookupTracker.recordLookupInLexicalScope(context.call.getCallElement(), context.scope, name)
             doComputeTasks(explicitReceiver, taskPrioritizerContext)
         }
 
         return result.getTasks()
     }
 
+    private fun recordLookupInQualifier(qualifierReceiver: QualifierReceiver, context: BasicCallResolutionContext, name: Name) {
+        val callElement = context.call.getCallElement()
+        val classifier = qualifierReceiver.classifier
+        if (classifier is ClassDescriptor) {
+            lookupTracker.recordLookupInClass(callElement, classifier, name)
+        }
+        val packageView = qualifierReceiver.packageView
+        if (packageView != null) {
+            lookupTracker.recordLookupInPackage(callElement, packageView.getFqName(), name)
+        }
+    }
+
     private fun <D : CallableDescriptor, F : D> computeTasksForClassObjectReceiver(
             qualifierReceiver: QualifierReceiver,
             taskPrioritizerContext: TaskPrioritizerContext<D, F>
@@ -156,14 +180,21 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
                 )
             }
             //extensions
+            val extensions = storageManager.createLazyValue {
+                val allExtensions = callableDescriptorCollector.getExtensionsByName(c.scope, c.name, c.context.trace)
+                val receiverTypes = ReceiverTypeConstructors.create(SmartCastUtils.getSmartCastVariants(explicitReceiver, c.context))
+                if (receiverTypes == null || c.name == OperatorConventions.INVOKE) {
+                    Pair(allExtensions, listOf<D>())
+                }
+                else {
+                    allExtensions.partition { receiverTypes.mayBeApplicable(it) }
+                }
+            }
             c.result.addCandidates {
-                convertWithImpliedThis(
-                        c.scope,
-                        explicitReceiver,
-                        callableDescriptorCollector.getExtensionsByName(c.scope, c.name, c.context.trace),
-                        createKind(EXTENSION_RECEIVER, isExplicit),
-                        c.context.call
-                )
+                convertWithImpliedThis(c.scope, explicitReceiver, extensions().first, createKind(EXTENSION_RECEIVER, isExplicit), c.context.call)
+            }
+            c.result.addCandidatesWithWrongReceiver {
+                convertWithImpliedThis(c.scope, explicitReceiver, extensions().second, createKind(EXTENSION_RECEIVER, isExplicit), c.context.call)
             }
         }
     }
@@ -179,6 +210,7 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
                 val variantsForExplicitReceiver = SmartCastUtils.getSmartCastVariants(explicitReceiver, c.context)
                 val members = Lists.newArrayList<ResolutionCandidate<D>>()
                 for (type in variantsForExplicitReceiver) {
+                    lookupTracker.recordLookupInMembers(c.context.call.getCallElement(), type, c.name)
                     val membersForThisVariant = if (staticMembers) {
                         callableDescriptorCollector.getStaticMembersByName(type, c.name, c.context.trace)
                     }
@@ -232,6 +264,7 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
             receiverKind: ExplicitReceiverKind
     ) {
         c.result.addCandidates {
+            lookupTracker.recordLookupInMembers(c.context.call.getCallElement(), dispatchReceiver.getType(), c.name)
             val memberExtensions =
                     callableDescriptorCollector.getExtensionsByName(dispatchReceiver.getType().getMemberScope(), c.name, c.context.trace)
             convertWithReceivers(memberExtensions, dispatchReceiver, receiverParameter, receiverKind, c.context.call)
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve.calls.tasks
+
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns
+import org.jetbrains.kotlin.descriptors.CallableDescriptor
+import org.jetbrains.kotlin.descriptors.ClassDescriptor
+import org.jetbrains.kotlin.types.AbstractClassTypeConstructor
+import org.jetbrains.kotlin.types.ErrorUtils
+import org.jetbrains.kotlin.types.JetType
+import org.jetbrains.kotlin.types.TypeConstructor
+import org.jetbrains.kotlin.types.TypeUtils
+import org.jetbrains.kotlin.types.isDynamic
+import java.util.HashSet
+
+/**
+ * Constructors of the possible types of a receiver (with smart casts) and of all their supertypes.
+ * Extensions are bucketed by the constructor of their receiver type: an extension whose receiver type is a class
+ * can only be called if that class is one of these constructors, so the other ones are not checked for applicability
+ * unless no candidate fits the call at all (to report them as candidates with a wrong receiver)
+ */
+class ReceiverTypeConstructors private(private val constructors: Set<TypeConstructor>) {
+
+    fun mayBeApplicable(extension: CallableDescriptor): Boolean {
+        // property may have an extension function type, its applicability is checked with 'invoke'
+        val receiverParameter = extension.getExtensionReceiverParameter() ?: return true
+
+        val constructor = receiverParameter.getType().getConstructor()
+        val classifier = constructor.getDeclarationDescriptor()
+        // Type parameters are bucketed together with Any, an extension on them is applicable to anything which fits the bounds
+        if (classifier !is ClassDescriptor || ErrorUtils.isError(classifier) || KotlinBuiltIns.isAny(classifier)) return true
+
+        return constructor in constructors
+    }
+
+    companion object {
+        /**
+         * Returns null if the extensions can't be bucketed for these receiver types, e.g. for type parameters,
+         * integer literals and Nothing, which are subtypes of classes that are not their supertypes
+         */
+        fun create(receiverTypes: Collection<JetType>): ReceiverTypeConstructors? {
+            val constructors = HashSet<TypeConstructor>()
+            for (receiverType in receiverTypes) {
+                if (receiverType.isError() || receiverType.isDynamic() || KotlinBuiltIns.isNothingOrNullableNothing(receiverType)) return null
+
+                val constructor = TypeUtils.makeNotNullable(receiverType).getConstructor()
+                if (constructor !is AbstractClassTypeConstructor || constructor.getDeclarationDescriptor() !is ClassDescriptor) return null
+
+                constructors.add(constructor)
+                constructors.addAll(constructor.getSupertypeClosure().keySet())
+            }
+            return ReceiverTypeConstructors(constructors)
+        }
+    }
+}
@@ -46,6 +46,16 @@ class LazyFileScope private(
         allUnderImportResolver.forceResolveAllContents()
     }
 
+    /**
+     * Scope of the import directives written in the file, without the package of the file, the default imports and the additional scopes
+     */
+    public fun createExplicitImportsScope(debugName: String): JetScope = ChainedScope(
+            getContainingDeclaration(), debugName,
+            LazyImportScope(aliasImportResolver, LazyImportScope.FilteringKind.ALL, "Alias imports in $debugName"),
+            LazyImportScope(allUnderImportResolver, LazyImportScope.FilteringKind.VISIBLE_CLASSES, "All under imports in $debugName (visible classes)"),
+            LazyImportScope(allUnderImportResolver, LazyImportScope.FilteringKind.INVISIBLE_CLASSES, "All under imports in $debugName (invisible classes only)")
+    )
+
     public fun forceResolveImport(importDirective: JetImportDirective) {
         if (importDirective.isAllUnder()) {
             allUnderImportResolver.forceResolveImportDirective(importDirective)
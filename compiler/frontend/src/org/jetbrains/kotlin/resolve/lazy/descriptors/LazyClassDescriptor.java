@@ -568,11 +568,14 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
                     @Override
                     public Unit invoke(@NotNull Supertypes supertypes) {
                         findAndDisconnectLoopsInTypeHierarchy(supertypes);
+                        supertypesFinal = true;
                         return Unit.INSTANCE$;
                     }
                 }
         );
 
+        private volatile boolean supertypesFinal;
+
         private final NotNullLazyValue<List<TypeParameterDescriptor>> parameters = c.getStorageManager().createLazyValue(new Function0<List<TypeParameterDescriptor>>() {
             @Override
             public List<TypeParameterDescriptor> invoke() {
@@ -603,6 +606,10 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
                     }
                 }, null);
 
+        private LazyClassTypeConstructor() {
+            super(c.getStorageManager());
+        }
+
         @NotNull
         @Override
         public List<TypeParameterDescriptor> getParameters() {
@@ -615,6 +622,12 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
             return supertypes.invoke().trueSupertypes;
         }
 
+        @Override
+        protected boolean areSupertypesFinal() {
+            // False on a recursive call while the supertypes are resolved, and until the loops are disconnected
+            return supertypesFinal;
+        }
+
         private void findAndDisconnectLoopsInTypeHierarchy(Supertypes supertypes) {
             for (Iterator<JetType> iterator = supertypes.trueSupertypes.iterator(); iterator.hasNext(); ) {
                 JetType supertype = iterator.next();
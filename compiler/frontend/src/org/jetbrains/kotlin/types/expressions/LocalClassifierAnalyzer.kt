@@ -26,6 +26,7 @@ import org.jetbrains.kotlin.descriptors.DeclarationDescriptor
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl
 import org.jetbrains.kotlin.di.InjectorForLazyLocalClassifierAnalyzer
+import org.jetbrains.kotlin.incremental.components.LookupTracker
 import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.psi.JetClassOrObject
 import org.jetbrains.kotlin.psi.debugText.getDebugText
@@ -51,7 +52,8 @@ public class LocalClassifierAnalyzer(
         val descriptorResolver: DescriptorResolver,
         val funcionDescriptorResolver: FunctionDescriptorResolver,
         val typeResolver: TypeResolver,
-        val annotationResolver: AnnotationResolver
+        val annotationResolver: AnnotationResolver,
+        val lookupTracker: LookupTracker
 ) {
     fun processClassOrObject(
             globalContext: GlobalContext,
@@ -80,7 +82,8 @@ public class LocalClassifierAnalyzer(
                         funcionDescriptorResolver,
                         typeResolver,
                         annotationResolver
-                )
+                ),
+                lookupTracker
         )
 
         injector.getLazyTopDownAnalyzer().analyzeDeclarations(
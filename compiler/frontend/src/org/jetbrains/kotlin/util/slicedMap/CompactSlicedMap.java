@@ -0,0 +1,328 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+import com.intellij.openapi.util.Key;
+import kotlin.jvm.functions.Function3;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A sliced map which stores values of each slice in its own open-addressing hash table.
+ *
+ * Unlike {@link SlicedMapImpl}, no objects are allocated per key: an entry takes two slots in the arrays of the slice's table.
+ * Slices are found by their keys (see {@link ReadOnlySlice#getKey()}) in a small open-addressing table as well.
+ */
+public class CompactSlicedMap implements MutableSlicedMap {
+
+    public static CompactSlicedMap create() {
+        return new CompactSlicedMap();
+    }
+
+    private static final Key<?>[] EMPTY_SLICE_KEYS = new Key<?>[0];
+    private static final Table[] EMPTY_TABLES = new Table[0];
+
+    // Open-addressing table of slices, tables[i] holds values of the slice with key sliceKeys[i]
+    private Key<?>[] sliceKeys = EMPTY_SLICE_KEYS;
+    private Table[] tables = EMPTY_TABLES;
+    private int sliceCount = 0;
+
+    private Multimap<WritableSlice<?, ?>, Object> collectiveSliceKeys = null;
+
+    @Override
+    public <K, V> void put(WritableSlice<K, V> slice, K key, V value) {
+        if (!slice.check(key, value)) {
+            return;
+        }
+
+        Key<V> sliceKey = slice.getKey();
+        Table table = getTable(sliceKey);
+
+        RewritePolicy rewritePolicy = slice.getRewritePolicy();
+        if (table != null && rewritePolicy.rewriteProcessingNeeded(key)) {
+            @SuppressWarnings("unchecked")
+            V oldValue = (V) table.get(key);
+            if (oldValue != null) {
+                if (!rewritePolicy.processRewrite(slice, key, oldValue, value)) {
+                    return;
+                }
+            }
+        }
+
+        if (slice.isCollective()) {
+            if (collectiveSliceKeys == null) {
+                collectiveSliceKeys = ArrayListMultimap.create();
+            }
+
+            collectiveSliceKeys.put(slice, key);
+        }
+
+        // Storing null is the same as removing, as in SlicedMapImpl
+        if (value == null) {
+            if (table != null) {
+                table.remove(key);
+            }
+        }
+        else {
+            if (table == null) {
+                table = createTable(sliceKey);
+            }
+            table.put(key, value);
+        }
+
+        slice.afterPut(this, key, value);
+    }
+
+    @Override
+    public void clear() {
+        sliceKeys = EMPTY_SLICE_KEYS;
+        tables = EMPTY_TABLES;
+        sliceCount = 0;
+        collectiveSliceKeys = null;
+    }
+
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        Table table = getTable(slice.getKey());
+
+        @SuppressWarnings("unchecked")
+        V value = table == null ? null : (V) table.get(key);
+
+        return slice.computeValue(this, key, value, value == null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        assert slice.isCollective() : "Keys are not collected for slice " + slice;
+
+        if (collectiveSliceKeys == null) return Collections.emptyList();
+        return (Collection<K>) collectiveSliceKeys.get(slice);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> V remove(RemovableSlice<K, V> slice, K key) {
+        Table table = getTable(slice.getKey());
+        return table == null ? null : (V) table.remove(key);
+    }
+
+    @Override
+    public void forEach(@NotNull Function3<WritableSlice, Object, Object, Void> f) {
+        for (int i = 0; i < sliceKeys.length; i++) {
+            Key<?> sliceKey = sliceKeys[i];
+            if (sliceKey == null) continue;
+
+            WritableSlice slice = ((AbstractWritableSlice) sliceKey).getSlice();
+            Table table = tables[i];
+            Object[] keys = table.keys;
+            Object[] values = table.values;
+            for (int j = 0; j < keys.length; j++) {
+                if (keys[j] != null) {
+                    f.invoke(slice, Table.unmaskNull(keys[j]), values[j]);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+        ImmutableMap.Builder<K, V> builder = ImmutableMap.builder();
+
+        Table table = getTable(slice.getKey());
+        if (table != null) {
+            for (int i = 0; i < table.keys.length; i++) {
+                if (table.keys[i] != null) {
+                    builder.put((K) Table.unmaskNull(table.keys[i]), (V) table.values[i]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private Table getTable(@NotNull Key<?> sliceKey) {
+        if (sliceCount == 0) return null;
+
+        int mask = sliceKeys.length - 1;
+        for (int i = sliceKey.hashCode() & mask; ; i = (i + 1) & mask) {
+            Key<?> current = sliceKeys[i];
+            if (current == sliceKey) return tables[i];
+            if (current == null) return null;
+        }
+    }
+
+    @NotNull
+    private Table createTable(@NotNull Key<?> sliceKey) {
+        if ((sliceCount + 1) * 2 > sliceKeys.length) {
+            Key<?>[] oldSliceKeys = sliceKeys;
+            Table[] oldTables = tables;
+            int capacity = Math.max(4, oldSliceKeys.length * 2);
+            sliceKeys = new Key<?>[capacity];
+            tables = new Table[capacity];
+            for (int i = 0; i < oldSliceKeys.length; i++) {
+                if (oldSliceKeys[i] != null) {
+                    insertTable(oldSliceKeys[i], oldTables[i]);
+                }
+            }
+        }
+
+        Table table = new Table();
+        insertTable(sliceKey, table);
+        sliceCount++;
+        return table;
+    }
+
+    private void insertTable(@NotNull Key<?> sliceKey, @NotNull Table table) {
+        int mask = sliceKeys.length - 1;
+        int i = sliceKey.hashCode() & mask;
+        while (sliceKeys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        sliceKeys[i] = sliceKey;
+        tables[i] = table;
+    }
+
+    /**
+     * Open-addressing hash map with linear probing. Null keys are masked, null values are not stored.
+     */
+    private static final class Table {
+        private static final Object NULL_KEY = new Object();
+        private static final Object[] EMPTY = new Object[0];
+        private static final int INITIAL_CAPACITY = 4;
+
+        private Object[] keys = EMPTY;
+        private Object[] values = EMPTY;
+        private int size = 0;
+
+        @Nullable
+        public Object get(@Nullable Object key) {
+            if (size == 0) return null;
+
+            Object k = maskNull(key);
+            int mask = keys.length - 1;
+            for (int i = indexFor(k, mask); ; i = (i + 1) & mask) {
+                Object current = keys[i];
+                if (current == null) return null;
+                if (current == k || current.equals(k)) return values[i];
+            }
+        }
+
+        public void put(@Nullable Object key, @NotNull Object value) {
+            if ((size + 1) * 3 > keys.length * 2) {
+                resize(keys.length == 0 ? INITIAL_CAPACITY : keys.length * 2);
+            }
+
+            Object k = maskNull(key);
+            int mask = keys.length - 1;
+            int i = indexFor(k, mask);
+            while (true) {
+                Object current = keys[i];
+                if (current == null) {
+                    keys[i] = k;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (current == k || current.equals(k)) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        @Nullable
+        public Object remove(@Nullable Object key) {
+            if (size == 0) return null;
+
+            Object k = maskNull(key);
+            int mask = keys.length - 1;
+            int i = indexFor(k, mask);
+            while (true) {
+                Object current = keys[i];
+                if (current == null) return null;
+                if (current == k || current.equals(k)) break;
+                i = (i + 1) & mask;
+            }
+
+            Object oldValue = values[i];
+            size--;
+
+            // Shift back the following entries of the cluster, so that no tombstones are needed
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                int home = indexFor(keys[j], mask);
+                // The entry can fill the hole if its home index is not in the cyclic range (hole, j]
+                boolean canMove = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+                if (canMove) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = null;
+            values[hole] = null;
+
+            return oldValue;
+        }
+
+        private void resize(int capacity) {
+            Object[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new Object[capacity];
+            values = new Object[capacity];
+
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                Object k = oldKeys[j];
+                if (k == null) continue;
+
+                int i = indexFor(k, mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int indexFor(@NotNull Object key, int mask) {
+            // Identity hash codes of PSI elements are well distributed, but other keys may have poor low bits
+            int h = key.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        @NotNull
+        private static Object maskNull(@Nullable Object key) {
+            return key == null ? NULL_KEY : key;
+        }
+
+        @Nullable
+        private static Object unmaskNull(@NotNull Object key) {
+            return key == NULL_KEY ? null : key;
+        }
+    }
+}
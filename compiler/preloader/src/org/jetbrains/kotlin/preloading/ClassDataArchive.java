@@ -0,0 +1,234 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A single uncompressed file with the contents of all resources of several jars, which is memory-mapped on subsequent launches
+ * instead of inflating the jars.
+ *
+ * Format: magic, version, the list of jars (path, size, timestamp, CRC of the tail of the jar which holds the zip central directory),
+ * the index (jar, name, offset, size of each resource) and then the resource data.
+ * An archive is only used if all the jars are the same as when it was written.
+ */
+@SuppressWarnings("unchecked")
+public class ClassDataArchive {
+    private static final int MAGIC = 0x4B434441; // "KCDA"
+    private static final int VERSION = 1;
+
+    // The central directory is at the end of a zip file, so a checksum of its tail changes whenever any entry changes
+    private static final int CHECKSUM_TAIL_SIZE = 64 * 1024;
+
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * @return a map of resources in the same format as {@link ClassPreloadingUtils} uses, backed by the mapped archive,
+     * or null if there's no archive or it's out of date
+     */
+    public static Map<String, Object> load(File archiveFile, List<File> jarFiles, int classNumberEstimate) {
+        if (!archiveFile.isFile()) return null;
+
+        try {
+            ByteBuffer buffer = map(archiveFile);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+
+            int jarCount = buffer.getInt();
+            if (jarCount != jarFiles.size()) return null;
+            for (File jarFile : jarFiles) {
+                if (!readString(buffer).equals(jarFile.getAbsolutePath()) ||
+                    buffer.getLong() != jarFile.length() ||
+                    buffer.getLong() != jarFile.lastModified() ||
+                    buffer.getLong() != tailChecksum(jarFile)) {
+                    return null;
+                }
+            }
+
+            int entryCount = buffer.getInt();
+            // 0.75 is HashMap.DEFAULT_LOAD_FACTOR
+            Map<String, Object> resources = new HashMap<String, Object>((int) (Math.max(entryCount, classNumberEstimate) / 0.75));
+            int dataStart = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                File jarFile = jarFiles.get(buffer.getInt());
+                String name = readString(buffer);
+                int offset = buffer.getInt();
+                int size = buffer.getInt();
+
+                addResource(resources, name, new ResourceData(jarFile, name, buffer, dataStart + offset, size));
+            }
+
+            trimLists(resources);
+            return resources;
+        }
+        catch (IOException e) {
+            return null;
+        }
+        catch (RuntimeException e) {
+            // A corrupted archive, e.g. written partially by a process which was killed
+            return null;
+        }
+    }
+
+    /**
+     * Writes the archive to a temporary file and then renames it, so that concurrently launched processes never see a partial archive.
+     * Failures are ignored: the archive is only an optimization.
+     */
+    public static void write(File archiveFile, List<File> jarFiles, Map<String, Object> resources) {
+        File tempFile = new File(archiveFile.getPath() + "." + System.nanoTime() + ".tmp");
+        try {
+            Map<File, Integer> jarIndices = new HashMap<File, Integer>();
+            List<ResourceData> entries = new ArrayList<ResourceData>(resources.size());
+            for (Object value : resources.values()) {
+                if (value instanceof ResourceData) {
+                    entries.add((ResourceData) value);
+                }
+                else {
+                    entries.addAll((List<ResourceData>) value);
+                }
+            }
+
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream indexStream = new DataOutputStream(index);
+            indexStream.writeInt(MAGIC);
+            indexStream.writeInt(VERSION);
+            indexStream.writeInt(jarFiles.size());
+            for (int i = 0; i < jarFiles.size(); i++) {
+                File jarFile = jarFiles.get(i);
+                jarIndices.put(jarFile, i);
+                writeString(indexStream, jarFile.getAbsolutePath());
+                indexStream.writeLong(jarFile.length());
+                indexStream.writeLong(jarFile.lastModified());
+                indexStream.writeLong(tailChecksum(jarFile));
+            }
+
+            indexStream.writeInt(entries.size());
+            ByteArrayOutputStream entriesIndex = new ByteArrayOutputStream();
+            DataOutputStream entriesStream = new DataOutputStream(entriesIndex);
+            int offset = 0;
+            for (ResourceData entry : entries) {
+                Integer jarIndex = jarIndices.get(entry.jarFile);
+                if (jarIndex == null) return;
+
+                entriesStream.writeInt(jarIndex);
+                writeString(entriesStream, entry.resourceName);
+                entriesStream.writeInt(offset);
+                entriesStream.writeInt(entry.getSize());
+                offset += entry.getSize();
+            }
+            entriesStream.flush();
+
+            // Position of the resource data follows the index
+            indexStream.writeInt(index.size() + 4 + entriesIndex.size());
+            indexStream.flush();
+
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 19);
+            try {
+                index.writeTo(output);
+                entriesIndex.writeTo(output);
+                for (ResourceData entry : entries) {
+                    output.write(entry.getBytes());
+                }
+            }
+            finally {
+                output.close();
+            }
+
+            if (!tempFile.renameTo(archiveFile)) {
+                // Another process might have written the archive in the meantime
+                archiveFile.delete();
+                if (!tempFile.renameTo(archiveFile)) {
+                    tempFile.delete();
+                }
+            }
+        }
+        catch (IOException e) {
+            tempFile.delete();
+        }
+    }
+
+    /* package */ static void addResource(Map<String, Object> resources, String name, ResourceData resourceData) {
+        Object previous = resources.get(name);
+        if (previous == null) {
+            resources.put(name, resourceData);
+        }
+        else if (previous instanceof ResourceData) {
+            List<ResourceData> list = new ArrayList<ResourceData>();
+            list.add((ResourceData) previous);
+            list.add(resourceData);
+            resources.put(name, list);
+        }
+        else {
+            assert previous instanceof ArrayList :
+                    "Resource map should contain ResourceData or ArrayList<ResourceData>: " + name;
+            ((ArrayList<ResourceData>) previous).add(resourceData);
+        }
+    }
+
+    /* package */ static void trimLists(Map<String, Object> resources) {
+        for (Object value : resources.values()) {
+            if (value instanceof ArrayList) {
+                ((ArrayList) value).trimToSize();
+            }
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid after the channel is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        }
+        finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static long tailChecksum(File jarFile) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(jarFile, "r");
+        try {
+            long length = randomAccessFile.length();
+            int size = (int) Math.min(length, CHECKSUM_TAIL_SIZE);
+            byte[] tail = new byte[size];
+            randomAccessFile.seek(length - size);
+            randomAccessFile.readFully(tail);
+
+            CRC32 crc = new CRC32();
+            crc.update(tail);
+            return crc.getValue();
+        }
+        finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws UnsupportedEncodingException {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    private static void writeString(DataOutputStream stream, String string) throws IOException {
+        byte[] bytes = string.getBytes(CHARSET);
+        stream.writeShort(bytes.length);
+        stream.write(bytes);
+    }
+}
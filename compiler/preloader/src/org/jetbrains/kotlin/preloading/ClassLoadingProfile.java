@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The order in which classes were defined by a preloading class loader during some run.
+ *
+ * The order is recorded with {@link #createRecordingHandler} and saved by {@link #save}. On subsequent runs
+ * {@link #startReplay} defines the classes in the same order on a background thread, so that by the time the main thread needs
+ * a class, it's likely to be defined already.
+ *
+ * A profile is only used with the same jars (paths, sizes and timestamps) as the ones it was recorded with.
+ */
+public class ClassLoadingProfile {
+    private static final String CHARSET = "UTF-8";
+
+    private final String jarsKey;
+    private final List<String> classNames;
+
+    private ClassLoadingProfile(String jarsKey, List<String> classNames) {
+        this.jarsKey = jarsKey;
+        this.classNames = classNames;
+    }
+
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * @return the profile, or null if there's no profile or it was recorded with different jars
+     */
+    public static ClassLoadingProfile load(File file, List<File> jarFiles) throws IOException {
+        if (!file.isFile()) return null;
+
+        String jarsKey = computeJarsKey(jarFiles);
+        List<String> classNames = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+        try {
+            if (!jarsKey.equals(reader.readLine())) return null;
+
+            while (true) {
+                String line = reader.readLine();
+                if (line == null) break;
+                if (!line.isEmpty()) {
+                    classNames.add(line);
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return new ClassLoadingProfile(jarsKey, classNames);
+    }
+
+    /**
+     * Writes the profile to a temporary file and then renames it, so that concurrently launched processes never see a partial profile.
+     */
+    public void save(File file) throws IOException {
+        File tempFile = new File(file.getPath() + "." + System.nanoTime() + ".tmp");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), CHARSET));
+        try {
+            writer.write(jarsKey);
+            writer.write('\n');
+            for (String name : classNames) {
+                writer.write(name);
+                writer.write('\n');
+            }
+        }
+        finally {
+            writer.close();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            // The profile is rewritten when it's out of date
+            file.delete();
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * @return a handler which records classes in the order of their definition and then delegates to {@code delegate}
+     */
+    public static RecordingHandler createRecordingHandler(ClassHandler delegate, List<File> jarFiles) {
+        return new RecordingHandler(delegate, computeJarsKey(jarFiles));
+    }
+
+    private static String computeJarsKey(List<File> jarFiles) {
+        StringBuilder sb = new StringBuilder();
+        for (File jarFile : jarFiles) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparatorChar);
+            }
+            sb.append(jarFile.getAbsolutePath()).append('@').append(jarFile.length()).append(':').append(jarFile.lastModified());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Starts a daemon thread which loads (without initializing) all classes of the profile via the given class loader.
+     * Classes which can't be loaded are skipped: the profile may be recorded with a different version of the jars.
+     */
+    public Thread startReplay(final ClassLoader classLoader) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (String name : classNames) {
+                    try {
+                        Class.forName(name, false, classLoader);
+                    }
+                    catch (Throwable ignored) {
+                        // The main thread will report the problem if it ever needs the class
+                    }
+                }
+            }
+        }, "Class loading profile replay");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    public static class RecordingHandler extends ClassHandler {
+        private final ClassHandler delegate;
+        private final String jarsKey;
+        private final List<String> definedClasses = new ArrayList<String>();
+
+        private RecordingHandler(ClassHandler delegate, String jarsKey) {
+            this.delegate = delegate;
+            this.jarsKey = jarsKey;
+        }
+
+        public synchronized ClassLoadingProfile getProfile() {
+            return new ClassLoadingProfile(jarsKey, new ArrayList<String>(definedClasses));
+        }
+
+        @Override
+        public byte[] instrument(String resourceName, byte[] data) {
+            return delegate.instrument(resourceName, data);
+        }
+
+        @Override
+        public void beforeDefineClass(String name, int sizeInBytes) {
+            delegate.beforeDefineClass(name, sizeInBytes);
+        }
+
+        @Override
+        public void afterDefineClass(String name) {
+            synchronized (this) {
+                definedClasses.add(name);
+            }
+            delegate.afterDefineClass(name);
+        }
+
+        @Override
+        public void beforeLoadJar(File jarFile) {
+            delegate.beforeLoadJar(jarFile);
+        }
+
+        @Override
+        public void afterLoadJar(File jarFile) {
+            delegate.afterLoadJar(jarFile);
+        }
+    }
+}
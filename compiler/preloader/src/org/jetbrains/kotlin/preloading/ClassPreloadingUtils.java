@@ -46,11 +46,30 @@ public class ClassPreloadingUtils {
             ClassCondition classesToLoadByParent,
             ClassHandler handler
     ) throws IOException {
-        Map<String, Object> entries = loadAllClassesFromJars(jarFiles, classCountEstimation, handler);
+        return preloadClasses(jarFiles, classCountEstimation, parentClassLoader, classesToLoadByParent, handler, null);
+    }
+
+    /**
+     * Same as {@link #preloadClasses(Collection, int, ClassLoader, ClassCondition, ClassHandler)}, but if {@code archiveFile} is not null,
+     * classes are read from this archive (see {@link ClassDataArchive}) when it's up to date, and the archive is rewritten otherwise.
+     *
+     * Resources are stored in the archive after {@link ClassHandler#instrument}, and are not instrumented again when read from it,
+     * so an archive should not be shared between runs with different instrumentation.
+     */
+    public static ClassLoader preloadClasses(
+            Collection<File> jarFiles,
+            int classCountEstimation,
+            ClassLoader parentClassLoader,
+            ClassCondition classesToLoadByParent,
+            ClassHandler handler,
+            File archiveFile
+    ) throws IOException {
+        Map<String, Object> entries = loadAllClasses(jarFiles, classCountEstimation, handler, archiveFile);
 
         Collection<File> classpath = mergeClasspathFromManifests(entries);
         if (!classpath.isEmpty()) {
-            parentClassLoader = preloadClasses(classpath, classCountEstimation, parentClassLoader, null, handler);
+            File classpathArchiveFile = archiveFile != null ? new File(archiveFile.getPath() + ".classpath") : null;
+            parentClassLoader = preloadClasses(classpath, classCountEstimation, parentClassLoader, null, handler, classpathArchiveFile);
         }
 
         return new MemoryBasedClassLoader(classesToLoadByParent, parentClassLoader, entries, handler, createFallbackClassLoader(jarFiles));
@@ -70,6 +89,25 @@ public class ClassPreloadingUtils {
         return preloadClasses(jarFiles, classCountEstimation, parentClassLoader, classesToLoadByParent, null);
     }
 
+    private static Map<String, Object> loadAllClasses(
+            Collection<File> jarFiles,
+            int classNumberEstimate,
+            ClassHandler handler,
+            File archiveFile
+    ) throws IOException {
+        if (archiveFile == null) {
+            return loadAllClassesFromJars(jarFiles, classNumberEstimate, handler);
+        }
+
+        List<File> jarList = new ArrayList<File>(jarFiles);
+        Map<String, Object> archived = ClassDataArchive.load(archiveFile, jarList, classNumberEstimate);
+        if (archived != null) return archived;
+
+        Map<String, Object> resources = loadAllClassesFromJars(jarFiles, classNumberEstimate, handler);
+        ClassDataArchive.write(archiveFile, jarList, resources);
+        return resources;
+    }
+
     private static Collection<File> mergeClasspathFromManifests(Map<String, Object> preloadedResources) throws IOException {
         Object manifest = preloadedResources.get(JarFile.MANIFEST_NAME);
         if (manifest instanceof ResourceData) {
@@ -89,7 +127,7 @@ public class ClassPreloadingUtils {
     }
 
     private static Collection<File> extractManifestClasspath(ResourceData manifestData) throws IOException {
-        Manifest manifest = new Manifest(new ByteArrayInputStream(manifestData.bytes));
+        Manifest manifest = new Manifest(new ByteArrayInputStream(manifestData.getBytes()));
         String classpathSpaceSeparated = (String) manifest.getMainAttributes().get(Attributes.Name.CLASS_PATH);
         if (classpathSpaceSeparated == null) return Collections.emptyList();
 
@@ -147,23 +185,7 @@ public class ClassPreloadingUtils {
                     if (handler != null) {
                         data = handler.instrument(name, data);
                     }
-                    ResourceData resourceData = new ResourceData(jarFile, name, data);
-
-                    Object previous = resources.get(name);
-                    if (previous == null) {
-                        resources.put(name, resourceData);
-                    }
-                    else if (previous instanceof ResourceData) {
-                        List<ResourceData> list = new ArrayList<ResourceData>();
-                        list.add((ResourceData) previous);
-                        list.add(resourceData);
-                        resources.put(name, list);
-                    }
-                    else {
-                        assert previous instanceof ArrayList :
-                                "Resource map should contain ResourceData or ArrayList<ResourceData>: " + name;
-                        ((ArrayList<ResourceData>) previous).add(resourceData);
-                    }
+                    ClassDataArchive.addResource(resources, name, new ResourceData(jarFile, name, data));
                 }
             }
             finally {
@@ -180,11 +202,7 @@ public class ClassPreloadingUtils {
             }
         }
 
-        for (Object value : resources.values()) {
-            if (value instanceof ArrayList) {
-                ((ArrayList) value).trimToSize();
-            }
-        }
+        ClassDataArchive.trimLists(resources);
 
         return resources;
     }
@@ -17,8 +17,12 @@
 package org.jetbrains.kotlin.preloading;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @SuppressWarnings("unchecked")
 /**
@@ -28,8 +32,28 @@ import java.util.*;
  * This means that once any class is loaded, it _cannot be found_ as a resource anymore.
  * Therefore if you need to be able to find classes via findResource(), you should pass a fallback
  * class loader which is able to do that at any point of time.
+ *
+ * Different classes can be loaded from several threads at once (e.g. by the replay of {@link ClassLoadingProfile}),
+ * only the loading of the same class is serialized.
  */
 public class MemoryBasedClassLoader extends ClassLoader {
+    private static final boolean PARALLEL_CAPABLE = registerAsParallelCapableIfPossible();
+
+    // ClassLoader.registerAsParallelCapable() is only available since Java 7. Without it, the JVM and ClassLoader.loadClass()
+    // lock the whole class loader, which is still correct but serializes the loading of all classes
+    private static boolean registerAsParallelCapableIfPossible() {
+        try {
+            Method method = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+            method.setAccessible(true);
+            return Boolean.TRUE.equals(method.invoke(null));
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    private final ConcurrentMap<String, Object> classLoadingLocks = new ConcurrentHashMap<String, Object>();
+
     private final ClassCondition classesToLoadByParent;
     private final ClassLoader parent;
     private final Map<String, Object> preloadedResources;
@@ -52,7 +76,22 @@ public class MemoryBasedClassLoader extends ClassLoader {
     }
 
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getLock(name)) {
+            return doLoadClass(name, resolve);
+        }
+    }
+
+    private Object getLock(String className) {
+        // The JVM locks the whole class loader if it's not parallel capable, using another lock here could lead to a deadlock
+        if (!PARALLEL_CAPABLE) return this;
+
+        Object newLock = new Object();
+        Object lock = classLoadingLocks.putIfAbsent(className, newLock);
+        return lock != null ? lock : newLock;
+    }
+
+    private Class<?> doLoadClass(String name, boolean resolve) throws ClassNotFoundException {
         if (classesToLoadByParent != null && classesToLoadByParent.accept(name)) {
             if (parent == null) {
                 return super.loadClass(name, resolve);
@@ -85,22 +124,27 @@ public class MemoryBasedClassLoader extends ClassLoader {
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
         String internalName = name.replace('.', '/').concat(".class");
-        Object resources = preloadedResources.get(internalName);
+        Object resources;
+        synchronized (preloadedResources) {
+            // Clear the resource, we won't need it anymore
+            resources = preloadedResources.remove(internalName);
+        }
         if (resources == null) return null;
 
-        // Clear the resource, we won't need it anymore
-        preloadedResources.remove(internalName);
-
         ResourceData resourceData = resources instanceof ResourceData
                                     ? ((ResourceData) resources)
                                     : ((List<ResourceData>) resources).get(0);
 
-        int sizeInBytes = resourceData.bytes.length;
+        int sizeInBytes = resourceData.getSize();
         if (handler != null) {
             handler.beforeDefineClass(name, sizeInBytes);
         }
 
-        Class<?> definedClass = defineClass(name, resourceData.bytes, 0, sizeInBytes);
+        // Classes from a mapped archive are defined right from the mapped memory, without copying them to the heap
+        ByteBuffer buffer = resourceData.getBuffer();
+        Class<?> definedClass = buffer != null
+                                ? defineClass(name, buffer, null)
+                                : defineClass(name, resourceData.getBytes(), 0, sizeInBytes);
 
         if (handler != null) {
             handler.afterDefineClass(name);
@@ -153,7 +197,10 @@ public class MemoryBasedClassLoader extends ClassLoader {
 
     @Override
     protected Enumeration<URL> findResources(String name) {
-        Object resources = preloadedResources.get(name);
+        Object resources;
+        synchronized (preloadedResources) {
+            resources = preloadedResources.get(name);
+        }
         if (resources == null) {
             return Collections.enumeration(Collections.<URL>emptyList());
         }
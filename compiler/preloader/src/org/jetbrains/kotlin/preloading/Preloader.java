@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.preloading;
 import org.jetbrains.kotlin.preloading.instrumentation.Instrumenter;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -30,6 +31,12 @@ public class Preloader {
     public static final int PRELOADER_ARG_COUNT = 4;
     private static final String INSTRUMENT_PREFIX = "instrument=";
 
+    // Path to the archive with the contents of the jars, see ClassDataArchive
+    private static final String SNAPSHOT_PROPERTY = "kotlin.preloader.snapshot";
+
+    // Path to the class loading profile: it's replayed if the file exists and is up to date, and recorded otherwise, see ClassLoadingProfile
+    private static final String PROFILE_PROPERTY = "kotlin.preloader.profile";
+
     public static void main(String[] args) throws Exception {
         if (args.length < PRELOADER_ARG_COUNT) {
             printUsageAndExit();
@@ -60,7 +67,21 @@ public class Preloader {
         ClassLoader withInstrumenter = instrumentersClasspath.length > 0 ? new URLClassLoader(instrumentersClasspath, parent) : parent;
 
         final Handler handler = getHandler(mode, withInstrumenter);
-        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(files, classNumber, withInstrumenter, null, handler);
+
+        String profilePath = System.getProperty(PROFILE_PROPERTY);
+        final File profileFile = profilePath != null ? new File(profilePath) : null;
+        ClassLoadingProfile profile = profileFile != null ? ClassLoadingProfile.load(profileFile, files) : null;
+        final ClassLoadingProfile.RecordingHandler recordingHandler =
+                profileFile != null && profile == null ? ClassLoadingProfile.createRecordingHandler(handler, files) : null;
+
+        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(
+                files, classNumber, withInstrumenter, null, recordingHandler != null ? recordingHandler : handler, getSnapshotFile(mode)
+        );
+
+        if (profile != null) {
+            // Define classes in background while the main class parses arguments and sets up the environment
+            profile.startReplay(preloaded);
+        }
 
         Class<?> mainClass = preloaded.loadClass(mainClassCanonicalName);
         Method mainMethod = mainClass.getMethod("main", String[].class);
@@ -76,6 +97,15 @@ public class Preloader {
                             System.out.format("Total time: %.3fs\n", dt / 1e9);
                         }
                         handler.done();
+
+                        if (recordingHandler != null) {
+                            try {
+                                recordingHandler.getProfile().save(profileFile);
+                            }
+                            catch (IOException e) {
+                                System.err.println("PRELOADER WARNING: Failed to save class loading profile to " + profileFile + ": " + e);
+                            }
+                        }
                     }
                 })
         );
@@ -83,6 +113,14 @@ public class Preloader {
         mainMethod.invoke(0, new Object[] {Arrays.copyOfRange(args, PRELOADER_ARG_COUNT, args.length)});
     }
 
+    private static File getSnapshotFile(Mode mode) {
+        // Instrumented classes are stored in the snapshot as is, so it's not used with instrumenters
+        if (mode == Mode.INSTRUMENT) return null;
+
+        String path = System.getProperty(SNAPSHOT_PROPERTY);
+        return path != null ? new File(path) : null;
+    }
+
     private static URL[] parseInstrumentersClasspath(Mode mode, String modeStr)
             throws MalformedURLException {
         URL[] instrumentersClasspath;
@@ -127,13 +165,13 @@ public class Preloader {
         final int[] size = new int[1];
         return new Handler() {
             @Override
-            public void beforeDefineClass(String name, int sizeInBytes) {
+            public synchronized void beforeDefineClass(String name, int sizeInBytes) {
                 counter[0]++;
                 size[0] += sizeInBytes;
             }
 
             @Override
-            public void done() {
+            public synchronized void done() {
                 System.out.println();
                 System.out.println("Loaded classes: " + counter[0]);
                 System.out.println("Loaded classes size: " + size[0]);
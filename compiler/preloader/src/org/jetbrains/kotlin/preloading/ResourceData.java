@@ -24,16 +24,66 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
 
+/**
+ * Contents of a resource, either as a byte array or as a region of a (memory-mapped) buffer, see {@link ClassDataArchive}.
+ */
 public final class ResourceData {
     public final File jarFile;
     public final String resourceName;
-    public final byte[] bytes;
+
+    private final byte[] bytes;
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int size;
 
     public ResourceData(File jarFile, String resourceName, byte[] bytes) {
         this.jarFile = jarFile;
         this.resourceName = resourceName;
         this.bytes = bytes;
+        this.buffer = null;
+        this.offset = 0;
+        this.size = bytes.length;
+    }
+
+    public ResourceData(File jarFile, String resourceName, ByteBuffer buffer, int offset, int size) {
+        this.jarFile = jarFile;
+        this.resourceName = resourceName;
+        this.bytes = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the contents of the resource; for resources backed by a buffer, a new array is created on each call
+     */
+    public byte[] getBytes() {
+        if (bytes != null) return bytes;
+
+        byte[] result = new byte[size];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(result);
+        return result;
+    }
+
+    /**
+     * @return a buffer containing exactly the contents of the resource, or null if the resource is backed by a byte array
+     */
+    public ByteBuffer getBuffer() {
+        if (buffer == null) return null;
+
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + size);
+        view.position(offset);
+        return view;
     }
 
     public URL getURL() {
@@ -48,7 +98,7 @@ public final class ResourceData {
 
                         @Override
                         public InputStream getInputStream() throws IOException {
-                            return new ByteArrayInputStream(bytes);
+                            return new ByteArrayInputStream(getBytes());
                         }
                     };
                 }
@@ -0,0 +1,25 @@
+package a
+
+open class A
+class B : A()
+interface T
+
+fun A.foo(): Int = 1
+fun B.foo(): String = ""
+fun T.foo(): Char = 'c'
+fun String.foo(): Double = 2.0
+
+fun Any?.bar(): Int = 1
+fun <X : T> X.baz(): X = this
+
+fun test1(a: A): Int = a.foo()
+fun test2(b: B): String = b.foo()
+fun test3(t: T): Char = t.foo()
+fun test4(any: Any): Char = if (any is T) <!DEBUG_INFO_SMARTCAST!>any<!>.foo() else 'a'
+fun test5(b: B?): String? = b?.foo()
+fun test6(s: String, n: Int?): Int = s.bar() + n.bar()
+fun test7(t: T): T = t.baz()
+
+fun test8(i: Int) {
+    i.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>foo<!>()
+}
@@ -0,0 +1,9 @@
+package testData
+
+interface Base<T>
+
+interface Loop1 : Loop3, Base<String>
+interface Loop2 : Loop1
+interface Loop3 : Loop2
+
+interface AfterLoop : Loop2
@@ -48,4 +48,8 @@ class BRec : Rec<BRec>
 interface SubRec<T>: Rec<T>
 
 interface Star<T : Star<T>>
-interface SubStar<T : SubStar<T>> : Star<T>
\ No newline at end of file
+interface SubStar<T : SubStar<T>> : Star<T>
+
+open class Chain1_T<A, B>() : Base_T<B>
+open class Chain2_T<C>() : Chain1_T<Int, Pair<C, String>>
+open class Chain3_T<D>() : Chain2_T<D?>, Base_outT<D>
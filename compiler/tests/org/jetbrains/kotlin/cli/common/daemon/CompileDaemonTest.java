@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common.daemon;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+
+public class CompileDaemonTest extends TestCaseWithTmpdir {
+    private File portFile;
+    private Process daemon;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (daemon != null) {
+            try {
+                CompileDaemonClient.shutdown(portFile);
+            }
+            finally {
+                daemon.destroy();
+                daemon = null;
+            }
+        }
+        super.tearDown();
+    }
+
+    public void testCompileWithPathsRelativeToClient() throws Exception {
+        startDaemon();
+        FileUtil.writeToFile(new File(tmpdir, "src/foo.kt"), "package test\n\nfun foo(): Int = 42\n");
+
+        // The second compilation reuses the environment kept alive after the first one
+        for (String destination : Arrays.asList("out1", "out2")) {
+            ByteArrayOutputStream messages = new ByteArrayOutputStream();
+            ExitCode exitCode = CompileDaemonClient.compile(
+                    portFile, tmpdir, new String[] {"src/foo.kt", "-d", destination, "-no-stdlib"}, false, new PrintStream(messages)
+            );
+            assertEquals(messages.toString(), ExitCode.OK, exitCode);
+            assertTrue(new File(tmpdir, destination + "/test/TestPackage.class").isFile());
+        }
+    }
+
+    public void testStalePortFileIsReplaced() throws Exception {
+        portFile = new File(tmpdir, "daemon.port");
+        // Nobody listens on the port once the socket is closed, as if the daemon had been killed
+        ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(null));
+        int stalePort = socket.getLocalPort();
+        socket.close();
+        FileUtil.writeToFile(portFile, stalePort + "\nstale secret");
+
+        FileUtil.writeToFile(new File(tmpdir, "foo.kt"), "package test\n\nfun foo(): Int = 42\n");
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        try {
+            ExitCode exitCode = CompileDaemonClient.compileStartingDaemon(
+                    portFile, System.getProperty("java.class.path"), Collections.<String>emptyList(),
+                    tmpdir, new String[] {"foo.kt", "-d", "out", "-no-stdlib"}, new PrintStream(messages)
+            );
+            assertEquals(messages.toString(), ExitCode.OK, exitCode);
+            assertTrue(new File(tmpdir, "out/test/TestPackage.class").isFile());
+
+            CompileDaemonClient.DaemonAddress address = CompileDaemonClient.readPortFile(portFile);
+            assertNotNull(address);
+            assertFalse(stalePort == address.port && "stale secret".equals(address.secret));
+        }
+        finally {
+            CompileDaemonClient.shutdown(portFile);
+        }
+    }
+
+        public void testRequestWithoutSecretIsRejected() throws Exception {
+        startDaemon();
+        CompileDaemonClient.DaemonAddress address = CompileDaemonClient.readPortFile(portFile);
+        assertNotNull(address);
+
+        Socket socket = new Socket(InetAddress.getByName(null), address.port);
+        try {
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            output.writeInt(CompileDaemon.PROTOCOL_VERSION);
+            output.writeUTF("not a secret");
+            output.flush();
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            assertEquals(ExitCode.INTERNAL_ERROR.getCode(), input.readInt());
+            byte[] message = new byte[input.readInt()];
+            input.readFully(message);
+            assertTrue(new String(message, "UTF-8"), new String(message, "UTF-8").contains("not authorized"));
+        }
+        finally {
+            socket.close();
+        }
+
+        // The daemon still serves its owner
+        FileUtil.writeToFile(new File(tmpdir, "foo.kt"), "package test\n\nfun foo(): Int = 42\n");
+        ExitCode exitCode = CompileDaemonClient.compile(
+                portFile, tmpdir, new String[] {"foo.kt", "-d", "out", "-no-stdlib"}, false, new PrintStream(new ByteArrayOutputStream())
+        );
+        assertEquals(ExitCode.OK, exitCode);
+    }
+
+    public void testResolvePaths() {
+        File workingDirectory = new File(tmpdir, "work");
+        String absolute = new File(tmpdir, "lib.jar").getAbsolutePath();
+        String[] resolved = CompileDaemon.resolvePaths(new String[] {
+                "a.kt", absolute, "-d", "out", "-classpath", "lib1.jar" + File.pathSeparator + absolute,
+                "-Xopt-passes", "boxing", "-no-stdlib", "-module", "module.xml"
+        }, workingDirectory);
+
+        assertEquals(Arrays.asList(
+                new File(workingDirectory, "a.kt").getPath(), absolute, "-d", new File(workingDirectory, "out").getPath(),
+                "-classpath", new File(workingDirectory, "lib1.jar").getPath() + File.pathSeparator + absolute,
+                "-Xopt-passes", "boxing", "-no-stdlib", "-module", new File(workingDirectory, "module.xml").getPath()
+        ), Arrays.asList(resolved));
+    }
+
+    public void testAllOptionsWithValuesAreClassified() {
+        Set<String> classified = new HashSet<String>();
+        for (Set<String> options : Arrays.asList(CompileDaemon.PATH_OPTIONS, CompileDaemon.PATH_LIST_OPTIONS,
+                                                 CompileDaemon.COMMA_SEPARATED_PATH_LIST_OPTIONS, CompileDaemon.NON_PATH_OPTIONS)) {
+            for (String option : options) {
+                assertTrue("Option is classified more than once: " + option, classified.add(option));
+            }
+        }
+
+        // A new option with a value should be added to one of the sets, otherwise a path in it isn't resolved against the client's directory
+        assertEquals(new TreeSet<String>(CompileDaemon.OPTIONS_WITH_VALUE), new TreeSet<String>(classified));
+    }
+
+        private void startDaemon() throws IOException {
+        portFile = new File(tmpdir, "daemon.port");
+        daemon = CompileDaemonClient.startDaemon(portFile, System.getProperty("java.class.path"), Collections.<String>emptyList());
+    }
+}
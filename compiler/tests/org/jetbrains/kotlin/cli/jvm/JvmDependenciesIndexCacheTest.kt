@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem
+import junit.framework.TestCase
+import org.jetbrains.kotlin.cli.jvm.compiler.JavaRoot
+import org.jetbrains.kotlin.cli.jvm.compiler.JvmDependenciesIndex
+import org.jetbrains.kotlin.cli.jvm.compiler.JvmDependenciesIndexCache
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import java.io.File
+import java.io.FileOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+public class JvmDependenciesIndexCacheTest : TestCase() {
+    private var tmpdir: File? = null
+
+    override fun setUp() {
+        super.setUp()
+        tmpdir = FileUtil.createTempDirectory("jvmDependenciesIndexCache", null)
+    }
+
+    override fun tearDown() {
+        FileUtil.delete(tmpdir!!)
+        super.tearDown()
+    }
+
+    public fun testSummary() {
+        val root = createJarRoot("foo/bar/A.class", "foo/bar/A\$B.class", "foo/C.class")
+        val summary = JvmDependenciesIndexCache(File(tmpdir, "index")).getSummaries(listOf(root)).single()!!
+
+        TestCase.assertTrue(summary.containsPackage(""))
+        TestCase.assertTrue(summary.containsPackage("foo"))
+        TestCase.assertTrue(summary.containsPackage("foo/bar"))
+        TestCase.assertFalse(summary.containsPackage("bar"))
+
+        TestCase.assertTrue(summary.mayContainClass("foo/bar", "A"))
+        TestCase.assertTrue(summary.mayContainClass("foo/bar", "A\$B"))
+        TestCase.assertTrue(summary.mayContainClass("foo", "C"))
+        TestCase.assertFalse(summary.mayContainClass("foo", "D"))
+        TestCase.assertFalse(summary.mayContainClass("", "C"))
+    }
+
+    public fun testSummaryIsPersisted() {
+        val root = createJarRoot("foo/A.class")
+        val indexFile = File(tmpdir, "index")
+        JvmDependenciesIndexCache(indexFile).getSummaries(listOf(root))
+        TestCase.assertTrue(indexFile.isFile())
+
+        val summary = JvmDependenciesIndexCache(indexFile).getSummaries(listOf(root)).single()!!
+        TestCase.assertTrue(summary.mayContainClass("foo", "A"))
+        TestCase.assertFalse(summary.containsPackage("bar"))
+    }
+
+    public fun testSourceRootsAreNotSummarized() {
+        val root = createJarRoot("foo/A.class")
+        val sourceRoot = JavaRoot(root.file, JavaRoot.RootType.SOURCE)
+        TestCase.assertNull(JvmDependenciesIndexCache(File(tmpdir, "index")).getSummaries(listOf(sourceRoot)).single())
+    }
+
+    public fun testIndexWithCache() {
+        val first = createJarRoot("foo/A.class", "foo/B.class")
+        val second = createJarRoot("foo/B.class", "bar/C.class")
+        val index = JvmDependenciesIndex(listOf(first, second), JvmDependenciesIndexCache(File(tmpdir, "index")))
+
+        fun find(fqName: String) = index.findClass(ClassId.topLevel(FqName(fqName))) { dir, type ->
+            dir.findChild(FqName(fqName).shortName().asString() + ".class")
+        }
+
+        TestCase.assertEquals(first.file, find("foo.A")?.getParent()?.getParent())
+        TestCase.assertEquals(first.file, find("foo.B")?.getParent()?.getParent())
+        TestCase.assertEquals(second.file, find("bar.C")?.getParent()?.getParent())
+        TestCase.assertNull(find("foo.C"))
+        TestCase.assertNull(find("baz.A"))
+    }
+
+    private fun createJarRoot(vararg entries: String): JavaRoot {
+        val jar = FileUtil.createTempFile(tmpdir, "test", ".jar")
+        val output = ZipOutputStream(FileOutputStream(jar))
+        try {
+            for (entry in entries) {
+                output.putNextEntry(ZipEntry(entry))
+                output.write(byteArray(0xCA.toByte(), 0xFE.toByte(), 0xBA.toByte(), 0xBE.toByte()))
+                output.closeEntry()
+            }
+        }
+        finally {
+            output.close()
+        }
+
+        val root = CoreJarFileSystem().findFileByPath(jar.getPath() + "!/")
+        TestCase.assertNotNull(root)
+        return JavaRoot(root!!, JavaRoot.RootType.BINARY)
+    }
+}
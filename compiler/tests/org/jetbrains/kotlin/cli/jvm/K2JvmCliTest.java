@@ -66,4 +66,9 @@ public class K2JvmCliTest extends CliBaseTest {
     public void warningsInDummy() throws Exception {
         executeCompilerCompareOutputJVM();
     }
+
+    @Test
+    public void unknownOptimizationPass() throws Exception {
+        executeCompilerCompareOutputJVM();
+    }
 }
@@ -56,15 +56,36 @@ public class GenerationUtils {
             @NotNull Project project,
             @NotNull AnalysisResult analysisResult,
             @NotNull List<JetFile> files
+    ) {
+        return compileFilesGetGenerationState(project, analysisResult, files, 1);
+    }
+
+    @NotNull
+    public static GenerationState compileFilesGetGenerationState(
+            @NotNull Project project,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull List<JetFile> files,
+            int codegenThreads
+    ) {
+        return compileFilesGetGenerationState(project, analysisResult, files, codegenThreads, DiagnosticSink.DO_NOTHING);
+    }
+
+    @NotNull
+    public static GenerationState compileFilesGetGenerationState(
+            @NotNull Project project,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull List<JetFile> files,
+            int codegenThreads,
+            @NotNull DiagnosticSink diagnostics
     ) {
         analysisResult.throwIfError();
         GenerationState state = new GenerationState(
                 project, ClassBuilderFactories.TEST, Progress.DEAF,
                 analysisResult.getModuleDescriptor(), analysisResult.getBindingContext(),
                 files, false, false, GenerationState.GenerateClassFilter.GENERATE_ALL,
-                false, false, null, null, DiagnosticSink.DO_NOTHING, null
+                false, false, null, null, diagnostics, null
         );
-        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION, codegenThreads);
         return state;
     }
 }
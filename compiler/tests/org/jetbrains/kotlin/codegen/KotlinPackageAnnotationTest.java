@@ -23,6 +23,7 @@ import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.serialization.PackageData;
 import org.jetbrains.kotlin.serialization.ProtoBuf;
 import org.jetbrains.kotlin.serialization.deserialization.NameResolver;
+import org.jetbrains.kotlin.serialization.deserialization.PackageMemberIndex;
 import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil;
 import org.jetbrains.kotlin.test.ConfigurationKind;
 
@@ -66,6 +67,33 @@ public class KotlinPackageAnnotationTest extends CodegenTestCase {
         assertSameElements(callableNames, Arrays.asList("foo", "bar"));
     }
 
+    public void testPackageMemberIndex() throws Exception {
+        loadText("package " + PACKAGE_NAME + "\n" +
+                 "\n" +
+                 "fun foo() = 42\n" +
+                 "fun String.foo() = length()\n" +
+                 "val bar = 239\n" +
+                 "var Int.baz: Int get() = this; set(value) {}\n");
+        Class aClass = generateClass(PackageClassUtils.getPackageClassFqName(PACKAGE_NAME).asString());
+
+        Class<? extends Annotation> annotationClass = loadAnnotationClassQuietly(JvmAnnotationNames.KOTLIN_PACKAGE.asString());
+        String[] data = (String[]) CodegenTestUtil.getAnnotationAttribute(aClass.getAnnotation(annotationClass), "data");
+        assertNotNull(data);
+
+        List<ProtoBuf.Callable> members = JvmProtoBufUtil.readPackageDataFrom(data).getPackageProto().getMemberList();
+        PackageMemberIndex index = JvmProtoBufUtil.readPackageMemberIndexFrom(data);
+        assertEquals(members.size(), index.getMembers().size());
+
+        for (int i = 0; i < members.size(); i++) {
+            ProtoBuf.Callable member = members.get(i);
+            PackageMemberIndex.Member indexed = index.getMembers().get(i);
+            assertEquals(member.getName(), indexed.getName());
+            assertEquals(member.getFlags(), indexed.getFlags());
+            assertEquals(member.hasReceiverType(), indexed.getHasReceiverType());
+            assertTrue(Arrays.equals(member.toByteArray(), index.parse(indexed).toByteArray()));
+        }
+    }
+
     @NotNull
     public static Set<String> collectCallableNames(@NotNull List<ProtoBuf.Callable> members, @NotNull NameResolver nameResolver) {
         Set<String> callableNames = new HashSet<String>();
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil;
+import org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline;
+import org.jetbrains.kotlin.codegen.state.GenerationState;
+import org.jetbrains.kotlin.codegen.state.Progress;
+import org.jetbrains.kotlin.diagnostics.DiagnosticSink;
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline.*;
+
+public class OptimizationPipelineTest extends AbstractBytecodeTextTest {
+    private static final String BOXED_VARIABLES =
+            "inline fun <R, T> foo(x : R, block : (R) -> T) : T {\n" +
+            "    var y = x\n" +
+            "    var z = y\n" +
+            "    z = x\n" +
+            "    return block(z)\n" +
+            "}\n" +
+            "\n" +
+            "fun bar() {\n" +
+            "    foo(1) { x -> x }\n" +
+            "    foo(1L) { x -> x }\n" +
+            "    foo(true) { x -> x }\n" +
+            "}\n";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.ALL);
+        loadText(BOXED_VARIABLES);
+    }
+
+    public void testAllPasses() {
+        generateWithPasses(new ArrayList<String>(getAvailablePassNames()), false);
+        assertNoOccurrences("valueOf");
+    }
+
+    public void testDisabledPass() {
+        generateWithPasses(Arrays.asList(NULL_CHECK, DEAD_CODE, GOTO), false);
+        assertTrue("Boxing should be kept when the pass is disabled:\n" + generateToText(), generateToText().contains("valueOf"));
+    }
+
+    public void testCustomOrder() {
+        List<String> passes = Arrays.asList(GOTO, DEAD_CODE, BOXING, NULL_CHECK);
+        OptimizationPipeline pipeline = generateWithPasses(passes, true);
+        assertNoOccurrences("valueOf");
+
+        List<String> applied = new ArrayList<String>();
+        for (PassStatistics statistics : pipeline.getStatistics()) {
+            applied.add(statistics.getName());
+        }
+        assertEquals(Arrays.asList(GOTO, DEAD_CODE, BOXING, NULL_CHECK, "store-stack"), applied);
+    }
+
+    public void testInlineMarkersAreRemovedWithoutPasses() {
+        generateWithPasses(Collections.<String>emptyList(), false);
+        assertNoOccurrences(InlineCodegenUtil.INLINE_MARKER_CLASS_NAME);
+        assertTrue(generateToText().contains("valueOf"));
+    }
+
+    public void testStoreStackIsNotSelectable() {
+        assertFalse(getAvailablePassNames().contains("store-stack"));
+        try {
+            new OptimizationPipeline(Collections.singletonList("store-stack"), false, DEFAULT_MEMORY_LIMIT_BY_METHOD_MB);
+            fail("store-stack should not be accepted as a pass name");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @NotNull
+    private OptimizationPipeline generateWithPasses(@NotNull List<String> passes, boolean fixpoint) {
+        OptimizationPipeline pipeline = new OptimizationPipeline(passes, fixpoint, DEFAULT_MEMORY_LIMIT_BY_METHOD_MB);
+        AnalysisResult analysisResult =
+                JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(myEnvironment.getProject(), myFiles.getPsiFiles());
+        GenerationState state = new GenerationState(
+                myEnvironment.getProject(), ClassBuilderFactories.TEST, Progress.DEAF,
+                analysisResult.getModuleDescriptor(), analysisResult.getBindingContext(),
+                myFiles.getPsiFiles(), false, false, GenerationState.GenerateClassFilter.GENERATE_ALL,
+                false, pipeline, null, null, DiagnosticSink.DO_NOTHING, null
+        );
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+        classFileFactory = state.getFactory();
+        return pipeline;
+    }
+
+    private void assertNoOccurrences(@NotNull String needle) {
+        String text = generateToText();
+        assertFalse("'" + needle + "' should not be in the bytecode:\n" + text, text.contains(needle));
+    }
+}
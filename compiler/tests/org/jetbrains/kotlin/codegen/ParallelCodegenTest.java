@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
+import org.jetbrains.kotlin.diagnostics.DiagnosticSink;
+import org.jetbrains.kotlin.diagnostics.rendering.DefaultErrorMessages;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelCodegenTest extends CodegenTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testOutputIsTheSameAsInSerialMode() {
+        List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < 10; i++) {
+            files.add(JetTestUtils.createFile("file" + i + ".kt", packageText(i), myEnvironment.getProject()));
+        }
+
+        AnalysisResult analysisResult =
+                JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(myEnvironment.getProject(), files);
+
+        String serial = GenerationUtils.compileFilesGetGenerationState(
+                myEnvironment.getProject(), analysisResult, files, 1).getFactory().createText();
+        String parallel = GenerationUtils.compileFilesGetGenerationState(
+                myEnvironment.getProject(), analysisResult, files, 4).getFactory().createText();
+
+        assertEquals(serial, parallel);
+    }
+
+    public void testInliningAcrossPackagesIsTheSameAsInSerialMode() {
+        List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < 10; i++) {
+            files.add(JetTestUtils.createFile("file" + i + ".kt", inliningPackageText(i), myEnvironment.getProject()));
+        }
+
+        AnalysisResult analysisResult =
+                JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(myEnvironment.getProject(), files);
+
+        String serial = GenerationUtils.compileFilesGetGenerationState(
+                myEnvironment.getProject(), analysisResult, files, 1).getFactory().createText();
+        for (int i = 0; i < 5; i++) {
+            String parallel = GenerationUtils.compileFilesGetGenerationState(
+                    myEnvironment.getProject(), analysisResult, files, 4).getFactory().createText();
+            assertEquals(serial, parallel);
+        }
+    }
+
+    public void testDiagnosticsAreTheSameAsInSerialMode() {
+        List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < 10; i++) {
+            files.add(JetTestUtils.createFile("file" + i + ".kt", conflictingDeclarationsText(i), myEnvironment.getProject()));
+        }
+
+        AnalysisResult analysisResult =
+                JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(myEnvironment.getProject(), files);
+
+        List<String> serial = codegenDiagnostics(analysisResult, files, 1);
+        assertEquals("Both declarations of every package should be reported", 20, serial.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(serial, codegenDiagnostics(analysisResult, files, 4));
+        }
+    }
+
+    @NotNull
+    private List<String> codegenDiagnostics(@NotNull AnalysisResult analysisResult, @NotNull List<JetFile> files, int threads) {
+        DiagnosticSink.CollectAll diagnostics = new DiagnosticSink.CollectAll();
+        GenerationUtils.compileFilesGetGenerationState(myEnvironment.getProject(), analysisResult, files, threads, diagnostics)
+                .getFactory().asList();
+
+        List<String> result = new ArrayList<String>();
+        for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+            result.add(diagnostic.getPsiFile().getName() + " " + diagnostic.getTextRanges() + ": " + DefaultErrorMessages.render(diagnostic));
+        }
+        return result;
+    }
+
+    // The property getter clashes with the function, which is only found by codegen
+    @NotNull
+    private static String conflictingDeclarationsText(int index) {
+        return "package p" + index + "\n" +
+               "\n" +
+               "val x" + index + ": Int = " + index + "\n" +
+               "fun getX" + index + "(): Int = " + index + "\n";
+    }
+
+    // Two chains of packages, each inlining the function of the previous package in its chain,
+    // which takes a lambda and creates an object and a lambda capturing a local variable
+    @NotNull
+    private static String inliningPackageText(int index) {
+        String previous = index < 2 ? "block()" : "p" + (index - 2) + ".compute { block() + x }";
+        return "package p" + index + "\n" +
+               "\n" +
+               "inline fun compute(block: () -> Int): Int {\n" +
+               "    val x = " + index + "\n" +
+               "    val o = object { fun get() = x }\n" +
+               "    val l = { o.get() + x }\n" +
+               "    return l() + " + previous + "\n" +
+               "}\n" +
+               "\n" +
+               "fun f(): Int = compute { " + index + " }\n";
+    }
+
+    @NotNull
+    private static String packageText(int index) {
+        String previous = index == 0 ? "" : "p" + (index - 1) + ".f() + ";
+        return "package p" + index + "\n" +
+               "\n" +
+               "class A(val x: Int) {\n" +
+               "    fun g() = { x + 1 }\n" +
+               "}\n" +
+               "\n" +
+               "fun f(): Int = " + previous + "A(" + index + ").g()()\n" +
+               "\n" +
+               "val r = object : Runnable { override fun run() {} }\n";
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.LightVirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.codegen.ClassFileFactory;
+import org.jetbrains.kotlin.jvm.compiler.AbstractCompileKotlinAgainstKotlinTest;
+import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
+import org.jetbrains.kotlin.name.FqName;
+
+import java.io.File;
+
+public class InlineMethodNodeCacheTest extends AbstractCompileKotlinAgainstKotlinTest {
+    private static final String LIBRARY =
+            "inline fun twice(x: Int): Int = x + x\n";
+
+    private static final String USAGES =
+            "fun box(): String {\n" +
+            "    if (twice(1) != 2) return \"fail 1\"\n" +
+            "    if (twice(2) != 4) return \"fail 2\"\n" +
+            "    if (twice(3) != 6) return \"fail 3\"\n" +
+            "    return \"OK\"\n" +
+            "}\n";
+
+    public void testSeveralCallSitesReadTheBodyOnce() throws Exception {
+        InlineMethodNodeCache cache = InlineMethodNodeCache.getInstance();
+
+        compileA(writeFile("A.kt", LIBRARY));
+        cache.clear();
+        compileB(writeFile("B.kt", USAGES));
+
+        assertEquals("Body of the inline function should be read once", 1, cache.getMisses());
+        assertEquals("Other call sites should use the cached body", 2, cache.getHits());
+
+        invokeBox();
+    }
+
+    public void testEveryCallerGetsItsOwnCopy() throws Exception {
+        ClassFileFactory library = compileA(writeFile("A.kt", LIBRARY));
+        byte[] classWithMethod = findClassWithMethod(library, "twice", "(I)I");
+
+        InlineMethodNodeCache cache = new InlineMethodNodeCache(Integer.MAX_VALUE, null);
+        LightVirtualFile file = new BinaryFile("Library.class", classWithMethod);
+
+        SMAPAndMethodNode first = cache.getMethodNode(file, "twice", "(I)I", PackageClassUtils.getPackageClassId(FqName.ROOT));
+        assertNotNull(first);
+        int size = first.getNode().instructions.size();
+        first.getNode().instructions.clear();
+
+        SMAPAndMethodNode second = cache.getMethodNode(file, "twice", "(I)I", PackageClassUtils.getPackageClassId(FqName.ROOT));
+        assertNotNull(second);
+        assertNotSame(first.getNode(), second.getNode());
+        assertEquals("Changes made by one caller should not be seen by another", size, second.getNode().instructions.size());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @NotNull
+    private File writeFile(@NotNull String name, @NotNull String text) throws Exception {
+        File file = new File(tmpdir, name);
+        FileUtil.writeToFile(file, text);
+        return file;
+    }
+
+    @NotNull
+    private static byte[] findClassWithMethod(@NotNull ClassFileFactory factory, @NotNull String name, @NotNull String descriptor) {
+        for (OutputFile outputFile : factory.asList()) {
+            if (!outputFile.getRelativePath().endsWith(".class")) continue;
+            byte[] bytes = outputFile.asByteArray();
+            if (InlineMethodNodeCache.extractMethodClass(bytes, name, descriptor) != null) return bytes;
+        }
+        throw new AssertionError("No class with method " + name + descriptor);
+    }
+
+    private static class BinaryFile extends LightVirtualFile {
+        private final byte[] bytes;
+
+        BinaryFile(@NotNull String name, @NotNull byte[] bytes) {
+            super(name);
+            this.bytes = bytes;
+        }
+
+        @NotNull
+        @Override
+        public byte[] contentsToByteArray() {
+            return bytes;
+        }
+
+        @Override
+        public long getLength() {
+            return bytes.length;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.daemon.CompileDaemonClient;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures wall time of repeated compilations of the same sources in a new JVM process each time and in a compile daemon.
+ * The first compilation in the daemon starts it and is not measured.
+ *
+ * Usage: CompileDaemonBenchmark <compilations> <arguments to the compiler...>
+ */
+public class CompileDaemonBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: CompileDaemonBenchmark <compilations> <arguments to the compiler...>");
+            System.exit(1);
+        }
+
+        int compilations = Integer.parseInt(args[0]);
+        String[] compilerArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        report("new process", measureProcesses(compilerArgs, compilations));
+
+        File tempDir = FileUtil.createTempDirectory("compileDaemonBenchmark", null);
+        try {
+            report("daemon", measureDaemon(new File(tempDir, "daemon.port"), compilerArgs, compilations));
+        }
+        finally {
+            FileUtil.delete(tempDir);
+        }
+    }
+
+    @NotNull
+    private static long[] measureProcesses(@NotNull String[] compilerArgs, int compilations) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(K2JVMCompiler.class.getName());
+        Collections.addAll(command, compilerArgs);
+
+        long[] times = new long[compilations];
+        for (int i = 0; i < compilations; i++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            // The output is not interesting, but it should be consumed for the process not to block
+            FileUtil.loadBytes(process.getInputStream());
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                System.out.println("Warning: exit code " + exitCode);
+            }
+            times[i] = (System.nanoTime() - start) / 1000000;
+        }
+        return times;
+    }
+
+    @NotNull
+    private static long[] measureDaemon(@NotNull File portFile, @NotNull String[] compilerArgs, int compilations) throws IOException {
+        Process daemon = CompileDaemonClient.startDaemon(portFile, System.getProperty("java.class.path"), Collections.<String>emptyList());
+        try {
+            compile(portFile, compilerArgs);
+
+            long[] times = new long[compilations];
+            for (int i = 0; i < compilations; i++) {
+                long start = System.nanoTime();
+                compile(portFile, compilerArgs);
+                times[i] = (System.nanoTime() - start) / 1000000;
+            }
+            return times;
+        }
+        finally {
+            CompileDaemonClient.shutdown(portFile);
+            daemon.destroy();
+        }
+    }
+
+    private static void compile(@NotNull File portFile, @NotNull String[] compilerArgs) throws IOException {
+        ExitCode exitCode = CompileDaemonClient.compile(portFile, compilerArgs, false, new PrintStream(new ByteArrayOutputStream()));
+        if (exitCode != ExitCode.OK) {
+            System.out.println("Warning: exit code " + exitCode);
+        }
+    }
+
+    private static void report(@NotNull String configuration, @NotNull long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long time : sorted) {
+            total += time;
+        }
+        System.out.println(String.format("%-20s median: %6d ms, mean: %6d ms, min: %6d ms",
+                                         configuration, sorted[sorted.length / 2], total / sorted.length, sorted[0]));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.context.ModuleContext;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.BindingTraceContext;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures analysis time of a file with many extension calls, imported with a star import from a package
+ * where every class has its own extension with the same name, so that only one of them fits each call.
+ *
+ * Usage: ExtensionLookupBenchmark [number of classes, 500 by default] [number of calls, 5000 by default]
+ */
+public class ExtensionLookupBenchmark {
+    private static final int WARM_UP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int callCount = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+
+            List<JetFile> files = Arrays.asList(
+                    JetTestUtils.createFile("extensions.kt", extensionsText(classCount), environment.getProject()),
+                    JetTestUtils.createFile("calls.kt", callsText(classCount, callCount), environment.getProject())
+            );
+
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                analyze(environment, files);
+            }
+
+            long total = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                total += analyze(environment, files);
+            }
+            System.out.println(String.format("%d extensions, %d calls: %d ms per analysis", classCount, callCount, total / ITERATIONS / 1000000));
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static long analyze(@NotNull KotlinCoreEnvironment environment, @NotNull List<JetFile> files) {
+        long start = System.nanoTime();
+        ModuleContext moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.getProject());
+        BindingTraceContext trace = new BindingTraceContext();
+        TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(moduleContext, files, trace, null, null);
+        long time = System.nanoTime() - start;
+
+        int errors = trace.getBindingContext().getDiagnostics().all().size();
+        if (errors > 0) {
+            System.out.println("Warning: " + errors + " diagnostics reported");
+        }
+        return time;
+    }
+
+    // class Node<i>
+    // fun Node<i>.value(): Int = <i>
+    @NotNull
+    private static String extensionsText(int classCount) {
+        StringBuilder text = new StringBuilder("package dsl\n\n");
+        for (int i = 0; i < classCount; i++) {
+            text.append("class Node").append(i).append("\n");
+            text.append("fun Node").append(i).append(".value(): Int = ").append(i).append("\n");
+        }
+        return text.toString();
+    }
+
+    @NotNull
+    private static String callsText(int classCount, int callCount) {
+        StringBuilder text = new StringBuilder("package app\n\nimport dsl.*\n\n");
+        text.append("fun sum(): Int {\n");
+        text.append("    var sum = 0\n");
+        for (int i = 0; i < callCount; i++) {
+            text.append("    sum += Node").append(i % classCount).append("().value()\n");
+        }
+        text.append("    return sum\n");
+        text.append("}\n");
+        return text.toString();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.builtins.BuiltInsSerializedResourcePaths;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.kotlin.serialization.ProtoBuf;
+import org.jetbrains.kotlin.serialization.deserialization.NameResolver;
+
+import java.io.InputStream;
+import java.util.LinkedList;
+
+import static org.jetbrains.kotlin.serialization.ProtoBuf.QualifiedNameTable.QualifiedName;
+
+/**
+ * Resolves every name, fq-name and class id of the built-ins string tables the given number of times,
+ * as deserialization does for every type reference, with {@link NameResolver} (cached per index)
+ * and with the uncached resolution it used before.
+ *
+ * Usage: NameResolverBenchmark [number of rounds, 1000 by default]
+ */
+public class NameResolverBenchmark {
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        FqName packageFqName = KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME;
+        InputStream stream = KotlinBuiltIns.class.getClassLoader().getResourceAsStream(
+                BuiltInsSerializedResourcePaths.INSTANCE$.getStringTableFilePath(packageFqName)
+        );
+        NameResolver tables;
+        try {
+            tables = NameResolver.read(stream);
+        }
+        finally {
+            stream.close();
+        }
+        ProtoBuf.StringTable strings = tables.getStringTable();
+        ProtoBuf.QualifiedNameTable qualifiedNames = tables.getQualifiedNameTable();
+        System.out.println("Strings: " + strings.getStringCount() + ", qualified names: " + qualifiedNames.getQualifiedNameCount());
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            int resolved = resolveUncached(strings, qualifiedNames, rounds);
+            long uncached = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            resolved -= resolveCached(new NameResolver(strings, qualifiedNames), rounds);
+            long cached = System.nanoTime() - start;
+
+            if (resolved != 0) throw new IllegalStateException("Different number of names resolved");
+            System.out.println(String.format("uncached: %6d ms, cached: %6d ms", uncached / 1000000, cached / 1000000));
+        }
+    }
+
+    private static int resolveCached(@NotNull NameResolver nameResolver, int rounds) {
+        int resolved = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < nameResolver.getStringTable().getStringCount(); i++) {
+                resolved += nameResolver.getName(i).isSpecial() ? 0 : 1;
+            }
+            for (int i = 0; i < nameResolver.getQualifiedNameTable().getQualifiedNameCount(); i++) {
+                if (isClass(nameResolver.getQualifiedNameTable(), i)) {
+                    resolved += nameResolver.getClassId(i).isLocal() ? 0 : 1;
+                }
+                resolved += nameResolver.getFqName(i).isRoot() ? 0 : 1;
+            }
+        }
+        return resolved;
+    }
+
+    private static int resolveUncached(@NotNull ProtoBuf.StringTable strings, @NotNull ProtoBuf.QualifiedNameTable qualifiedNames, int rounds) {
+        int resolved = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < strings.getStringCount(); i++) {
+                resolved += Name.guess(strings.getString(i)).isSpecial() ? 0 : 1;
+            }
+            for (int i = 0; i < qualifiedNames.getQualifiedNameCount(); i++) {
+                if (isClass(qualifiedNames, i)) {
+                    resolved += getClassIdUncached(strings, qualifiedNames, i).isLocal() ? 0 : 1;
+                }
+                resolved += getFqNameUncached(strings, qualifiedNames, i).isRoot() ? 0 : 1;
+            }
+        }
+        return resolved;
+    }
+
+    private static boolean isClass(@NotNull ProtoBuf.QualifiedNameTable qualifiedNames, int index) {
+        return qualifiedNames.getQualifiedName(index).getKind() != QualifiedName.Kind.PACKAGE;
+    }
+
+    @NotNull
+    private static ClassId getClassIdUncached(@NotNull ProtoBuf.StringTable strings, @NotNull ProtoBuf.QualifiedNameTable qualifiedNames, int index) {
+        LinkedList<String> packageFqName = new LinkedList<String>();
+        LinkedList<String> relativeClassName = new LinkedList<String>();
+        boolean local = false;
+
+        while (index != -1) {
+            QualifiedName proto = qualifiedNames.getQualifiedName(index);
+            String shortName = strings.getString(proto.getShortName());
+            switch (proto.getKind()) {
+                case CLASS:
+                    relativeClassName.addFirst(shortName);
+                    break;
+                case PACKAGE:
+                    packageFqName.addFirst(shortName);
+                    break;
+                case LOCAL:
+                    relativeClassName.addFirst(shortName);
+                    local = true;
+                    break;
+            }
+
+            index = proto.getParentQualifiedName();
+        }
+
+        return new ClassId(FqName.fromSegments(packageFqName), FqName.fromSegments(relativeClassName), local);
+    }
+
+    @NotNull
+    private static FqName getFqNameUncached(@NotNull ProtoBuf.StringTable strings, @NotNull ProtoBuf.QualifiedNameTable qualifiedNames, int index) {
+        QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
+        Name shortName = Name.guess(strings.getString(qualifiedName.getShortName()));
+        if (!qualifiedName.hasParentQualifiedName()) {
+            return FqName.topLevel(shortName);
+        }
+        return getFqNameUncached(strings, qualifiedNames, qualifiedName.getParentQualifiedName()).child(shortName);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import kotlin.jvm.internal.KotlinPackage;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.context.ModuleContext;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.BindingTraceContext;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+
+import java.util.Collections;
+
+/**
+ * Compares the cost of reading the serialized "kotlin" package of the standard library eagerly (all callables are parsed)
+ * and with the member index (callables are parsed when their name is requested), then reports time and heap used
+ * to analyze a small file against the full standard library.
+ *
+ * Usage: PackageDeserializationBenchmark
+ */
+public class PackageDeserializationBenchmark {
+    private static final int ITERATIONS = 20;
+
+    private static final String SOURCE =
+            "fun main(args: Array<String>) {\n" +
+            "    val numbers = listOf(1, 2, 3).map { it * 2 }.filter { it > 2 }\n" +
+            "    println(numbers.joinToString() + args.size())\n" +
+            "}\n";
+
+    public static void main(String[] args) throws Exception {
+        String[] data = Class.forName("kotlin.KotlinPackage").getAnnotation(KotlinPackage.class).data();
+
+        int members = JvmProtoBufUtil.readPackageMemberIndexFrom(data).getMembers().size();
+        System.out.println("Callables in package kotlin: " + members);
+
+        measureRead("eager", data, false);
+        measureRead("indexed", data, true);
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.FULL_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+            JetFile file = JetTestUtils.createFile("main.kt", SOURCE, environment.getProject());
+
+            long before = usedMemory();
+            long start = System.nanoTime();
+            ModuleContext moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.getProject());
+            BindingTraceContext trace = new BindingTraceContext();
+            TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
+                    moduleContext, Collections.singletonList(file), trace, null, null
+            );
+            long time = (System.nanoTime() - start) / 1000000;
+            System.out.println(String.format("Analysis of a small file: %d ms, heap used: %d KB, diagnostics: %d",
+                                             time, (usedMemory() - before) / 1024, trace.getBindingContext().getDiagnostics().all().size()));
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static void measureRead(String mode, String[] data, boolean indexed) {
+        Object[] packages = new Object[ITERATIONS];
+        long before = usedMemory();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            packages[i] = indexed ? JvmProtoBufUtil.readPackageMemberIndexFrom(data) : JvmProtoBufUtil.readPackageDataFrom(data);
+        }
+        long time = System.nanoTime() - start;
+        long retained = usedMemory() - before;
+
+        System.out.println(String.format("%-8s read: %6.2f ms, retained: %6d KB per package",
+                                         mode, time / 1e6 / ITERATIONS, retained / ITERATIONS / 1024));
+        // Keep the packages reachable until the memory is measured
+        packages[0] = null;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
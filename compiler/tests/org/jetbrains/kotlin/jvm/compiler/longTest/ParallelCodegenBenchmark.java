@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.codegen.GenerationUtils;
+import org.jetbrains.kotlin.codegen.state.GenerationState;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a synthetic module of many packages and reports codegen wall time for different numbers of codegen threads.
+ * Usage: ParallelCodegenBenchmark [packages] [files per package] [max threads]
+ */
+public class ParallelCodegenBenchmark {
+    private static final int WARM_UP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int packages = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int filesPerPackage = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+
+            List<JetFile> files = new ArrayList<JetFile>();
+            for (int p = 0; p < packages; p++) {
+                for (int f = 0; f < filesPerPackage; f++) {
+                    files.add(JetTestUtils.createFile("p" + p + "_f" + f + ".kt", fileText(p, f), environment.getProject()));
+                }
+            }
+
+            System.out.println("Analyzing " + files.size() + " files in " + packages + " packages...");
+            AnalysisResult analysisResult = JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(environment.getProject(), files);
+
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                    generate(environment, analysisResult, files, threads);
+                }
+
+                long total = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    total += generate(environment, analysisResult, files, threads);
+                }
+                System.out.println(String.format("threads: %3d, codegen: %6d ms", threads, total / ITERATIONS));
+            }
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static long generate(
+            @NotNull KotlinCoreEnvironment environment,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull List<JetFile> files,
+            int threads
+    ) {
+        long start = System.currentTimeMillis();
+        GenerationState state = GenerationUtils.compileFilesGetGenerationState(environment.getProject(), analysisResult, files, threads);
+        // Class files are written lazily by the class builders, so force them here
+        state.getFactory().asList();
+        long result = System.currentTimeMillis() - start;
+        state.destroy();
+        return result;
+    }
+
+    @NotNull
+    private static String fileText(int packageIndex, int fileIndex) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package p").append(packageIndex).append("\n\n");
+        sb.append("class C").append(fileIndex).append("(val x: Int) {\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("    fun m").append(i).append("(list: List<Int>) = { a: Int -> a + list.size() * ").append(i).append(" }(x)\n");
+        }
+        sb.append("}\n\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("fun f").append(fileIndex).append("_").append(i).append("(y: Int): Int {\n");
+            sb.append("    val r = object : Runnable { override fun run() {} }\n");
+            sb.append("    r.run()\n");
+            sb.append("    return when (y) { 0 -> 1; 1 -> C").append(fileIndex).append("(y).m").append(i).append("(java.util.ArrayList<Int>()); else -> y * 2 }\n");
+            sb.append("}\n\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.preloading.Preloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures wall time of compiler launches through the preloader without and with the class data snapshot
+ * and the class loading profile. Each launch is a separate JVM process, the first launch of each configuration
+ * creates the snapshot and records the profile and is not measured.
+ *
+ * Usage: PreloaderStartupBenchmark <path to kotlin-compiler.jar> <launches> <arguments to the compiler...>
+ */
+public class PreloaderStartupBenchmark {
+    private static final String MAIN_CLASS = "org.jetbrains.kotlin.cli.jvm.K2JVMCompiler";
+    private static final int CLASS_NUMBER_ESTIMATE = 4096;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: PreloaderStartupBenchmark <path to kotlin-compiler.jar> <launches> <arguments to the compiler...>");
+            System.exit(1);
+        }
+
+        File compilerJar = new File(args[0]);
+        int launches = Integer.parseInt(args[1]);
+        List<String> compilerArgs = Arrays.asList(args).subList(2, args.length);
+
+        File tempDir = FileUtil.createTempDirectory("preloaderBenchmark", null);
+        try {
+            File snapshot = new File(tempDir, "classes.snapshot");
+            File profile = new File(tempDir, "classes.profile");
+
+            report("plain", measure(compilerJar, compilerArgs, launches, null, null));
+            report("snapshot", measure(compilerJar, compilerArgs, launches, snapshot, null));
+            report("profile", measure(compilerJar, compilerArgs, launches, null, profile));
+            report("snapshot + profile", measure(compilerJar, compilerArgs, launches, snapshot, profile));
+        }
+        finally {
+            FileUtil.delete(tempDir);
+        }
+    }
+
+    @NotNull
+    private static long[] measure(
+            @NotNull File compilerJar,
+            @NotNull List<String> compilerArgs,
+            int launches,
+            @Nullable File snapshot,
+            @Nullable File profile
+    ) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (snapshot != null) {
+            command.add("-Dkotlin.preloader.snapshot=" + snapshot.getPath());
+        }
+        if (profile != null) {
+            command.add("-Dkotlin.preloader.profile=" + profile.getPath());
+        }
+        command.add(Preloader.class.getName());
+        command.add(compilerJar.getPath());
+        command.add(MAIN_CLASS);
+        command.add(String.valueOf(CLASS_NUMBER_ESTIMATE));
+        command.add("notime");
+        command.addAll(compilerArgs);
+
+        // Creates the snapshot and records the profile, also warms up the file system caches
+        launch(command);
+
+        long[] times = new long[launches];
+        for (int i = 0; i < launches; i++) {
+            times[i] = launch(command);
+        }
+        return times;
+    }
+
+    private static long launch(@NotNull List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // The output is not interesting, but it should be consumed for the process not to block
+        FileUtil.loadBytes(process.getInputStream());
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            System.out.println("Warning: exit code " + exitCode + " for " + command);
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static void report(@NotNull String configuration, @NotNull long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long time : sorted) {
+            total += time;
+        }
+        System.out.println(String.format("%-20s median: %6d ms, mean: %6d ms, min: %6d ms",
+                                         configuration, sorted[sorted.length / 2], total / sorted.length, sorted[0]));
+    }
+}
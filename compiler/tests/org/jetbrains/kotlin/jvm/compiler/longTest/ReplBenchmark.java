@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.repl.ReplInterpreter;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+
+/**
+ * Evaluates the given number of lines in one REPL session, each of them referring to the lines before it,
+ * and reports the time of every thousand lines, which should stay the same however many lines were evaluated before.
+ *
+ * Usage: ReplBenchmark [number of lines, 10000 by default]
+ */
+public class ReplBenchmark {
+    private static final int LINES_PER_REPORT = 1000;
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            ReplInterpreter repl = new ReplInterpreter(
+                    disposable, JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.FULL_JDK)
+            );
+            eval(repl, "val x0 = 0");
+
+            long start = System.nanoTime();
+            for (int i = 1; i <= lineCount; i++) {
+                eval(repl, lineText(i));
+
+                if (i % LINES_PER_REPORT == 0) {
+                    long time = System.nanoTime() - start;
+                    System.out.println(String.format("lines %5d-%5d: %6d ms, %.2f ms per line",
+                                                     i - LINES_PER_REPORT + 1, i, time / 1000000, time / 1e6 / LINES_PER_REPORT));
+                    start = System.nanoTime();
+                }
+            }
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    // A value computed from the previous line, a function every tenth line, and after it a call of the function plus the value of the first line
+    @NotNull
+    private static String lineText(int i) {
+        if (i % 10 == 0) return "fun f" + i + "(n: Int) = n + x" + (i - 1);
+        if (i % 10 == 1 && i > 10) return "val x" + i + " = f" + (i - 1) + "(x" + (i - 2) + ") + x1";
+        return "val x" + i + " = x" + (i - 1) + " + 1";
+    }
+
+    private static void eval(@NotNull ReplInterpreter repl, @NotNull String line) {
+        ReplInterpreter.LineResult result = repl.eval(line);
+        if (result.getType() != ReplInterpreter.LineResultType.SUCCESS) {
+            throw new IllegalStateException("Line was not evaluated: " + line + "\n" + result.getErrorText());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function3;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.context.ModuleContext;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.BindingTraceContext;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+import org.jetbrains.kotlin.util.slicedMap.CompactSlicedMap;
+import org.jetbrains.kotlin.util.slicedMap.MutableSlicedMap;
+import org.jetbrains.kotlin.util.slicedMap.SlicedMapImpl;
+import org.jetbrains.kotlin.util.slicedMap.WritableSlice;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzes a corpus of Kotlin sources, then replays all the recorded bindings into {@link SlicedMapImpl} and {@link CompactSlicedMap}
+ * and reports heap retained by each of them and their put/get throughput.
+ *
+ * Usage: SlicedMapMemoryBenchmark [directory with sources, libraries/stdlib/src by default]
+ */
+public class SlicedMapMemoryBenchmark {
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws IOException {
+        File sourceRoot = new File(args.length > 0 ? args[0] : "libraries/stdlib/src");
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.FULL_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+
+            List<File> ioFiles = FileUtil.findFilesByMask(Pattern.compile(".+\\.kt"), sourceRoot);
+            List<JetFile> files = JetTestUtils.loadToJetFiles(environment, ioFiles);
+
+            System.out.println("Analyzing " + files.size() + " files from " + sourceRoot + "...");
+            SlicedMapImpl recorded = SlicedMapImpl.create();
+            ModuleContext moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.getProject());
+            TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
+                    moduleContext, files, BindingTraceContext.createWithSlicedMap(recorded), null, null
+            );
+
+            final List<Binding> bindings = new ArrayList<Binding>();
+            recorded.forEach(new Function3<WritableSlice, Object, Object, Void>() {
+                @Override
+                public Void invoke(WritableSlice slice, Object key, Object value) {
+                    bindings.add(new Binding(slice, key, value));
+                    return null;
+                }
+            });
+            System.out.println("Bindings recorded: " + bindings.size());
+
+            measure("SlicedMapImpl", bindings, new Function0<MutableSlicedMap>() {
+                @Override
+                public MutableSlicedMap invoke() {
+                    return SlicedMapImpl.create();
+                }
+            });
+            measure("CompactSlicedMap", bindings, new Function0<MutableSlicedMap>() {
+                @Override
+                public MutableSlicedMap invoke() {
+                    return CompactSlicedMap.create();
+                }
+            });
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static void measure(@NotNull String name, @NotNull List<Binding> bindings, @NotNull Function0<MutableSlicedMap> factory) {
+        long putTime = 0;
+        long getTime = 0;
+        long retained = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = usedMemory();
+
+            long start = System.nanoTime();
+            MutableSlicedMap map = factory.invoke();
+            for (Binding binding : bindings) {
+                //noinspection unchecked
+                map.put(binding.slice, binding.key, binding.value);
+            }
+            putTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int found = 0;
+            for (Binding binding : bindings) {
+                //noinspection unchecked
+                if (map.get(binding.slice, binding.key) != null) found++;
+            }
+            getTime += System.nanoTime() - start;
+
+            retained += usedMemory() - before;
+            if (found < bindings.size()) {
+                System.out.println("Warning: " + (bindings.size() - found) + " bindings not found in " + name);
+            }
+            // Keep the map reachable until the memory is measured
+            map.clear();
+        }
+
+        System.out.println(String.format(
+                "%-18s retained: %8d KB, put: %8.1f ns/op, get: %8.1f ns/op",
+                name,
+                retained / ITERATIONS / 1024,
+                (double) putTime / ITERATIONS / bindings.size(),
+                (double) getTime / ITERATIONS / bindings.size()
+        ));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class Binding {
+        private final WritableSlice slice;
+        private final Object key;
+        private final Object value;
+
+        private Binding(@NotNull WritableSlice slice, Object key, Object value) {
+            this.slice = slice;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+import org.jetbrains.kotlin.storage.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares {@link LockBasedStorageManager} and {@link ConcurrentStorageManager} when lazy values and memoized functions
+ * are requested from many threads at once, the way parallel resolution of independent files uses them.
+ *
+ * Usage: StorageManagerBenchmark [threads] [keys]
+ */
+public class StorageManagerBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    // Emulates the work done by a typical computation, e.g. resolution of a declaration
+    private static final int WORK_PER_VALUE = 200;
+
+    // Prevents computed values from being optimized away
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        System.out.println("Threads: " + threads + ", keys: " + keys);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                runRound(new LockBasedStorageManager(), executor, threads, keys);
+                runRound(new ConcurrentStorageManager(), executor, threads, keys);
+            }
+
+            long lockBased = 0;
+            long concurrent = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                lockBased += runRound(new LockBasedStorageManager(), executor, threads, keys);
+                concurrent += runRound(new ConcurrentStorageManager(), executor, threads, keys);
+            }
+
+            System.out.println("LockBasedStorageManager:  " + lockBased / MEASURED_ROUNDS / 1000000 + " ms per round");
+            System.out.println("ConcurrentStorageManager: " + concurrent / MEASURED_ROUNDS / 1000000 + " ms per round");
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Returns time in nanoseconds
+    private static long runRound(StorageManager storageManager, ExecutorService executor, final int threads, final int keys)
+            throws Exception {
+        final MemoizedFunctionToNotNull<Integer, Long> function = storageManager.createMemoizedFunction(new Function1<Integer, Long>() {
+            @Override
+            public Long invoke(Integer key) {
+                return work(key);
+            }
+        });
+
+        final List<NotNullLazyValue<Long>> values = new ArrayList<NotNullLazyValue<Long>>(keys);
+        for (int i = 0; i < keys; i++) {
+            final int key = i;
+            values.add(storageManager.createLazyValue(new Function0<Long>() {
+                @Override
+                public Long invoke() {
+                    return function.invoke(key) + work(key);
+                }
+            }));
+        }
+
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * (keys / threads);
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    long sum = 0;
+                    // Every thread requests all values, starting from its own part, so that threads both compute and wait
+                    for (int i = 0; i < keys; i++) {
+                        sum += values.get((offset + i) % keys).invoke();
+                    }
+                    return sum;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        long check = 0;
+        for (Future<Long> future : executor.invokeAll(tasks)) {
+            check += future.get();
+        }
+        long time = System.nanoTime() - start;
+
+        sink += check;
+        return time;
+    }
+
+    private static long work(int seed) {
+        long result = seed;
+        for (int i = 0; i < WORK_PER_VALUE; i++) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler.longTest;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.context.ModuleContext;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.BindingTraceContext;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures analysis time of call-heavy code against the standard library collections and a 12-level generic class hierarchy,
+ * where overload resolution and inference check subtyping against deep supertypes all the time.
+ *
+ * Usage: SubtypingBenchmark [number of files, 50 by default] [functions per file, 20 by default]
+ */
+public class SubtypingBenchmark {
+    private static final int LEVELS = 12;
+    private static final int WARM_UP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int functionsPerFile = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.FULL_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+
+            List<JetFile> files = new ArrayList<JetFile>();
+            files.add(JetTestUtils.createFile("hierarchy.kt", hierarchyText(), environment.getProject()));
+            for (int f = 0; f < fileCount; f++) {
+                files.add(JetTestUtils.createFile("calls" + f + ".kt", callsText(f, functionsPerFile), environment.getProject()));
+            }
+
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                analyze(environment, files);
+            }
+
+            long total = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                total += analyze(environment, files);
+            }
+            System.out.println(String.format("%d files: %d ms per analysis", files.size(), total / ITERATIONS / 1000000));
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static long analyze(@NotNull KotlinCoreEnvironment environment, @NotNull List<JetFile> files) {
+        long start = System.nanoTime();
+        ModuleContext moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.getProject());
+        BindingTraceContext trace = new BindingTraceContext();
+        TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(moduleContext, files, trace, null, null);
+        long time = System.nanoTime() - start;
+
+        int errors = trace.getBindingContext().getDiagnostics().all().size();
+        if (errors > 0) {
+            System.out.println("Warning: " + errors + " diagnostics reported");
+        }
+        return time;
+    }
+
+    // open class Level<i><T>(value: T) : Level<i - 1><T>(value)
+    @NotNull
+    private static String hierarchyText() {
+        StringBuilder text = new StringBuilder("package dsl\n\n");
+        text.append("open class Level0<T>(val value: T)\n");
+        for (int i = 1; i < LEVELS; i++) {
+            text.append("open class Level").append(i).append("<T>(value: T) : Level").append(i - 1).append("<T>(value)\n");
+        }
+        text.append("\n");
+        text.append("fun <T> Level0<T>.tag(): T = value\n");
+        text.append("fun <T, L : Level0<T>> L.configure(block: L.() -> Unit): L { block(); return this }\n");
+        text.append("fun <T> Level").append(LEVELS / 2).append("<T>.middle(): List<T> = listOf(value)\n");
+        text.append("fun <T : Comparable<T>> maxOf(nodes: Collection<Level0<T>>): T? = nodes.map { it.tag() }.max()\n");
+        return text.toString();
+    }
+
+    @NotNull
+    private static String callsText(int file, int functions) {
+        String top = "Level" + (LEVELS - 1);
+        StringBuilder text = new StringBuilder("package dsl\n\n");
+        for (int i = 0; i < functions; i++) {
+            text.append("fun use").append(file).append("_").append(i).append("(): Int {\n");
+            text.append("    val nodes = listOf(").append(top).append("(").append(i).append("), ").append(top).append("(").append(i + 1).append("))\n");
+            text.append("    val sorted = nodes.sortBy { it.tag() }.filter { it.tag() > 0 }.map { it.configure { tag() } }\n");
+            text.append("    val grouped = sorted.groupBy { it.tag() % 2 }.mapValues { it.getValue().flatMap { it.middle() } }\n");
+            text.append("    val strings = ").append(top).append("(\"s").append(i).append("\").middle() + setOf(\"a\", \"b\")\n");
+            text.append("    return (maxOf(nodes) ?: 0) + grouped.size() + strings.size() + nodes.fold(0) { sum, node -> sum + node.tag() }\n");
+            text.append("}\n\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.runtime;
+
+import com.intellij.testFramework.UsefulTestCase;
+import kotlin.reflect.jvm.internal.ModuleCache;
+import kotlin.reflect.jvm.internal.ModuleCacheStatistics;
+import kotlin.reflect.jvm.internal.ModuleRetentionPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.load.kotlin.reflect.RuntimeModuleData;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ModuleByClassLoaderCacheTest extends UsefulTestCase {
+    private static final int GC_ATTEMPTS = 100;
+
+    public void testCollectedClassLoaderIsPurged() throws Exception {
+        ModuleCache cache = new ModuleCache(ModuleRetentionPolicy.WEAK, Integer.MAX_VALUE);
+
+        WeakReference<ClassLoader> classLoader = lookUpThrowawayClassLoader(cache);
+        assertEquals(1, cache.getStatistics().getSize());
+
+        collectGarbage(classLoader);
+        ModuleCacheStatistics statistics = waitForPurge(cache);
+        assertEquals(1, statistics.getPurged());
+        assertEquals(0, statistics.getSize());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(0, statistics.getHits());
+    }
+
+    public void testWeakRetention() throws Exception {
+        ModuleCache cache = new ModuleCache(ModuleRetentionPolicy.WEAK, Integer.MAX_VALUE);
+        ClassLoader classLoader = newClassLoader();
+
+        WeakReference<RuntimeModuleData> module = lookUp(cache, classLoader);
+        collectGarbage(module);
+
+        // The entry is either purged via the reference queue or found with the module collected, in both cases it's created again
+        assertNotNull(cache.getOrCreate(classLoader));
+        ModuleCacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getHits());
+        assertEquals(2, statistics.getMisses() + statistics.getRebuilds());
+        assertEquals(1, statistics.getSize());
+    }
+
+    public void testSoftRetention() throws Exception {
+        doTestModuleSurvivesGarbageCollection(ModuleRetentionPolicy.SOFT);
+    }
+
+    public void testStrongRetention() throws Exception {
+        doTestModuleSurvivesGarbageCollection(ModuleRetentionPolicy.STRONG);
+    }
+
+    public void testStrongRetentionKeepsClassLoaderUntilEvicted() throws Exception {
+        ModuleCache cache = new ModuleCache(ModuleRetentionPolicy.STRONG, 1);
+
+        WeakReference<ClassLoader> first = lookUpThrowawayClassLoader(cache);
+        System.gc();
+        assertNotNull("Module data references its class loader, so it's not collected while the entry is cached", first.get());
+
+        ClassLoader second = newClassLoader();
+        cache.getOrCreate(second);
+        assertEquals(1, cache.getStatistics().getEvicted());
+
+        collectGarbage(first);
+    }
+
+    public void testEviction() throws Exception {
+        ModuleCache cache = new ModuleCache(ModuleRetentionPolicy.STRONG, 2);
+        List<ClassLoader> classLoaders = new ArrayList<ClassLoader>();
+        for (int i = 0; i < 3; i++) {
+            ClassLoader classLoader = newClassLoader();
+            classLoaders.add(classLoader);
+            cache.getOrCreate(classLoader);
+        }
+
+        ModuleCacheStatistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.getMisses());
+        assertEquals(1, statistics.getEvicted());
+        assertEquals(2, statistics.getSize());
+
+        // The entry which has just been inserted is never evicted
+        cache.getOrCreate(classLoaders.get(2));
+        assertEquals(1, cache.getStatistics().getHits());
+    }
+
+    private static void doTestModuleSurvivesGarbageCollection(@NotNull ModuleRetentionPolicy retention) {
+        ModuleCache cache = new ModuleCache(retention, Integer.MAX_VALUE);
+        ClassLoader classLoader = newClassLoader();
+
+        WeakReference<RuntimeModuleData> module = lookUp(cache, classLoader);
+        System.gc();
+
+        assertSame(module.get(), cache.getOrCreate(classLoader));
+        ModuleCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getHits());
+        assertEquals(0, statistics.getRebuilds());
+        assertEquals(0, statistics.getPurged());
+    }
+
+    // Neither the class loader nor its module is referenced from the caller's frame
+    @NotNull
+    private static WeakReference<ClassLoader> lookUpThrowawayClassLoader(@NotNull ModuleCache cache) {
+        ClassLoader classLoader = newClassLoader();
+        cache.getOrCreate(classLoader);
+        return new WeakReference<ClassLoader>(classLoader);
+    }
+
+    @NotNull
+    private static WeakReference<RuntimeModuleData> lookUp(@NotNull ModuleCache cache, @NotNull ClassLoader classLoader) {
+        return new WeakReference<RuntimeModuleData>(cache.getOrCreate(classLoader));
+    }
+
+    @NotNull
+    private static ClassLoader newClassLoader() {
+        return new URLClassLoader(new URL[0], ModuleByClassLoaderCacheTest.class.getClassLoader());
+    }
+
+    private static void collectGarbage(@NotNull WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < GC_ATTEMPTS && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Object should have been collected", reference.get());
+    }
+
+    // References are enqueued by a separate thread some time after they are cleared
+    @NotNull
+    private static ModuleCacheStatistics waitForPurge(@NotNull ModuleCache cache) throws InterruptedException {
+        for (int i = 0; i < GC_ATTEMPTS; i++) {
+            ModuleCacheStatistics statistics = cache.getStatistics();
+            if (statistics.getPurged() > 0) return statistics;
+            Thread.sleep(10);
+        }
+        return cache.getStatistics();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class ClassDataArchiveTest extends TestCaseWithTmpdir {
+    private File archive;
+    private File first;
+    private File second;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        archive = new File(tmpdir, "classes.archive");
+        first = new File(tmpdir, "first.jar");
+        second = new File(tmpdir, "second.jar");
+        writeJar(first, "a/A.class", "A", "a/B.class", "B");
+        writeJar(second, "c/C.class", "C", "a/A.class", "A2");
+    }
+
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> resources = readJars();
+        ClassDataArchive.write(archive, jars(), resources);
+        assertTrue(archive.isFile());
+
+        Map<String, Object> loaded = ClassDataArchive.load(archive, jars(), 0);
+        assertNotNull("Archive should be used when the jars are not changed", loaded);
+        assertEquals(render(resources), render(loaded));
+    }
+
+    public void testChangedJarInvalidatesArchive() throws Exception {
+        ClassDataArchive.write(archive, jars(), readJars());
+
+        writeJar(second, "c/C.class", "C", "a/A.class", "A3");
+        assertNull("Archive should be ignored when a jar has changed", ClassDataArchive.load(archive, jars(), 0));
+    }
+
+    public void testChangedJarWithSameSizeAndTimestampInvalidatesArchive() throws Exception {
+        ClassDataArchive.write(archive, jars(), readJars());
+
+        long length = second.length();
+        long timestamp = second.lastModified();
+        writeJar(second, "c/C.class", "D", "a/A.class", "A2");
+        assertTrue(second.setLastModified(timestamp));
+        assertEquals(length, second.length());
+
+        assertNull("Archive should be ignored when contents of a jar have changed", ClassDataArchive.load(archive, jars(), 0));
+    }
+
+    public void testDifferentJarListInvalidatesArchive() throws Exception {
+        ClassDataArchive.write(archive, jars(), readJars());
+
+        assertNull(ClassDataArchive.load(archive, Collections.singletonList(first), 0));
+        assertNull(ClassDataArchive.load(archive, Arrays.asList(second, first), 0));
+    }
+
+    public void testCorruptedArchiveIsIgnored() throws Exception {
+        FileOutputStream output = new FileOutputStream(archive);
+        try {
+            output.write(new byte[] {0x4B, 0x43, 0x44});
+        }
+        finally {
+            output.close();
+        }
+
+        assertNull(ClassDataArchive.load(archive, jars(), 0));
+    }
+
+    @NotNull
+    private List<File> jars() {
+        return Arrays.asList(first, second);
+    }
+
+    @NotNull
+    private Map<String, Object> readJars() throws IOException {
+        Map<String, Object> resources = new HashMap<String, Object>();
+        addResource(resources, first, "a/A.class", "A");
+        addResource(resources, first, "a/B.class", "B");
+        addResource(resources, second, "c/C.class", "C");
+        addResource(resources, second, "a/A.class", "A2");
+        ClassDataArchive.trimLists(resources);
+        return resources;
+    }
+
+    private static void addResource(@NotNull Map<String, Object> resources, @NotNull File jar, @NotNull String name, @NotNull String text) {
+        ClassDataArchive.addResource(resources, name, new ResourceData(jar, name, text.getBytes()));
+    }
+
+    // Resources with the same name from several jars are kept in the order of the jars
+    @NotNull
+    private static String render(@NotNull Map<String, Object> resources) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : new TreeSet<String>(resources.keySet())) {
+            Object value = resources.get(name);
+            @SuppressWarnings("unchecked")
+            List<ResourceData> data = value instanceof ResourceData
+                                      ? Collections.singletonList((ResourceData) value)
+                                      : (List<ResourceData>) value;
+            for (ResourceData resource : data) {
+                sb.append(name).append(" from ").append(resource.jarFile.getName()).append(": ")
+                        .append(new String(resource.getBytes())).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void writeJar(@NotNull File jar, @NotNull String... namesAndContents) throws IOException {
+        JarOutputStream output = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                output.putNextEntry(new ZipEntry(namesAndContents[i]));
+                output.write(namesAndContents[i + 1].getBytes());
+                output.closeEntry();
+            }
+        }
+        finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.util.*;
+
+public class ClassLoadingProfileTest extends TestCaseWithTmpdir {
+    private static final List<String> CLASSES = Arrays.asList(
+            "kotlin.Unit",
+            "kotlin.Pair",
+            "kotlin.jvm.functions.Function0",
+            "kotlin.jvm.internal.Intrinsics"
+    );
+
+    public void testSaveAndLoad() throws Exception {
+        File jar = copyOfRuntimeJar();
+        File profileFile = new File(tmpdir, "classes.profile");
+
+        ClassLoadingProfile.RecordingHandler recordingHandler = recordingHandler(jar);
+        for (String name : CLASSES) {
+            recordingHandler.afterDefineClass(name);
+        }
+        recordingHandler.getProfile().save(profileFile);
+
+        ClassLoadingProfile profile = ClassLoadingProfile.load(profileFile, Collections.singletonList(jar));
+        assertNotNull(profile);
+        assertEquals(CLASSES, profile.getClassNames());
+    }
+
+    public void testMissingProfile() throws Exception {
+        assertNull(ClassLoadingProfile.load(new File(tmpdir, "classes.profile"), Collections.singletonList(copyOfRuntimeJar())));
+    }
+
+    public void testChangedJarInvalidatesProfile() throws Exception {
+        File jar = copyOfRuntimeJar();
+        File profileFile = new File(tmpdir, "classes.profile");
+
+        ClassLoadingProfile.RecordingHandler recordingHandler = recordingHandler(jar);
+        recordingHandler.afterDefineClass("kotlin.Unit");
+        recordingHandler.getProfile().save(profileFile);
+
+        assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+        assertNull("Profile should be ignored when the jar has changed",
+                   ClassLoadingProfile.load(profileFile, Collections.singletonList(jar)));
+
+        // A profile recorded with the new jar replaces the old one
+        recordingHandler(jar).getProfile().save(profileFile);
+        assertNotNull(ClassLoadingProfile.load(profileFile, Collections.singletonList(jar)));
+    }
+
+    public void testReplayFromSeveralThreads() throws Exception {
+        File jar = copyOfRuntimeJar();
+        File profileFile = new File(tmpdir, "classes.profile");
+
+        ClassLoadingProfile.RecordingHandler recordingHandler = recordingHandler(jar);
+        for (String name : CLASSES) {
+            recordingHandler.afterDefineClass(name);
+        }
+        recordingHandler.afterDefineClass("no.such.Class");
+        recordingHandler.getProfile().save(profileFile);
+
+        ClassLoadingProfile profile = ClassLoadingProfile.load(profileFile, Collections.singletonList(jar));
+        assertNotNull(profile);
+
+        ClassLoadingProfile.RecordingHandler definedClasses = recordingHandler(jar);
+        ClassLoader classLoader = ClassPreloadingUtils.preloadClasses(Collections.singletonList(jar), 1000, null, null, definedClasses);
+
+        // The same classes are requested concurrently, each of them should still be defined exactly once
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(profile.startReplay(classLoader));
+        }
+        for (Thread thread : threads) {
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+        }
+
+        List<String> defined = definedClasses.getProfile().getClassNames();
+        assertEquals(new HashSet<String>(defined).size(), defined.size());
+        assertTrue("Classes of the profile should be defined: " + defined, defined.containsAll(CLASSES));
+        for (String name : CLASSES) {
+            assertSame(classLoader, classLoader.loadClass(name).getClassLoader());
+        }
+    }
+
+    @NotNull
+    private static ClassLoadingProfile.RecordingHandler recordingHandler(@NotNull File jar) {
+        return ClassLoadingProfile.createRecordingHandler(new ClassHandler() {}, Collections.singletonList(jar));
+    }
+
+    @NotNull
+    private File copyOfRuntimeJar() throws Exception {
+        File jar = new File(tmpdir, "kotlin-runtime.jar");
+        FileUtil.copy(ForTestCompileRuntime.runtimeJarForTests(), jar);
+        return jar;
+    }
+}
@@ -47,6 +47,12 @@ public class ReplInterpreterTestGenerated extends AbstractReplInterpreterTest {
         doTest(fileName);
     }
 
+    @TestMetadata("earlierLines.repl")
+    public void testEarlierLines() throws Exception {
+        String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/earlierLines.repl");
+        doTest(fileName);
+    }
+
     @TestMetadata("empty.repl")
     public void testEmpty() throws Exception {
         String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/empty.repl");
@@ -59,6 +65,12 @@ public class ReplInterpreterTestGenerated extends AbstractReplInterpreterTest {
         doTest(fileName);
     }
 
+    @TestMetadata("failedLines.repl")
+    public void testFailedLines() throws Exception {
+        String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/failedLines.repl");
+        doTest(fileName);
+    }
+
     @TestMetadata("function.repl")
     public void testFunction() throws Exception {
         String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/function.repl");
@@ -83,12 +95,24 @@ public class ReplInterpreterTestGenerated extends AbstractReplInterpreterTest {
         doTest(fileName);
     }
 
+    @TestMetadata("importShadowsEarlierClass.repl")
+    public void testImportShadowsEarlierClass() throws Exception {
+        String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/importShadowsEarlierClass.repl");
+        doTest(fileName);
+    }
+
     @TestMetadata("imports.repl")
     public void testImports() throws Exception {
         String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/imports.repl");
         doTest(fileName);
     }
 
+    @TestMetadata("manyLines.repl")
+    public void testManyLines() throws Exception {
+        String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/manyLines.repl");
+        doTest(fileName);
+    }
+
     @TestMetadata("simple.repl")
     public void testSimple() throws Exception {
         String fileName = JetTestUtils.navigationMetadata("compiler/testData/repl/simple.repl");
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve
+
+import org.jetbrains.kotlin.cli.jvm.compiler.CliLightClassGenerationSupport
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.incremental.components.LookupTracker
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment
+import org.jetbrains.kotlin.test.ConfigurationKind
+import org.jetbrains.kotlin.test.JetTestUtils
+import java.util.HashSet
+
+class LookupTrackerTest : KotlinTestWithEnvironment() {
+    override fun createEnvironment(): KotlinCoreEnvironment = createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY)
+
+    private class RecordingLookupTracker : LookupTracker {
+        val lookups = HashSet<String>()
+
+        override fun record(lookupContainingFile: String, scopeFqName: String, name: String) {
+            lookups.add("$lookupContainingFile $scopeFqName $name")
+        }
+    }
+
+    private fun analyze(vararg files: Pair<String, String>): Set<String> {
+        val tracker = RecordingLookupTracker()
+        TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
+                TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(getProject()),
+                files.map { JetTestUtils.createFile(it.first, it.second, getProject()) },
+                CliLightClassGenerationSupport.CliBindingTrace(),
+                null, null, tracker
+        )
+        return tracker.lookups
+    }
+
+    fun testScopesSearchedWithoutMatch() {
+        val lookups = analyze(
+                "test.kt" to """
+                    package test
+
+                    import other.*
+
+                    open class Base {
+                        fun inherited() {}
+                    }
+
+                    class Outer : Base() {
+                        companion object {
+                            fun fromCompanion() {}
+                        }
+
+                        class Nested
+
+                        fun f(): Nested? {
+                            inherited()
+                            fromCompanion()
+                            return null
+                        }
+                    }
+                """,
+                "other.kt" to """
+                    package other
+
+                    fun unrelated() {}
+                """
+        )
+
+        // Found in the supertype, after the scopes of the companion, the package and the imported package were searched
+        for (scope in listOf("test.Base", "test.Outer", "test.Outer.Companion", "test", "other")) {
+            assertTrue("inherited() is not looked up in $scope: $lookups", "/test.kt $scope inherited" in lookups)
+        }
+        assertTrue(lookups.toString(), "/test.kt other fromCompanion" in lookups)
+        assertTrue(lookups.toString(), "/test.kt test.Base fromCompanion" in lookups)
+        assertTrue(lookups.toString(), "/test.kt test.Outer Nested" in lookups)
+        assertTrue(lookups.toString(), "/test.kt other Nested" in lookups)
+    }
+
+    fun testMembersOfReceiverAndQualifier() {
+        val lookups = analyze(
+                "test.kt" to """
+                    package test
+
+                    import other.Alias as Renamed
+
+                    interface A {
+                        fun foo()
+                    }
+
+                    interface B : A
+
+                    fun B.bar(r: Renamed) {
+                        foo()
+                        other.unrelated()
+                        Renamed.baz
+                    }
+                """,
+                "other.kt" to """
+                    package other
+
+                    fun unrelated() {}
+
+                    object Alias {
+                        val baz = 1
+                    }
+                """
+        )
+
+        assertTrue(lookups.toString(), "/test.kt test.B foo" in lookups)
+        assertTrue(lookups.toString(), "/test.kt test.A foo" in lookups)
+        assertTrue(lookups.toString(), "/test.kt other unrelated" in lookups)
+        assertTrue(lookups.toString(), "/test.kt other.Alias baz" in lookups)
+        // The aliased import is looked up by the name of the imported declaration
+        assertTrue(lookups.toString(), "/test.kt other Alias" in lookups)
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.builtins.BuiltInsSerializedResourcePaths;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.kotlin.serialization.deserialization.NameResolver;
+
+import java.io.InputStream;
+
+import static org.jetbrains.kotlin.serialization.ProtoBuf.QualifiedNameTable.QualifiedName;
+
+public class NameResolverTest extends TestCase {
+    // kotlin.collections.List.Entry, kotlin.collections.<local>Local
+    private static final int LIST = 2;
+    private static final int ENTRY = 3;
+    private static final int LOCAL = 4;
+
+    private NameResolver nameResolver;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        ProtoBuf.StringTable strings = ProtoBuf.StringTable.newBuilder()
+                .addString("kotlin")
+                .addString("collections")
+                .addString("List")
+                .addString("Entry")
+                .addString("Local")
+                .build();
+        ProtoBuf.QualifiedNameTable qualifiedNames = ProtoBuf.QualifiedNameTable.newBuilder()
+                .addQualifiedName(qualifiedName(0, -1, QualifiedName.Kind.PACKAGE))
+                .addQualifiedName(qualifiedName(1, 0, QualifiedName.Kind.PACKAGE))
+                .addQualifiedName(qualifiedName(2, 1, QualifiedName.Kind.CLASS))
+                .addQualifiedName(qualifiedName(3, LIST, QualifiedName.Kind.CLASS))
+                .addQualifiedName(qualifiedName(4, 1, QualifiedName.Kind.LOCAL))
+                .build();
+        nameResolver = new NameResolver(strings, qualifiedNames);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        nameResolver = null;
+        super.tearDown();
+    }
+
+    public void testNames() {
+        Name name = nameResolver.getName(2);
+        assertEquals(Name.identifier("List"), name);
+        assertSame(name, nameResolver.getName(2));
+    }
+
+    public void testFqNames() {
+        FqName entry = nameResolver.getFqName(ENTRY);
+        assertEquals(new FqName("kotlin.collections.List.Entry"), entry);
+        assertSame(entry, nameResolver.getFqName(ENTRY));
+
+        // The parent's fq-name is computed and cached while the child's one is resolved
+        assertEquals(new FqName("kotlin.collections.List"), nameResolver.getFqName(LIST));
+        assertSame(nameResolver.getFqName(LIST), nameResolver.getFqName(LIST));
+    }
+
+    public void testClassIds() {
+        ClassId entry = nameResolver.getClassId(ENTRY);
+        assertEquals(new ClassId(new FqName("kotlin.collections"), new FqName("List.Entry"), false), entry);
+        assertSame(entry, nameResolver.getClassId(ENTRY));
+
+        ClassId local = nameResolver.getClassId(LOCAL);
+        assertEquals(new ClassId(new FqName("kotlin.collections"), new FqName("Local"), true), local);
+        assertTrue(local.isLocal());
+        assertSame(local, nameResolver.getClassId(LOCAL));
+    }
+
+    public void testCachedValuesAreTheSameAsComputedOnes() throws Exception {
+        NameResolver builtIns = readBuiltInsNameResolver();
+        NameResolver cached = new NameResolver(builtIns.getStringTable(), builtIns.getQualifiedNameTable());
+        for (int i = 0; i < builtIns.getQualifiedNameTable().getQualifiedNameCount(); i++) {
+            cached.getFqName(i);
+            cached.getClassId(i);
+        }
+
+        for (int i = 0; i < builtIns.getStringTable().getStringCount(); i++) {
+            assertEquals(new NameResolver(builtIns.getStringTable(), builtIns.getQualifiedNameTable()).getName(i), cached.getName(i));
+        }
+        for (int i = 0; i < builtIns.getQualifiedNameTable().getQualifiedNameCount(); i++) {
+            NameResolver fresh = new NameResolver(builtIns.getStringTable(), builtIns.getQualifiedNameTable());
+            assertEquals(fresh.getFqName(i), cached.getFqName(i));
+            assertEquals(fresh.getClassId(i), cached.getClassId(i));
+        }
+    }
+
+    @NotNull
+    private static QualifiedName qualifiedName(int shortName, int parent, @NotNull QualifiedName.Kind kind) {
+        return QualifiedName.newBuilder().setShortName(shortName).setParentQualifiedName(parent).setKind(kind).build();
+    }
+
+    @NotNull
+    private static NameResolver readBuiltInsNameResolver() throws Exception {
+        InputStream stream = KotlinBuiltIns.class.getClassLoader().getResourceAsStream(
+                BuiltInsSerializedResourcePaths.INSTANCE$.getStringTableFilePath(KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME)
+        );
+        assertNotNull("Built-ins string table is not found", stream);
+        try {
+            return NameResolver.read(stream);
+        }
+        finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.builtins;
+
+import junit.framework.TestCase;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.descriptors.ClassDescriptor;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class BuiltInsConcurrentAccessTest extends TestCase {
+    private static final int THREADS = 8;
+
+    public void testSameDescriptorsFromAllThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Callable<List<DeclarationDescriptor>>> tasks = new ArrayList<Callable<List<DeclarationDescriptor>>>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(new Callable<List<DeclarationDescriptor>>() {
+                    @Override
+                    public List<DeclarationDescriptor> call() throws Exception {
+                        barrier.await();
+                        return loadAllMembers();
+                    }
+                });
+            }
+
+            List<Future<List<DeclarationDescriptor>>> results = executor.invokeAll(tasks);
+            List<DeclarationDescriptor> expected = results.get(0).get();
+            assertFalse(expected.isEmpty());
+            for (Future<List<DeclarationDescriptor>> result : results) {
+                List<DeclarationDescriptor> actual = result.get();
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), actual.get(i));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<DeclarationDescriptor> loadAllMembers() {
+        List<DeclarationDescriptor> result = new ArrayList<DeclarationDescriptor>();
+        Collection<DeclarationDescriptor> classes = KotlinBuiltIns.getInstance().getBuiltInsPackageScope().getAllDescriptors();
+        for (DeclarationDescriptor descriptor : classes) {
+            result.add(descriptor);
+            if (descriptor instanceof ClassDescriptor) {
+                result.addAll(((ClassDescriptor) descriptor).getDefaultType().getMemberScope().getAllDescriptors());
+            }
+        }
+        return result;
+    }
+}
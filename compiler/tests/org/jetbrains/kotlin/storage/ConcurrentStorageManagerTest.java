@@ -0,0 +1,317 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentStorageManagerTest extends StorageManagerTest {
+    private static final int THREADS = 8;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        m = new ConcurrentStorageManager();
+    }
+
+    public void testLazyValueComputedOnceByManyThreads() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final NotNullLazyValue<String> value = m.createLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                counter.incrementAndGet();
+                sleep(50);
+                return "value";
+            }
+        });
+
+        List<String> results = invokeConcurrently(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return value.invoke();
+            }
+        });
+
+        assertEquals(1, counter.get());
+        for (String result : results) {
+            assertEquals("value", result);
+        }
+    }
+
+    public void testMemoizedFunctionComputedOnceByManyThreads() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final MemoizedFunctionToNotNull<Integer, String> function = m.createMemoizedFunction(new Function1<Integer, String>() {
+            @Override
+            public String invoke(Integer key) {
+                counter.incrementAndGet();
+                sleep(50);
+                return "value" + key;
+            }
+        });
+
+        List<String> results = invokeConcurrently(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return function.invoke(1) + function.invoke(2);
+            }
+        });
+
+        assertEquals(2, counter.get());
+        for (String result : results) {
+            assertEquals("value1value2", result);
+        }
+    }
+
+    public void testCrossingDependenciesDoNotDeadlock() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        class C {
+            final NotNullLazyValue<String> a = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "a" + b.invoke();
+                }
+            }, "?");
+
+            final NotNullLazyValue<String> b = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "b" + a.invoke();
+                }
+            }, "?");
+        }
+
+        final C c = new C();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return c.a.invoke();
+                }
+            });
+            Future<String> second = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return c.b.invoke();
+                }
+            });
+
+            // Each thread waits for the value computed by the other one, so the wait is broken by computing that value on its own
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(c.a.isComputed());
+        assertTrue(c.b.isComputed());
+        assertEquals(c.a.invoke(), c.a.invoke());
+    }
+
+    public void testPostComputeOnlyForPublishedValue() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final List<String> postComputed = Collections.synchronizedList(new ArrayList<String>());
+
+        class C {
+            final NotNullLazyValue<String> a = m.createLazyValueWithPostCompute(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "a" + b.invoke();
+                }
+            }, constant("?"), record(postComputed));
+
+            final NotNullLazyValue<String> b = m.createLazyValueWithPostCompute(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "b" + a.invoke();
+                }
+            }, constant("?"), record(postComputed));
+        }
+
+        // Both values are computed twice: by their owners and by the threads breaking the deadlock, only one result is published
+        final C c = new C();
+        invokeInTwoThreads(c.a, c.b);
+
+        assertEquals(2, postComputed.size());
+        assertTrue(postComputed.contains(c.a.invoke()));
+        assertTrue(postComputed.contains(c.b.invoke()));
+    }
+
+    public void testRecursionWhenComputingOnBehalfOfOtherThread() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        class C {
+            final NotNullLazyValue<String> a = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "a" + b.invoke() + a.invoke();
+                }
+            }, "?");
+
+            final NotNullLazyValue<String> b = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    awaitQuietly(bothStarted);
+                    return "b" + a.invoke() + b.invoke();
+                }
+            }, "?");
+        }
+
+        // The thread which computes a value on behalf of its owner requests this value once again,
+        // which should be reported as a recursion instead of breaking the same deadlock over and over
+        C c = new C();
+        invokeInTwoThreads(c.a, c.b);
+
+        assertTrue(c.a.isComputed());
+        assertTrue(c.b.isComputed());
+    }
+
+    public void testExceptionSeenByAllThreads() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final NullableLazyValue<String> value = m.createNullableLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                counter.incrementAndGet();
+                sleep(50);
+                throw new IllegalStateException();
+            }
+        });
+
+        List<String> results = invokeConcurrently(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                try {
+                    value.invoke();
+                    return "no exception";
+                }
+                catch (IllegalStateException e) {
+                    return "exception";
+                }
+            }
+        });
+
+        assertEquals(1, counter.get());
+        for (String result : results) {
+            assertEquals("exception", result);
+        }
+    }
+
+    private static void invokeInTwoThreads(
+            final NotNullLazyValue<String> first,
+            final NotNullLazyValue<String> second
+    ) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> firstResult = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return first.invoke();
+                }
+            });
+            Future<String> secondResult = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return second.invoke();
+                }
+            });
+            firstResult.get(10, TimeUnit.SECONDS);
+            secondResult.get(10, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Function1<Boolean, String> constant(final String value) {
+        return new Function1<Boolean, String>() {
+            @Override
+            public String invoke(Boolean firstTime) {
+                return value;
+            }
+        };
+    }
+
+    private static Function1<String, Unit> record(final List<String> values) {
+        return new Function1<String, Unit>() {
+            @Override
+            public Unit invoke(String value) {
+                values.add(value);
+                return Unit.INSTANCE$;
+            }
+        };
+    }
+
+    private static <T> List<T> invokeConcurrently(final Callable<T> callable) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        start.await();
+                        return callable.call();
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<T>(THREADS);
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -307,6 +307,37 @@ public class JetTypeCheckerTest extends JetLiteFixture {
 //        assertSubtype("java.lang.Integer", "java.lang.Comparable<java.lang.Integer>?");
     }
 
+    public void testSubstitutionThroughSupertypes() throws Exception {
+        assertSubtype("Chain3_T<Int>", "Chain2_T<Int?>");
+        assertSubtype("Chain3_T<Int>", "Chain1_T<Int, Pair<Int?, String>>");
+        assertSubtype("Chain3_T<Int>", "Base_T<Pair<Int?, String>>");
+        assertSubtype("Chain3_T<Int>", "Base_outT<Any>");
+
+        assertNotSubtype("Chain3_T<Int>", "Base_T<Pair<Int, String>>");
+        assertNotSubtype("Chain3_T<Int>", "Chain1_T<Any, Pair<Int?, String>>");
+        assertNotSubtype("Chain2_T<Int>", "Base_outT<Int>");
+    }
+
+    public void testLoopInSupertypes() throws Exception {
+        JetScope scope = getDeclarationsScope("compiler/testData/type-checker-loop-test.kt");
+        String[] subtypes = {"AfterLoop", "Loop1", "Loop2", "Loop3"};
+        String[] supertypes = {"AfterLoop", "Loop1", "Loop2", "Loop3", "Base<String>", "Base<Int>", "Any"};
+
+        for (String subtypeStr : subtypes) {
+            JetType subtype = makeType(scope, subtypeStr);
+            Set<TypeConstructor> reachable = collectSupertypeConstructors(subtype.getConstructor());
+            assertFalse(subtypeStr + " is its own supertype", reachable.contains(subtype.getConstructor()));
+            assertEquals(subtypeStr, reachable, ((AbstractClassTypeConstructor) subtype.getConstructor()).getSupertypeClosure().keySet());
+
+            for (String supertypeStr : supertypes) {
+                JetType supertype = makeType(scope, supertypeStr);
+                boolean expected = subtypeStr.equals(supertypeStr) ||
+                                   !supertypeStr.equals("Base<Int>") && reachable.contains(supertype.getConstructor());
+                assertEquals(subtypeStr + " <: " + supertypeStr, expected, JetTypeChecker.DEFAULT.isSubtypeOf(subtype, supertype));
+            }
+        }
+    }
+
     public void testNullable() throws Exception {
         assertSubtype("Any?", "Any?");
         assertSubtype("Any", "Any?");
@@ -591,6 +622,20 @@ public class JetTypeCheckerTest extends JetLiteFixture {
         assertEquals(expectedType, type);
     }
 
+    private static Set<TypeConstructor> collectSupertypeConstructors(TypeConstructor constructor) {
+        Set<TypeConstructor> result = new HashSet<TypeConstructor>();
+        Deque<TypeConstructor> queue = new ArrayDeque<TypeConstructor>();
+        queue.add(constructor);
+        while (!queue.isEmpty()) {
+            for (JetType supertype : queue.poll().getSupertypes()) {
+                if (result.add(supertype.getConstructor())) {
+                    queue.add(supertype.getConstructor());
+                }
+            }
+        }
+        return result;
+    }
+
     private WritableScope getDeclarationsScope(String path) throws IOException {
         ModuleDescriptor moduleDescriptor = LazyResolveTestUtil.resolve(
                 getProject(),
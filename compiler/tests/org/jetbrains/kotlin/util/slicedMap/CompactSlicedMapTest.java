@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap;
+
+import junit.framework.TestCase;
+import kotlin.jvm.functions.Function3;
+
+import java.util.*;
+
+public class CompactSlicedMapTest extends TestCase {
+    private static final WritableSlice<Integer, String> INT_TO_STRING = Slices.createSimpleSlice();
+    private static final WritableSlice<String, Integer> STRING_TO_INT = Slices.createSimpleSlice();
+    private static final RemovableSlice<Object, Boolean> SET = Slices.createRemovableSetSlice();
+    private static final WritableSlice<String, Boolean> COLLECTIVE = Slices.createCollectiveSetSlice();
+
+    public void testSlicesAreIndependent() {
+        CompactSlicedMap map = CompactSlicedMap.create();
+        map.put(INT_TO_STRING, 1, "one");
+        map.put(STRING_TO_INT, "one", 1);
+
+        assertEquals("one", map.get(INT_TO_STRING, 1));
+        assertEquals(Integer.valueOf(1), map.get(STRING_TO_INT, "one"));
+        assertNull(map.get(INT_TO_STRING, 2));
+        assertNull(map.get(STRING_TO_INT, "two"));
+    }
+
+    public void testNullKeyAndNullValue() {
+        CompactSlicedMap map = CompactSlicedMap.create();
+        map.put(INT_TO_STRING, null, "null");
+        assertEquals("null", map.get(INT_TO_STRING, null));
+
+        map.put(INT_TO_STRING, null, null);
+        assertNull(map.get(INT_TO_STRING, null));
+        assertTrue(map.getSliceContents(INT_TO_STRING).isEmpty());
+    }
+
+    public void testAgainstHashMap() {
+        CompactSlicedMap map = CompactSlicedMap.create();
+        Map<Object, Boolean> expected = new HashMap<Object, Boolean>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            // Small key range to get a lot of collisions, removals and re-insertions
+            Integer key = random.nextInt(1000) * 64;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(SET, key));
+            }
+            else {
+                map.put(SET, key, true);
+                expected.put(key, true);
+            }
+        }
+
+        for (int key = 0; key < 1000 * 64; key += 64) {
+            assertEquals(expected.containsKey(key), map.get(SET, key).booleanValue());
+        }
+        assertEquals(expected, map.getSliceContents(SET));
+    }
+
+    public void testForEach() {
+        CompactSlicedMap map = CompactSlicedMap.create();
+        for (int i = 0; i < 100; i++) {
+            map.put(INT_TO_STRING, i, String.valueOf(i));
+        }
+        map.put(STRING_TO_INT, "a", 1);
+
+        final Set<String> entries = new HashSet<String>();
+        map.forEach(new Function3<WritableSlice, Object, Object, Void>() {
+            @Override
+            public Void invoke(WritableSlice slice, Object key, Object value) {
+                entries.add((slice == INT_TO_STRING ? "I:" : "S:") + key + "=" + value);
+                return null;
+            }
+        });
+
+        assertEquals(101, entries.size());
+        assertTrue(entries.contains("I:42=42"));
+        assertTrue(entries.contains("S:a=1"));
+    }
+
+    public void testCollectiveSliceKeys() {
+        CompactSlicedMap map = CompactSlicedMap.create();
+        map.put(COLLECTIVE, "a", true);
+        map.put(COLLECTIVE, "b", true);
+
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(map.getKeys(COLLECTIVE)));
+
+        map.clear();
+        assertTrue(map.getKeys(COLLECTIVE).isEmpty());
+        assertFalse(map.get(COLLECTIVE, "a"));
+    }
+}
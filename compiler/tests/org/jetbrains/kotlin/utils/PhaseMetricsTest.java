@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.utils;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class PhaseMetricsTest extends TestCase {
+    public void testNothingIsRecordedWithoutRootPhase() {
+        PhaseMetrics.Measurement measurement = PhaseMetrics.enter("phase");
+        assertNull(PhaseMetrics.current());
+        measurement.count("items", 1);
+        measurement.end();
+        assertNull(PhaseMetrics.current());
+    }
+
+    public void testNestedPhases() {
+        PhaseMetrics root = new PhaseMetrics("root");
+        PhaseMetrics.Measurement rootMeasurement = PhaseMetrics.start(root);
+
+        for (int i = 0; i < 3; i++) {
+            PhaseMetrics.Measurement outer = PhaseMetrics.enter("outer");
+            PhaseMetrics.Measurement inner = PhaseMetrics.enter("inner");
+            assertEquals("inner", PhaseMetrics.current().getName());
+            inner.count("items", 2);
+            inner.end();
+            assertEquals("outer", PhaseMetrics.current().getName());
+            outer.end();
+        }
+
+        rootMeasurement.end();
+        assertNull(PhaseMetrics.current());
+
+        assertEquals(1, root.getInvocations());
+        List<PhaseMetrics> children = root.getChildren();
+        assertEquals(1, children.size());
+
+        PhaseMetrics outer = children.get(0);
+        assertEquals(3, outer.getInvocations());
+        PhaseMetrics inner = outer.child("inner");
+        assertEquals(3, inner.getInvocations());
+        assertEquals(6, inner.getCount("items"));
+        assertTrue(root.getWallTimeNanos() >= outer.getWallTimeNanos());
+        assertTrue(outer.getWallTimeNanos() >= inner.getWallTimeNanos());
+    }
+
+    public void testPhaseOnAnotherThread() throws InterruptedException {
+        PhaseMetrics root = new PhaseMetrics("root");
+        PhaseMetrics.Measurement rootMeasurement = PhaseMetrics.start(root);
+
+        final PhaseMetrics parent = PhaseMetrics.current();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                PhaseMetrics.Measurement measurement = PhaseMetrics.enter(parent, "worker");
+                measurement.end();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        rootMeasurement.end();
+        assertEquals(1, root.child("worker").getInvocations());
+    }
+
+    public void testOuterMeasurementRestoresState() {
+        PhaseMetrics root = new PhaseMetrics("root");
+        PhaseMetrics.Measurement rootMeasurement = PhaseMetrics.start(root);
+        PhaseMetrics.enter("abandoned");
+        rootMeasurement.end();
+        assertNull(PhaseMetrics.current());
+    }
+
+    public void testJson() {
+        PhaseMetrics root = new PhaseMetrics("root");
+        root.child("child \"quoted\"").count("items", 5);
+        String json = root.toJson();
+        assertTrue(json, json.contains("\"name\": \"root\""));
+        assertTrue(json, json.contains("\"name\": \"child \\\"quoted\\\"\""));
+        assertTrue(json, json.contains("\"counts\": {\"items\": 5}"));
+    }
+}
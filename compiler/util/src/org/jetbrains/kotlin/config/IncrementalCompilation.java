@@ -18,4 +18,9 @@ package org.jetbrains.kotlin.config;
 
 public class IncrementalCompilation {
     public static final boolean ENABLED = !"false".equals(System.getProperty("kotlin.incremental.compilation"));
+
+    // Not a constant so that it can be switched in tests and benchmarks
+    public static boolean isLookupTrackingEnabled() {
+        return ENABLED && "true".equals(System.getProperty("kotlin.incremental.lookups"));
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Notifies listeners when a heap memory pool stays over the given part of its maximum size after a garbage collection,
+ * which is a signal for long-lived processes to drop caches they keep between compilations.
+ * Listeners are called on a JMX notification thread.
+ */
+public class MemoryPressureMonitor {
+    public static final double DEFAULT_THRESHOLD = 0.8;
+
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<Runnable>();
+    private static boolean installed = false;
+
+    public static synchronized void addListener(@NotNull Runnable listener) {
+        listeners.add(listener);
+        if (!installed) {
+            installed = true;
+            install(DEFAULT_THRESHOLD);
+        }
+    }
+
+    public static void removeListener(@NotNull Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private static void install(double threshold) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * threshold));
+            }
+        }
+
+        Object memoryBean = ManagementFactory.getMemoryMXBean();
+        if (!(memoryBean instanceof NotificationEmitter)) return;
+
+        ((NotificationEmitter) memoryBean).addNotificationListener(new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) return;
+
+                for (Runnable listener : listeners) {
+                    listener.run();
+                }
+            }
+        }, null, null);
+    }
+
+    private MemoryPressureMonitor() {}
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node in a tree of compilation phases, accumulating wall time, CPU time and allocated memory of the phase
+ * (including its sub-phases) and arbitrary item counts.
+ *
+ * A phase is measured on the current thread with {@link #start(PhaseMetrics)}, sub-phases with {@link #enter(String)}.
+ * The latter does nothing if no phase is measured on the current thread, so it's cheap to call when metrics are not requested.
+ * A phase entered several times with the same name accumulates all the measurements in one node.
+ * Work submitted to other threads should enter sub-phases of the phase returned by {@link #current()} on the submitting thread:
+ * time of such sub-phases is summed up over all threads and may exceed time of their parent.
+ */
+public final class PhaseMetrics {
+    private static final ThreadLocal<Measurement> CURRENT = new ThreadLocal<Measurement>();
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = isCpuTimeSupported();
+    @Nullable
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = getAllocationMXBean();
+
+    private final String name;
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong wallTimeNanos = new AtomicLong();
+    private final AtomicLong cpuTimeNanos = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    // Guarded by this
+    private final Map<String, PhaseMetrics> children = new LinkedHashMap<String, PhaseMetrics>();
+    private final Map<String, AtomicLong> counts = new LinkedHashMap<String, AtomicLong>();
+
+    public PhaseMetrics(@NotNull String name) {
+        this.name = name;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos.get();
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    @NotNull
+    public synchronized PhaseMetrics child(@NotNull String name) {
+        PhaseMetrics child = children.get(name);
+        if (child == null) {
+            child = new PhaseMetrics(name);
+            children.put(name, child);
+        }
+        return child;
+    }
+
+    @NotNull
+    public synchronized List<PhaseMetrics> getChildren() {
+        return new ArrayList<PhaseMetrics>(children.values());
+    }
+
+    public void count(@NotNull String key, long delta) {
+        AtomicLong count;
+        synchronized (this) {
+            count = counts.get(key);
+            if (count == null) {
+                count = new AtomicLong();
+                counts.put(key, count);
+            }
+        }
+        count.addAndGet(delta);
+    }
+
+    public long getCount(@NotNull String key) {
+        AtomicLong count;
+        synchronized (this) {
+            count = counts.get(key);
+        }
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Records time measured elsewhere, e.g. by components which keep their own statistics
+     */
+    public void record(long invocations, long wallTimeNanos) {
+        this.invocations.addAndGet(invocations);
+        this.wallTimeNanos.addAndGet(wallTimeNanos);
+    }
+
+    @NotNull
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeJson(sb, "");
+        }
+        catch (IOException e) {
+            throw UtilsPackage.rethrow(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeJson(@NotNull Appendable out, @NotNull String indent) throws IOException {
+        out.append(indent).append("{\n");
+        String inner = indent + "  ";
+        out.append(inner).append("\"name\": ").append(quote(name)).append(",\n");
+        out.append(inner).append("\"invocations\": ").append(String.valueOf(getInvocations())).append(",\n");
+        out.append(inner).append("\"wallTimeMs\": ").append(millis(getWallTimeNanos())).append(",\n");
+        out.append(inner).append("\"cpuTimeMs\": ").append(millis(getCpuTimeNanos())).append(",\n");
+        out.append(inner).append("\"allocatedBytes\": ").append(String.valueOf(getAllocatedBytes())).append(",\n");
+
+        Map<String, Long> countsSnapshot = new LinkedHashMap<String, Long>();
+        synchronized (this) {
+            for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+                countsSnapshot.put(entry.getKey(), entry.getValue().get());
+            }
+        }
+        out.append(inner).append("\"counts\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : countsSnapshot.entrySet()) {
+            out.append(first ? "" : ", ").append(quote(entry.getKey())).append(": ").append(String.valueOf(entry.getValue()));
+            first = false;
+        }
+        out.append("},\n");
+
+        List<PhaseMetrics> children = getChildren();
+        out.append(inner).append("\"children\": [");
+        for (int i = 0; i < children.size(); i++) {
+            out.append(i == 0 ? "\n" : ",\n");
+            children.get(i).writeJson(out, inner + "  ");
+        }
+        out.append(children.isEmpty() ? "]\n" : "\n" + inner + "]\n");
+        out.append(indent).append("}");
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + millis(getWallTimeNanos()) + " ms)";
+    }
+
+    /**
+     * Starts measuring the given phase on the current thread, sub-phases entered on this thread until the measurement ends
+     * will be its children
+     */
+    @NotNull
+    public static Measurement start(@Nullable PhaseMetrics phase) {
+        if (phase == null) return Measurement.NONE;
+
+        Measurement measurement = new Measurement(phase, CURRENT.get());
+        CURRENT.set(measurement);
+        return measurement;
+    }
+
+    /**
+     * Starts measuring a sub-phase of the phase currently measured on this thread, if any
+     */
+    @NotNull
+    public static Measurement enter(@NotNull String name) {
+        Measurement current = CURRENT.get();
+        if (current == null) return Measurement.NONE;
+
+        return start(current.phase.child(name));
+    }
+
+    /**
+     * Starts measuring a sub-phase of the given phase on the current thread, should be used for work done on behalf of
+     * the phase on another thread
+     */
+    @NotNull
+    public static Measurement enter(@Nullable PhaseMetrics parent, @NotNull String name) {
+        if (parent == null) return Measurement.NONE;
+
+        return start(parent.child(name));
+    }
+
+    @Nullable
+    public static PhaseMetrics current() {
+        Measurement current = CURRENT.get();
+        return current != null ? current.phase : null;
+    }
+
+    public static class Measurement {
+        private static final Measurement NONE = new Measurement(null, null);
+
+        private final PhaseMetrics phase;
+        private final Measurement previous;
+        private final long startWallTime;
+        private final long startCpuTime;
+        private final long startAllocatedBytes;
+        private boolean ended;
+
+        private Measurement(@Nullable PhaseMetrics phase, @Nullable Measurement previous) {
+            this.phase = phase;
+            this.previous = previous;
+            if (phase != null) {
+                startWallTime = System.nanoTime();
+                startCpuTime = cpuTime();
+                startAllocatedBytes = allocatedBytes();
+            }
+            else {
+                startWallTime = startCpuTime = startAllocatedBytes = 0;
+                ended = true;
+            }
+        }
+
+        public void count(@NotNull String key, long delta) {
+            if (phase != null) {
+                phase.count(key, delta);
+            }
+        }
+
+        public void end() {
+            if (ended) return;
+            ended = true;
+
+            phase.invocations.incrementAndGet();
+            phase.wallTimeNanos.addAndGet(System.nanoTime() - startWallTime);
+            phase.cpuTimeNanos.addAndGet(cpuTime() - startCpuTime);
+            phase.allocatedBytes.addAndGet(allocatedBytes() - startAllocatedBytes);
+
+            if (previous != null) {
+                CURRENT.set(previous);
+            }
+            else {
+                // Don't leave anything behind on pooled threads
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static boolean isCpuTimeSupported() {
+        try {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+        }
+        catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean getAllocationMXBean() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean;
+                }
+            }
+        }
+        catch (Throwable ignored) {
+            // Not a HotSpot-based VM
+        }
+        return null;
+    }
+
+    @NotNull
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1e6);
+    }
+
+    @NotNull
+    private static String quote(@NotNull String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
@@ -104,7 +104,7 @@ class LazyJavaClassDescriptor(
 
     override fun toString() = "lazy java class $fqName"
 
-    private inner class LazyJavaClassTypeConstructor : AbstractClassTypeConstructor() {
+    private inner class LazyJavaClassTypeConstructor : AbstractClassTypeConstructor(c.storageManager) {
 
         private val parameters = c.storageManager.createLazyValue {
             jClass.getTypeParameters().map {
@@ -24,10 +24,10 @@ import org.jetbrains.kotlin.descriptors.PackageFragmentDescriptor;
 import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.resolve.scopes.JetScope;
-import org.jetbrains.kotlin.serialization.PackageData;
 import org.jetbrains.kotlin.serialization.deserialization.DeserializationComponents;
 import org.jetbrains.kotlin.serialization.deserialization.ErrorReporter;
-import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedPackageMemberScope;
+import org.jetbrains.kotlin.serialization.deserialization.PackageMemberIndex;
+import org.jetbrains.kotlin.serialization.deserialization.descriptors.IndexedPackageMemberScope;
 import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil;
 
 import javax.inject.Inject;
@@ -66,9 +66,9 @@ public final class DeserializedDescriptorResolver {
         String[] data = readData(kotlinClass, PACKAGE_FACADE);
         if (data != null) {
             //all classes are included in java scope
-            PackageData packageData = JvmProtoBufUtil.readPackageDataFrom(data);
-            return new DeserializedPackageMemberScope(
-                    descriptor, packageData.getPackageProto(), packageData.getNameResolver(), components,
+            PackageMemberIndex memberIndex = JvmProtoBufUtil.readPackageMemberIndexFrom(data);
+            return new IndexedPackageMemberScope(
+                    descriptor, memberIndex, components,
                     new Function0<Collection<Name>>() {
                         @Override
                         public Collection<Name> invoke() {
@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.serialization.jvm
 import com.google.protobuf.ExtensionRegistryLite
 import org.jetbrains.kotlin.serialization.ClassData
 import org.jetbrains.kotlin.serialization.PackageData
+import org.jetbrains.kotlin.serialization.deserialization.PackageMemberIndex
 import kotlin.platform.platformStatic
 
 public object JvmProtoBufUtil {
@@ -37,4 +38,8 @@ public object JvmProtoBufUtil {
 
     platformStatic
     public fun readPackageDataFrom(data: ByteArray): PackageData = PackageData.read(data, EXTENSION_REGISTRY)
+
+    platformStatic
+    public fun readPackageMemberIndexFrom(encodedData: Array<String>): PackageMemberIndex =
+            PackageMemberIndex.read(BitEncoding.decodeBytes(encodedData), EXTENSION_REGISTRY)
 }
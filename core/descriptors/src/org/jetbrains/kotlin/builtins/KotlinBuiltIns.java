@@ -35,7 +35,8 @@ import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.resolve.DescriptorUtils;
 import org.jetbrains.kotlin.resolve.constants.CompileTimeConstant;
 import org.jetbrains.kotlin.resolve.scopes.JetScope;
-import org.jetbrains.kotlin.storage.LockBasedStorageManager;
+import org.jetbrains.kotlin.storage.ConcurrentStorageManager;
+import org.jetbrains.kotlin.storage.StorageManager;
 import org.jetbrains.kotlin.types.*;
 import org.jetbrains.kotlin.types.checker.JetTypeChecker;
 
@@ -109,7 +110,9 @@ public class KotlinBuiltIns {
     public static final FqNames FQ_NAMES = new FqNames();
 
     private KotlinBuiltIns() {
-        LockBasedStorageManager storageManager = new LockBasedStorageManager();
+        // Built-ins are shared by all modules and compilations in this class loader, possibly running in parallel,
+        // so their descriptors shouldn't be computed under a single lock
+        StorageManager storageManager = new ConcurrentStorageManager();
         builtInsModule = new ModuleDescriptorImpl(
                 Name.special("<built-ins module>"), storageManager, ModuleParameters.Empty.INSTANCE$
         );
@@ -90,7 +90,7 @@ public class FunctionClassDescriptor(
     override fun getAnnotations() = Annotations.EMPTY
     override fun getSource() = SourceElement.NO_SOURCE
 
-    private inner class FunctionTypeConstructor : AbstractClassTypeConstructor() {
+    private inner class FunctionTypeConstructor : AbstractClassTypeConstructor(storageManager) {
         private val parameters = storageManager.createLazyValue {
             val result = ArrayList<TypeParameterDescriptor>()
 
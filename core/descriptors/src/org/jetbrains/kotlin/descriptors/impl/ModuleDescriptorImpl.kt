@@ -55,7 +55,8 @@ public class ModuleDescriptorImpl(
     private val dependencies: MutableList<ModuleDescriptorImpl> = ArrayList()
     private var packageFragmentProviderForModuleContent: PackageFragmentProvider? = null
 
-    private val packageFragmentProviderForWholeModuleWithDependencies by Delegates.lazy {
+    // Modules such as built-ins are shared between compilations which may query them from different threads
+    private val packageFragmentProviderForWholeModuleWithDependencies by Delegates.blockingLazy {
         seal()
         dependencies.forEach {
             dependency ->
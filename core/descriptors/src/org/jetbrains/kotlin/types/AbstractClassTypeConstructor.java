@@ -16,15 +16,31 @@
 
 package org.jetbrains.kotlin.types;
 
+import kotlin.jvm.functions.Function0;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.ClassDescriptor;
 import org.jetbrains.kotlin.descriptors.ClassifierDescriptor;
 import org.jetbrains.kotlin.name.FqNameUnsafe;
 import org.jetbrains.kotlin.resolve.DescriptorUtils;
+import org.jetbrains.kotlin.storage.NotNullLazyValue;
+import org.jetbrains.kotlin.storage.StorageManager;
+
+import java.util.*;
 
 public abstract class AbstractClassTypeConstructor implements TypeConstructor {
     private boolean hashCodeComputed;
     private int hashCode;
+    private final NotNullLazyValue<Map<TypeConstructor, JetType>> supertypeClosure;
+
+    protected AbstractClassTypeConstructor(@NotNull StorageManager storageManager) {
+        this.supertypeClosure = storageManager.createLazyValue(new Function0<Map<TypeConstructor, JetType>>() {
+            @Override
+            public Map<TypeConstructor, JetType> invoke() {
+                return computeSupertypeClosure(AbstractClassTypeConstructor.this, null);
+            }
+        });
+    }
 
     @Override
     public final int hashCode() {
@@ -41,6 +57,93 @@ public abstract class AbstractClassTypeConstructor implements TypeConstructor {
         return equals(this, obj);
     }
 
+    /**
+     * Returns false while the supertypes returned by {@link #getSupertypes()} may still change,
+     * e.g. when they are requested recursively while being resolved, or before loops in the hierarchy are disconnected
+     */
+    protected boolean areSupertypesFinal() {
+        return true;
+    }
+
+    /**
+     * Returns all supertypes of this class, expressed in terms of its type parameters and keyed by their constructors.
+     * For each constructor it's the supertype found first by the depth-first walk over the immediate supertypes,
+     * so that TypeCheckingProcedure.findCorrespondingSupertype is a lookup and one substitution instead of the walk.
+     * The closure is cached only once the supertypes of every class in the hierarchy are final and contain no loops,
+     * otherwise it's computed anew on each call
+     */
+    @NotNull
+    public Map<TypeConstructor, JetType> getSupertypeClosure() {
+        if (!supertypeClosure.isComputed() &&
+            !isHierarchyFinal(this, new HashSet<TypeConstructor>(), new HashSet<TypeConstructor>())) {
+            return computeSupertypeClosure(this, new HashSet<TypeConstructor>());
+        }
+        return supertypeClosure.invoke();
+    }
+
+    private static boolean isHierarchyFinal(
+            @NotNull TypeConstructor constructor,
+            @NotNull Set<TypeConstructor> path,
+            @NotNull Set<TypeConstructor> checked
+    ) {
+        if (checked.contains(constructor)) return true;
+        if (!path.add(constructor)) return false;
+
+        Collection<JetType> supertypes = constructor.getSupertypes();
+        if (constructor instanceof AbstractClassTypeConstructor) {
+            AbstractClassTypeConstructor classConstructor = (AbstractClassTypeConstructor) constructor;
+            if (!classConstructor.areSupertypesFinal()) return false;
+            if (classConstructor.supertypeClosure.isComputed()) {
+                path.remove(constructor);
+                checked.add(constructor);
+                return true;
+            }
+        }
+
+        for (JetType supertype : supertypes) {
+            if (!isHierarchyFinal(supertype.getConstructor(), path, checked)) return false;
+        }
+
+        path.remove(constructor);
+        checked.add(constructor);
+        return true;
+    }
+
+    /**
+     * @param path constructors on the current path of the walk, or null when the hierarchy is known to be final and free of loops,
+     *             in which case the closures of the supertypes are taken from their caches
+     */
+    @NotNull
+    private static Map<TypeConstructor, JetType> computeSupertypeClosure(
+            @NotNull TypeConstructor constructor,
+            @Nullable Set<TypeConstructor> path
+    ) {
+        if (path != null && !path.add(constructor)) return Collections.emptyMap();
+
+        Map<TypeConstructor, JetType> closure = new LinkedHashMap<TypeConstructor, JetType>();
+        for (JetType supertype : constructor.getSupertypes()) {
+            TypeConstructor superConstructor = supertype.getConstructor();
+            if (!closure.containsKey(superConstructor)) {
+                closure.put(superConstructor, supertype);
+            }
+
+            Map<TypeConstructor, JetType> superClosure = path == null && superConstructor instanceof AbstractClassTypeConstructor
+                                                         ? ((AbstractClassTypeConstructor) superConstructor).getSupertypeClosure()
+                                                         : computeSupertypeClosure(superConstructor, path);
+            if (superClosure.isEmpty()) continue;
+
+            TypeSubstitutor substitutor = TypeSubstitutor.create(supertype);
+            for (Map.Entry<TypeConstructor, JetType> entry : superClosure.entrySet()) {
+                if (!closure.containsKey(entry.getKey())) {
+                    closure.put(entry.getKey(), substitutor.safeSubstitute(entry.getValue(), Variance.INVARIANT));
+                }
+            }
+        }
+
+        if (path != null) path.remove(constructor);
+        return closure.isEmpty() ? Collections.<TypeConstructor, JetType>emptyMap() : closure;
+    }
+
     public static boolean equals(@NotNull TypeConstructor me, Object other) {
         if (!(other instanceof TypeConstructor)) return false;
 
@@ -44,6 +44,12 @@ public class TypeCheckingProcedure {
         if (typeCheckingProcedureCallbacks.assertEqualTypeConstructors(constructor, supertype.getConstructor())) {
             return subtype;
         }
+        if (constructor instanceof AbstractClassTypeConstructor) {
+            // Supertypes of a class are classes, which are equal only if their constructors are equal
+            JetType correspondingSupertype = ((AbstractClassTypeConstructor) constructor).getSupertypeClosure().get(supertype.getConstructor());
+            if (correspondingSupertype == null) return null;
+            return TypeSubstitutor.create(subtype).safeSubstitute(correspondingSupertype, Variance.INVARIANT);
+        }
         for (JetType immediateSupertype : constructor.getSupertypes()) {
             JetType correspondingSupertype = findCorrespondingSupertype(immediateSupertype, supertype, typeCheckingProcedureCallbacks);
             if (correspondingSupertype != null) {
@@ -29,6 +29,11 @@ import java.util.LinkedList;
 
 import static org.jetbrains.kotlin.serialization.ProtoBuf.QualifiedNameTable.QualifiedName;
 
+/**
+ * Resolves indices in the string table and the qualified name table of a serialized package or class.
+ * Every type reference is resolved during deserialization, so the resolved names, fq-names and class ids are cached per index.
+ * The cached objects are immutable, so they're published without synchronization: a racing thread at worst computes the same value again
+ */
 public class NameResolver {
     @NotNull
     public static NameResolver read(@NotNull InputStream in) {
@@ -45,12 +50,19 @@ public class NameResolver {
     private final ProtoBuf.StringTable strings;
     private final ProtoBuf.QualifiedNameTable qualifiedNames;
 
+    private final Name[] names;
+    private final FqName[] fqNames;
+    private final ClassId[] classIds;
+
     public NameResolver(
             @NotNull ProtoBuf.StringTable strings,
             @NotNull ProtoBuf.QualifiedNameTable qualifiedNames
     ) {
         this.strings = strings;
         this.qualifiedNames = qualifiedNames;
+        this.names = new Name[strings.getStringCount()];
+        this.fqNames = new FqName[qualifiedNames.getQualifiedNameCount()];
+        this.classIds = new ClassId[qualifiedNames.getQualifiedNameCount()];
     }
 
     @NotNull
@@ -70,12 +82,26 @@ public class NameResolver {
 
     @NotNull
     public Name getName(int index) {
-        String name = strings.getString(index);
-        return Name.guess(name);
+        Name name = names[index];
+        if (name == null) {
+            name = Name.guess(strings.getString(index));
+            names[index] = name;
+        }
+        return name;
     }
 
     @NotNull
     public ClassId getClassId(int index) {
+        ClassId classId = classIds[index];
+        if (classId == null) {
+            classId = computeClassId(index);
+            classIds[index] = classId;
+        }
+        return classId;
+    }
+
+    @NotNull
+    private ClassId computeClassId(int index) {
         LinkedList<String> packageFqName = new LinkedList<String>();
         LinkedList<String> relativeClassName = new LinkedList<String>();
         boolean local = false;
@@ -104,6 +130,16 @@ public class NameResolver {
 
     @NotNull
     public FqName getFqName(int index) {
+        FqName fqName = fqNames[index];
+        if (fqName == null) {
+            fqName = computeFqName(index);
+            fqNames[index] = fqName;
+        }
+        return fqName;
+    }
+
+    @NotNull
+    private FqName computeFqName(int index) {
         QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
         Name shortName = getName(qualifiedName.getShortName());
         if (!qualifiedName.hasParentQualifiedName()) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.deserialization
+
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.ExtensionRegistryLite
+import com.google.protobuf.WireFormat
+import org.jetbrains.kotlin.serialization.ProtoBuf
+import java.io.ByteArrayInputStream
+import java.util.ArrayList
+import kotlin.platform.platformStatic
+
+/**
+ * Callable members of a serialized package (name resolver followed by ProtoBuf.Package), indexed without being parsed.
+ * The index is built in one pass over the package, which reads only the flags, the name and the presence of the receiver type
+ * of each member, and skips everything else. Members are parsed later, when the members with their name are requested.
+ *
+ * The index relies only on the wire format of ProtoBuf.Package, so binaries written by any version of the serializer can be read
+ */
+public class PackageMemberIndex private(
+        public val nameResolver: NameResolver,
+        private val bytes: ByteArray,
+        private val extensionRegistry: ExtensionRegistryLite,
+        /** Members in the order they were serialized */
+        public val members: List<PackageMemberIndex.Member>
+) {
+    public class Member(
+            public val name: Int,
+            public val flags: Int,
+            public val hasReceiverType: Boolean,
+            val offset: Int,
+            val length: Int
+    )
+
+    public fun parse(member: Member): ProtoBuf.Callable =
+            ProtoBuf.Callable.PARSER.parseFrom(bytes, member.offset, member.length, extensionRegistry)
+
+    companion object {
+        private val TAG_TYPE_BITS = 3
+        private val MEMBER_TAG = (ProtoBuf.Package.MEMBER_FIELD_NUMBER shl TAG_TYPE_BITS) or WireFormat.WIRETYPE_LENGTH_DELIMITED
+
+        platformStatic
+        public fun read(bytes: ByteArray, extensionRegistry: ExtensionRegistryLite): PackageMemberIndex {
+            val stream = ByteArrayInputStream(bytes)
+            val nameResolver = NameResolver.read(stream)
+            val packageOffset = bytes.size() - stream.available()
+            return PackageMemberIndex(nameResolver, bytes, extensionRegistry, indexMembers(bytes, packageOffset))
+        }
+
+        private fun indexMembers(bytes: ByteArray, packageOffset: Int): List<Member> {
+            val result = ArrayList<Member>()
+            val input = CodedInputStream.newInstance(bytes)
+            input.skipRawBytes(packageOffset)
+            while (true) {
+                val tag = input.readTag()
+                if (tag == 0) break
+
+                if (tag != MEMBER_TAG) {
+                    input.skipField(tag)
+                    continue
+                }
+
+                val length = input.readRawVarint32()
+                val offset = input.getTotalBytesRead()
+                val oldLimit = input.pushLimit(length)
+                result.add(readMember(input, offset, length))
+                input.popLimit(oldLimit)
+            }
+            return result
+        }
+
+        private fun readMember(input: CodedInputStream, offset: Int, length: Int): Member {
+            var flags = 0
+            var name = -1
+            var hasReceiverType = false
+            while (true) {
+                val tag = input.readTag()
+                if (tag == 0) break
+
+                when (tag ushr TAG_TYPE_BITS) {
+                    ProtoBuf.Callable.FLAGS_FIELD_NUMBER -> flags = input.readInt32()
+                    ProtoBuf.Callable.NAME_FIELD_NUMBER -> name = input.readInt32()
+                    ProtoBuf.Callable.RECEIVER_TYPE_FIELD_NUMBER -> {
+                        hasReceiverType = true
+                        input.skipField(tag)
+                    }
+                    else -> input.skipField(tag)
+                }
+            }
+
+            if (name < 0) throw IllegalStateException("Serialized callable has no name at offset $offset")
+            return Member(name, flags, hasReceiverType, offset, length)
+        }
+    }
+}
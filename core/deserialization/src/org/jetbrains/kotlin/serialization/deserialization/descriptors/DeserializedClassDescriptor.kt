@@ -143,7 +143,7 @@ public class DeserializedClassDescriptor(
 
     override fun getSource() = SourceElement.NO_SOURCE
 
-    private inner class DeserializedClassTypeConstructor : AbstractClassTypeConstructor() {
+    private inner class DeserializedClassTypeConstructor : AbstractClassTypeConstructor(c.storageManager) {
         private val supertypes = computeSuperTypes()
 
         override fun getParameters() = c.typeDeserializer.ownTypeParameters
@@ -33,10 +33,10 @@ public abstract class DeserializedMemberScope protected(
         membersList: Collection<ProtoBuf.Callable>
 ) : JetScope {
 
-    private data class ProtoKey(val name: Name, val kind: Kind, val isExtension: Boolean)
-    private enum class Kind { FUNCTION, PROPERTY }
+    protected data class ProtoKey(val name: Name, val kind: Kind, val isExtension: Boolean)
+    protected enum class Kind { FUNCTION, PROPERTY }
 
-    private fun CallableKind.toKind(): Kind {
+    protected fun CallableKind.toKind(): Kind {
         return when (this) {
             CallableKind.FUN -> Kind.FUNCTION
             CallableKind.VAL, CallableKind.VAR -> Kind.PROPERTY
@@ -53,6 +53,17 @@ public abstract class DeserializedMemberScope protected(
 
     protected open fun filteredMemberProtos(allMemberProtos: Collection<ProtoBuf.Callable>): Collection<ProtoBuf.Callable> = allMemberProtos
 
+    /**
+     * Keys of all members, in the order they were serialized in
+     */
+    protected open fun getMemberKeys(): Collection<ProtoKey> = membersProtos().keySet()
+
+    /**
+     * Serialized members with the given key. Scopes which index their members without parsing them
+     * parse here only the members with the requested name
+     */
+    protected open fun getMemberProtos(key: ProtoKey): List<ProtoBuf.Callable> = membersProtos()[key].orEmpty()
+
     private fun groupByKey(membersList: Collection<ProtoBuf.Callable>): Map<ProtoKey, List<ProtoBuf.Callable>> {
         val map = LinkedHashMap<ProtoKey, MutableList<ProtoBuf.Callable>>()
         for (memberProto in membersList) {
@@ -72,8 +83,8 @@ public abstract class DeserializedMemberScope protected(
     }
 
     private fun <D : CallableMemberDescriptor> computeMembers(name: Name, kind: Kind): LinkedHashSet<D> {
-        val memberProtos = membersProtos()[ProtoKey(name, kind, isExtension = false)].orEmpty() +
-                           membersProtos()[ProtoKey(name, kind, isExtension = true)].orEmpty()
+        val memberProtos = getMemberProtos(ProtoKey(name, kind, isExtension = false)) +
+                           getMemberProtos(ProtoKey(name, kind, isExtension = true))
 
         [suppress("UNCHECKED_CAST")]
         return memberProtos.mapTo(LinkedHashSet<D>()) { memberProto ->
@@ -149,7 +160,7 @@ public abstract class DeserializedMemberScope protected(
             return
         }
 
-        val keys = membersProtos().keySet().filter { nameFilter(it.name) }
+        val keys = getMemberKeys().filter { nameFilter(it.name) }
         if (acceptsProperties) {
             addMembers(result, keys, Kind.PROPERTY) { getProperties(it) }
         }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.deserialization.descriptors
+
+import org.jetbrains.kotlin.descriptors.PackageFragmentDescriptor
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.serialization.Flags
+import org.jetbrains.kotlin.serialization.ProtoBuf
+import org.jetbrains.kotlin.serialization.deserialization.DeserializationComponents
+import org.jetbrains.kotlin.serialization.deserialization.PackageMemberIndex
+import java.util.ArrayList
+import java.util.LinkedHashMap
+
+/**
+ * Package member scope which parses the serialized members only when the members with their name are requested,
+ * instead of parsing the whole package up front
+ */
+public class IndexedPackageMemberScope(
+        packageDescriptor: PackageFragmentDescriptor,
+        private val memberIndex: PackageMemberIndex,
+        components: DeserializationComponents,
+        classNames: () -> Collection<Name>
+) : DeserializedPackageMemberScope(
+        packageDescriptor, ProtoBuf.Package.getDefaultInstance(), memberIndex.nameResolver, components, classNames
+) {
+    private val indexedMembers = c.storageManager.createLazyValue { groupByKey(memberIndex.members) }
+
+    private fun groupByKey(members: List<PackageMemberIndex.Member>): Map<ProtoKey, List<PackageMemberIndex.Member>> {
+        val map = LinkedHashMap<ProtoKey, MutableList<PackageMemberIndex.Member>>()
+        for (member in members) {
+            val key = ProtoKey(
+                    c.nameResolver.getName(member.name),
+                    Flags.CALLABLE_KIND[member.flags].toKind(),
+                    member.hasReceiverType
+            )
+            var keyMembers = map[key]
+            if (keyMembers == null) {
+                keyMembers = ArrayList(1)
+                map.put(key, keyMembers)
+            }
+            keyMembers!!.add(member)
+        }
+        return map
+    }
+
+    override fun getMemberKeys(): Collection<ProtoKey> = indexedMembers().keySet()
+
+    override fun getMemberProtos(key: ProtoKey): List<ProtoBuf.Callable> =
+            indexedMembers()[key]?.map { memberIndex.parse(it) }.orEmpty()
+}
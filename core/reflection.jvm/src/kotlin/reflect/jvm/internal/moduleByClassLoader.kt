@@ -18,54 +18,194 @@ package kotlin.reflect.jvm.internal
 
 import org.jetbrains.kotlin.load.java.structure.reflect.classLoader
 import org.jetbrains.kotlin.load.kotlin.reflect.RuntimeModuleData
+import java.lang.ref.Reference
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.SoftReference
 import java.lang.ref.WeakReference
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicLong
 
-// TODO: collect nulls periodically
-private val moduleByClassLoader: ConcurrentMap<WeakClassLoaderBox, WeakReference<RuntimeModuleData>> = ConcurrentHashMap()
+/**
+ * How long [RuntimeModuleData] of a class loader is kept in the cache when nothing else references it.
+ * Configured with the "kotlin.reflect.module.retention" system property.
+ */
+internal enum class ModuleRetentionPolicy {
+    /** Until the next garbage collection */
+    WEAK,
 
-private class WeakClassLoaderBox(classLoader: ClassLoader) {
-    val ref: WeakReference<ClassLoader> = WeakReference(classLoader)
+    /** Until the VM is low on memory */
+    SOFT,
 
-    // Identity hash code is saved because otherwise once the weak reference is GC'd we cannot compute it anymore
-    val identityHashCode: Int = System.identityHashCode(classLoader)
+    /**
+     * Until the entry is evicted because the cache has grown over "kotlin.reflect.module.cache.size" entries.
+     * Module data references its class loader, so class loaders are not collected before their entries are evicted
+     */
+    STRONG
+}
 
-    // Temporary strong reference to the class loader to ensure it won't get GC'd while we're inserting this box into the map
-    var temporaryStrongRef: ClassLoader? = classLoader
+internal data class ModuleCacheStatistics(
+        /** Lookups which found module data in the cache */
+        val hits: Long,
+        /** Lookups of class loaders which were not in the cache */
+        val misses: Long,
+        /** Lookups of class loaders whose module data had been collected and had to be created again */
+        val rebuilds: Long,
+        /** Entries removed because their class loader or module data had been collected */
+        val purged: Long,
+        /** Entries removed because the cache has grown over its size limit */
+        val evicted: Long,
+        val size: Int
+)
 
-    override fun equals(other: Any?) =
-            other is WeakClassLoaderBox && ref.get() === other.ref.get()
+private val moduleCache = ModuleCache(readRetentionPolicy(), readMaxSize())
 
-    override fun hashCode() =
-            identityHashCode
+private fun Class<*>.getOrCreateModule(): RuntimeModuleData = moduleCache.getOrCreate(this.classLoader)
 
-    override fun toString() =
-            ref.get()?.let { it.toString() } ?: "<null>"
-}
+// Keys are weak references to class loaders, values are module data (for STRONG policy) or weak/soft references to it.
+// Collected class loaders and module data are removed from the map on each access via the reference queue
+internal class ModuleCache(private val retention: ModuleRetentionPolicy, private val maxSize: Int) {
 
-private fun Class<*>.getOrCreateModule(): RuntimeModuleData {
-    val classLoader = this.classLoader
-    val key = WeakClassLoaderBox(classLoader)
+    private val map = ConcurrentHashMap<ClassLoaderKey, Any>()
+    private val queue = ReferenceQueue<Any>()
 
-    val cached = moduleByClassLoader[key]
-    if (cached != null) {
-        cached.get()?.let { return it }
-        moduleByClassLoader.remove(key, cached)
-    }
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val rebuilds = AtomicLong()
+    private val purged = AtomicLong()
+    private val evicted = AtomicLong()
+
+    fun getOrCreate(classLoader: ClassLoader): RuntimeModuleData {
+        purge()
+
+        val lookupKey = ClassLoaderKey(classLoader, null)
+        val cached = map[lookupKey]
+        if (cached != null) {
+            val module = cached.getModule()
+            if (module != null) {
+                hits.incrementAndGet()
+                return module
+            }
+            rebuilds.incrementAndGet()
+            map.remove(lookupKey, cached)
+        }
+        else {
+            misses.incrementAndGet()
+        }
 
-    val module = RuntimeModuleData.create(classLoader)
-    try {
+        val module = RuntimeModuleData.create(classLoader)
+        val key = ClassLoaderKey(classLoader, queue)
+        val value = createValue(module, key)
         while (true) {
-            val ref = moduleByClassLoader.putIfAbsent(key, WeakReference(module))
-            if (ref == null) return module
+            val existing = map.putIfAbsent(key, value)
+            if (existing == null) {
+                evictIfNeeded(key)
+                return module
+            }
 
-            val result = ref.get()
+            val result = existing.getModule()
             if (result != null) return result
-            moduleByClassLoader.remove(key, ref)
+            map.remove(key, existing)
+        }
+    }
+
+    fun getStatistics(): ModuleCacheStatistics {
+        purge()
+        return ModuleCacheStatistics(hits.get(), misses.get(), rebuilds.get(), purged.get(), evicted.get(), map.size())
+    }
+
+    private fun createValue(module: RuntimeModuleData, key: ClassLoaderKey): Any =
+            when (retention) {
+                ModuleRetentionPolicy.WEAK -> WeakModuleReference(module, key, queue)
+                ModuleRetentionPolicy.SOFT -> SoftModuleReference(module, key, queue)
+                ModuleRetentionPolicy.STRONG -> module
+            }
+
+    private fun Any.getModule(): RuntimeModuleData? =
+            if (this is Reference<*>) get() as RuntimeModuleData? else this as RuntimeModuleData
+
+    private fun purge() {
+        while (true) {
+            val reference = queue.poll() ?: return
+            val removed = when (reference) {
+                is ClassLoaderKey -> map.remove(reference) != null
+                is ModuleReference -> map.remove(reference.key, reference)
+                else -> false
+            }
+            if (removed) {
+                purged.incrementAndGet()
+            }
+        }
+    }
+
+    // Entries are evicted in no particular order: the limit is a safety net against unbounded growth, not an LRU policy
+    private fun evictIfNeeded(inserted: ClassLoaderKey) {
+        if (map.size() <= maxSize) return
+
+        val iterator = map.keySet().iterator()
+        while (map.size() > maxSize && iterator.hasNext()) {
+            val key = iterator.next()
+            if (key !== inserted) {
+                iterator.remove()
+                evicted.incrementAndGet()
+            }
         }
     }
-    finally {
-        key.temporaryStrongRef = null
+}
+
+private fun readRetentionPolicy(): ModuleRetentionPolicy {
+    val value = readProperty("kotlin.reflect.module.retention") ?: return ModuleRetentionPolicy.WEAK
+    return ModuleRetentionPolicy.values().firstOrNull { it.name() == value.toUpperCase() } ?: ModuleRetentionPolicy.WEAK
+}
+
+private fun readMaxSize(): Int {
+    val value = readProperty("kotlin.reflect.module.cache.size") ?: return Integer.MAX_VALUE
+    return try {
+        Math.max(1, Integer.parseInt(value))
+    }
+    catch (e: NumberFormatException) {
+        Integer.MAX_VALUE
     }
 }
+
+private fun readProperty(name: String): String? =
+        try {
+            System.getProperty(name)
+        }
+        catch (e: SecurityException) {
+            null
+        }
+
+private class ClassLoaderKey(classLoader: ClassLoader, queue: ReferenceQueue<Any>?) : WeakReference<ClassLoader>(classLoader, queue) {
+    // Identity hash code is saved because otherwise once the weak reference is GC'd we cannot compute it anymore
+    private val identityHashCode: Int = System.identityHashCode(classLoader)
+
+    // A key whose class loader has been collected is only equal to itself, so that exactly its entry is purged
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is ClassLoaderKey) return false
+        val classLoader = get()
+        return classLoader != null && classLoader === other.get()
+    }
+
+    override fun hashCode() =
+            identityHashCode
+
+    override fun toString() =
+            get()?.let { it.toString() } ?: "<null>"
+}
+
+private trait ModuleReference {
+    val key: ClassLoaderKey
+}
+
+private class WeakModuleReference(
+        module: RuntimeModuleData,
+        override val key: ClassLoaderKey,
+        queue: ReferenceQueue<Any>
+) : WeakReference<RuntimeModuleData>(module, queue), ModuleReference
+
+private class SoftModuleReference(
+        module: RuntimeModuleData,
+        override val key: ClassLoaderKey,
+        queue: ReferenceQueue<Any>
+) : SoftReference<RuntimeModuleData>(module, queue), ModuleReference
@@ -0,0 +1,541 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.utils.UtilsPackage;
+import org.jetbrains.kotlin.utils.WrappedValues;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A storage manager which, unlike {@link LockBasedStorageManager}, doesn't serialize all computations on a single lock.
+ *
+ * Each lazy value and each key of a memoized function is computed by the first thread which requests it,
+ * other threads requesting the same value wait for that computation to finish. If waiting would lead to a deadlock
+ * (the computing thread itself waits, directly or transitively, for the current thread), the current thread computes the value
+ * on its own, and the result which is published first wins. Post-computation is only run on the value which has won.
+ *
+ * Recursion detection and exception handling are the same as in {@link LockBasedStorageManager}.
+ */
+public class ConcurrentStorageManager implements StorageManager {
+    private static final long WAIT_CHECK_INTERVAL_MS = 50;
+    private static final int MAX_WAIT_CHAIN_LENGTH = 1000;
+
+    private static final Object NOT_COMPUTED = new Object() {
+        @Override
+        public String toString() {
+            return "NOT_COMPUTED";
+        }
+    };
+
+    private static final Object RECURSION_WAS_DETECTED = new Object() {
+        @Override
+        public String toString() {
+            return "RECURSION_WAS_DETECTED";
+        }
+    };
+
+    private static final Object NO_VALUE = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentLazyValue, Object> LAZY_VALUE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentLazyValue.class, Object.class, "value");
+
+    @NotNull
+    public static ConcurrentStorageManager createWithExceptionHandling(
+            @NotNull LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy
+    ) {
+        return new ConcurrentStorageManager(getPointOfConstruction(), exceptionHandlingStrategy);
+    }
+
+    private final LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy;
+    private final String debugText;
+
+    // Which computation each thread is currently waiting for, used to detect deadlocks
+    private final ConcurrentMap<Thread, Computation> waitingThreads = new ConcurrentHashMap<Thread, Computation>();
+
+    // Computations which the current thread is doing on behalf of their owners, used to detect recursion in them
+    private final ThreadLocal<Set<Computation>> onBehalfComputations = new ThreadLocal<Set<Computation>>() {
+        @Override
+        protected Set<Computation> initialValue() {
+            return new HashSet<Computation>();
+        }
+    };
+
+    // Only used to implement compute()
+    private final Lock computeLock = new ReentrantLock();
+
+    private ConcurrentStorageManager(
+            @NotNull String debugText,
+            @NotNull LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy
+    ) {
+        this.exceptionHandlingStrategy = exceptionHandlingStrategy;
+        this.debugText = debugText;
+    }
+
+    public ConcurrentStorageManager() {
+        this(getPointOfConstruction(), LockBasedStorageManager.ExceptionHandlingStrategy.THROW);
+    }
+
+    private static String getPointOfConstruction() {
+        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+        // we need to skip frames for getStackTrace(), this method and the method that's calling it
+        if (trace.length <= 3) return "<unknown creating class>";
+        return trace[3].toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()) + " (" + debugText + ")";
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNotNull<K, V> createMemoizedFunction(@NotNull Function1<? super K, ? extends V> compute) {
+        return createMemoizedFunction(compute, ConcurrentStorageManager.<K>createConcurrentHashMap());
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNotNull<K, V> createMemoizedFunction(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new MapBasedMemoizedFunctionToNotNull<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNullable<K, V> createMemoizedFunctionWithNullableValues(@NotNull Function1<? super K, ? extends V> compute) {
+        return createMemoizedFunctionWithNullableValues(compute, ConcurrentStorageManager.<K>createConcurrentHashMap());
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNullable<K, V> createMemoizedFunctionWithNullableValues(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new MapBasedMemoizedFunction<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentNotNullLazyValue<T>(computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createRecursionTolerantLazyValue(
+            @NotNull Function0<? extends T> computable, @NotNull final T onRecursiveCall
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(computable) {
+            @Override
+            protected Object recursionDetected(boolean firstTime) {
+                return onRecursiveCall;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable,
+            final Function1<? super Boolean, ? extends T> onRecursiveCall,
+            @NotNull final Function1<? super T, ? extends Unit> postCompute
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(computable) {
+            @Override
+            protected Object recursionDetected(boolean firstTime) {
+                if (onRecursiveCall == null) {
+                    return super.recursionDetected(firstTime);
+                }
+                return onRecursiveCall.invoke(firstTime);
+            }
+
+            @Override
+            protected void postCompute(@NotNull T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentLazyValue<T>(computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createRecursionTolerantNullableLazyValue(@NotNull Function0<? extends T> computable, final T onRecursiveCall) {
+        return new ConcurrentLazyValue<T>(computable) {
+            @Override
+            protected Object recursionDetected(boolean firstTime) {
+                return onRecursiveCall;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable, @NotNull final Function1<? super T, ? extends Unit> postCompute
+    ) {
+        return new ConcurrentLazyValue<T>(computable) {
+            @Override
+            protected void postCompute(@Nullable T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @Override
+    public <T> T compute(@NotNull Function0<? extends T> computable) {
+        computeLock.lock();
+        try {
+            return computable.invoke();
+        }
+        catch (Throwable throwable) {
+            throw exceptionHandlingStrategy.handleException(throwable);
+        }
+        finally {
+            computeLock.unlock();
+        }
+    }
+
+    /**
+     * Called on a recursive call of a lazy value which doesn't override {@link ConcurrentLazyValue#recursionDetected(boolean)}.
+     * Throws {@link IllegalStateException} by default; subclasses may return a value to be returned on the recursive call instead
+     */
+    protected Object recursionDetectedDefault() {
+        throw new IllegalStateException("Recursive call in a lazy value under " + this);
+    }
+
+    @NotNull
+    private static <K> ConcurrentMap<K, Object> createConcurrentHashMap() {
+        // memory optimization: fewer segments and entries stored
+        return new ConcurrentHashMap<K, Object>(3, 1, 2);
+    }
+
+    /**
+     * Marks a value which is being computed by {@link #owner}.
+     */
+    private static class Computation {
+        private final Thread owner = Thread.currentThread();
+        private volatile boolean done = false;
+
+        // Recursion may also be detected by a thread computing the value on behalf of the owner
+        private volatile boolean recursionDetected = false;
+
+        private void finish() {
+            done = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        // Returns true if the computation is finished
+        private boolean await(long timeoutMs) throws InterruptedException {
+            synchronized (this) {
+                if (!done) {
+                    wait(timeoutMs);
+                }
+            }
+            return done;
+        }
+    }
+
+    /**
+     * Blocks until the computation is finished by its owner.
+     * @return false if waiting would lead to a deadlock, in this case the caller should compute the value itself
+     */
+    private boolean waitFor(@NotNull Computation computation) {
+        Thread currentThread = Thread.currentThread();
+        waitingThreads.put(currentThread, computation);
+        try {
+            while (true) {
+                if (isWaitingForItself(currentThread, computation)) return false;
+                try {
+                    if (computation.await(WAIT_CHECK_INTERVAL_MS)) return true;
+                }
+                catch (InterruptedException e) {
+                    throw UtilsPackage.rethrow(e);
+                }
+            }
+        }
+        finally {
+            waitingThreads.remove(currentThread);
+        }
+    }
+
+    // True if the value is requested again while the current thread is computing it, either as the owner or on behalf of the owner
+    private boolean isRecursive(@NotNull Computation computation) {
+        return computation.owner == Thread.currentThread() || onBehalfComputations.get().contains(computation);
+    }
+
+    private boolean isWaitingForItself(@NotNull Thread currentThread, @NotNull Computation computation) {
+        Computation current = computation;
+        for (int i = 0; i < MAX_WAIT_CHAIN_LENGTH && current != null; i++) {
+            if (current.owner == currentThread) return true;
+            current = waitingThreads.get(current.owner);
+        }
+        return false;
+    }
+
+    private class ConcurrentLazyValue<T> implements NullableLazyValue<T> {
+        private final Function0<? extends T> computable;
+
+        // Updated through LAZY_VALUE_UPDATER
+        @Nullable
+        volatile Object value = NOT_COMPUTED;
+
+        public ConcurrentLazyValue(@NotNull Function0<? extends T> computable) {
+            this.computable = computable;
+        }
+
+        @Override
+        public boolean isComputed() {
+            Object _value = value;
+            return _value != NOT_COMPUTED && !(_value instanceof Computation);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T invoke() {
+            while (true) {
+                Object _value = value;
+
+                if (_value == NOT_COMPUTED || _value == RECURSION_WAS_DETECTED) {
+                    if (_value == RECURSION_WAS_DETECTED) {
+                        Object result = recursionDetected(/*firstTime = */ false);
+                        if (result != NO_VALUE) return (T) result;
+                    }
+
+                    Computation computation = new Computation();
+                    if (LAZY_VALUE_UPDATER.compareAndSet(this, _value, computation)) {
+                        return computeAndPublish(computation);
+                    }
+                    continue;
+                }
+
+                if (_value instanceof Computation) {
+                    Computation computation = (Computation) _value;
+                    if (isRecursive(computation)) {
+                        boolean firstTime = !computation.recursionDetected;
+                        computation.recursionDetected = true;
+                        Object result = recursionDetected(firstTime);
+                        if (result != NO_VALUE) return (T) result;
+
+                        // Fall through: compute the value once again, the outer computation will publish its own result
+                        return computable.invoke();
+                    }
+
+                    if (!waitFor(computation)) {
+                        return computeOnBehalfOf(computation);
+                    }
+                    continue;
+                }
+
+                return WrappedValues.unescapeThrowable(_value);
+            }
+        }
+
+        private T computeAndPublish(@NotNull Computation computation) {
+            try {
+                T typedValue = computable.invoke();
+                if (LAZY_VALUE_UPDATER.compareAndSet(this, computation, typedValue)) {
+                    postCompute(typedValue);
+                    return typedValue;
+                }
+                // Another thread has published its value to break a deadlock
+                return invoke();
+            }
+            catch (Throwable throwable) {
+                // Store only if it's a genuine result, not something thrown through recursionDetected()
+                Object newValue = computation.recursionDetected ? RECURSION_WAS_DETECTED : WrappedValues.escapeThrowable(throwable);
+                LAZY_VALUE_UPDATER.compareAndSet(this, computation, newValue);
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computation.finish();
+            }
+        }
+
+        private T computeOnBehalfOf(@NotNull Computation computation) {
+            T typedValue;
+            Set<Computation> computations = onBehalfComputations.get();
+            computations.add(computation);
+            try {
+                typedValue = computable.invoke();
+            }
+            catch (Throwable throwable) {
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computations.remove(computation);
+            }
+            if (LAZY_VALUE_UPDATER.compareAndSet(this, computation, typedValue)) {
+                postCompute(typedValue);
+                return typedValue;
+            }
+            return invoke();
+        }
+
+        /**
+         * @param firstTime {@code true} when recursion has been just detected, {@code false} otherwise
+         * @return a value to be returned on a recursive call or subsequent calls, or {@link #NO_VALUE} to fall through
+         */
+        protected Object recursionDetected(boolean firstTime) {
+            return recursionDetectedDefault();
+        }
+
+        protected void postCompute(T value) {
+            // Doing something in post-compute helps prevent infinite recursion
+        }
+    }
+
+    private class ConcurrentNotNullLazyValue<T> extends ConcurrentLazyValue<T> implements NotNullLazyValue<T> {
+        public ConcurrentNotNullLazyValue(@NotNull Function0<? extends T> computable) {
+            super(computable);
+        }
+
+        @Override
+        @NotNull
+        public T invoke() {
+            T result = super.invoke();
+            assert result != null : "compute() returned null";
+            return result;
+        }
+    }
+
+    private class MapBasedMemoizedFunction<K, V> implements MemoizedFunctionToNullable<K, V> {
+        private final ConcurrentMap<K, Object> cache;
+        private final Function1<? super K, ? extends V> compute;
+
+        public MapBasedMemoizedFunction(@NotNull ConcurrentMap<K, Object> map, @NotNull Function1<? super K, ? extends V> compute) {
+            this.cache = map;
+            this.compute = compute;
+        }
+
+        @Override
+        @Nullable
+        public V invoke(K input) {
+            while (true) {
+                Object value = cache.get(input);
+
+                if (value == null) {
+                    Computation computation = new Computation();
+                    if (cache.putIfAbsent(input, computation) == null) {
+                        return computeAndPublish(input, computation);
+                    }
+                    continue;
+                }
+
+                if (value instanceof Computation) {
+                    Computation computation = (Computation) value;
+                    if (isRecursive(computation)) {
+                        assert false : "Recursion detected on input: " + input + " under " + ConcurrentStorageManager.this;
+                        // Without assertions, compute the value once again, the outer computation will publish its own result
+                        return compute.invoke(input);
+                    }
+
+                    if (!waitFor(computation)) {
+                        return computeOnBehalfOf(input, computation);
+                    }
+                    continue;
+                }
+
+                return WrappedValues.unescapeExceptionOrNull(value);
+            }
+        }
+
+        @Nullable
+        private V computeAndPublish(K input, @NotNull Computation computation) {
+            try {
+                V typedValue = compute.invoke(input);
+                if (cache.replace(input, computation, WrappedValues.escapeNull(typedValue))) {
+                    return typedValue;
+                }
+                // Another thread has published its value to break a deadlock
+                return invoke(input);
+            }
+            catch (Throwable throwable) {
+                cache.replace(input, computation, WrappedValues.escapeThrowable(throwable));
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computation.finish();
+            }
+        }
+
+        @Nullable
+        private V computeOnBehalfOf(K input, @NotNull Computation computation) {
+            V typedValue;
+            Set<Computation> computations = onBehalfComputations.get();
+            computations.add(computation);
+            try {
+                typedValue = compute.invoke(input);
+            }
+            catch (Throwable throwable) {
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computations.remove(computation);
+            }
+            if (cache.replace(input, computation, WrappedValues.escapeNull(typedValue))) {
+                return typedValue;
+            }
+            return invoke(input);
+        }
+
+        @Override
+        public boolean isComputed(K key) {
+            Object value = cache.get(key);
+            return value != null && !(value instanceof Computation);
+        }
+    }
+
+    private class MapBasedMemoizedFunctionToNotNull<K, V> extends MapBasedMemoizedFunction<K, V> implements MemoizedFunctionToNotNull<K, V> {
+        public MapBasedMemoizedFunctionToNotNull(
+                @NotNull ConcurrentMap<K, Object> map,
+                @NotNull Function1<? super K, ? extends V> compute
+        ) {
+            super(map, compute);
+        }
+
+        @NotNull
+        @Override
+        public V invoke(K input) {
+            V result = super.invoke(input);
+            assert result != null : "compute() returned null under " + ConcurrentStorageManager.this;
+            return result;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.jetbrains.kotlin.context.LazyResolveToken
 import org.jetbrains.kotlin.context.ModuleContext
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.generators.di.*
+import org.jetbrains.kotlin.incremental.components.LookupTracker
 import org.jetbrains.kotlin.js.resolve.KotlinJsCheckerProvider
 import org.jetbrains.kotlin.load.java.JavaClassFinderImpl
 import org.jetbrains.kotlin.load.java.JavaFlexibleTypeCapabilitiesProvider
@@ -87,6 +88,7 @@ private fun generatorForLazyLocalClassifierAnalyzer() =
             parameter<AdditionalCheckerProvider>(useAsContext = true)
             parameter<DynamicTypesSettings>()
             parameter<LocalClassDescriptorHolder>()
+            parameter<LookupTracker>()
 
             publicField<LazyTopDownAnalyzer>()
 
@@ -106,6 +108,8 @@ private fun generatorForLazyBodyResolve() =
             parameter<DynamicTypesSettings>()
 
             publicField<LazyTopDownAnalyzerForTopLevel>()
+
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForTopDownAnalyzerForJs() =
@@ -116,11 +120,13 @@ private fun generatorForTopDownAnalyzerForJs() =
 
             field<KotlinJsCheckerProvider>(useAsContext = true)
             field<DynamicTypesAllowed>()
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForTopDownAnalyzerForJvm() =
         generator("compiler/frontend.java/src", DI_DEFAULT_PACKAGE, "InjectorForTopDownAnalyzerForJvm") {
             commonForJavaTopDownAnalyzer()
+            parameter<LookupTracker>()
         }
 
 private fun generatorForRuntimeDescriptorLoader() =
@@ -175,12 +181,15 @@ private fun generatorForLazyResolveWithJava() =
             field<JavaLazyAnalyzerPostConstruct>()
 
             field<KotlinJvmCheckerProvider>(useAsContext = true)
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForReplWithJava() =
         generator("compiler/frontend.java/src", DI_DEFAULT_PACKAGE, "InjectorForReplWithJava") {
             commonForJavaTopDownAnalyzer()
             parameter<ScopeProvider.AdditionalFileScopeProvider>()
+
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForMacro() =
@@ -197,6 +206,7 @@ private fun generatorForMacro() =
                   init = GivenExpression("org.jetbrains.kotlin.context.ContextPackage.GlobalContext()"))
 
             field<AdditionalCheckerProvider.DefaultProvider>(useAsContext = true)
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForTests() =
@@ -214,6 +224,7 @@ private fun generatorForTests() =
 
             field<GlobalContext>(init = GivenExpression("org.jetbrains.kotlin.context.ContextPackage.GlobalContext()"),
                   useAsContext = true)
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForBodyResolve() =
@@ -224,6 +235,8 @@ private fun generatorForBodyResolve() =
             parameter<StatementFilter>()
 
             publicField<BodyResolver>()
+
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun generatorForLazyResolve() =
@@ -238,6 +251,7 @@ private fun generatorForLazyResolve() =
 
             field<ScopeProvider>()
             field<LazyResolveToken>()
+            field<LookupTracker>(init = GetSingleton.byField(javaClass<LookupTracker>(), "DO_NOTHING"))
         }
 
 private fun DependencyInjectorGenerator.commonForResolveSessionBased() {
@@ -96,6 +96,7 @@ import org.jetbrains.kotlin.j2k.AbstractJavaToKotlinConverterForWebDemoTest
 import org.jetbrains.kotlin.j2k.AbstractJavaToKotlinConverterMultiFileTest
 import org.jetbrains.kotlin.j2k.AbstractJavaToKotlinConverterSingleFileTest
 import org.jetbrains.kotlin.jps.build.AbstractIncrementalJpsTest
+import org.jetbrains.kotlin.jps.build.AbstractIncrementalLookupTrackingJpsTest
 import org.jetbrains.kotlin.jps.build.android.AbstractAndroidJpsTestCase
 import org.jetbrains.kotlin.js.test.semantics.*
 import org.jetbrains.kotlin.jvm.compiler.*
@@ -780,6 +781,10 @@ fun main(args: Array<String>) {
             model("incremental/pureKotlin", extension = null, excludeParentDirs = true)
             model("incremental/withJava", extension = null, excludeParentDirs = true)
         }
+
+        testClass(javaClass<AbstractIncrementalLookupTrackingJpsTest>()) {
+            model("incremental/pureKotlin", extension = null, excludeParentDirs = true)
+        }
     }
 
     testGroup("plugins/android-compiler-plugin/tests", "plugins/android-compiler-plugin/testData") {
@@ -875,6 +880,10 @@ fun main(args: Array<String>) {
             model("inlineSizeReduction/cases")
         }
 
+        testClass(javaClass<AbstractDeadCodeEliminationTest>()) {
+            model("dce/cases")
+        }
+
         testClass(javaClass<AbstractReifiedTest>()) {
             model("reified/cases")
         }
@@ -21,6 +21,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
 import org.jetbrains.kotlin.preloading.ClassPreloadingUtils;
 import org.jetbrains.kotlin.utils.KotlinPaths;
+import org.jetbrains.kotlin.utils.MemoryPressureMonitor;
 
 import java.io.File;
 import java.io.IOException;
@@ -34,8 +35,17 @@ import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.E
 
 public class CompilerRunnerUtil {
 
+    // Same as KotlinCoreEnvironment.KEEP_ALIVE_PROPERTY, which can't be referenced here because the compiler is loaded by another class loader
+    private static final String KEEP_ALIVE_PROPERTY = "kotlin.environment.keepalive";
+
     private static SoftReference<ClassLoader> ourClassLoaderRef = new SoftReference<ClassLoader>(null);
 
+    // With the keep-alive property the class loader is also referenced strongly, so that JIT-compiled compiler code and caches
+    // which live in it survive between builds until the heap is low on memory
+    @Nullable
+    private static ClassLoader ourStrongClassLoaderRef = null;
+    private static boolean ourMemoryPressureListenerAdded = false;
+
     @NotNull
     private static synchronized ClassLoader getOrCreateClassLoader(
             @NotNull CompilerEnvironment environment,
@@ -51,6 +61,20 @@ public class CompilerRunnerUtil {
             );
             ourClassLoaderRef = new SoftReference<ClassLoader>(classLoader);
         }
+        if ("true".equals(System.getProperty(KEEP_ALIVE_PROPERTY))) {
+            ourStrongClassLoaderRef = classLoader;
+            if (!ourMemoryPressureListenerAdded) {
+                ourMemoryPressureListenerAdded = true;
+                MemoryPressureMonitor.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (CompilerRunnerUtil.class) {
+                            ourStrongClassLoaderRef = null;
+                        }
+                    }
+                });
+            }
+        }
         return classLoader;
     }
 
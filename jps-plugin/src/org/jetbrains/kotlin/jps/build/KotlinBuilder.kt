@@ -48,12 +48,13 @@ import org.jetbrains.kotlin.config.CompilerRunnerConstants
 import org.jetbrains.kotlin.config.CompilerRunnerConstants.INTERNAL_ERROR_PREFIX
 import org.jetbrains.kotlin.config.IncrementalCompilation
 import org.jetbrains.kotlin.config.Services
+import org.jetbrains.kotlin.incremental.components.LookupTracker
 import org.jetbrains.kotlin.jps.JpsKotlinCompilerSettings
 import org.jetbrains.kotlin.jps.incremental.*
-import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision.DO_NOTHING
-import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision.RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS
-import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision.RECOMPILE_OTHER_IN_CHUNK_AND_DEPENDANTS
-import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision.RECOMPILE_OTHER_KOTLIN_IN_CHUNK
+import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision
+import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationKind.RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS
+import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationKind.RECOMPILE_OTHER_IN_CHUNK_AND_DEPENDANTS
+import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationKind.RECOMPILE_OTHER_KOTLIN_IN_CHUNK
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils
 import org.jetbrains.kotlin.load.kotlin.header.isCompatiblePackageFacadeKind
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCache
@@ -69,6 +70,9 @@ import java.util.ArrayList
 import java.util.HashMap
 import java.util.HashSet
 import java.util.ServiceLoader
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 
 public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR) {
     companion object {
@@ -117,7 +121,8 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
 
         val incrementalCaches = chunk.getTargets().keysToMap { dataManager.getKotlinCache(it) }
 
-        val environment = createCompileEnvironment(incrementalCaches)
+        val lookupTracker = LookupTrackerImpl()
+        val environment = createCompileEnvironment(incrementalCaches, lookupTracker)
         if (!environment.success()) {
             environment.reportErrorsTo(messageCollector)
             return ABORT
@@ -146,13 +151,14 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
 
         registerOutputItems(outputConsumer, generatedFiles)
 
-        val recompilationDecision: IncrementalCacheImpl.RecompilationDecision
+        val recompilationDecision: RecompilationDecision
         if (JpsUtils.isJsKotlinModule(chunk.representativeTarget())) {
-            recompilationDecision = DO_NOTHING
+            recompilationDecision = RecompilationDecision.DO_NOTHING
         }
         else {
             val generatedClasses = generatedFiles as List<GeneratedJvmClass>
             recompilationDecision = updateKotlinIncrementalCache(compilationErrors, incrementalCaches, generatedClasses)
+            saveLookups(compilationErrors, incrementalCaches, filesToCompile, lookupTracker)
             updateJavaMappings(chunk, compilationErrors, context, dirtyFilesHolder, filesToCompile, generatedClasses)
         }
 
@@ -165,7 +171,11 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
         }
 
         if (IncrementalCompilation.ENABLED) {
-            when (recompilationDecision) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Recompilation decision: $recompilationDecision")
+            }
+
+            when (recompilationDecision.kind) {
                 RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS -> {
                     allCompiledFiles.clear()
                     FSOperations.markDirtyRecursively(context, chunk)
@@ -182,9 +192,17 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
                     }
                 }
                 RECOMPILE_OTHER_KOTLIN_IN_CHUNK -> {
-                    FSOperations.markDirty(context, chunk, { file ->
-                        KotlinSourceFileCollector.isKotlinSourceFile(file) && file !in allCompiledFiles
-                    })
+                    if (IncrementalCompilation.isLookupTrackingEnabled()) {
+                        val affectedFiles = incrementalCaches.values().flatMapTo(HashSet<File>()) {
+                            it.getFilesAffectedBy(recompilationDecision)
+                        }
+                        FSOperations.markDirty(context, chunk, { file -> file in affectedFiles && file !in allCompiledFiles })
+                    }
+                    else {
+                        FSOperations.markDirty(context, chunk, { file ->
+                            KotlinSourceFileCollector.isKotlinSourceFile(file) && file !in allCompiledFiles
+                        })
+                    }
                 }
             }
             return ADDITIONAL_PASS_REQUIRED
@@ -233,15 +251,22 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
         return compileToJvm(allCompiledFiles, chunk, commonArguments, context, dirtyFilesHolder, environment, filesToCompile, messageCollector)
     }
 
-    private fun createCompileEnvironment(incrementalCaches: Map<ModuleBuildTarget, IncrementalCache>): CompilerEnvironment {
-        val compilerServices = Services.Builder()
+    private fun createCompileEnvironment(
+            incrementalCaches: Map<ModuleBuildTarget, IncrementalCache>,
+            lookupTracker: LookupTracker
+    ): CompilerEnvironment {
+        val compilerServicesBuilder = Services.Builder()
                 .register(javaClass<IncrementalCacheProvider>(), IncrementalCacheProviderImpl(incrementalCaches))
-                .build()
+        if (IncrementalCompilation.isLookupTrackingEnabled()) {
+            compilerServicesBuilder.register(javaClass<LookupTracker>(), lookupTracker)
+        }
+        val compilerServices = compilerServicesBuilder.build()
 
         return CompilerEnvironment.getEnvironmentFor(
                 PathUtil.getKotlinPathsForJpsPluginOrJpsTests(),
                 { className ->
                     className.startsWith("org.jetbrains.kotlin.load.kotlin.incremental.cache.")
+                    || className.startsWith("org.jetbrains.kotlin.incremental.components.")
                     || className == "org.jetbrains.kotlin.config.Services"
                 },
                 compilerServices
@@ -263,6 +288,7 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
         }
 
         val result = ArrayList<GeneratedFile>()
+        val outputClasses = readOutputClasses(outputItemCollector.getOutputs().map { it.getOutputFile() }.filter { it.getName().endsWith(".class") })
 
         val representativeTarget = chunk.representativeTarget()
         for (outputItem in outputItemCollector.getOutputs()) {
@@ -279,7 +305,7 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
             }
 
             if (outputFile.getName().endsWith(".class")) {
-                result.add(GeneratedJvmClass(target!!, sourceFiles, outputFile))
+                result.add(GeneratedJvmClass(target!!, sourceFiles, outputFile, outputClasses[outputFile]!!))
             }
             else {
                 result.add(GeneratedFile(target!!, sourceFiles, outputFile))
@@ -349,12 +375,12 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
             compilationErrors: Boolean,
             incrementalCaches: Map<ModuleBuildTarget, IncrementalCacheImpl>,
             generatedClasses: List<GeneratedJvmClass>
-    ): IncrementalCacheImpl.RecompilationDecision {
+    ): RecompilationDecision {
         if (!IncrementalCompilation.ENABLED) {
-            return DO_NOTHING
+            return RecompilationDecision.DO_NOTHING
         }
 
-        var recompilationDecision = DO_NOTHING
+        var recompilationDecision = RecompilationDecision.DO_NOTHING
         for (generatedClass in generatedClasses) {
             val newDecision = incrementalCaches[generatedClass.target]!!.saveFileToCache(generatedClass.sourceFiles, generatedClass.outputClass)
             recompilationDecision = recompilationDecision.merge(newDecision)
@@ -370,6 +396,21 @@ public class KotlinBuilder : ModuleLevelBuilder(BuilderCategory.SOURCE_PROCESSOR
         return recompilationDecision
     }
 
+    private fun saveLookups(
+            compilationErrors: Boolean,
+            incrementalCaches: Map<ModuleBuildTarget, IncrementalCacheImpl>,
+            filesToCompile: MultiMap<ModuleBuildTarget, File>,
+            lookupTracker: LookupTrackerImpl
+    ) {
+        if (compilationErrors || !IncrementalCompilation.isLookupTrackingEnabled()) return
+
+        for ((target, cache) in incrementalCaches) {
+            for (file in filesToCompile[target]) {
+                cache.saveLookups(file, lookupTracker.getLookups(file))
+            }
+        }
+    }
+
     // if null is returned, nothing was done
     private fun compileToJs(chunk: ModuleChunk,
                             commonArguments: CommonCompilerArguments,
@@ -552,9 +593,36 @@ private open class GeneratedFile(
 private class GeneratedJvmClass (
         target: ModuleBuildTarget,
         sourceFiles: Collection<File>,
-        outputFile: File
-) : GeneratedFile(target, sourceFiles, outputFile) {
-    val outputClass = LocalFileKotlinClass.create(outputFile).sure {
-        "Couldn't load KotlinClass from $outputFile; it may happen because class doesn't have valid Kotlin annotations"
+        outputFile: File,
+        val outputClass: LocalFileKotlinClass
+) : GeneratedFile(target, sourceFiles, outputFile)
+
+// Number of threads reading generated class files before the incremental caches are updated, the caches themselves are updated sequentially
+private val CLASS_READING_THREADS = Integer.getInteger("kotlin.jps.class.reading.threads", 1)
+
+private fun readOutputClasses(classFiles: List<File>): Map<File, LocalFileKotlinClass> {
+    fun read(classFile: File) = LocalFileKotlinClass.create(classFile).sure {
+        "Couldn't load KotlinClass from $classFile; it may happen because class doesn't have valid Kotlin annotations"
+    }
+
+    val threads = Math.min(CLASS_READING_THREADS, classFiles.size())
+    if (threads <= 1) {
+        return classFiles.keysToMap { read(it) }
+    }
+
+    val executor = Executors.newFixedThreadPool(threads)
+    try {
+        val futures = classFiles.keysToMap { classFile -> executor.submit(Callable { read(classFile) }) }
+        return futures.mapValues {
+            try {
+                it.value.get()
+            }
+            catch (e: ExecutionException) {
+                throw e.getCause() ?: e
+            }
+        }
+    }
+    finally {
+        executor.shutdownNow()
     }
 }
@@ -16,7 +16,7 @@
 
 package org.jetbrains.kotlin.jps.incremental
 
-import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationDecision.*
+import org.jetbrains.kotlin.jps.incremental.IncrementalCacheImpl.RecompilationKind.*
 import java.io.File
 import com.intellij.util.io.PersistentHashMap
 import java.io.DataOutput
@@ -25,13 +25,13 @@ import java.io.DataInput
 import org.jetbrains.kotlin.name.FqName
 import com.intellij.util.io.DataExternalizer
 import org.jetbrains.kotlin.serialization.jvm.BitEncoding
-import java.util.Arrays
-import org.jetbrains.org.objectweb.asm.*
 import com.intellij.util.io.EnumeratorStringDescriptor
 import org.jetbrains.kotlin.load.java.JvmAnnotationNames
 import org.jetbrains.kotlin.resolve.jvm.JvmClassName
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCache
+import java.util.Arrays
 import java.util.HashMap
+import java.util.HashSet
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils
 import java.security.MessageDigest
 import org.jetbrains.jps.incremental.storage.StorageOwner
@@ -57,7 +57,7 @@ private val CACHE_DIRECTORY_NAME = "kotlin"
 class CacheFormatVersion(targetDataRoot: File) {
     companion object {
         // Change this when incremental cache format changes
-        private val INCREMENTAL_CACHE_OWN_VERSION = 2
+        private val INCREMENTAL_CACHE_OWN_VERSION = 5
         private val CACHE_FORMAT_VERSION: Int = INCREMENTAL_CACHE_OWN_VERSION * 1000000 + JvmAbi.VERSION
         val FORMAT_VERSION_FILE_PATH: String = "$CACHE_DIRECTORY_NAME/format-version.txt"
     }
@@ -89,6 +89,8 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
         val PACKAGE_PARTS = "package-parts.tab"
         val SOURCE_TO_CLASSES = "source-to-classes.tab"
         val DIRTY_OUTPUT_CLASSES = "dirty-output-classes.tab"
+        val LOOKUPS = "lookups.tab"
+        val SOURCE_TO_LOOKUPS = "source-to-lookups.tab"
     }
 
     private val baseDir = File(targetDataRoot, CACHE_DIRECTORY_NAME)
@@ -98,8 +100,11 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
     private val packagePartMap = PackagePartMap()
     private val sourceToClassesMap = SourceToClassesMap()
     private val dirtyOutputClassesMap = DirtyOutputClassesMap()
+    private val lookupMap = LookupMap()
+    private val sourceToLookupsMap = SourceToLookupsMap()
 
-    private val maps = listOf(protoMap, constantsMap, inlineFunctionsMap, packagePartMap, sourceToClassesMap, dirtyOutputClassesMap)
+    private val maps = listOf(protoMap, constantsMap, inlineFunctionsMap, packagePartMap, sourceToClassesMap, dirtyOutputClassesMap,
+                              lookupMap, sourceToLookupsMap)
 
     private val cacheFormatVersion = CacheFormatVersion(targetDataRoot)
 
@@ -114,21 +119,73 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
             classes.forEach { dirtyOutputClassesMap.markDirty(it.getInternalName()) }
 
             sourceToClassesMap.clearOutputsForSource(sourceFile)
+
+            for (scope in sourceToLookupsMap[sourceFile]) {
+                lookupMap.removeSource(scope, sourceFile)
+            }
+            sourceToLookupsMap.clearLookupsForSource(sourceFile)
+        }
+    }
+
+    public fun saveLookups(sourceFile: File, lookups: Collection<LookupSymbol>) {
+        val namesByScope = lookups.groupBy { it.scope }
+        for ((scope, symbols) in namesByScope) {
+            lookupMap.addSource(scope, symbols.map { it.name }.toSortedList(), sourceFile)
         }
+        sourceToLookupsMap.setLookups(sourceFile, namesByScope.keySet().toSortedList())
     }
 
-    private fun getRecompilationDecision(protoChanged: Boolean, constantsChanged: Boolean, inlinesChanged: Boolean) =
-            when {
-                inlinesChanged -> RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS
-                constantsChanged -> RECOMPILE_OTHER_IN_CHUNK_AND_DEPENDANTS
-                protoChanged -> RECOMPILE_OTHER_KOTLIN_IN_CHUNK
-                else -> DO_NOTHING
+    // Source files which may refer to anything changed according to the given decision
+    public fun getFilesAffectedBy(decision: RecompilationDecision): Set<File> {
+        val result = HashSet<File>()
+
+        for (internalName in decision.changedClasses) {
+            val fqName = JvmClassName.byInternalName(internalName).getFqNameForClassNameWithoutDollars()
+            if (PackageClassUtils.isPackageClassFqName(fqName)) {
+                result.addAll(lookupMap.getSources(fqName.parent().asString()))
+            }
+            else {
+                result.addAll(lookupMap.getSources(fqName.parent().asString(), fqName.shortName().asString()))
+                result.addAll(lookupMap.getSources(fqName.asString()))
             }
+        }
+
+        for ((internalName, names) in decision.changedMembers) {
+            val fqName = JvmClassName.byInternalName(internalName).getFqNameForClassNameWithoutDollars()
+            val scope = if (PackageClassUtils.isPackageClassFqName(fqName)) fqName.parent() else fqName
+            for (name in names) {
+                result.addAll(lookupMap.getSources(scope.asString(), name))
+            }
+        }
+
+        return result
+    }
+
+    private fun getRecompilationDecision(
+            className: JvmClassName,
+            protoDifference: ProtoDifference,
+            constantsChanged: Boolean,
+            inlinesChanged: Boolean
+    ): RecompilationDecision {
+        val kind = when {
+            inlinesChanged -> RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS
+            constantsChanged -> RECOMPILE_OTHER_IN_CHUNK_AND_DEPENDANTS
+            !protoDifference.isEmpty() -> RECOMPILE_OTHER_KOTLIN_IN_CHUNK
+            else -> DO_NOTHING
+        }
+        if (kind == DO_NOTHING) return RecompilationDecision.DO_NOTHING
+
+        val internalName = className.getInternalName()
+        return RecompilationDecision(
+                kind,
+                if (protoDifference.classSignatureChanged) setOf(internalName) else setOf(),
+                if (protoDifference.changedMembers.isEmpty()) mapOf() else mapOf(internalName to protoDifference.changedMembers)
+        )
+    }
 
     public fun saveFileToCache(sourceFiles: Collection<File>, kotlinClass: LocalFileKotlinClass): RecompilationDecision {
         cacheFormatVersion.saveIfNeeded()
 
-        val fileBytes = kotlinClass.getFileContents()
         val className = JvmClassName.byClassId(kotlinClass.getClassId())
         val header = kotlinClass.getClassHeader()
 
@@ -138,15 +195,17 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
         return when {
             header.isCompatiblePackageFacadeKind() ->
                 getRecompilationDecision(
-                        protoChanged = protoMap.put(className, BitEncoding.decodeBytes(header.annotationData)),
+                        className,
+                        protoDifference = protoMap.put(className, BitEncoding.decodeBytes(header.annotationData), isPackageFacade = true),
                         constantsChanged = false,
                         inlinesChanged = false
                 )
             header.isCompatibleClassKind() ->
                 getRecompilationDecision(
-                        protoChanged = protoMap.put(className, BitEncoding.decodeBytes(header.annotationData)),
-                        constantsChanged = constantsMap.process(className, fileBytes),
-                        inlinesChanged = inlineFunctionsMap.process(className, fileBytes)
+                        className,
+                        protoDifference = protoMap.put(className, BitEncoding.decodeBytes(header.annotationData), isPackageFacade = false),
+                        constantsChanged = constantsMap.process(className, kotlinClass.constantsMap),
+                        inlinesChanged = inlineFunctionsMap.process(className, kotlinClass.inlineFunctionsMap)
                 )
             header.syntheticClassKind == JvmAnnotationNames.KotlinSyntheticClass.Kind.PACKAGE_PART -> {
                 assert(sourceFiles.size() == 1) { "Package part from several source files: $sourceFiles" }
@@ -154,24 +213,27 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
                 packagePartMap.addPackagePart(className)
 
                 getRecompilationDecision(
-                        protoChanged = false,
-                        constantsChanged = constantsMap.process(className, fileBytes),
-                        inlinesChanged = inlineFunctionsMap.process(className, fileBytes)
+                        className,
+                        protoDifference = ProtoDifference.NONE,
+                        constantsChanged = constantsMap.process(className, kotlinClass.constantsMap),
+                        inlinesChanged = inlineFunctionsMap.process(className, kotlinClass.inlineFunctionsMap)
                 )
             }
             else -> {
-                DO_NOTHING
+                RecompilationDecision.DO_NOTHING
             }
         }
     }
 
     public fun clearCacheForRemovedClasses(): RecompilationDecision {
-        var recompilationDecision = DO_NOTHING
+        var recompilationDecision = RecompilationDecision.DO_NOTHING
         for (internalClassName in dirtyOutputClassesMap.getDirtyOutputClasses()) {
             val className = JvmClassName.byInternalName(internalClassName)
 
             val newDecision = getRecompilationDecision(
-                    protoChanged = internalClassName in protoMap,
+                    className,
+                    // Everything declared in a removed class is gone, which is reported as a change of the class itself
+                    protoDifference = if (internalClassName in protoMap) ProtoDifference.CLASS_SIGNATURE else ProtoDifference.NONE,
                     constantsChanged = internalClassName in constantsMap,
                     inlinesChanged = internalClassName in inlineFunctionsMap
             )
@@ -273,14 +335,25 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
                 ByteArrayExternalizer
         )
 
-        public fun put(className: JvmClassName, data: ByteArray): Boolean {
+        public fun put(className: JvmClassName, data: ByteArray, isPackageFacade: Boolean): ProtoDifference {
             val key = className.getInternalName()
             val oldData = storage[key]
+            if (oldData == null) {
+                storage.put(key, data)
+                return ProtoDifference.CLASS_SIGNATURE
+            }
             if (Arrays.equals(data, oldData)) {
-                return false
+                return ProtoDifference.NONE
             }
             storage.put(key, data)
-            return true
+
+            return try {
+                difference(oldData, data, isPackageFacade)
+            }
+            catch (e: Exception) {
+                // Data which can't be compared is considered completely changed
+                ProtoDifference.CLASS_SIGNATURE
+            }
         }
 
         public fun get(className: JvmClassName): ByteArray? {
@@ -303,24 +376,8 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
                 ConstantsMapExternalizer
         )
 
-        private fun getConstantsMap(bytes: ByteArray): Map<String, Any>? {
-            val result = HashMap<String, Any>()
-
-            ClassReader(bytes).accept(object : ClassVisitor(Opcodes.ASM5) {
-                override fun visitField(access: Int, name: String, desc: String, signature: String?, value: Any?): FieldVisitor? {
-                    val staticFinal = Opcodes.ACC_STATIC or Opcodes.ACC_FINAL
-                    if (value != null && access and staticFinal == staticFinal) {
-                        result[name] = value
-                    }
-                    return null
-                }
-            }, ClassReader.SKIP_CODE or ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
-
-            return if (result.isEmpty()) null else result
-        }
-
-        public fun process(className: JvmClassName, bytes: ByteArray): Boolean {
-            return put(className, getConstantsMap(bytes))
+        public fun process(className: JvmClassName, constantsMap: Map<String, Any>?): Boolean {
+            return put(className, constantsMap)
         }
 
         private fun put(className: JvmClassName, constantsMap: Map<String, Any>?): Boolean {
@@ -422,40 +479,8 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
                 InlineFunctionsMapExternalizer
         )
 
-        private fun getInlineFunctionsMap(bytes: ByteArray): Map<String, Long>? {
-            val result = HashMap<String, Long>()
-
-            ClassReader(bytes).accept(object : ClassVisitor(Opcodes.ASM5) {
-                override fun visitMethod(access: Int, name: String, desc: String, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
-                    val dummyClassWriter = ClassWriter(Opcodes.ASM5)
-                    return object : MethodVisitor(Opcodes.ASM5, dummyClassWriter.visitMethod(0, name, desc, null, exceptions)) {
-                        var hasInlineAnnotation = false
-
-                        override fun visitAnnotation(desc: String, visible: Boolean): AnnotationVisitor? {
-                            if (desc == INLINE_ANNOTATION_DESC) {
-                                hasInlineAnnotation = true
-                            }
-                            return null
-                        }
-
-                        override fun visitEnd() {
-                            if (hasInlineAnnotation) {
-                                val dummyBytes = dummyClassWriter.toByteArray()!!
-                                val hash = dummyBytes.md5()
-
-                                result[name + desc] = hash
-                            }
-                        }
-                    }
-                }
-
-            }, 0)
-
-            return if (result.isEmpty()) null else result
-        }
-
-        public fun process(className: JvmClassName, bytes: ByteArray): Boolean {
-            return put(className, getInlineFunctionsMap(bytes))
+        public fun process(className: JvmClassName, inlineFunctionsMap: Map<String, Long>?): Boolean {
+            return put(className, inlineFunctionsMap)
         }
 
         private fun put(className: JvmClassName, inlineFunctionsMap: Map<String, Long>?): Boolean {
@@ -561,6 +586,63 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
         override fun dumpValue(value: List<String>) = value.toString()
     }
 
+    // Scope -> names looked up in the scope, each with the path of the source file where it was looked up
+    private inner class LookupMap : BasicMap<List<LookupSource>>() {
+        override fun createMap(): PersistentHashMap<String, List<LookupSource>> = PersistentHashMap(
+                File(baseDir, LOOKUPS),
+                EnumeratorStringDescriptor(),
+                LookupSourceListExternalizer
+        )
+
+        public fun addSource(scope: String, names: List<String>, sourceFile: File) {
+            val path = sourceFile.getAbsolutePath()
+            storage.appendData(scope, { out -> names.forEach { LookupSourceListExternalizer.save(out, LookupSource(it, path)) } })
+        }
+
+        public fun removeSource(scope: String, sourceFile: File) {
+            val sources = storage[scope] ?: return
+            val remaining = sources.filter { it.path != sourceFile.getAbsolutePath() }
+            if (remaining.isEmpty()) {
+                storage.remove(scope)
+            }
+            else {
+                storage.put(scope, remaining)
+            }
+        }
+
+        public fun getSources(scope: String, name: String): Collection<File> {
+            return storage[scope].orEmpty().filter { it.name == name }.map { File(it.path) }
+        }
+
+        public fun getSources(scope: String): Collection<File> {
+            return storage[scope].orEmpty().map { File(it.path) }
+        }
+
+        override fun dumpValue(value: List<LookupSource>) = value.map { "${it.name} in ${it.path}" }.sort().toString()
+    }
+
+    private inner class SourceToLookupsMap : BasicMap<List<String>>() {
+        override fun createMap(): PersistentHashMap<String, List<String>> = PersistentHashMap(
+                File(baseDir, SOURCE_TO_LOOKUPS),
+                EnumeratorStringDescriptor(),
+                StringListExternalizer
+        )
+
+        public fun setLookups(sourceFile: File, scopes: List<String>) {
+            storage.put(sourceFile.getAbsolutePath(), scopes)
+        }
+
+        public fun clearLookupsForSource(sourceFile: File) {
+            storage.remove(sourceFile.getAbsolutePath())
+        }
+
+        public fun get(sourceFile: File): List<String> {
+            return storage[sourceFile.getAbsolutePath()].orEmpty()
+        }
+
+        override fun dumpValue(value: List<String>) = value.toString()
+    }
+
     private inner class DirtyOutputClassesMap : BasicMap<Boolean>() {
         override fun createMap(): PersistentHashMap<String, Boolean> = PersistentHashMap(
                 File(baseDir, DIRTY_OUTPUT_CLASSES),
@@ -587,16 +669,43 @@ public class IncrementalCacheImpl(targetDataRoot: File) : StorageOwner, Incremen
         override fun dumpValue(value: Boolean) = ""
     }
 
-    enum class RecompilationDecision {
+    enum class RecompilationKind {
         DO_NOTHING,
         RECOMPILE_OTHER_KOTLIN_IN_CHUNK,
         RECOMPILE_OTHER_IN_CHUNK_AND_DEPENDANTS,
         RECOMPILE_ALL_IN_CHUNK_AND_DEPENDANTS;
 
-        fun merge(other: RecompilationDecision): RecompilationDecision {
+        fun merge(other: RecompilationKind): RecompilationKind {
             return if (other.ordinal() > this.ordinal()) other else this
         }
     }
+
+    // Besides the kind of recompilation needed, lists what exactly has changed in the ABI (classes are identified by internal names):
+    // classes whose own signature has changed or which were added or removed, and names of changed members of other classes
+    class RecompilationDecision(
+            val kind: RecompilationKind,
+            val changedClasses: Set<String> = setOf(),
+            val changedMembers: Map<String, Set<String>> = mapOf()
+    ) {
+        fun merge(other: RecompilationDecision): RecompilationDecision {
+            if (other.kind == RecompilationKind.DO_NOTHING) return this
+            if (kind == RecompilationKind.DO_NOTHING) return other
+
+            val members = HashMap<String, MutableSet<String>>()
+            for (map in listOf(changedMembers, other.changedMembers)) {
+                for ((className, names) in map) {
+                    members.getOrPut(className) { HashSet() }.addAll(names)
+                }
+            }
+            return RecompilationDecision(kind.merge(other.kind), changedClasses + other.changedClasses, members)
+        }
+
+        override fun toString(): String = "$kind, changed classes: $changedClasses, changed members: $changedMembers"
+
+        companion object {
+            val DO_NOTHING = RecompilationDecision(RecompilationKind.DO_NOTHING)
+        }
+    }
 }
 
 private val storageProvider = object : StorageProvider<IncrementalCacheImpl>() {
@@ -609,7 +718,9 @@ public fun BuildDataPaths.getKotlinCacheVersion(target: BuildTarget<*>): CacheFo
 
 public fun BuildDataManager.getKotlinCache(target: BuildTarget<*>): IncrementalCacheImpl = getStorage(target, storageProvider)
 
-private fun ByteArray.md5(): Long {
+private data class LookupSource(val name: String, val path: String)
+
+internal fun ByteArray.md5(): Long {
     val d = MessageDigest.getInstance("MD5").digest(this)!!
     return ((d[0].toLong() and 0xFFL)
             or ((d[1].toLong() and 0xFFL) shl 8)
@@ -636,6 +747,26 @@ private object ByteArrayExternalizer : DataExternalizer<ByteArray> {
     }
 }
 
+// Sources are appended to the stored value one by one, so there is no length prefix
+private object LookupSourceListExternalizer : DataExternalizer<List<LookupSource>> {
+    override fun save(out: DataOutput, value: List<LookupSource>) {
+        value.forEach { save(out, it) }
+    }
+
+    fun save(out: DataOutput, source: LookupSource) {
+        IOUtil.writeUTF(out, source.name)
+        IOUtil.writeUTF(out, source.path)
+    }
+
+    override fun read(`in`: DataInput): List<LookupSource> {
+        val result = ArrayList<LookupSource>()
+        while ((`in` as DataInputStream).available() > 0) {
+            result.add(LookupSource(IOUtil.readUTF(`in`), IOUtil.readUTF(`in`)))
+        }
+        return result
+    }
+}
+
 private object StringListExternalizer : DataExternalizer<List<String>> {
     override fun save(out: DataOutput, value: List<String>) {
         value.forEach { IOUtil.writeUTF(out, it) }
@@ -16,27 +16,48 @@
 
 package org.jetbrains.kotlin.jps.incremental
 
+import org.jetbrains.kotlin.load.java.JvmAnnotationNames
 import org.jetbrains.kotlin.load.kotlin.FileBasedKotlinClass
 import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader
+import org.jetbrains.kotlin.load.kotlin.header.isCompatibleClassKind
 import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.org.objectweb.asm.*
 import java.io.File
+import java.util.HashMap
 
 class LocalFileKotlinClass private(
         private val file: File,
         private val fileContents: ByteArray,
         className: ClassId,
         classHeader: KotlinClassHeader,
-        innerClasses: FileBasedKotlinClass.InnerClassesInfo
+        innerClasses: FileBasedKotlinClass.InnerClassesInfo,
+        // Data for the incremental cache, null if there's none or the cache doesn't need it for classes of this kind
+        val constantsMap: Map<String, Any>?,
+        val inlineFunctionsMap: Map<String, Long>?
 ) : FileBasedKotlinClass(className, classHeader, innerClasses) {
 
     companion object {
+        // Reads the header together with the data needed by the incremental cache in a single pass over the class file
         fun create(file: File): LocalFileKotlinClass? {
             val fileContents = file.readBytes()
-            return FileBasedKotlinClass.create(fileContents) {
+            var collector: CacheDataCollector? = null
+            return FileBasedKotlinClass.create(
+                    fileContents,
+                    { header: KotlinClassHeader? ->
+                        if (header != null && header.needsCacheData()) {
+                            collector = CacheDataCollector()
+                        }
+                        collector
+                    }
+            ) {
                 className, classHeader, innerClasses ->
-                LocalFileKotlinClass(file, fileContents, className, classHeader, innerClasses)
+                LocalFileKotlinClass(file, fileContents, className, classHeader, innerClasses,
+                                     collector?.getConstantsMap(), collector?.getInlineFunctionsMap())
             }
         }
+
+        private fun KotlinClassHeader.needsCacheData(): Boolean =
+                isCompatibleClassKind() || syntheticClassKind == JvmAnnotationNames.KotlinSyntheticClass.Kind.PACKAGE_PART
     }
 
     override fun getLocation() = file.getAbsolutePath()
@@ -47,3 +68,42 @@ class LocalFileKotlinClass private(
     override fun equals(other: Any?): Boolean = other is LocalFileKotlinClass && file == other.file
     override fun toString(): String = "$javaClass: $file"
 }
+
+// Collects static final fields with constant values and hashes of inline function bodies
+private class CacheDataCollector : ClassVisitor(Opcodes.ASM5) {
+    private val constants = HashMap<String, Any>()
+    private val inlineFunctions = HashMap<String, Long>()
+
+    fun getConstantsMap(): Map<String, Any>? = if (constants.isEmpty()) null else constants
+
+    fun getInlineFunctionsMap(): Map<String, Long>? = if (inlineFunctions.isEmpty()) null else inlineFunctions
+
+    override fun visitField(access: Int, name: String, desc: String, signature: String?, value: Any?): FieldVisitor? {
+        val staticFinal = Opcodes.ACC_STATIC or Opcodes.ACC_FINAL
+        if (value != null && access and staticFinal == staticFinal) {
+            constants[name] = value
+        }
+        return null
+    }
+
+    override fun visitMethod(access: Int, name: String, desc: String, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+        val dummyClassWriter = ClassWriter(Opcodes.ASM5)
+        return object : MethodVisitor(Opcodes.ASM5, dummyClassWriter.visitMethod(0, name, desc, null, exceptions)) {
+            var hasInlineAnnotation = false
+
+            override fun visitAnnotation(desc: String, visible: Boolean): AnnotationVisitor? {
+                if (desc == INLINE_ANNOTATION_DESC) {
+                    hasInlineAnnotation = true
+                }
+                return null
+            }
+
+            override fun visitEnd() {
+                if (hasInlineAnnotation) {
+                    val dummyBytes = dummyClassWriter.toByteArray()!!
+                    inlineFunctions[name + desc] = dummyBytes.md5()
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.incremental
+
+import com.intellij.openapi.util.io.FileUtil
+import org.jetbrains.kotlin.incremental.components.LookupTracker
+import java.io.File
+import java.util.HashMap
+import java.util.HashSet
+
+data class LookupSymbol(val scope: String, val name: String)
+
+// Collects lookups reported by the compiler during one build round, they are saved to the caches of the targets after compilation
+public class LookupTrackerImpl : LookupTracker {
+    private val lookups = HashMap<String, MutableSet<LookupSymbol>>()
+
+    override fun record(lookupContainingFile: String, scopeFqName: String, name: String) {
+        synchronized(lookups) {
+            lookups.getOrPut(FileUtil.toSystemIndependentName(lookupContainingFile)) { HashSet() }.add(LookupSymbol(scopeFqName, name))
+        }
+    }
+
+    public fun getLookups(sourceFile: File): Set<LookupSymbol> {
+        synchronized(lookups) {
+            return lookups[FileUtil.toSystemIndependentName(sourceFile.getAbsolutePath())].orEmpty()
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.incremental
+
+import org.jetbrains.kotlin.serialization.ClassData
+import org.jetbrains.kotlin.serialization.Flags
+import org.jetbrains.kotlin.serialization.PackageData
+import org.jetbrains.kotlin.serialization.ProtoBuf
+import org.jetbrains.kotlin.serialization.deserialization.NameResolver
+import org.jetbrains.kotlin.serialization.jvm.JvmProtoBuf
+import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil
+import java.util.HashMap
+import java.util.HashSet
+
+// Difference in ABI between two versions of serialized class or package data.
+// Private members of classes and changes which don't affect signatures (e.g. order of members) are ignored.
+// Private top-level members are not ignored, since they are visible to other files of the same package
+class ProtoDifference(
+        // true if something except members has changed: supertypes, type parameters, modality, nested classes, etc.
+        val classSignatureChanged: Boolean,
+        // names of members which were added, removed or whose signature has changed
+        val changedMembers: Set<String>
+) {
+    fun isEmpty(): Boolean = !classSignatureChanged && changedMembers.isEmpty()
+
+    companion object {
+        val NONE = ProtoDifference(false, setOf())
+        val CLASS_SIGNATURE = ProtoDifference(true, setOf())
+    }
+}
+
+fun difference(oldData: ByteArray, newData: ByteArray, isPackageFacade: Boolean): ProtoDifference {
+    if (isPackageFacade) {
+        val oldPackage = JvmProtoBufUtil.readPackageDataFrom(oldData)
+        val newPackage = JvmProtoBufUtil.readPackageDataFrom(newData)
+        return ProtoDifference(false, membersDifference(oldPackage.memberSignatures(), newPackage.memberSignatures()))
+    }
+
+    val oldClass = ClassData.read(oldData, JvmProtoBufUtil.EXTENSION_REGISTRY)
+    val newClass = ClassData.read(newData, JvmProtoBufUtil.EXTENSION_REGISTRY)
+    return ProtoDifference(
+            oldClass.classSignature() != newClass.classSignature(),
+            membersDifference(oldClass.memberSignatures(), newClass.memberSignatures())
+    )
+}
+
+private fun membersDifference(oldMembers: Map<String, Set<String>>, newMembers: Map<String, Set<String>>): Set<String> {
+    val result = HashSet<String>()
+    for (name in oldMembers.keySet() + newMembers.keySet()) {
+        if (oldMembers[name] != newMembers[name]) {
+            result.add(name)
+        }
+    }
+    return result
+}
+
+private fun PackageData.memberSignatures(): Map<String, Set<String>> =
+        SignatureRenderer(getNameResolver()).memberSignatures(getPackageProto().getMemberList(), skipPrivate = false)
+
+private fun ClassData.memberSignatures(): Map<String, Set<String>> =
+        SignatureRenderer(getNameResolver()).memberSignatures(getClassProto().getMemberList(), skipPrivate = true)
+
+private fun ClassData.classSignature(): String {
+    val proto = getClassProto()
+    val renderer = SignatureRenderer(getNameResolver())
+    with(renderer) {
+        append("flags=${proto.getFlags()} ${fqName(proto.getFqName())}")
+        if (proto.hasCompanionObjectName()) append(" companion=${string(proto.getCompanionObjectName())}")
+        renderTypeParameters(proto.getTypeParameterList())
+        append(" :")
+        proto.getSupertypeList().forEach { append(" "); renderType(it) }
+        append(" nested=")
+        append(proto.getNestedClassNameList().map { string(it) }.sort().toString())
+        append(" entries=")
+        append(proto.getEnumEntryList().map { string(it) }.toString())
+        if (proto.hasPrimaryConstructor()) {
+            append(" primary=")
+            val primary = proto.getPrimaryConstructor()
+            if (primary.hasData() && !primary.getData().isPrivate()) renderCallable(primary.getData())
+        }
+        append(" secondary=")
+        proto.getSecondaryConstructorList().filter { !it.isPrivate() }.map { SignatureRenderer(getNameResolver()).render(it) }.sort()
+                .forEach { append(it).append(";") }
+    }
+    return renderer.toString()
+}
+
+private fun ProtoBuf.Callable.isPrivate(): Boolean {
+    val visibility = Flags.VISIBILITY.get(getFlags())
+    return visibility == ProtoBuf.Visibility.PRIVATE || visibility == ProtoBuf.Visibility.PRIVATE_TO_THIS ||
+           visibility == ProtoBuf.Visibility.LOCAL
+}
+
+// Renders signatures with all the string table references resolved, so that they can be compared between different versions of data
+private class SignatureRenderer(private val nameResolver: NameResolver) {
+    private val sb = StringBuilder()
+
+    fun memberSignatures(members: List<ProtoBuf.Callable>, skipPrivate: Boolean): Map<String, Set<String>> {
+        val result = HashMap<String, MutableSet<String>>()
+        for (member in members) {
+            if (skipPrivate && member.isPrivate()) continue
+            val name = string(member.getName())
+            result.getOrPut(name) { HashSet() }.add(SignatureRenderer(nameResolver).render(member))
+        }
+        return result
+    }
+
+    fun render(callable: ProtoBuf.Callable): String {
+        renderCallable(callable)
+        return toString()
+    }
+
+    fun append(s: String): SignatureRenderer {
+        sb.append(s)
+        return this
+    }
+
+    fun string(id: Int): String = nameResolver.getString(id)
+
+    fun fqName(id: Int): String = nameResolver.getClassId(id).asString()
+
+    fun renderCallable(callable: ProtoBuf.Callable) {
+        append("flags=${callable.getFlags()}")
+        if (callable.hasGetterFlags()) append(" getter=${callable.getGetterFlags()}")
+        if (callable.hasSetterFlags()) append(" setter=${callable.getSetterFlags()}")
+        renderTypeParameters(callable.getTypeParameterList())
+        if (callable.hasReceiverType()) {
+            append(" ")
+            renderType(callable.getReceiverType())
+            append(".")
+        }
+        append(" ").append(string(callable.getName())).append("(")
+        for (parameter in callable.getValueParameterList()) {
+            append("flags=${parameter.getFlags()} ${string(parameter.getName())}: ")
+            renderType(parameter.getType())
+            if (parameter.hasVarargElementType()) {
+                append(" vararg ")
+                renderType(parameter.getVarargElementType())
+            }
+            append(", ")
+        }
+        append("): ")
+        renderType(callable.getReturnType())
+
+        // JVM signatures define how the member is called from the bytecode
+        if (callable.hasExtension(JvmProtoBuf.methodSignature)) {
+            append(" method=")
+            renderMethodSignature(callable.getExtension(JvmProtoBuf.methodSignature))
+        }
+        if (callable.hasExtension(JvmProtoBuf.propertySignature)) {
+            val signature = callable.getExtension(JvmProtoBuf.propertySignature)
+            if (signature.hasField()) {
+                val field = signature.getField()
+                append(" field=${string(field.getName())}:")
+                renderJvmType(field.getType())
+                if (field.getIsStaticInOuter()) append(" static-in-outer")
+            }
+            if (signature.hasSyntheticMethod()) {
+                append(" synthetic=")
+                renderMethodSignature(signature.getSyntheticMethod())
+            }
+            if (signature.hasGetter()) {
+                append(" getter=")
+                renderMethodSignature(signature.getGetter())
+            }
+            if (signature.hasSetter()) {
+                append(" setter=")
+                renderMethodSignature(signature.getSetter())
+            }
+        }
+    }
+
+    fun renderTypeParameters(typeParameters: List<ProtoBuf.TypeParameter>) {
+        if (typeParameters.isEmpty()) return
+
+        append(" <")
+        for (typeParameter in typeParameters) {
+            append("${typeParameter.getId()} ${typeParameter.getVariance()} ")
+            if (typeParameter.getReified()) append("reified ")
+            append(string(typeParameter.getName())).append(" :")
+            typeParameter.getUpperBoundList().forEach { append(" "); renderType(it) }
+            append(", ")
+        }
+        append(">")
+    }
+
+    fun renderType(type: ProtoBuf.Type) {
+        val constructor = type.getConstructor()
+        when (constructor.getKind()) {
+            ProtoBuf.Type.Constructor.Kind.CLASS -> append(fqName(constructor.getId()))
+            else -> append("T${constructor.getId()}")
+        }
+        if (type.getArgumentCount() > 0) {
+            append("<")
+            for (argument in type.getArgumentList()) {
+                append(argument.getProjection().toString())
+                if (argument.hasType()) {
+                    append(" ")
+                    renderType(argument.getType())
+                }
+                append(", ")
+            }
+            append(">")
+        }
+        if (type.getNullable()) append("?")
+        if (type.hasFlexibleTypeCapabilitiesId()) {
+            append(" flexible ${string(type.getFlexibleTypeCapabilitiesId())} ")
+            renderType(type.getFlexibleUpperBound())
+        }
+    }
+
+    fun renderMethodSignature(signature: JvmProtoBuf.JvmMethodSignature) {
+        append(string(signature.getName())).append("(")
+        signature.getParameterTypeList().forEach { renderJvmType(it); append(",") }
+        append(")")
+        renderJvmType(signature.getReturnType())
+    }
+
+    fun renderJvmType(type: JvmProtoBuf.JvmType) {
+        for (i in 1..type.getArrayDimension()) append("[")
+        if (type.hasPrimitiveType()) append(type.getPrimitiveType().toString())
+        else append(nameResolver.getFqName(type.getClassFqName()).asString())
+    }
+
+    override fun toString(): String = sb.toString()
+}
@@ -220,17 +220,28 @@ public abstract class AbstractIncrementalJpsTest : JpsBuildTestCase() {
     }
 
     protected fun doTest(testDataPath: String) {
+        val makeOverallResult = buildAndMakeAfterModifications(testDataPath)
+        checkMakeLog(File(testDataDir, "build.log"), makeOverallResult.log)
+
+        rebuildAndCheckOutput(makeOverallResult)
+        clearCachesRebuildAndCheckOutput(makeOverallResult)
+    }
+
+    protected open fun checkMakeLog(expectedLogFile: File, log: String) {
+        UsefulTestCase.assertSameLinesWithFile(expectedLogFile.getAbsolutePath(), log)
+    }
+
+    // Returns the log of builds made after modifications, without checking it
+    protected fun getMakeLog(testDataPath: String): String = buildAndMakeAfterModifications(testDataPath).log
+
+    private fun buildAndMakeAfterModifications(testDataPath: String): MakeResult {
         testDataDir = File(testDataPath)
         workDir = FileUtilRt.createTempDirectory(TEMP_DIRECTORY_TO_USE, "jps-build", null)
 
         val moduleNames = configureModules()
         initialMake()
 
-        val makeOverallResult = performModificationsAndMake(moduleNames)
-        UsefulTestCase.assertSameLinesWithFile(File(testDataDir, "build.log").getAbsolutePath(), makeOverallResult.log)
-
-        rebuildAndCheckOutput(makeOverallResult)
-        clearCachesRebuildAndCheckOutput(makeOverallResult)
+        return performModificationsAndMake(moduleNames)
     }
 
     private fun createMappingsDump(project: ProjectDescriptor) =
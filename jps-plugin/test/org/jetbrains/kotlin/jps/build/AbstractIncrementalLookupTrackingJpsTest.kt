@@ -0,0 +1,60 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.build
+
+import java.io.File
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+val LOOKUP_TRACKING_PROPERTY = "kotlin.incremental.lookups"
+
+// Source files from the "Compiling files:" sections of a make log, in order
+fun getCompiledFiles(log: String): List<String> {
+    val result = arrayListOf<String>()
+    var inCompiledFilesList = false
+    for (line in log.lines()) {
+        when {
+            line == "Compiling files:" -> inCompiledFilesList = true
+            line == "End of files" -> inCompiledFilesList = false
+            inCompiledFilesList -> result.add(line)
+        }
+    }
+    return result
+}
+
+// Runs the incremental scenarios with lookup tracking on. Expected logs are the ones made without tracking: with it, the same or
+// fewer files may be compiled, and the output still has to be the same as after rebuild
+public abstract class AbstractIncrementalLookupTrackingJpsTest : AbstractIncrementalJpsTest() {
+    override fun setUp() {
+        super.setUp()
+        System.setProperty(LOOKUP_TRACKING_PROPERTY, "true")
+    }
+
+    override fun tearDown() {
+        System.clearProperty(LOOKUP_TRACKING_PROPERTY)
+        super.tearDown()
+    }
+
+    override fun checkMakeLog(expectedLogFile: File, log: String) {
+        val expectedLog = expectedLogFile.readText()
+        assertEquals(expectedLog.contains(COMPILATION_FAILED), log.contains(COMPILATION_FAILED), log)
+
+        val expectedFiles = getCompiledFiles(expectedLog).toSet()
+        val compiledFiles = getCompiledFiles(log)
+        assertTrue(expectedFiles.containsAll(compiledFiles), "Files compiled with lookup tracking: $compiledFiles, without: $expectedFiles")
+    }
+}
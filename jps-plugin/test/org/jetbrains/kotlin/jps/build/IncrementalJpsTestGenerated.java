@@ -389,6 +389,24 @@ public class IncrementalJpsTestGenerated extends AbstractIncrementalJpsTest {
             doTest(fileName);
         }
 
+        @TestMetadata("privateClassMemberAdded")
+        public void testPrivateClassMemberAdded() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("jps-plugin/testData/incremental/pureKotlin/privateClassMemberAdded/");
+            doTest(fileName);
+        }
+
+        @TestMetadata("privateTopLevelFunctionAdded")
+        public void testPrivateTopLevelFunctionAdded() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("jps-plugin/testData/incremental/pureKotlin/privateTopLevelFunctionAdded/");
+            doTest(fileName);
+        }
+
+        @TestMetadata("privateTopLevelFunctionChanged")
+        public void testPrivateTopLevelFunctionChanged() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("jps-plugin/testData/incremental/pureKotlin/privateTopLevelFunctionChanged/");
+            doTest(fileName);
+        }
+
         @TestMetadata("propertyRedeclaration")
         public void testPropertyRedeclaration() throws Exception {
             String fileName = JetTestUtils.navigationMetadata("jps-plugin/testData/incremental/pureKotlin/propertyRedeclaration/");
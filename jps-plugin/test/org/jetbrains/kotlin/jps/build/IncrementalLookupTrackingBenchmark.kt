@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.build
+
+import junit.textui.TestRunner
+import java.io.File
+import kotlin.platform.platformStatic
+
+/**
+ * Runs incremental compilation scenarios from [IncrementalJpsTestGenerated] with and without lookup tracking
+ * and reports how many source files were compiled after each edit.
+ *
+ * Usage: IncrementalLookupTrackingBenchmark [directory with scenarios, jps-plugin/testData/incremental/pureKotlin by default]
+ */
+public class IncrementalLookupTrackingBenchmark : AbstractIncrementalJpsTest() {
+    companion object {
+        private var scenariosDir = File("jps-plugin/testData/incremental/pureKotlin")
+
+        platformStatic fun main(args: Array<String>) {
+            if (args.isNotEmpty()) {
+                scenariosDir = File(args[0])
+            }
+            val benchmark = IncrementalLookupTrackingBenchmark()
+            benchmark.setName("benchmarkFilesCompiledPerEdit")
+            TestRunner.run(benchmark)
+        }
+    }
+
+    public fun benchmarkFilesCompiledPerEdit() {
+        val scenarios = scenariosDir.listFiles { it.isDirectory() }!!.sortBy { it.getName() }
+
+        println("%-50s %10s %10s".format("scenario", "all files", "lookups"))
+        var totalWithoutLookups = 0
+        var totalWithLookups = 0
+        for (scenario in scenarios) {
+            val withoutLookups = countCompiledFiles(scenario, lookupTracking = false)
+            val withLookups = countCompiledFiles(scenario, lookupTracking = true)
+            println("%-50s %10d %10d".format(scenario.getName(), withoutLookups, withLookups))
+
+            totalWithoutLookups += withoutLookups
+            totalWithLookups += withLookups
+        }
+        println("%-50s %10d %10d".format("total", totalWithoutLookups, totalWithLookups))
+    }
+
+    private fun countCompiledFiles(scenario: File, lookupTracking: Boolean): Int {
+        if (lookupTracking) {
+            System.setProperty(LOOKUP_TRACKING_PROPERTY, "true")
+        }
+        try {
+            return getCompiledFiles(getMakeLog(scenario.getPath())).size()
+        }
+        finally {
+            System.clearProperty(LOOKUP_TRACKING_PROPERTY)
+            // Each scenario needs a fresh project
+            tearDown()
+            setUp()
+        }
+    }
+}
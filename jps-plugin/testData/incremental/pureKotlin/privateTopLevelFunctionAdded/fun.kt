@@ -0,0 +1,4 @@
+package test
+
+fun foo() {
+}
@@ -0,0 +1,3 @@
+package test
+
+private fun bar(): Int = 1
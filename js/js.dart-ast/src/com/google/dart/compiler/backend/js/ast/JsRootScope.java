@@ -26,7 +26,7 @@ public final class JsRootScope extends JsScope {
   }
 
   @Override
-  protected JsName findOwnName(@NotNull String ident) {
+  protected synchronized JsName findOwnName(@NotNull String ident) {
     JsName name = super.findOwnName(ident);
     if (name == null) {
         if (JsReservedIdentifiers.reservedGlobalSymbols.contains(ident)) {
@@ -4,15 +4,25 @@
 
 package com.google.dart.compiler.util;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 
 public class TextOutputImpl implements TextOutput {
+    private static final int FLUSH_THRESHOLD = 8192;
+
     private final boolean compact;
     private int identLevel = 0;
     private final static int indentGranularity = 2;
     private char[][] indents = new char[][] {new char[0]};
     private boolean justNewlined;
     private final StringBuilder out;
+    // If not null, the text is written there as soon as the buffer fills up, instead of being accumulated in memory
+    @Nullable
+    private final Writer writer;
     private int position = 0;
     private int line = 0;
     private int column = 0;
@@ -30,13 +40,44 @@ public class TextOutputImpl implements TextOutput {
     public TextOutputImpl(boolean compact) {
         this.compact = compact;
         out = new StringBuilder();
+        writer = null;
     }
 
+    public TextOutputImpl(@NotNull Writer writer, boolean compact) {
+        this.compact = compact;
+        this.writer = writer;
+        out = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    }
+
+    /**
+     * Returns the printed text. If the output is written to a {@link Writer}, only the text which hasn't been flushed yet is returned
+     */
     @Override
     public String toString() {
         return out.toString();
     }
 
+    /**
+     * Writes buffered text to the writer, if the output was created with one
+     */
+    public void flush() {
+        if (writer == null || out.length() == 0) return;
+
+        try {
+            writer.append(out);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        out.setLength(0);
+    }
+
+    private void maybeFlush() {
+        if (writer != null && out.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
     @Override
     public int getPosition() {
         return position;
@@ -78,6 +119,7 @@ public class TextOutputImpl implements TextOutput {
         line++;
         column = 0;
         justNewlined = true;
+        maybeFlush();
         if (outListener != null) {
             outListener.newLined();
         }
@@ -109,6 +151,7 @@ public class TextOutputImpl implements TextOutput {
     private void movePosition(int l) {
         position += l;
         column += l;
+        maybeFlush();
     }
 
     @Override
@@ -161,12 +204,14 @@ public class TextOutputImpl implements TextOutput {
         position += charSequence.length();
         column += charSequence.length();
         out.append(charSequence);
+        maybeFlush();
     }
 
     private void printAndCount(char[] chars) {
         position += chars.length;
         column += chars.length;
         out.append(chars);
+        maybeFlush();
     }
 
     @Override
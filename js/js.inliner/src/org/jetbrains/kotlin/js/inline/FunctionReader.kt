@@ -19,7 +19,6 @@ package org.jetbrains.kotlin.js.inline
 import com.google.dart.compiler.backend.js.ast.*
 import com.google.dart.compiler.backend.js.ast.metadata.inlineStrategy
 import com.google.gwt.dev.js.ThrowExceptionOnErrorReporter
-import com.intellij.openapi.util.io.FileUtil
 import com.intellij.util.containers.SLRUCache
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns
 import org.jetbrains.kotlin.descriptors.CallableDescriptor
@@ -33,53 +32,26 @@ import org.jetbrains.kotlin.js.translate.reference.CallExpressionTranslator
 import org.jetbrains.kotlin.js.translate.utils.JsDescriptorUtils.getExternalModuleName
 import org.jetbrains.kotlin.resolve.descriptorUtil.isExtension
 import org.jetbrains.kotlin.resolve.inline.InlineStrategy
-import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
-import org.jetbrains.kotlin.utils.LibraryUtils
 import org.jetbrains.kotlin.utils.sure
 import java.io.File
-import kotlin.platform.platformStatic
-
-// TODO: add hash checksum to defineModule?
-/**
- * Matches string like Kotlin.defineModule("stdlib", _)
- * Kotlin, _ can be renamed by minifier, quotes type can be changed too (" to ')
- */
-private val DEFINE_MODULE_PATTERN = "(\\w+)\\.defineModule\\(\\s*(['\"])(\\w+)\\2\\s*,\\s*(\\w+)\\s*\\)".toRegex()
 
 public class FunctionReader(private val context: TranslationContext) {
     /**
-     * Maps module name to .js file content, that contains this module definition.
+     * Maps module name to the definition of this module in a library .js file.
      * One file can contain more than one module definition.
      */
-    private val moduleJsDefinition = hashMapOf<String, String>()
-
-    /**
-     * Maps module name to variable, that is used to call functions inside module.
-     * The default variable is _, but it can be renamed by minifier.
-     */
-    private val moduleRootVariable = hashMapOf<String, String>()
-
-    /**
-     * Maps moduleName to kotlin object variable.
-     * The default variable is Kotlin, but it can be renamed by minifier.
-     */
-    private val moduleKotlinVariable = hashMapOf<String, String>()
+    private val moduleDefinitions = hashMapOf<String, JsModuleDefinition>()
 
     init {
         val config = context.getConfig() as LibrarySourcesConfig
         val libs = config.getLibraries().map { File(it) }
 
-        LibraryUtils.traverseJsLibraries(libs) { fileContent, path ->
-            val matcher = DEFINE_MODULE_PATTERN.toPattern().matcher(fileContent)
-
-            while (matcher.find()) {
-                val moduleName = matcher.group(3)
-                val moduleVariable = matcher.group(4)
-                val kotlinVariable = matcher.group(1)
-                assert(moduleName !in moduleJsDefinition) { "Module is defined in more, than one file" }
-                moduleJsDefinition[moduleName] = fileContent
-                moduleRootVariable[moduleName] = moduleVariable
-                moduleKotlinVariable[moduleName] = kotlinVariable
+        for (lib in libs) {
+            for (file in JsLibraryIndex.getFiles(lib)) {
+                for ((moduleName, definition) in file.modules) {
+                    assert(moduleName !in moduleDefinitions) { "Module is defined in more, than one file" }
+                    moduleDefinitions[moduleName] = definition
+                }
             }
         }
     }
@@ -92,7 +64,7 @@ public class FunctionReader(private val context: TranslationContext) {
     public fun contains(descriptor: CallableDescriptor): Boolean {
         val moduleName = getExternalModuleName(descriptor)
         val currentModuleName = context.getConfig().getModuleId()
-        return currentModuleName != moduleName && moduleName in moduleJsDefinition
+        return currentModuleName != moduleName && moduleName in moduleDefinitions
     }
 
     public fun get(descriptor: CallableDescriptor): JsFunction = functionCache.get(descriptor)
@@ -100,39 +72,28 @@ public class FunctionReader(private val context: TranslationContext) {
     private fun readFunction(descriptor: CallableDescriptor): JsFunction? {
         if (descriptor !in this) return null
 
-        val moduleName = getExternalModuleName(descriptor)
-        val file = moduleJsDefinition[moduleName].sure { "Module $moduleName file have not been read" }
-        val function = readFunctionFromSource(descriptor, file)
+        val moduleName = getExternalModuleName(descriptor)!!
+        val definition = moduleDefinitions[moduleName].sure { "Module $moduleName file have not been read" }
+        val function = readFunctionFromSource(descriptor, moduleName, definition)
         function?.markInlineArguments(descriptor)
         return function
     }
 
-    private fun readFunctionFromSource(descriptor: CallableDescriptor, source: String): JsFunction? {
-        val tag = Namer.getFunctionTag(descriptor)
-        val index = source.indexOf(tag)
-        if (index < 0) return null
+    private fun readFunctionFromSource(descriptor: CallableDescriptor, moduleName: String, definition: JsModuleDefinition): JsFunction? {
+        val offset = definition.file.getFunctionOffset(Namer.getFunctionTag(descriptor))
+        if (offset < 0) return null
 
-        // + 1 for closing quote
-        var offset = index + tag.length() + 1
-        while (offset < source.length() && source.charAt(offset).isWhitespaceOrComma) {
-            offset++
-        }
-
-        val function = parseFunction(source, offset, ThrowExceptionOnErrorReporter, JsRootScope(JsProgram("<inline>")))
-        val moduleName = getExternalModuleName(descriptor)!!
+        val function = parseFunction(definition.file.content, offset, ThrowExceptionOnErrorReporter, JsRootScope(JsProgram("<inline>")))
         val moduleNameLiteral = context.program().getStringLiteral(moduleName)
         val moduleReference =  context.namer().getModuleReference(moduleNameLiteral)
 
-        val replacements = hashMapOf(moduleRootVariable[moduleName] to moduleReference,
-                                     moduleKotlinVariable[moduleName] to Namer.KOTLIN_OBJECT_REF)
+        val replacements = hashMapOf(definition.rootVariable to moduleReference,
+                                     definition.kotlinVariable to Namer.KOTLIN_OBJECT_REF)
         replaceExternalNames(function, replacements)
         return function
     }
 }
 
-private val Char.isWhitespaceOrComma: Boolean
-    get() = this == ',' || this.isWhitespace()
-
 private fun JsFunction.markInlineArguments(descriptor: CallableDescriptor) {
     val params = descriptor.getValueParameters()
     val paramsJs = getParameters()
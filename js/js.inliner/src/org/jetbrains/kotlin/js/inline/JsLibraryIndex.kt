@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.inline
+
+import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
+import org.jetbrains.kotlin.utils.LibraryUtils
+import org.jetbrains.kotlin.utils.fileUtils.withReplacedExtensionOrNull
+import java.io.File
+import java.lang.ref.SoftReference
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.regex.Pattern
+
+/**
+ * Matches string like Kotlin.defineModule("stdlib", _)
+ * Kotlin, _ can be renamed by minifier, quotes type can be changed too (" to ')
+ */
+private val DEFINE_MODULE_PATTERN = Pattern.compile("(\\w+)\\.defineModule\\(\\s*(['\"])(\\w+)\\2\\s*,\\s*(\\w+)\\s*\\)")
+
+/**
+ * Matches a function tag followed by the function, like in defineInlineFunction('stdlib.kotlin.foo_za3rmp$', function (...) {...})
+ * The match ends right before the function
+ */
+private val FUNCTION_TAG_PATTERN = Pattern.compile("(['\"])([^'\"\\\\\\s]+)\\1\\s*,\\s*(?=function\\b)")
+
+class JsModuleDefinition(
+        val file: IndexedJsFile,
+        // Variable used to call functions inside module. The default variable is _, but it can be renamed by minifier
+        val rootVariable: String,
+        // Kotlin object variable. The default variable is Kotlin, but it can be renamed by minifier
+        val kotlinVariable: String
+)
+
+/**
+ * Content of a .js file from a library with offsets of inline functions in it, computed in one pass over the file
+ */
+class IndexedJsFile(val content: String) {
+    val modules: Map<String, JsModuleDefinition>
+    private val functionOffsets: Map<String, Int>
+
+    init {
+        val modules = HashMap<String, JsModuleDefinition>()
+        val moduleMatcher = DEFINE_MODULE_PATTERN.matcher(content)
+        while (moduleMatcher.find()) {
+            modules[moduleMatcher.group(3)] = JsModuleDefinition(this, moduleMatcher.group(4), moduleMatcher.group(1))
+        }
+        this.modules = modules
+
+        val functionOffsets = HashMap<String, Int>()
+        if (modules.isNotEmpty()) {
+            val tagMatcher = FUNCTION_TAG_PATTERN.matcher(content)
+            while (tagMatcher.find()) {
+                val tag = tagMatcher.group(2)
+                if (tag !in functionOffsets) {
+                    functionOffsets[tag] = tagMatcher.end()
+                }
+            }
+        }
+        this.functionOffsets = functionOffsets
+    }
+
+    /**
+     * Returns offset of the function with the given tag in [content] or -1 if there's no such function
+     */
+    fun getFunctionOffset(tag: String): Int {
+        val indexed = functionOffsets[tag]
+        if (indexed != null) return indexed
+
+        // Functions defined in an unusual way are not indexed, fall back to searching for the tag
+        val index = content.indexOf(tag)
+        if (index < 0) return -1
+
+        // + 1 for closing quote
+        var offset = index + tag.length() + 1
+        while (offset < content.length() && content.charAt(offset).let { it == ',' || it.isWhitespace() }) {
+            offset++
+        }
+        return offset
+    }
+}
+
+/**
+ * Indexed .js files of libraries, shared between compilations in this class loader.
+ * Jars and .js files are indexed once until they're modified, directories are indexed on each request.
+ * A foo.meta.js library is read along with foo.js, so it's indexed again when either of them is modified
+ */
+object JsLibraryIndex {
+    private data class FileStamp(val lastModified: Long, val length: Long)
+
+    private class CachedLibrary(val stamps: List<FileStamp>, files: List<IndexedJsFile>) {
+        val files = SoftReference(files)
+    }
+
+    private val cache = ConcurrentHashMap<File, CachedLibrary>()
+
+    fun getFiles(library: File): List<IndexedJsFile> {
+        if (!library.isFile()) return indexLibrary(library)
+
+        val key = library.getAbsoluteFile()
+        val stamps = getStamps(library)
+        val cached = cache[key]
+        if (cached != null && cached.stamps == stamps) {
+            val files = cached.files.get()
+            if (files != null) return files
+        }
+
+        val files = indexLibrary(library)
+        cache[key] = CachedLibrary(stamps, files)
+        return files
+    }
+
+    // The stamp of a missing companion file is zero, so that the library is indexed again when it appears
+    private fun getStamps(library: File): List<FileStamp> {
+        val companion = library.withReplacedExtensionOrNull(KotlinJavascriptMetadataUtils.META_JS_SUFFIX, KotlinJavascriptMetadataUtils.JS_EXT)
+        return listOf(library, companion).filterNotNull().map { FileStamp(it.lastModified(), it.length()) }
+    }
+
+    private fun indexLibrary(library: File): List<IndexedJsFile> {
+        val result = ArrayList<IndexedJsFile>()
+        LibraryUtils.traverseJsLibrary(library) { content, path ->
+            val file = IndexedJsFile(content)
+            if (file.modules.isNotEmpty()) {
+                result.add(file)
+            }
+        }
+        return result
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.inline.clean
+
+import com.google.dart.compiler.backend.js.ast.*
+import com.intellij.util.SmartList
+import org.jetbrains.kotlin.js.inline.util.IdentitySet
+import org.jetbrains.kotlin.js.inline.util.toIdentitySet
+import org.jetbrains.kotlin.js.translate.context.Namer
+import org.jetbrains.kotlin.js.translate.expression.InlineMetadata
+import java.util.HashMap
+import kotlin.text.Charsets
+
+/**
+ * @param removedBytes size of the removed declarations as they would be printed to the output, in UTF-8
+ */
+public class UnreachableDeclarationsStatistics(public val removedDeclarations: Int, public val removedBytes: Int)
+
+/**
+ * Removes package members which can't be reached from the code executed when the program is loaded
+ * (package initializers, main call, top-level properties and objects):
+ *  _.foo.bar = function() { ... }
+ *  _.foo.Baz = Kotlin.createClass(...)
+ *
+ * Members of reachable classes are never removed, since they can be called dynamically.
+ * The resulting program can't be used as a library, because its members can be referenced from other modules.
+ */
+public fun removeUnreachableDeclarations(program: JsProgram): UnreachableDeclarationsStatistics {
+    val removable = with(ReachableDeclarationsCollector()) {
+        collectCandidates(program)
+        accept(program)
+        removableDeclarations.toIdentitySet()
+    }
+
+    // Removable declarations are package members, so they are never nested in each other and each of them is printed once
+    val removedBytes = removable.sumBy { it.toString().toByteArray(Charsets.UTF_8).size() }
+    NodeRemover(javaClass<JsPropertyInitializer>()) { it in removable }.accept(program)
+
+    return UnreachableDeclarationsStatistics(removable.size(), removedBytes)
+}
+
+private class ReachableDeclarationsCollector : RecursiveJsVisitor() {
+    private val tracker = ReferenceTracker<JsName, JsPropertyInitializer>()
+    private val candidates = IdentitySet<JsPropertyInitializer>()
+    private val candidatesByIdent = HashMap<String, MutableList<JsName>>()
+    private var currentDeclaration: JsName? = null
+
+    public val removableDeclarations: List<JsPropertyInitializer>
+        get() = tracker.removable
+
+    public fun collectCandidates(program: JsProgram) {
+        object : RecursiveJsVisitor() {
+            override fun visitInvocation(invocation: JsInvocation) {
+                if (Namer.isPackageDefinition(invocation)) {
+                    val members = invocation.getArguments().last() as? JsObjectLiteral
+                    members?.getPropertyInitializers()?.forEach { addCandidateIfRemovable(it) }
+                }
+                super.visitInvocation(invocation)
+            }
+        }.accept(program)
+    }
+
+    private fun addCandidateIfRemovable(member: JsPropertyInitializer) {
+        val name = (member.getLabelExpr() as? JsNameRef)?.getName() ?: return
+        val value = member.getValueExpr()
+        if (value !is JsFunction && InlineMetadata.decompose(value) == null && !Namer.isClassOrTraitCreation(value)) return
+        if (candidatesByIdent[name.getIdent()]?.any { it === name } ?: false) return
+
+        tracker.addCandidateForRemoval(name, member)
+        candidates.add(member)
+        candidatesByIdent.getOrPut(name.getIdent()) { SmartList() }.add(name)
+    }
+
+    override fun visitPropertyInitializer(x: JsPropertyInitializer) {
+        if (x !in candidates) {
+            super.visitPropertyInitializer(x)
+            return
+        }
+
+        val outerDeclaration = currentDeclaration
+        currentDeclaration = (x.getLabelExpr() as JsNameRef).getName()
+        accept(x.getValueExpr())
+        currentDeclaration = outerDeclaration
+    }
+
+    override fun visitNameRef(nameRef: JsNameRef) {
+        val name = nameRef.getName()
+        if (name != null && candidatesByIdent[name.getIdent()]?.any { it === name } ?: false) {
+            addReference(name)
+        }
+        else {
+            // References from js() code and from parsed library functions are resolved by identifier only
+            candidatesByIdent[nameRef.getIdent()]?.forEach { addReference(it) }
+        }
+
+        super.visitNameRef(nameRef)
+    }
+
+    private fun addReference(referenced: JsName) {
+        val referrer = currentDeclaration
+        if (referrer != null) {
+            tracker.addRemovableReference(referrer, referenced)
+        }
+        else {
+            tracker.markReachable(referenced)
+        }
+    }
+}
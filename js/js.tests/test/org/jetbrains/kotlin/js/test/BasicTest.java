@@ -28,8 +28,6 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
-import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsPackage;
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
 import org.jetbrains.kotlin.config.CompilerConfiguration;
@@ -41,6 +39,7 @@ import org.jetbrains.kotlin.js.config.LibrarySourcesConfig;
 import org.jetbrains.kotlin.js.facade.K2JSTranslator;
 import org.jetbrains.kotlin.js.facade.MainCallParameters;
 import org.jetbrains.kotlin.js.facade.TranslationResult;
+import org.jetbrains.kotlin.js.inline.clean.UnreachableDeclarationsStatistics;
 import org.jetbrains.kotlin.js.test.rhino.RhinoResultChecker;
 import org.jetbrains.kotlin.js.test.utils.DirectiveTestUtils;
 import org.jetbrains.kotlin.js.test.utils.JsTestUtils;
@@ -57,6 +56,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static org.jetbrains.kotlin.js.inline.clean.CleanPackage.removeUnreachableDeclarations;
 import static org.jetbrains.kotlin.js.test.rhino.RhinoUtils.runRhinoTest;
 import static org.jetbrains.kotlin.js.test.utils.JsTestUtils.convertFileNameToDotJsFile;
 
@@ -197,10 +197,13 @@ public abstract class BasicTest extends KotlinTestWithEnvironment {
 
         TranslationResult.Success successResult = (TranslationResult.Success) translationResult;
 
-        OutputFileCollection outputFiles = successResult.getOutputFiles(outputFile, getOutputPrefixFile(), getOutputPostfixFile());
-        File outputDir = outputFile.getParentFile();
-        assert outputDir != null : "Parent file for output file should not be null, outputFilePath: " + outputFile.getPath();
-        OutputUtilsPackage.writeAllTo(outputFiles, outputDir);
+        if (shouldRemoveUnreachableDeclarations()) {
+            UnreachableDeclarationsStatistics statistics = removeUnreachableDeclarations(successResult.getProgram());
+            assertEquals("Size of removed code should be reported iff some declarations are removed",
+                         statistics.getRemovedDeclarations() > 0, statistics.getRemovedBytes() > 0);
+        }
+
+        successResult.writeOutputFiles(outputFile, getOutputPrefixFile(), getOutputPostfixFile());
 
         processJsProgram(successResult.getProgram(), jetFiles);
     }
@@ -225,6 +228,10 @@ public abstract class BasicTest extends KotlinTestWithEnvironment {
         return false;
     }
 
+    protected boolean shouldRemoveUnreachableDeclarations() {
+        return false;
+    }
+
     protected void processJsProgram(@NotNull JsProgram program, @NotNull List<JetFile> jetFiles) throws Exception {
         for (JetFile file : jetFiles) {
             String text = file.getText();
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test;
+
+import com.google.dart.compiler.backend.js.ast.*;
+import com.google.dart.compiler.util.TextOutputImpl;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.PairConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.js.sourceMap.JsSourceGenerationVisitor;
+import org.jetbrains.kotlin.js.sourceMap.SourceMap3Builder;
+import org.jetbrains.kotlin.js.sourceMap.SourceMapBuilder;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Measures wall time and peak heap usage of printing a big synthetic JS program with a source map
+ * to a string (as TranslationResult.getOutputFiles does) or directly to files (as TranslationResult.writeOutputFiles does).
+ * Each mode should be measured in a fresh JVM, for peak heap usage not to be affected by the other one.
+ *
+ * Usage: JsOutputStreamingBenchmark <number of functions> <memory|streaming>
+ */
+public class JsOutputStreamingBenchmark {
+    private static final PairConsumer<SourceMapBuilder, Object> SOURCE_INFO_CONSUMER = new PairConsumer<SourceMapBuilder, Object>() {
+        @Override
+        public void consume(SourceMapBuilder builder, Object sourceInfo) {
+            builder.addMapping("/src/file" + ((Integer) sourceInfo % 100) + ".kt", (Integer) sourceInfo, 4);
+        }
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: JsOutputStreamingBenchmark <number of functions> <memory|streaming>");
+            System.exit(1);
+        }
+
+        int functions = Integer.parseInt(args[0]);
+        boolean streaming = "streaming".equals(args[1]);
+
+        JsProgram program = createProgram(functions);
+        File tempDir = FileUtil.createTempDirectory("jsOutputBenchmark", null);
+        try {
+            File outputFile = new File(tempDir, "out.js");
+
+            System.gc();
+            long baseline = resetPeakHeapUsage();
+            long start = System.nanoTime();
+            if (streaming) {
+                writeStreaming(program, outputFile);
+            }
+            else {
+                writeInMemory(program, outputFile);
+            }
+            long time = (System.nanoTime() - start) / 1000000;
+            long peak = getPeakHeapUsage();
+
+            System.out.println(String.format("%s: %d ms, peak heap over baseline: %d MB, output: %d KB, source map: %d KB",
+                                             args[1], time, (peak - baseline) / (1024 * 1024), outputFile.length() / 1024,
+                                             SourceMap3Builder.getSourceMapFile(outputFile).length() / 1024));
+        }
+        finally {
+            FileUtil.delete(tempDir);
+        }
+    }
+
+    private static void writeInMemory(@NotNull JsProgram program, @NotNull File outputFile) throws IOException {
+        TextOutputImpl output = new TextOutputImpl();
+        SourceMap3Builder sourceMapBuilder = new SourceMap3Builder(outputFile, output, SOURCE_INFO_CONSUMER);
+        program.accept(new JsSourceGenerationVisitor(output, sourceMapBuilder));
+        FileUtil.writeToFile(outputFile, output.toString().getBytes());
+        FileUtil.writeToFile(sourceMapBuilder.getOutFile(), sourceMapBuilder.build().getBytes());
+    }
+
+    private static void writeStreaming(@NotNull JsProgram program, @NotNull File outputFile) throws IOException {
+        Writer codeWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile)));
+        Writer sourceMapWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(SourceMap3Builder.getSourceMapFile(outputFile))));
+        try {
+            TextOutputImpl output = new TextOutputImpl(codeWriter, false);
+            SourceMap3Builder sourceMapBuilder = new SourceMap3Builder(outputFile, output, SOURCE_INFO_CONSUMER, sourceMapWriter);
+            program.accept(new JsSourceGenerationVisitor(output, sourceMapBuilder));
+            output.flush();
+            sourceMapBuilder.finish();
+        }
+        finally {
+            codeWriter.close();
+            sourceMapWriter.close();
+        }
+    }
+
+    // function f<i>(a) { var x = g(a, <i>, "s<i>"); return x + a; }
+    @NotNull
+    private static JsProgram createProgram(int functions) {
+        JsProgram program = new JsProgram("benchmark");
+        JsScope scope = program.getRootScope();
+        for (int i = 0; i < functions; i++) {
+            JsFunction function = new JsFunction(scope, new JsBlock(), "f" + i);
+            JsName a = function.getScope().declareName("a");
+            JsName x = function.getScope().declareName("x");
+            function.getParameters().add(new JsParameter(a));
+
+            JsVars vars = new JsVars(new JsVars.JsVar(x, new JsInvocation(
+                    new JsNameRef("g"), new JsNameRef(a), program.getNumberLiteral(i), program.getStringLiteral("s" + i))));
+            vars.setSource(i);
+            JsReturn returnStatement = new JsReturn(new JsBinaryOperation(JsBinaryOperator.ADD, new JsNameRef(x), new JsNameRef(a)));
+            returnStatement.setSource(i + 1);
+            function.getBody().getStatements().add(vars);
+            function.getBody().getStatements().add(returnStatement);
+
+            JsExpressionStatement statement = new JsExpressionStatement(
+                    new JsBinaryOperation(JsBinaryOperator.ASG, new JsNameRef("f" + i, "_"), function));
+            statement.setSource(i);
+            program.getGlobalBlock().getStatements().add(statement);
+        }
+        return program;
+    }
+
+    private static long resetPeakHeapUsage() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
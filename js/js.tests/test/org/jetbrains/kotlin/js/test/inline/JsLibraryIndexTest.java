@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test.inline;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.kotlin.js.inline.IndexedJsFile;
+import org.jetbrains.kotlin.js.inline.JsLibraryIndex;
+import org.jetbrains.kotlin.js.inline.JsModuleDefinition;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.util.List;
+
+public final class JsLibraryIndexTest extends TestCaseWithTmpdir {
+    private static final String LIBRARY =
+            "(function (Kotlin) {\n" +
+            "  var _ = Kotlin.defineRootPackage(null, {\n" +
+            "    foo_za3lpa$: Kotlin.defineInlineFunction('stdlib.kotlin.foo_za3lpa$', function (x) {\n" +
+            "      return x;\n" +
+            "    }),\n" +
+            "    bar: Kotlin.defineInlineFunction(\"stdlib.kotlin.bar\",\n" +
+            "        function () {\n" +
+            "      return 'stdlib.kotlin.foo_za3lpa$';\n" +
+            "    }),\n" +
+            "    baz: Kotlin.defineInlineFunction('stdlib.kotlin.baz', (function () {\n" +
+            "      return 0;\n" +
+            "    }))\n" +
+            "  });\n" +
+            "  Kotlin.defineModule('stdlib', _);\n" +
+            "}(Kotlin));\n";
+
+    private static final String MINIFIED_LIBRARY =
+            "(function(K){var a=K.defineRootPackage(null,{q:K.defineInlineFunction(\"lib.q\",function(){return 1})});" +
+            "K.defineModule( \"lib\" , a );}(Kotlin));";
+
+    public void testModules() throws Exception {
+        IndexedJsFile file = new IndexedJsFile(LIBRARY);
+        assertEquals(1, file.getModules().size());
+
+        JsModuleDefinition module = file.getModules().get("stdlib");
+        assertNotNull(module);
+        assertSame(file, module.getFile());
+        assertEquals("_", module.getRootVariable());
+        assertEquals("Kotlin", module.getKotlinVariable());
+    }
+
+    public void testMinifiedModule() throws Exception {
+        IndexedJsFile file = new IndexedJsFile(MINIFIED_LIBRARY);
+
+        JsModuleDefinition module = file.getModules().get("lib");
+        assertNotNull(module);
+        assertEquals("a", module.getRootVariable());
+        assertEquals("K", module.getKotlinVariable());
+        assertEquals(MINIFIED_LIBRARY.indexOf("function(){return 1}"), file.getFunctionOffset("lib.q"));
+    }
+
+    public void testFunctionOffsets() throws Exception {
+        IndexedJsFile file = new IndexedJsFile(LIBRARY);
+
+        // The tag also occurs later in a string literal, the first occurrence followed by a function is used
+        assertEquals(LIBRARY.indexOf("function (x)"), file.getFunctionOffset("stdlib.kotlin.foo_za3lpa$"));
+        assertEquals(LIBRARY.indexOf("function () {\n      return 'stdlib"), file.getFunctionOffset("stdlib.kotlin.bar"));
+    }
+
+    public void testNotIndexedFunctionOffset() throws Exception {
+        IndexedJsFile file = new IndexedJsFile(LIBRARY);
+
+        // Not followed by a function, found by the tag itself
+        assertEquals(LIBRARY.indexOf("(function () {\n      return 0"), file.getFunctionOffset("stdlib.kotlin.baz"));
+        assertEquals(-1, file.getFunctionOffset("stdlib.kotlin.missing"));
+    }
+
+    public void testFileWithoutModules() throws Exception {
+        IndexedJsFile file = new IndexedJsFile("var Kotlin = {};\nfunction foo() {}\n");
+        assertTrue(file.getModules().isEmpty());
+    }
+
+    public void testFilesWithoutModulesAreSkipped() throws Exception {
+        File library = new File(tmpdir, "library");
+        FileUtil.writeToFile(new File(library, "stdlib.js"), LIBRARY);
+        FileUtil.writeToFile(new File(library, "plain.js"), "var x = 1;\n");
+
+        List<IndexedJsFile> files = JsLibraryIndex.INSTANCE$.getFiles(library);
+        assertEquals(1, files.size());
+        assertEquals(LIBRARY, files.get(0).getContent());
+    }
+
+    public void testIndexIsCachedUntilFileChanges() throws Exception {
+        File library = new File(tmpdir, "stdlib.js");
+        FileUtil.writeToFile(library, LIBRARY);
+
+        List<IndexedJsFile> files = JsLibraryIndex.INSTANCE$.getFiles(library);
+        assertEquals(1, files.size());
+        assertSame(files, JsLibraryIndex.INSTANCE$.getFiles(library));
+
+        FileUtil.writeToFile(library, MINIFIED_LIBRARY);
+        assertTrue(library.setLastModified(library.lastModified() + 10000));
+
+        List<IndexedJsFile> changed = JsLibraryIndex.INSTANCE$.getFiles(library);
+        assertNotSame(files, changed);
+        assertEquals(1, changed.size());
+        assertNotNull(changed.get(0).getModules().get("lib"));
+    }
+
+    public void testMetaJsLibraryIsIndexedAgainWhenJsFileChanges() throws Exception {
+        File library = new File(tmpdir, "stdlib.meta.js");
+        File jsFile = new File(tmpdir, "stdlib.js");
+        FileUtil.writeToFile(library, "// metadata\n");
+        FileUtil.writeToFile(jsFile, LIBRARY);
+
+        List<IndexedJsFile> files = JsLibraryIndex.INSTANCE$.getFiles(library);
+        assertEquals(1, files.size());
+        assertNotNull(files.get(0).getModules().get("stdlib"));
+        assertSame(files, JsLibraryIndex.INSTANCE$.getFiles(library));
+
+        FileUtil.writeToFile(jsFile, MINIFIED_LIBRARY);
+        assertTrue(jsFile.setLastModified(jsFile.lastModified() + 10000));
+
+        List<IndexedJsFile> changed = JsLibraryIndex.INSTANCE$.getFiles(library);
+        assertEquals(1, changed.size());
+        assertNotNull(changed.get(0).getModules().get("lib"));
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test.semantics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.js.facade.MainCallParameters;
+import org.jetbrains.kotlin.js.test.AbstractSingleFileTranslationWithDirectivesTest;
+import org.jetbrains.kotlin.js.test.rhino.RhinoFunctionResultChecker;
+
+public abstract class AbstractDeadCodeEliminationTest extends AbstractSingleFileTranslationWithDirectivesTest {
+    public AbstractDeadCodeEliminationTest() {
+        super("dce/");
+    }
+
+    @Override
+    protected boolean shouldRemoveUnreachableDeclarations() {
+        return true;
+    }
+
+    // Only the code executed when the program is loaded is reachable, so box is kept when it's called from main
+    @Override
+    protected void checkFooBoxIsOkByPath(@NotNull String filePath) throws Exception {
+        generateJavaScriptFiles(filePath, MainCallParameters.mainWithoutArguments(), DEFAULT_ECMA_VERSIONS);
+        runRhinoTests(getBaseName(filePath), DEFAULT_ECMA_VERSIONS,
+                      new RhinoFunctionResultChecker(TEST_MODULE, TEST_PACKAGE, TEST_FUNCTION, "OK"));
+    }
+}
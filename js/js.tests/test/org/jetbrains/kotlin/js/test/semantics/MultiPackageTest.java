@@ -61,5 +61,9 @@ public class MultiPackageTest extends MultipleFilesTranslationTest {
     public void testCreateClassFromOtherPackageUsingImport() throws Exception {
         runMultiFileTest("createClassFromOtherPackageUsingImport", "a.foo", TEST_FUNCTION, true);
     }
+
+    public void testPackagesTranslatedInParallel() throws Exception {
+        checkFooBoxIsTrue("packagesTranslatedInParallel");
+    }
 }
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test.semantics;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.js.config.EcmaVersion;
+import org.jetbrains.kotlin.js.test.MultipleFilesTranslationTest;
+import org.jetbrains.kotlin.js.translate.declaration.PackageDeclarationTranslator;
+
+import java.io.File;
+
+public class ParallelTranslationTest extends MultipleFilesTranslationTest {
+    private static final int RUNS = 5;
+
+    public ParallelTranslationTest() {
+        super("multiPackage/");
+    }
+
+    public void testPackagesTranslatedInParallel() throws Exception {
+        String dirName = "packagesTranslatedInParallel";
+
+        String serial = translate(dirName, 1);
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals("Serial translation should be stable", serial, translate(dirName, 1));
+        }
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals("Parallel translation should produce the same output as serial one", serial, translate(dirName, 4));
+        }
+
+        checkFooBoxIsTrue(dirName);
+    }
+
+    @NotNull
+    private String translate(@NotNull String dirName, int threads) throws Exception {
+        String oldValue = System.getProperty(PackageDeclarationTranslator.TRANSLATION_THREADS_PROPERTY);
+        System.setProperty(PackageDeclarationTranslator.TRANSLATION_THREADS_PROPERTY, String.valueOf(threads));
+        try {
+            generateJsFromDir(dirName, DEFAULT_ECMA_VERSIONS);
+        }
+        finally {
+            if (oldValue == null) {
+                System.clearProperty(PackageDeclarationTranslator.TRANSLATION_THREADS_PROPERTY);
+            }
+            else {
+                System.setProperty(PackageDeclarationTranslator.TRANSLATION_THREADS_PROPERTY, oldValue);
+            }
+        }
+        return FileUtil.loadFile(new File(getOutputFilePath(dirName, EcmaVersion.v5)));
+    }
+}
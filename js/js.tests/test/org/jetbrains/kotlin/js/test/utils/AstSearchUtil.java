@@ -43,6 +43,11 @@ public class AstSearchUtil {
         return property;
     }
 
+    @Nullable
+    public static JsExpression findProperty(@NotNull JsNode searchRoot, @NotNull String name) {
+        return findByIdent(collectJsProperties(searchRoot), name);
+    }
+
     @Nullable
     private static <T extends JsExpression> T findByIdent(@NotNull Map<JsName, T> properties, @NotNull String name) {
         for (Map.Entry<JsName, T> entry : properties.entrySet()) {
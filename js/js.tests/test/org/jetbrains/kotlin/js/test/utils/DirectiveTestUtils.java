@@ -160,6 +160,22 @@ public class DirectiveTestUtils {
         }
     };
 
+    private static final DirectiveHandler HAS_DECLARATION = new DirectiveHandler("CHECK_HAS_DECLARATION") {
+        @Override
+        void processEntry(@NotNull JsNode ast, @NotNull ArgumentsHelper arguments) throws Exception {
+            String name = arguments.getFirst();
+            assertNotNull("Declaration " + name + " has been removed", AstSearchUtil.findProperty(ast, name));
+        }
+    };
+
+    private static final DirectiveHandler HAS_NO_DECLARATION = new DirectiveHandler("CHECK_HAS_NO_DECLARATION") {
+        @Override
+        void processEntry(@NotNull JsNode ast, @NotNull ArgumentsHelper arguments) throws Exception {
+            String name = arguments.getFirst();
+            assertNull("Declaration " + name + " has not been removed", AstSearchUtil.findProperty(ast, name));
+        }
+    };
+
     private static final List<DirectiveHandler> DIRECTIVE_HANDLERS = Arrays.asList(
             FUNCTION_CONTAINS_NO_CALLS,
             FUNCTION_NOT_CALLED,
@@ -170,7 +186,9 @@ public class DirectiveTestUtils {
             COUNT_VARS,
             COUNT_BREAKS,
             HAS_INLINE_METADATA,
-            HAS_NO_INLINE_METADATA
+            HAS_NO_INLINE_METADATA,
+            HAS_DECLARATION,
+            HAS_NO_DECLARATION
     );
 
     public static void processDirectives(@NotNull JsNode ast, @NotNull String sourceCode) throws Exception {
@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.js.facade
 import com.google.dart.compiler.backend.js.ast.JsProgram
 import com.google.dart.compiler.util.TextOutput
 import com.google.dart.compiler.util.TextOutputImpl
+import com.intellij.openapi.util.io.FileUtil
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VfsUtilCore
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection
@@ -34,8 +35,13 @@ import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics
 import org.jetbrains.kotlin.serialization.js.KotlinJavascriptSerializationUtil
 import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
 import org.jetbrains.kotlin.utils.fileUtils.readTextOrEmpty
+import java.io.BufferedWriter
 import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStreamWriter
+import java.io.Writer
 import java.util.ArrayList
+import kotlin.text.Charsets
 
 public abstract class TranslationResult protected (public val diagnostics: Diagnostics) {
 
@@ -60,14 +66,7 @@ public abstract class TranslationResult protected (public val diagnostics: Diagn
             val code = getCode(output, sourceMapBuilder)
             val prefix = outputPrefixFile?.readTextOrEmpty() ?: ""
             val postfix = outputPostfixFile?.readTextOrEmpty() ?: ""
-            val sourceFiles = files.map {
-                val virtualFile = it.getOriginalFile().getVirtualFile()
-
-                when {
-                    virtualFile == null -> File(it.getName())
-                    else -> VfsUtilCore.virtualToIoFile(virtualFile)
-                }
-            }
+            val sourceFiles = getSourceFiles()
 
             val jsFile = SimpleOutputFile(sourceFiles, outputFile.getName(), prefix + code + postfix)
             val outputFiles = arrayListOf(jsFile)
@@ -89,6 +88,63 @@ public abstract class TranslationResult protected (public val diagnostics: Diagn
             return SimpleOutputFileCollection(outputFiles)
         }
 
+        /**
+         * Writes the same files as [getOutputFiles] returns, but the code and the source map are written while the program is printed
+         * instead of being accumulated in memory first. Returns the files written
+         */
+        public fun writeOutputFiles(outputFile: File, outputPrefixFile: File?, outputPostfixFile: File?): List<File> {
+            val prefix = outputPrefixFile?.readTextOrEmpty() ?: ""
+            val postfix = outputPostfixFile?.readTextOrEmpty() ?: ""
+            val writtenFiles = arrayListOf(outputFile)
+
+            FileUtil.createParentDirs(outputFile)
+            val codeWriter = createWriter(outputFile)
+            var sourceMapWriter: Writer? = null
+            try {
+                codeWriter.write(prefix)
+                val output = TextOutputImpl(codeWriter, false)
+
+                var sourceMapBuilder: SourceMap3Builder? = null
+                if (config.isSourcemap()) {
+                    val sourceMapFile = SourceMap3Builder.getSourceMapFile(outputFile)
+                    sourceMapWriter = createWriter(sourceMapFile)
+                    sourceMapBuilder = SourceMap3Builder(outputFile, output, SourceMapBuilderConsumer(), sourceMapWriter)
+                    sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
+                    writtenFiles.add(sourceMapFile)
+                }
+
+                program.accept(JsSourceGenerationVisitor(output, sourceMapBuilder))
+                output.flush()
+                codeWriter.write(postfix)
+                sourceMapBuilder?.finish()
+            }
+            finally {
+                codeWriter.close()
+                sourceMapWriter?.close()
+            }
+
+            if (config.isMetaInfo()) {
+                val metaFile = File(outputFile.getParentFile(), KotlinJavascriptMetadataUtils.replaceSuffix(outputFile.getName()))
+                val metaFileContent = KotlinJavascriptSerializationUtil.metadataAsString(config.getModuleId(), moduleDescriptor)
+                FileUtil.writeToFile(metaFile, metaFileContent.toByteArray())
+                writtenFiles.add(metaFile)
+            }
+
+            return writtenFiles
+        }
+
+        public fun getSourceFiles(): List<File> =
+                files.map {
+                    val virtualFile = it.getOriginalFile().getVirtualFile()
+
+                    when {
+                        virtualFile == null -> File(it.getName())
+                        else -> VfsUtilCore.virtualToIoFile(virtualFile)
+                    }
+                }
+
+        private fun createWriter(file: File): Writer = BufferedWriter(OutputStreamWriter(FileOutputStream(file), Charsets.UTF_8))
+
         private fun getCode(output: TextOutput, sourceMapBuilder: SourceMapBuilder?): String {
             program.accept(JsSourceGenerationVisitor(output, sourceMapBuilder))
             return output.toString()
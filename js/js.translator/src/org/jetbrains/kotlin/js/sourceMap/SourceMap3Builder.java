@@ -21,17 +21,28 @@ import com.google.dart.compiler.util.TextOutput;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.PairConsumer;
 import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
 public class SourceMap3Builder implements SourceMapBuilder {
-    private final StringBuilder out = new StringBuilder(8192);
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final StringBuilder out = new StringBuilder(FLUSH_THRESHOLD + 1024);
     private final File generatedFile;
     private final TextOutput textOutput;
     private final PairConsumer<SourceMapBuilder, Object> sourceInfoConsumer;
 
+    // If not null, mappings are written there as lines are generated, see finish()
+    @Nullable
+    private final Writer writer;
+    private boolean headerWritten = false;
+
     private String lastSource;
     private int lastSourceIndex;
 
@@ -51,18 +62,41 @@ public class SourceMap3Builder implements SourceMapBuilder {
     private int previousSourceColumn;
 
     public SourceMap3Builder(File generatedFile, TextOutput textOutput, PairConsumer<SourceMapBuilder, Object> sourceInfoConsumer) {
+        this(generatedFile, textOutput, sourceInfoConsumer, null);
+    }
+
+    /**
+     * @param writer if not null, the source map is written there while the code is generated, and {@link #finish()} should be called
+     *               instead of {@link #build()} in the end
+     */
+    public SourceMap3Builder(
+            File generatedFile,
+            TextOutput textOutput,
+            PairConsumer<SourceMapBuilder, Object> sourceInfoConsumer,
+            @Nullable Writer writer
+    ) {
         this.generatedFile = generatedFile;
         this.textOutput = textOutput;
         this.sourceInfoConsumer = sourceInfoConsumer;
+        this.writer = writer;
+    }
+
+    @NotNull
+    public static File getSourceMapFile(@NotNull File generatedFile) {
+        return new File(generatedFile.getParentFile(), generatedFile.getName() + ".map");
     }
 
     @Override
     public File getOutFile() {
-        return new File(generatedFile.getParentFile(), generatedFile.getName() + ".map");
+        return getSourceMapFile(generatedFile);
     }
 
     @Override
     public String build() {
+        if (writer != null) {
+            throw new IllegalStateException("Source map is written to a writer, call finish() instead");
+        }
+
         StringBuilder sb = new StringBuilder(out.length() + (128 * orderedSources.size()));
         sb.append("{\"version\":3,\"file\":\"").append(generatedFile.getName()).append('"').append(',');
         appendSources(sb);
@@ -73,6 +107,40 @@ public class SourceMap3Builder implements SourceMapBuilder {
         return sb.toString();
     }
 
+    /**
+     * Writes the rest of the source map to the writer. Sources are only known in the end, so they're written after the mappings
+     */
+    public void finish() {
+        assert writer != null : "Source map is not written to a writer, call build() instead";
+
+        flush();
+        StringBuilder sb = new StringBuilder(128 * orderedSources.size());
+        sb.append("\",");
+        appendSources(sb);
+        sb.append(",\"names\":[]}");
+        write(sb);
+    }
+
+    private void flush() {
+        assert writer != null;
+        if (!headerWritten) {
+            headerWritten = true;
+            write("{\"version\":3,\"file\":\"" + generatedFile.getName() + "\",\"mappings\":\"");
+        }
+        write(out);
+        out.setLength(0);
+    }
+
+    private void write(@NotNull CharSequence text) {
+        assert writer != null;
+        try {
+            writer.append(text);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void appendSources(StringBuilder sb) {
         boolean isNotFirst = false;
         sb.append('"').append("sources").append("\":[");
@@ -92,10 +160,16 @@ public class SourceMap3Builder implements SourceMapBuilder {
     public void newLine() {
         out.append(';');
         previousGeneratedColumn = -1;
+        if (writer != null && out.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
     }
 
     @Override
     public void skipLinesAtBeginning(int count) {
+        if (headerWritten) {
+            throw new IllegalStateException("Lines at the beginning should be skipped before mappings are written");
+        }
         out.insert(0, StringUtil.repeatSymbol(';', count));
     }
 
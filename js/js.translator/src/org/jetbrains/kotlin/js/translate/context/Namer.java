@@ -68,6 +68,8 @@ public final class Namer {
     private static final String CLASS_OBJECT_NAME = "createClass";
     private static final String ENUM_CLASS_OBJECT_NAME = "createEnumClass";
     private static final String TRAIT_OBJECT_NAME = "createTrait";
+    private static final String DEFINE_PACKAGE = "definePackage";
+    private static final String DEFINE_ROOT_PACKAGE = "defineRootPackage";
     private static final String OBJECT_OBJECT_NAME = "createObject";
     private static final String CALLABLE_REF_FOR_MEMBER_FUNCTION_NAME = "getCallableRefForMemberFunction";
     private static final String CALLABLE_REF_FOR_EXTENSION_FUNCTION_NAME = "getCallableRefForExtensionFunction";
@@ -112,6 +114,30 @@ public final class Namer {
         return false;
     }
 
+    /**
+     * Whether the expression is Kotlin.definePackage(...) or Kotlin.defineRootPackage(...)
+     */
+    public static boolean isPackageDefinition(@NotNull JsExpression expr) {
+        return isKotlinInvocation(expr, DEFINE_PACKAGE) || isKotlinInvocation(expr, DEFINE_ROOT_PACKAGE);
+    }
+
+    /**
+     * Whether the expression is Kotlin.createClass(...) or Kotlin.createTrait(...)
+     */
+    public static boolean isClassOrTraitCreation(@NotNull JsExpression expr) {
+        return isKotlinInvocation(expr, CLASS_OBJECT_NAME) || isKotlinInvocation(expr, TRAIT_OBJECT_NAME);
+    }
+
+    private static boolean isKotlinInvocation(@NotNull JsExpression expr, @NotNull String functionName) {
+        if (!(expr instanceof JsInvocation)) return false;
+
+        JsExpression qualifier = ((JsInvocation) expr).getQualifier();
+        if (!(qualifier instanceof JsNameRef) || !functionName.equals(((JsNameRef) qualifier).getIdent())) return false;
+
+        JsExpression kotlinObject = ((JsNameRef) qualifier).getQualifier();
+        return kotlinObject instanceof JsNameRef && KOTLIN_NAME.equals(((JsNameRef) kotlinObject).getIdent());
+    }
+
     @NotNull
     public static String getFunctionTag(@NotNull CallableDescriptor functionDescriptor) {
         String moduleName = getModuleName(functionDescriptor);
@@ -284,8 +310,8 @@ public final class Namer {
         kotlinScope = JsObjectScope(rootScope, "Kotlin standard object");
         traitName = kotlinScope.declareName(TRAIT_OBJECT_NAME);
 
-        definePackage = kotlin("definePackage");
-        defineRootPackage = kotlin("defineRootPackage");
+        definePackage = kotlin(DEFINE_PACKAGE);
+        defineRootPackage = kotlin(DEFINE_ROOT_PACKAGE);
 
         callGetProperty = kotlin("callGetter");
         callSetProperty = kotlin("callSetter");
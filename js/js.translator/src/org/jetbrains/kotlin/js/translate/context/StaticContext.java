@@ -47,6 +47,9 @@ import static org.jetbrains.kotlin.resolve.DescriptorUtils.isExtension;
 
 /**
  * Aggregates all the static parts of the context.
+ *
+ * Names, scopes and qualifiers are generated under the lock of this object, since packages may be translated in parallel
+ * (see {@link org.jetbrains.kotlin.js.translate.declaration.PackageDeclarationTranslator}).
  */
 public final class StaticContext {
 
@@ -153,14 +156,14 @@ public final class StaticContext {
     }
 
     @NotNull
-    public JsScope getScopeForDescriptor(@NotNull DeclarationDescriptor descriptor) {
+    public synchronized JsScope getScopeForDescriptor(@NotNull DeclarationDescriptor descriptor) {
         JsScope scope = scopes.get(descriptor.getOriginal());
         assert scope != null : "Must have a scope for descriptor";
         return scope;
     }
 
     @NotNull
-    public JsFunction getFunctionWithScope(@NotNull CallableDescriptor descriptor) {
+    public synchronized JsFunction getFunctionWithScope(@NotNull CallableDescriptor descriptor) {
         JsScope scope = getScopeForDescriptor(descriptor);
         JsFunction function = scopeToFunction.get(scope);
         assert scope.equals(function.getScope()) : "Inconsistency.";
@@ -186,14 +189,14 @@ public final class StaticContext {
     }
 
     @NotNull
-    public JsName getNameForDescriptor(@NotNull DeclarationDescriptor descriptor) {
+    public synchronized JsName getNameForDescriptor(@NotNull DeclarationDescriptor descriptor) {
         JsName name = names.get(descriptor.getOriginal());
         assert name != null : "Must have name for descriptor";
         return name;
     }
 
     @NotNull
-    public JsName getNameForPackage(@NotNull final FqName packageFqName) {
+    public synchronized JsName getNameForPackage(@NotNull final FqName packageFqName) {
         return ContainerUtil.getOrCreate(packageNames, packageFqName, new Factory<JsName>() {
             @Override
             public JsName create() {
@@ -369,7 +372,7 @@ public final class StaticContext {
     }
 
     @NotNull
-    public JsName declarePropertyOrPropertyAccessorName(@NotNull DeclarationDescriptor descriptor, @NotNull String name, boolean fresh) {
+    public synchronized JsName declarePropertyOrPropertyAccessorName(@NotNull DeclarationDescriptor descriptor, @NotNull String name, boolean fresh) {
         JsScope scope = getEnclosingScope(descriptor);
         return fresh ? scope.declareFreshName(name) : scope.declareName(name);
     }
@@ -448,7 +451,7 @@ public final class StaticContext {
     }
 
     @Nullable
-    public JsExpression getQualifierForDescriptor(@NotNull DeclarationDescriptor descriptor) {
+    public synchronized JsExpression getQualifierForDescriptor(@NotNull DeclarationDescriptor descriptor) {
         if (qualifierIsNull.get(descriptor.getOriginal()) != null) {
             return null;
         }
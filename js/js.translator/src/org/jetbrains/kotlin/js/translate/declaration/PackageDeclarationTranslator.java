@@ -19,32 +19,51 @@ package org.jetbrains.kotlin.js.translate.declaration;
 import com.google.dart.compiler.backend.js.ast.*;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.kotlin.descriptors.PackageFragmentDescriptor;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.descriptors.*;
 import org.jetbrains.kotlin.js.translate.context.Namer;
 import org.jetbrains.kotlin.js.translate.context.TranslationContext;
 import org.jetbrains.kotlin.js.translate.general.AbstractTranslator;
 import org.jetbrains.kotlin.name.FqName;
-import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.psi.*;
 import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingContextUtils;
+import org.jetbrains.kotlin.resolve.calls.callUtil.CallUtilPackage;
+import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall;
+import org.jetbrains.kotlin.resolve.calls.model.VariableAsFunctionResolvedCall;
+import org.jetbrains.kotlin.resolve.calls.tasks.TasksPackage;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.google.dart.compiler.backend.js.ast.JsVars.JsVar;
 
 public final class PackageDeclarationTranslator extends AbstractTranslator {
+    /**
+     * Number of threads translating packages. Files of one package share its scope and initializer,
+     * so they're always translated on one thread, while different packages may be translated in parallel
+     */
+    public static final String TRANSLATION_THREADS_PROPERTY = "kotlin.js.translation.threads";
+
     private final Iterable<JetFile> files;
+    private final int threads;
     private final Map<PackageFragmentDescriptor, PackageTranslator> packageFragmentToTranslator =
             new LinkedHashMap<PackageFragmentDescriptor, PackageTranslator>();
+    private final Map<PackageTranslator, List<JetFile>> translatorToFiles = new HashMap<PackageTranslator, List<JetFile>>();
+
+    public static int getTranslationThreads() {
+        return Math.max(1, Integer.getInteger(TRANSLATION_THREADS_PROPERTY, 1));
+    }
 
-    public static List<JsStatement> translateFiles(@NotNull Collection<JetFile> files, @NotNull TranslationContext context) {
-        return new PackageDeclarationTranslator(files, context).translate();
+    public static List<JsStatement> translateFiles(@NotNull Collection<JetFile> files, @NotNull TranslationContext context, int threads) {
+        return new PackageDeclarationTranslator(files, context, threads).translate();
     }
 
-    private PackageDeclarationTranslator(@NotNull Iterable<JetFile> files, @NotNull TranslationContext context) {
+    private PackageDeclarationTranslator(@NotNull Iterable<JetFile> files, @NotNull TranslationContext context, int threads) {
         super(context);
 
         this.files = files;
+        this.threads = threads;
     }
 
     @NotNull
@@ -61,9 +80,28 @@ public final class PackageDeclarationTranslator extends AbstractTranslator {
                 createRootPackageDefineInvocationIfNeeded(packageFqNameToDefineInvocation);
                 translator = PackageTranslator.create(packageFragment, context());
                 packageFragmentToTranslator.put(packageFragment, translator);
+                translatorToFiles.put(translator, new ArrayList<JetFile>());
             }
+            translatorToFiles.get(translator).add(file);
+        }
 
-            translator.translate(file);
+        // Names which may be shared by packages are generated in the order of files before translation, the same way for any
+        // number of threads. After that a package declares fresh names and temporaries only in its own scopes
+        // (its definition place, classes and functions), so the output doesn't depend on the order in which packages are translated
+        for (JetFile file : files) {
+            generateNames(file.getDeclarations());
+        }
+        for (JetFile file : files) {
+            generateNamesForReferences(file);
+        }
+
+        if (threads > 1 && packageFragmentToTranslator.size() > 1) {
+            translateInParallel();
+        }
+        else {
+            for (PackageTranslator translator : packageFragmentToTranslator.values()) {
+                translatePackage(translator);
+            }
         }
 
         for (PackageTranslator translator : packageFragmentToTranslator.values()) {
@@ -76,6 +114,133 @@ public final class PackageDeclarationTranslator extends AbstractTranslator {
         return Collections.<JsStatement>singletonList(vars);
     }
 
+    private void translatePackage(@NotNull PackageTranslator translator) {
+        for (JetFile file : translatorToFiles.get(translator)) {
+            translator.translate(file);
+        }
+    }
+
+    private void translateInParallel() {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(packageFragmentToTranslator.size());
+        for (final PackageTranslator translator : packageFragmentToTranslator.values()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    translatePackage(translator);
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void generateNames(@NotNull List<JetDeclaration> declarations) {
+        for (JetDeclaration declaration : declarations) {
+            DeclarationDescriptor descriptor = bindingContext().get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration);
+            if (descriptor == null) continue;
+
+            context().getNameForDescriptor(descriptor);
+            if (descriptor instanceof PropertyDescriptor) {
+                for (PropertyAccessorDescriptor accessor : ((PropertyDescriptor) descriptor).getAccessors()) {
+                    context().getNameForDescriptor(accessor);
+                }
+            }
+            if (declaration instanceof JetClassOrObject) {
+                generateNames(((JetClassOrObject) declaration).getDeclarations());
+            }
+        }
+    }
+
+    // Declarations of other modules (and members inherited from them) are named in the scopes of their containers,
+    // which are shared by all packages referring to them
+    private void generateNamesForReferences(@NotNull JetFile file) {
+        final BindingContext bindingContext = bindingContext();
+        file.accept(new JetTreeVisitorVoid() {
+            @Override
+            public void visitJetElement(@NotNull JetElement element) {
+                generateNameForCall(CallUtilPackage.getResolvedCall(element, bindingContext));
+                if (element instanceof JetReferenceExpression) {
+                    generateNameForReference(bindingContext.get(BindingContext.REFERENCE_TARGET, (JetReferenceExpression) element));
+                }
+                if (element instanceof JetExpression) {
+                    JetExpression expression = (JetExpression) element;
+                    generateNameForCall(bindingContext.get(BindingContext.LOOP_RANGE_ITERATOR_RESOLVED_CALL, expression));
+                    generateNameForCall(bindingContext.get(BindingContext.LOOP_RANGE_HAS_NEXT_RESOLVED_CALL, expression));
+                    generateNameForCall(bindingContext.get(BindingContext.LOOP_RANGE_NEXT_RESOLVED_CALL, expression));
+                }
+                if (element instanceof JetArrayAccessExpression) {
+                    JetArrayAccessExpression expression = (JetArrayAccessExpression) element;
+                    generateNameForCall(bindingContext.get(BindingContext.INDEXED_LVALUE_GET, expression));
+                    generateNameForCall(bindingContext.get(BindingContext.INDEXED_LVALUE_SET, expression));
+                }
+                if (element instanceof JetMultiDeclarationEntry) {
+                    generateNameForCall(bindingContext.get(BindingContext.COMPONENT_RESOLVED_CALL, (JetMultiDeclarationEntry) element));
+                }
+                if (element instanceof JetProperty && ((JetProperty) element).getDelegateExpression() != null) {
+                    DeclarationDescriptor descriptor = bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, element);
+                    if (descriptor instanceof PropertyDescriptor) {
+                        for (PropertyAccessorDescriptor accessor : ((PropertyDescriptor) descriptor).getAccessors()) {
+                            generateNameForCall(bindingContext.get(BindingContext.DELEGATED_PROPERTY_RESOLVED_CALL, accessor));
+                        }
+                    }
+                }
+                super.visitJetElement(element);
+            }
+        });
+    }
+
+    private void generateNameForCall(@Nullable ResolvedCall<?> resolvedCall) {
+        if (resolvedCall == null) return;
+
+        if (resolvedCall instanceof VariableAsFunctionResolvedCall) {
+            generateNameForCall(((VariableAsFunctionResolvedCall) resolvedCall).getVariableCall());
+            generateNameForCall(((VariableAsFunctionResolvedCall) resolvedCall).getFunctionCall());
+            return;
+        }
+        generateNameForReference(resolvedCall.getResultingDescriptor());
+    }
+
+    private void generateNameForReference(@Nullable DeclarationDescriptor descriptor) {
+        // Names of properties and accessors are declared without a suffix, so they don't depend on the order
+        if (!(descriptor instanceof ClassDescriptor || descriptor instanceof FunctionDescriptor) ||
+            descriptor instanceof PropertyAccessorDescriptor ||
+            TasksPackage.isDynamic(descriptor)) {
+            return;
+        }
+
+        // Local declarations are named by the package containing them
+        DeclarationDescriptor containingDeclaration = descriptor.getContainingDeclaration();
+        if (!(containingDeclaration instanceof PackageFragmentDescriptor || containingDeclaration instanceof ClassDescriptor)) return;
+
+        if (descriptor instanceof FunctionDescriptor && context().intrinsics().getFunctionIntrinsic((FunctionDescriptor) descriptor).exists()) {
+            return;
+        }
+        if (descriptor instanceof ClassDescriptor && context().intrinsics().getObjectIntrinsic((ClassDescriptor) descriptor).exists()) {
+            return;
+        }
+
+        context().getNameForDescriptor(descriptor);
+    }
+
     private void createRootPackageDefineInvocationIfNeeded(@NotNull Map<FqName, DefineInvocation> packageFqNameToDefineInvocation) {
         if (!packageFqNameToDefineInvocation.containsKey(FqName.ROOT)) {
             packageFqNameToDefineInvocation.put(
@@ -22,9 +22,9 @@ import org.jetbrains.kotlin.lexer.JetToken
 import org.jetbrains.kotlin.js.translate.context.TranslationContext
 import org.jetbrains.kotlin.js.translate.utils.BindingUtils.getCallableDescriptorForOperationExpression
 import org.jetbrains.kotlin.js.translate.utils.PsiUtils.getOperationToken
-import gnu.trove.THashMap
 import com.google.dart.compiler.backend.js.ast.JsExpression
 import com.google.common.collect.ImmutableSet
+import java.util.concurrent.ConcurrentHashMap
 
 public trait BinaryOperationIntrinsic {
 
@@ -35,7 +35,7 @@ public trait BinaryOperationIntrinsic {
 
 public class BinaryOperationIntrinsics {
 
-    private val intrinsicCache = THashMap<Pair<JetToken, FunctionDescriptor>, BinaryOperationIntrinsic>()
+    private val intrinsicCache = ConcurrentHashMap<Pair<JetToken, FunctionDescriptor>, BinaryOperationIntrinsic>()
 
     private val factories = listOf(LongCompareToBOIF, EqualsBOIF, CompareToBOIF)
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.translate.utils;
+
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
+import org.jetbrains.kotlin.psi.JetExpression;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.BindingTrace;
+import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics;
+import org.jetbrains.kotlin.types.JetType;
+import org.jetbrains.kotlin.util.slicedMap.ReadOnlySlice;
+import org.jetbrains.kotlin.util.slicedMap.WritableSlice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Trace used when packages are translated in parallel: reads of its binding context and writes to it
+ * (including diagnostics reported by the translator and records of temporary traces committed to it) are done under one lock.
+ * Analysis is complete by the time of translation, so the delegate is not written by anyone else.
+ */
+public final class SynchronizedBindingTrace implements BindingTrace {
+    @NotNull
+    private final BindingTrace delegate;
+    @NotNull
+    private final Object lock = new Object();
+
+    private final BindingContext bindingContext = new BindingContext() {
+        @NotNull
+        @Override
+        public Diagnostics getDiagnostics() {
+            synchronized (lock) {
+                return delegate.getBindingContext().getDiagnostics();
+            }
+        }
+
+        @Override
+        public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+            return SynchronizedBindingTrace.this.get(slice, key);
+        }
+
+        @NotNull
+        @Override
+        public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+            return SynchronizedBindingTrace.this.getKeys(slice);
+        }
+
+        @NotNull
+        @TestOnly
+        @Override
+        public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+            synchronized (lock) {
+                return delegate.getBindingContext().getSliceContents(slice);
+            }
+        }
+
+        @Nullable
+        @Override
+        public JetType getType(@NotNull JetExpression expression) {
+            return SynchronizedBindingTrace.this.getType(expression);
+        }
+    };
+
+    public SynchronizedBindingTrace(@NotNull BindingTrace delegate) {
+        this.delegate = delegate;
+    }
+
+    @NotNull
+    @Override
+    public BindingContext getBindingContext() {
+        return bindingContext;
+    }
+
+    @Override
+    public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+        synchronized (lock) {
+            delegate.record(slice, key, value);
+        }
+    }
+
+    @Override
+    public <K> void record(WritableSlice<K, Boolean> slice, K key) {
+        synchronized (lock) {
+            delegate.record(slice, key);
+        }
+    }
+
+    @Nullable
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        synchronized (lock) {
+            return delegate.get(slice, key);
+        }
+    }
+
+    @NotNull
+    @Override
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        synchronized (lock) {
+            // The delegate may return a live view
+            return new ArrayList<K>(delegate.getKeys(slice));
+        }
+    }
+
+    @Nullable
+    @Override
+    public JetType getType(@NotNull JetExpression expression) {
+        synchronized (lock) {
+            return delegate.getType(expression);
+        }
+    }
+
+    @Override
+    public void recordType(@NotNull JetExpression expression, @Nullable JetType type) {
+        synchronized (lock) {
+            delegate.recordType(expression, type);
+        }
+    }
+
+    @Override
+    public void report(@NotNull Diagnostic diagnostic) {
+        synchronized (lock) {
+            delegate.report(diagnostic);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package foo
+
+// CHECK_HAS_DECLARATION: Base
+// CHECK_HAS_DECLARATION: Trait
+// CHECK_HAS_DECLARATION: Derived
+// CHECK_HAS_NO_DECLARATION: UnusedBase
+// CHECK_HAS_NO_DECLARATION: UnusedDerived
+
+trait Trait {
+    fun k() = "K"
+}
+
+open class Base {
+    open fun o() = "O"
+}
+
+// Base and Trait are referenced only from the bases of Kotlin.createClass
+class Derived : Base(), Trait
+
+open class UnusedBase
+
+class UnusedDerived : UnusedBase()
+
+fun box(): String {
+    val d = Derived()
+    return d.o() + d.k()
+}
+
+fun main(args: Array<String>) {
+    box()
+}
@@ -0,0 +1,21 @@
+package foo
+
+// CHECK_HAS_DECLARATION: referencedFromJs
+// CHECK_HAS_DECLARATION: A
+// CHECK_HAS_NO_DECLARATION: notReferencedFromJs
+
+class A(val x: String)
+
+fun referencedFromJs() = "O"
+
+fun notReferencedFromJs() = "fail"
+
+fun box(): String {
+    val a: A = js("new _.foo.A('K')")
+    val o: String = js("_.foo.referencedFromJs()")
+    return o + a.x
+}
+
+fun main(args: Array<String>) {
+    box()
+}
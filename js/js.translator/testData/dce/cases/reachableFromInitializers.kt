@@ -0,0 +1,23 @@
+package foo
+
+// CHECK_HAS_DECLARATION: initialValue
+// CHECK_HAS_DECLARATION: fromObject
+// CHECK_HAS_NO_DECLARATION: unused
+
+fun initialValue() = "O"
+
+fun fromObject() = "K"
+
+fun unused() = "fail"
+
+val o = initialValue()
+
+object Obj {
+    val k = fromObject()
+}
+
+fun box(): String = o + Obj.k
+
+fun main(args: Array<String>) {
+    box()
+}
@@ -0,0 +1,31 @@
+package foo
+
+// CHECK_HAS_DECLARATION: box
+// CHECK_HAS_DECLARATION: used
+// CHECK_HAS_DECLARATION: Used
+// CHECK_HAS_NO_DECLARATION: unused
+// CHECK_HAS_NO_DECLARATION: calledFromUnused
+// CHECK_HAS_NO_DECLARATION: Unused
+
+fun calledFromUnused() = "fail"
+
+fun unused() = calledFromUnused()
+
+class Unused {
+    fun f() = unused()
+}
+
+fun used() = "O"
+
+class Used {
+    fun k() = "K"
+}
+
+fun box(): String {
+    assertEquals("O", used())
+    return used() + Used().k()
+}
+
+fun main(args: Array<String>) {
+    box()
+}
@@ -0,0 +1,7 @@
+package a
+
+data class A(val value: Int)
+
+fun pair(x: Int, y: Int) = A(x).value to A(y).value
+
+fun pair(x: String) = x to x
@@ -0,0 +1,14 @@
+package b
+
+import a.A
+
+open class Base {
+    open fun f() = "base"
+}
+
+class B : Base() {
+    override fun f(): String {
+        val list = listOf(A(1), A(2)).map { it.value }
+        return if (list.size() == 2) "b" else super.f()
+    }
+}
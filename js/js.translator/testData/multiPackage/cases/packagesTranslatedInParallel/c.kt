@@ -0,0 +1,5 @@
+package c
+
+fun twice(x: Int) = apply(x) { it * 2 }
+
+fun apply(x: Int, f: (Int) -> Int) = f(x)
@@ -0,0 +1,3 @@
+package c
+
+fun thrice(x: Int) = apply(x) { it * 3 }
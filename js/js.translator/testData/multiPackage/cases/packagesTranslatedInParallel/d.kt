@@ -0,0 +1,3 @@
+package d
+
+fun describe(list: List<Int>): String = list.map { c.twice(it) / 2 }.joinToString(", ")
@@ -0,0 +1,14 @@
+package foo
+
+import a.*
+import b.*
+
+fun box(): Boolean {
+    val items = arrayListOf(A(1), A(2))
+    var sum = 0
+    for (item in items) {
+        sum += item.value
+    }
+    val (x, y) = pair(sum, c.thrice(1))
+    return x == 3 && y == 3 && c.apply(sum) { it * 2 } == 6 && B().f() == "b" && d.describe(listOf(1, 2)) == "1, 2"
+}
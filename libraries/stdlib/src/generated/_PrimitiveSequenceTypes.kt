@@ -0,0 +1,290 @@
+package kotlin
+
+//
+// NOTE THIS FILE IS AUTO-GENERATED by the GenerateStandardLib.kt
+// See: https://github.com/JetBrains/kotlin/tree/master/libraries/stdlib
+//
+
+import java.util.*
+
+/**
+ * A sequence of values of type `Int`, which are passed between stages of the sequence without boxing.
+ * Functions given to `filter`, `filterNot` and `map` are inlined into their stages, so they don't box the values either.
+ */
+public trait IntSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public fun iterator(): IntIterator
+}
+
+/**
+ * Returns a sequence of the given elements.
+ */
+public fun intSequenceOf(vararg elements: Int): IntSequence = elements.asIntSequence()
+
+/**
+ * Returns a sequence which unboxes the elements of this sequence.
+ */
+public fun Sequence<Int>.asIntSequence(): IntSequence = object : IntSequence {
+    override fun iterator(): IntIterator = object : IntIterator() {
+        val iterator = this@asIntSequence.iterator()
+
+        override fun nextInt(): Int = iterator.next()
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence that returns the values from the underlying [sequence] that either match or do not match
+ * the predicate implemented by [accept].
+ * `filter` and `filterNot` subclass it in place, inlining their predicate into [accept].
+ */
+public abstract class FilteringIntSequence(
+        private val sequence: IntSequence,
+        private val sendWhen: Boolean
+) : IntSequence {
+
+    protected abstract fun accept(value: Int): Boolean
+
+    override fun iterator(): IntIterator = object : IntIterator() {
+        val iterator = sequence.iterator()
+        var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+        var nextItem: Int = 0
+
+        private fun calcNext() {
+            while (iterator.hasNext()) {
+                val item = iterator.nextInt()
+                if (accept(item) == sendWhen) {
+                    nextItem = item
+                    nextState = 1
+                    return
+                }
+            }
+            nextState = 0
+        }
+
+        override fun nextInt(): Int {
+            if (nextState == -1)
+                calcNext()
+            if (nextState == 0)
+                throw NoSuchElementException()
+            nextState = -1
+            return nextItem
+        }
+
+        override fun hasNext(): Boolean {
+            if (nextState == -1)
+                calcNext()
+            return nextState == 1
+        }
+    }
+}
+
+/**
+ * A sequence which returns the results of applying [transformValue] to the values in the underlying [sequence].
+ * `map` subclasses it in place, inlining its function into [transformValue].
+ */
+public abstract class TransformingIntSequence(
+        private val sequence: IntSequence
+) : IntSequence {
+
+    protected abstract fun transformValue(value: Int): Int
+
+    override fun iterator(): IntIterator = object : IntIterator() {
+        val iterator = sequence.iterator()
+
+        override fun nextInt(): Int = transformValue(iterator.nextInt())
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence of values of type `Long`, which are passed between stages of the sequence without boxing.
+ * Functions given to `filter`, `filterNot` and `map` are inlined into their stages, so they don't box the values either.
+ */
+public trait LongSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public fun iterator(): LongIterator
+}
+
+/**
+ * Returns a sequence of the given elements.
+ */
+public fun longSequenceOf(vararg elements: Long): LongSequence = elements.asLongSequence()
+
+/**
+ * Returns a sequence which unboxes the elements of this sequence.
+ */
+public fun Sequence<Long>.asLongSequence(): LongSequence = object : LongSequence {
+    override fun iterator(): LongIterator = object : LongIterator() {
+        val iterator = this@asLongSequence.iterator()
+
+        override fun nextLong(): Long = iterator.next()
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence that returns the values from the underlying [sequence] that either match or do not match
+ * the predicate implemented by [accept].
+ * `filter` and `filterNot` subclass it in place, inlining their predicate into [accept].
+ */
+public abstract class FilteringLongSequence(
+        private val sequence: LongSequence,
+        private val sendWhen: Boolean
+) : LongSequence {
+
+    protected abstract fun accept(value: Long): Boolean
+
+    override fun iterator(): LongIterator = object : LongIterator() {
+        val iterator = sequence.iterator()
+        var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+        var nextItem: Long = 0
+
+        private fun calcNext() {
+            while (iterator.hasNext()) {
+                val item = iterator.nextLong()
+                if (accept(item) == sendWhen) {
+                    nextItem = item
+                    nextState = 1
+                    return
+                }
+            }
+            nextState = 0
+        }
+
+        override fun nextLong(): Long {
+            if (nextState == -1)
+                calcNext()
+            if (nextState == 0)
+                throw NoSuchElementException()
+            nextState = -1
+            return nextItem
+        }
+
+        override fun hasNext(): Boolean {
+            if (nextState == -1)
+                calcNext()
+            return nextState == 1
+        }
+    }
+}
+
+/**
+ * A sequence which returns the results of applying [transformValue] to the values in the underlying [sequence].
+ * `map` subclasses it in place, inlining its function into [transformValue].
+ */
+public abstract class TransformingLongSequence(
+        private val sequence: LongSequence
+) : LongSequence {
+
+    protected abstract fun transformValue(value: Long): Long
+
+    override fun iterator(): LongIterator = object : LongIterator() {
+        val iterator = sequence.iterator()
+
+        override fun nextLong(): Long = transformValue(iterator.nextLong())
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence of values of type `Double`, which are passed between stages of the sequence without boxing.
+ * Functions given to `filter`, `filterNot` and `map` are inlined into their stages, so they don't box the values either.
+ */
+public trait DoubleSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public fun iterator(): DoubleIterator
+}
+
+/**
+ * Returns a sequence of the given elements.
+ */
+public fun doubleSequenceOf(vararg elements: Double): DoubleSequence = elements.asDoubleSequence()
+
+/**
+ * Returns a sequence which unboxes the elements of this sequence.
+ */
+public fun Sequence<Double>.asDoubleSequence(): DoubleSequence = object : DoubleSequence {
+    override fun iterator(): DoubleIterator = object : DoubleIterator() {
+        val iterator = this@asDoubleSequence.iterator()
+
+        override fun nextDouble(): Double = iterator.next()
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence that returns the values from the underlying [sequence] that either match or do not match
+ * the predicate implemented by [accept].
+ * `filter` and `filterNot` subclass it in place, inlining their predicate into [accept].
+ */
+public abstract class FilteringDoubleSequence(
+        private val sequence: DoubleSequence,
+        private val sendWhen: Boolean
+) : DoubleSequence {
+
+    protected abstract fun accept(value: Double): Boolean
+
+    override fun iterator(): DoubleIterator = object : DoubleIterator() {
+        val iterator = sequence.iterator()
+        var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+        var nextItem: Double = 0.0
+
+        private fun calcNext() {
+            while (iterator.hasNext()) {
+                val item = iterator.nextDouble()
+                if (accept(item) == sendWhen) {
+                    nextItem = item
+                    nextState = 1
+                    return
+                }
+            }
+            nextState = 0
+        }
+
+        override fun nextDouble(): Double {
+            if (nextState == -1)
+                calcNext()
+            if (nextState == 0)
+                throw NoSuchElementException()
+            nextState = -1
+            return nextItem
+        }
+
+        override fun hasNext(): Boolean {
+            if (nextState == -1)
+                calcNext()
+            return nextState == 1
+        }
+    }
+}
+
+/**
+ * A sequence which returns the results of applying [transformValue] to the values in the underlying [sequence].
+ * `map` subclasses it in place, inlining its function into [transformValue].
+ */
+public abstract class TransformingDoubleSequence(
+        private val sequence: DoubleSequence
+) : DoubleSequence {
+
+    protected abstract fun transformValue(value: Double): Double
+
+    override fun iterator(): DoubleIterator = object : DoubleIterator() {
+        val iterator = sequence.iterator()
+
+        override fun nextDouble(): Double = transformValue(iterator.nextDouble())
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
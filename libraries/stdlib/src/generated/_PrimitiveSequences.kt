@@ -0,0 +1,417 @@
+package kotlin
+
+//
+// NOTE THIS FILE IS AUTO-GENERATED by the GenerateStandardLib.kt
+// See: https://github.com/JetBrains/kotlin/tree/master/libraries/stdlib
+//
+
+import kotlin.platform.*
+import java.util.*
+
+import java.util.Collections // TODO: it's temporary while we have java.util.Collections in js
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun DoubleArray.asDoubleSequence(): DoubleSequence {
+    return object : DoubleSequence {
+        override fun iterator(): DoubleIterator {
+            return this@asDoubleSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun IntArray.asIntSequence(): IntSequence {
+    return object : IntSequence {
+        override fun iterator(): IntIterator {
+            return this@asIntSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun LongArray.asLongSequence(): LongSequence {
+    return object : LongSequence {
+        override fun iterator(): LongIterator {
+            return this@asLongSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun DoubleProgression.asDoubleSequence(): DoubleSequence {
+    return object : DoubleSequence {
+        override fun iterator(): DoubleIterator {
+            return this@asDoubleSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun IntProgression.asIntSequence(): IntSequence {
+    return object : IntSequence {
+        override fun iterator(): IntIterator {
+            return this@asIntSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun LongProgression.asLongSequence(): LongSequence {
+    return object : LongSequence {
+        override fun iterator(): LongIterator {
+            return this@asLongSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun DoubleRange.asDoubleSequence(): DoubleSequence {
+    return object : DoubleSequence {
+        override fun iterator(): DoubleIterator {
+            return this@asDoubleSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun IntRange.asIntSequence(): IntSequence {
+    return object : IntSequence {
+        override fun iterator(): IntIterator {
+            return this@asIntSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this collection which doesn't box them.
+ */
+public fun LongRange.asLongSequence(): LongSequence {
+    return object : LongSequence {
+        override fun iterator(): LongIterator {
+            return this@asLongSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this sequence which boxes them.
+ */
+public fun DoubleSequence.asSequence(): Sequence<Double> {
+    return object : Sequence<Double> {
+        override fun iterator(): Iterator<Double> {
+            return this@asSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this sequence which boxes them.
+ */
+public fun IntSequence.asSequence(): Sequence<Int> {
+    return object : Sequence<Int> {
+        override fun iterator(): Iterator<Int> {
+            return this@asSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns a sequence of the elements of this sequence which boxes them.
+ */
+public fun LongSequence.asSequence(): Sequence<Long> {
+    return object : Sequence<Long> {
+        override fun iterator(): Iterator<Long> {
+            return this@asSequence.iterator()
+        }
+    }
+}
+
+/**
+ * Returns the number of elements in the sequence.
+ */
+public fun DoubleSequence.count(): Int {
+    val iterator = iterator()
+    var count = 0
+    while (iterator.hasNext()) {
+        iterator.nextDouble()
+        count++
+    }
+    return count
+}
+
+/**
+ * Returns the number of elements in the sequence.
+ */
+public fun IntSequence.count(): Int {
+    val iterator = iterator()
+    var count = 0
+    while (iterator.hasNext()) {
+        iterator.nextInt()
+        count++
+    }
+    return count
+}
+
+/**
+ * Returns the number of elements in the sequence.
+ */
+public fun LongSequence.count(): Int {
+    val iterator = iterator()
+    var count = 0
+    while (iterator.hasNext()) {
+        iterator.nextLong()
+        count++
+    }
+    return count
+}
+
+/**
+ * Returns a sequence containing all elements matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun DoubleSequence.filter(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Double) -> Boolean): DoubleSequence {
+    return object : FilteringDoubleSequence(this@filter, true) {
+        override fun accept(value: Double): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Returns a sequence containing all elements matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun IntSequence.filter(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Int) -> Boolean): IntSequence {
+    return object : FilteringIntSequence(this@filter, true) {
+        override fun accept(value: Int): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Returns a sequence containing all elements matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun LongSequence.filter(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Long) -> Boolean): LongSequence {
+    return object : FilteringLongSequence(this@filter, true) {
+        override fun accept(value: Long): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Returns a sequence containing all elements not matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun DoubleSequence.filterNot(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Double) -> Boolean): DoubleSequence {
+    return object : FilteringDoubleSequence(this@filterNot, false) {
+        override fun accept(value: Double): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Returns a sequence containing all elements not matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun IntSequence.filterNot(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Int) -> Boolean): IntSequence {
+    return object : FilteringIntSequence(this@filterNot, false) {
+        override fun accept(value: Int): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Returns a sequence containing all elements not matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call.
+ */
+public inline fun LongSequence.filterNot(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (Long) -> Boolean): LongSequence {
+    return object : FilteringLongSequence(this@filterNot, false) {
+        override fun accept(value: Long): Boolean = predicate(value)
+    }
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun <R> DoubleSequence.fold(initial: R, operation: (R, Double) -> R): R {
+    var accumulator = initial
+    val iterator = iterator()
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextDouble())
+    return accumulator
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun <R> IntSequence.fold(initial: R, operation: (R, Int) -> R): R {
+    var accumulator = initial
+    val iterator = iterator()
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextInt())
+    return accumulator
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun <R> LongSequence.fold(initial: R, operation: (R, Long) -> R): R {
+    var accumulator = initial
+    val iterator = iterator()
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextLong())
+    return accumulator
+}
+
+/**
+ * Performs the given [operation] on each element.
+ */
+public inline fun DoubleSequence.forEach(operation: (Double) -> Unit): Unit {
+    val iterator = iterator()
+    while (iterator.hasNext()) operation(iterator.nextDouble())
+}
+
+/**
+ * Performs the given [operation] on each element.
+ */
+public inline fun IntSequence.forEach(operation: (Int) -> Unit): Unit {
+    val iterator = iterator()
+    while (iterator.hasNext()) operation(iterator.nextInt())
+}
+
+/**
+ * Performs the given [operation] on each element.
+ */
+public inline fun LongSequence.forEach(operation: (Long) -> Unit): Unit {
+    val iterator = iterator()
+    while (iterator.hasNext()) operation(iterator.nextLong())
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element of the original sequence. The function is inlined into the returned sequence, so the elements and the results aren't boxed for the call.
+ */
+public inline fun DoubleSequence.map(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) transform: (Double) -> Double): DoubleSequence {
+    return object : TransformingDoubleSequence(this@map) {
+        override fun transformValue(value: Double): Double = transform(value)
+    }
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element of the original sequence. The function is inlined into the returned sequence, so the elements and the results aren't boxed for the call.
+ */
+public inline fun IntSequence.map(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) transform: (Int) -> Int): IntSequence {
+    return object : TransformingIntSequence(this@map) {
+        override fun transformValue(value: Int): Int = transform(value)
+    }
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element of the original sequence. The function is inlined into the returned sequence, so the elements and the results aren't boxed for the call.
+ */
+public inline fun LongSequence.map(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) transform: (Long) -> Long): LongSequence {
+    return object : TransformingLongSequence(this@map) {
+        override fun transformValue(value: Long): Long = transform(value)
+    }
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun DoubleSequence.sum(): Double {
+    val iterator = iterator()
+    var sum: Double = 0.0
+    while (iterator.hasNext()) {
+        sum += iterator.nextDouble()
+    }
+    return sum
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun IntSequence.sum(): Int {
+    val iterator = iterator()
+    var sum: Int = 0
+    while (iterator.hasNext()) {
+        sum += iterator.nextInt()
+    }
+    return sum
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun LongSequence.sum(): Long {
+    val iterator = iterator()
+    var sum: Long = 0
+    while (iterator.hasNext()) {
+        sum += iterator.nextLong()
+    }
+    return sum
+}
+
+/**
+ * Returns an array containing all elements of the sequence.
+ */
+public fun DoubleSequence.toDoubleArray(): DoubleArray {
+    var result = DoubleArray(10)
+    var size = 0
+    val iterator = iterator()
+    while (iterator.hasNext()) {
+        if (size == result.size()) {
+            val newResult = DoubleArray(size * 2)
+            for (index in 0..size - 1) newResult[index] = result[index]
+            result = newResult
+        }
+        result[size++] = iterator.nextDouble()
+    }
+    if (size == result.size()) return result
+    val trimmed = DoubleArray(size)
+    for (index in 0..size - 1) trimmed[index] = result[index]
+    return trimmed
+}
+
+/**
+ * Returns an array containing all elements of the sequence.
+ */
+public fun IntSequence.toIntArray(): IntArray {
+    var result = IntArray(10)
+    var size = 0
+    val iterator = iterator()
+    while (iterator.hasNext()) {
+        if (size == result.size()) {
+            val newResult = IntArray(size * 2)
+            for (index in 0..size - 1) newResult[index] = result[index]
+            result = newResult
+        }
+        result[size++] = iterator.nextInt()
+    }
+    if (size == result.size()) return result
+    val trimmed = IntArray(size)
+    for (index in 0..size - 1) trimmed[index] = result[index]
+    return trimmed
+}
+
+/**
+ * Returns an array containing all elements of the sequence.
+ */
+public fun LongSequence.toLongArray(): LongArray {
+    var result = LongArray(10)
+    var size = 0
+    val iterator = iterator()
+    while (iterator.hasNext()) {
+        if (size == result.size()) {
+            val newResult = LongArray(size * 2)
+            for (index in 0..size - 1) newResult[index] = result[index]
+            result = newResult
+        }
+        result[size++] = iterator.nextLong()
+    }
+    if (size == result.size()) return result
+    val trimmed = LongArray(size)
+    for (index in 0..size - 1) trimmed[index] = result[index]
+    return trimmed
+}
+
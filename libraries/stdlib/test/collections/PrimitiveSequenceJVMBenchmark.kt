@@ -0,0 +1,48 @@
+package test.collections
+
+import java.lang.management.ManagementFactory
+import kotlin.platform.platformStatic
+
+/**
+ * Compares the time and the allocated memory of a map/filter/fold pipeline over [Sequence] and over [IntSequence],
+ * which boxes neither the values passed between the stages nor the values given to the inlined lambdas.
+ * Allocations are measured with `com.sun.management.ThreadMXBean` and aren't reported on JVMs without it.
+ *
+ * Usage: test.collections.PrimitiveSequenceJVMBenchmark [number of elements] [number of iterations]
+ */
+object PrimitiveSequenceJVMBenchmark {
+    private val threadBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+
+    private fun allocatedBytes(): Long {
+        val bean = threadBean
+        if (bean == null || !bean.isThreadAllocatedMemorySupported()) return -1
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId())
+    }
+
+    private fun formatAllocated(start: Long, end: Long): String =
+            if (start < 0 || end < 0) "n/a" else "${(end - start) / 1024} KB"
+
+    platformStatic fun main(args: Array<String>) {
+        val elements = if (args.size() > 0) args[0].toInt() else 10000000
+        val iterations = if (args.size() > 1) args[1].toInt() else 10
+
+        val range = 1..elements
+        for (iteration in 1..iterations) {
+            val boxedAllocatedStart = allocatedBytes()
+            val boxedStart = System.nanoTime()
+            val boxed = range.asSequence().map { it * 3 }.filter { it % 2 == 0 }.fold(0L) { sum, value -> sum + value }
+            val boxedTime = (System.nanoTime() - boxedStart) / 1000000
+            val boxedAllocated = formatAllocated(boxedAllocatedStart, allocatedBytes())
+
+            val primitiveAllocatedStart = allocatedBytes()
+            val primitiveStart = System.nanoTime()
+            val primitive = range.asIntSequence().map { it * 3 }.filter { it % 2 == 0 }.fold(0L) { sum, value -> sum + value }
+            val primitiveTime = (System.nanoTime() - primitiveStart) / 1000000
+            val primitiveAllocated = formatAllocated(primitiveAllocatedStart, allocatedBytes())
+
+            if (boxed != primitive) throw IllegalStateException("Results differ: $boxed != $primitive")
+            println("Iteration $iteration: Sequence<Int> $boxedTime ms, $boxedAllocated allocated; " +
+                    "IntSequence $primitiveTime ms, $primitiveAllocated allocated")
+        }
+    }
+}
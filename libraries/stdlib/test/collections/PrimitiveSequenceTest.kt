@@ -0,0 +1,61 @@
+package test.collections
+
+import org.junit.Test as test
+import kotlin.test.*
+
+public class PrimitiveSequenceTest {
+
+    test fun filterAndMap() {
+        val sequence = intSequenceOf(1, 2, 3, 4, 5, 6)
+        assertEquals(listOf(4, 8, 12), sequence.filter { it % 2 == 0 }.map { it * 2 }.asSequence().toList())
+        assertEquals(listOf(1, 3, 5), sequence.filterNot { it % 2 == 0 }.asSequence().toList())
+    }
+
+    test fun capturedValues() {
+        val divisor = 3
+        var calls = 0
+        val sequence = (1..10).asIntSequence().map { calls++; it * 2 }.filter { it % divisor == 0 }
+
+        // Inlined lambdas are invoked lazily, each time the sequence is iterated
+        assertEquals(0, calls)
+        assertEquals(listOf(6, 12, 18), sequence.asSequence().toList())
+        assertEquals(10, calls)
+        assertEquals(36, sequence.sum())
+        assertEquals(20, calls)
+    }
+
+    test fun filterEmptySequence() {
+        val sequence = longSequenceOf()
+        assertEquals(0, sequence.filter { true }.count())
+        assertEquals(0L, sequence.sum())
+    }
+
+    test fun terminalOperations() {
+        val sequence = (1..100).asIntSequence()
+        assertEquals(5050, sequence.sum())
+        assertEquals(100, sequence.count())
+        assertEquals(5050L, sequence.fold(0L) { acc, value -> acc + value })
+
+        var last = 0
+        sequence.forEach { last = it }
+        assertEquals(100, last)
+    }
+
+    test fun sumOfDoubles() {
+        assertEquals(4.5, doubleSequenceOf(1.0, 1.5, 2.0).sum())
+    }
+
+    test fun toArray() {
+        val array = (1..25).asIntSequence().map { it * it }.toIntArray()
+        assertEquals(25, array.size())
+        assertEquals(1, array[0])
+        assertEquals(625, array[24])
+        assertEquals(0, intSequenceOf().toIntArray().size())
+    }
+
+    test fun boxedSequence() {
+        val sequence = sequenceOf(3L, 1L, 2L).asLongSequence()
+        assertEquals(listOf(3L, 1L, 2L), sequence.asSequence().toList())
+        assertEquals(6L, sequence.sum())
+    }
+}
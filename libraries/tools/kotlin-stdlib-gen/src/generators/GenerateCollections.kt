@@ -18,6 +18,7 @@ fun generateCollectionsAPI(outDir: File) {
     generators().writeTo(File(outDir, "_Generators.kt")) { build() }
     strings().writeTo(File(outDir, "_Strings.kt")) { build() }
     sequences().writeTo(File(outDir, "_Sequences.kt")) { build() }
+    primitiveSequences().writeTo(File(outDir, "_PrimitiveSequences.kt")) { build() }
     specialJVM().writeTo(File(outDir, "_SpecialJVM.kt")) { build() }
     ranges().writeTo(File(outDir, "_Ranges.kt")) { build() }
 
@@ -0,0 +1,132 @@
+package generators
+
+import java.io.File
+import java.io.FileWriter
+import java.io.PrintWriter
+
+/**
+ * Generates sequences of primitive values, which pass the values between their stages without boxing.
+ * Operations on them are generated from templates/PrimitiveSequences.kt
+ */
+private fun generatePrimitiveSequences(outputFile: File, header: String) {
+
+    fun generatePrimitiveSequence(writer: PrintWriter, type: String) {
+        val sequenceType = type + "Sequence"
+        val iteratorType = type + "Iterator"
+        val zero = if (type == "Double") "0.0" else "0"
+
+        writer.println("""
+/**
+ * A sequence of values of type `$type`, which are passed between stages of the sequence without boxing.
+ * Functions given to `filter`, `filterNot` and `map` are inlined into their stages, so they don't box the values either.
+ */
+public trait $sequenceType {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public fun iterator(): $iteratorType
+}
+
+/**
+ * Returns a sequence of the given elements.
+ */
+public fun ${type.toLowerCase()}SequenceOf(vararg elements: $type): $sequenceType = elements.as$sequenceType()
+
+/**
+ * Returns a sequence which unboxes the elements of this sequence.
+ */
+public fun Sequence<$type>.as$sequenceType(): $sequenceType = object : $sequenceType {
+    override fun iterator(): $iteratorType = object : $iteratorType() {
+        val iterator = this@as$sequenceType.iterator()
+
+        override fun next$type(): $type = iterator.next()
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}
+
+/**
+ * A sequence that returns the values from the underlying [sequence] that either match or do not match
+ * the predicate implemented by [accept].
+ * `filter` and `filterNot` subclass it in place, inlining their predicate into [accept].
+ */
+public abstract class Filtering$sequenceType(
+        private val sequence: $sequenceType,
+        private val sendWhen: Boolean
+) : $sequenceType {
+
+    protected abstract fun accept(value: $type): Boolean
+
+    override fun iterator(): $iteratorType = object : $iteratorType() {
+        val iterator = sequence.iterator()
+        var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+        var nextItem: $type = $zero
+
+        private fun calcNext() {
+            while (iterator.hasNext()) {
+                val item = iterator.next$type()
+                if (accept(item) == sendWhen) {
+                    nextItem = item
+                    nextState = 1
+                    return
+                }
+            }
+            nextState = 0
+        }
+
+        override fun next$type(): $type {
+            if (nextState == -1)
+                calcNext()
+            if (nextState == 0)
+                throw NoSuchElementException()
+            nextState = -1
+            return nextItem
+        }
+
+        override fun hasNext(): Boolean {
+            if (nextState == -1)
+                calcNext()
+            return nextState == 1
+        }
+    }
+}
+
+/**
+ * A sequence which returns the results of applying [transformValue] to the values in the underlying [sequence].
+ * `map` subclasses it in place, inlining its function into [transformValue].
+ */
+public abstract class Transforming$sequenceType(
+        private val sequence: $sequenceType
+) : $sequenceType {
+
+    protected abstract fun transformValue(value: $type): $type
+
+    override fun iterator(): $iteratorType = object : $iteratorType() {
+        val iterator = sequence.iterator()
+
+        override fun next$type(): $type = transformValue(iterator.next$type())
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+    }
+}""")
+    }
+
+    println("Writing $outputFile")
+
+    outputFile.getParentFile()?.mkdirs()
+    val writer = PrintWriter(FileWriter(outputFile))
+    try {
+        writer.println(header)
+
+        writer.println("""
+$COMMON_AUTOGENERATED_WARNING
+""")
+        writer.println("import java.util.*")
+
+        for (type in arrayOf("Int", "Long", "Double")) {
+            generatePrimitiveSequence(writer, type)
+        }
+    } finally {
+        writer.close()
+    }
+}
@@ -29,6 +29,7 @@ fun main(args: Array<String>) {
     generateCollectionsJsAPI(jsCoreDir)
 
     generateDownTos(File(outDir, "_DownTo.kt"), "package kotlin")
+    generatePrimitiveSequences(File(outDir, "_PrimitiveSequenceTypes.kt"), "package kotlin")
 }
 
 fun String.flat() = this.replaceAll(" ", "")
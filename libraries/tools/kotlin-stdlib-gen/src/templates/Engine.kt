@@ -8,6 +8,7 @@ import kotlin.properties.Delegates
 
 enum class Family {
     Sequences,
+    SequencesOfPrimitives,
     Iterables,
     Collections,
     Lists,
@@ -20,7 +21,7 @@ enum class Family {
     Primitives,
     Generic;
 
-    val isPrimitiveSpecialization: Boolean by Delegates.lazy { this in listOf(ArraysOfPrimitives, RangesOfPrimitives, ProgressionsOfPrimitives, Primitives) }
+    val isPrimitiveSpecialization: Boolean by Delegates.lazy { this in listOf(ArraysOfPrimitives, RangesOfPrimitives, ProgressionsOfPrimitives, SequencesOfPrimitives, Primitives) }
 }
 
 enum class PrimitiveType(val name: String) {
@@ -180,6 +181,7 @@ class GenericFunction(val signature: String, val keyword: String = "fun") : Comp
             ArraysOfPrimitives -> primitive?.let { it.name() + "Array" } ?: throw IllegalArgumentException("Primitive array should specify primitive type")
             RangesOfPrimitives -> primitive?.let { it.name() + "Range" } ?: throw IllegalArgumentException("Primitive range should specify primitive type")
             ProgressionsOfPrimitives -> primitive?.let { it.name() + "Progression" } ?: throw IllegalArgumentException("Primitive progression should specify primitive type")
+            SequencesOfPrimitives -> primitive?.let { it.name() + "Sequence" } ?: throw IllegalArgumentException("Primitive sequence should specify primitive type")
             Primitives -> primitive?.let { it.name } ?: throw IllegalArgumentException("Primitive should specify primitive type")
             Generic -> "T"
             else -> throw IllegalStateException("Invalid family")
@@ -244,7 +246,10 @@ class GenericFunction(val signature: String, val keyword: String = "fun") : Comp
                                           else -> primitive!!.name + "Progression"
                                       }
                                   }
-                                  else -> token
+                                  else -> {
+                                      // Names of primitive specializations, like nextPRIMITIVE or PRIMITIVEArray
+                                      if (primitive != null) token.replace("PRIMITIVE", primitive.name) else token
+                                  }
                               })
             }
 
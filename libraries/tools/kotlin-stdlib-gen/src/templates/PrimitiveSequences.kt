@@ -0,0 +1,182 @@
+package templates
+
+import templates.Family.*
+
+fun primitiveSequences(): List<GenericFunction> {
+    val templates = arrayListOf<GenericFunction>()
+
+    fun GenericFunction.onlySequencePrimitives() {
+        only(PrimitiveType.Int, PrimitiveType.Long, PrimitiveType.Double)
+    }
+
+    templates add f("asPRIMITIVESequence()") {
+        only(ArraysOfPrimitives, RangesOfPrimitives, ProgressionsOfPrimitives)
+        onlySequencePrimitives()
+        doc { "Returns a sequence of the elements of this collection which doesn't box them." }
+        returns("PRIMITIVESequence")
+        body {
+            """
+            return object : PRIMITIVESequence {
+                override fun iterator(): PRIMITIVEIterator {
+                    return this@asPRIMITIVESequence.iterator()
+                }
+            }
+            """
+        }
+    }
+
+    templates add f("asSequence()") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        doc { "Returns a sequence of the elements of this sequence which boxes them." }
+        returns("Sequence<T>")
+        body {
+            """
+            return object : Sequence<T> {
+                override fun iterator(): Iterator<T> {
+                    return this@asSequence.iterator()
+                }
+            }
+            """
+        }
+    }
+
+    templates add f("filter(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (T) -> Boolean)") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        inline(true)
+        doc { "Returns a sequence containing all elements matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call." }
+        returns("SELF")
+        body {
+            """
+            return object : FilteringPRIMITIVESequence(this@filter, true) {
+                override fun accept(value: T): Boolean = predicate(value)
+            }
+            """
+        }
+    }
+
+    templates add f("filterNot(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) predicate: (T) -> Boolean)") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        inline(true)
+        doc { "Returns a sequence containing all elements not matching the given [predicate]. The predicate is inlined into the returned sequence, so the elements aren't boxed for the call." }
+        returns("SELF")
+        body {
+            """
+            return object : FilteringPRIMITIVESequence(this@filterNot, false) {
+                override fun accept(value: T): Boolean = predicate(value)
+            }
+            """
+        }
+    }
+
+    templates add f("map(inlineOptions(InlineOption.ONLY_LOCAL_RETURN) transform: (T) -> T)") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        inline(true)
+        doc { "Returns a sequence containing the results of applying the given [transform] function to each element of the original sequence. The function is inlined into the returned sequence, so the elements and the results aren't boxed for the call." }
+        returns("SELF")
+        body {
+            """
+            return object : TransformingPRIMITIVESequence(this@map) {
+                override fun transformValue(value: T): T = transform(value)
+            }
+            """
+        }
+    }
+
+    templates add f("forEach(operation: (T) -> Unit)") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        inline(true)
+        doc { "Performs the given [operation] on each element." }
+        returns("Unit")
+        body {
+            """
+            val iterator = iterator()
+            while (iterator.hasNext()) operation(iterator.nextPRIMITIVE())
+            """
+        }
+    }
+
+    templates add f("fold(initial: R, operation: (R, T) -> R)") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        inline(true)
+        doc { "Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element." }
+        typeParam("R")
+        returns("R")
+        body {
+            """
+            var accumulator = initial
+            val iterator = iterator()
+            while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextPRIMITIVE())
+            return accumulator
+            """
+        }
+    }
+
+    templates add f("sum()") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        doc { "Returns the sum of all elements in the sequence." }
+        returns("SUM")
+        body {
+            """
+            val iterator = iterator()
+            var sum: SUM = ZERO
+            while (iterator.hasNext()) {
+                sum += iterator.nextPRIMITIVE()
+            }
+            return sum
+            """
+        }
+    }
+
+    templates add f("count()") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        doc { "Returns the number of elements in the sequence." }
+        returns("Int")
+        body {
+            """
+            val iterator = iterator()
+            var count = 0
+            while (iterator.hasNext()) {
+                iterator.nextPRIMITIVE()
+                count++
+            }
+            return count
+            """
+        }
+    }
+
+    templates add f("toPRIMITIVEArray()") {
+        only(SequencesOfPrimitives)
+        onlySequencePrimitives()
+        doc { "Returns an array containing all elements of the sequence." }
+        returns("PRIMITIVEArray")
+        body {
+            """
+            var result = PRIMITIVEArray(10)
+            var size = 0
+            val iterator = iterator()
+            while (iterator.hasNext()) {
+                if (size == result.size()) {
+                    val newResult = PRIMITIVEArray(size * 2)
+                    for (index in 0..size - 1) newResult[index] = result[index]
+                    result = newResult
+                }
+                result[size++] = iterator.nextPRIMITIVE()
+            }
+            if (size == result.size()) return result
+            val trimmed = PRIMITIVEArray(size)
+            for (index in 0..size - 1) trimmed[index] = result[index]
+            return trimmed
+            """
+        }
+    }
+
+    return templates
+}